@@ -0,0 +1,67 @@
+package com.gst.billing.benchmarks;
+
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceItem;
+import com.gst.billing.model.InvoiceItemRequest;
+import com.gst.billing.model.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic catalog and invoice data for the benchmarks.
+ *
+ * Products cycle through the GST slabs 0/5/12/18/28% with prices from a few
+ * rupees to a few lakh, so no single rate or magnitude dominates a run.
+ */
+public final class GstFixtures {
+
+	public static final BigDecimal[] GST_RATES = { new BigDecimal("0.00"), new BigDecimal("5.00"),
+			new BigDecimal("12.00"), new BigDecimal("18.00"), new BigDecimal("28.00") };
+
+	private static final long SEED = 20240601L;
+
+	private GstFixtures() {
+	}
+
+	// Catalog with ids 1..count
+	public static Map<Long, Product> products(int count) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		Map<Long, Product> products = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			long paise = random.nextLong(500, 50_000_000);
+			Product product = new Product("Product " + i, null, BigDecimal.valueOf(paise, 2), "8471",
+					GST_RATES[i % GST_RATES.length]);
+			product.setId((long) i + 1);
+			products.put(product.getId(), product);
+		}
+		return products;
+	}
+
+	// Line requests over the catalog with quantities 1..50
+	public static List<InvoiceItemRequest> itemRequests(Map<Long, Product> products, int count) {
+		SplittableRandom random = new SplittableRandom(SEED + 1);
+		List<Long> ids = new ArrayList<>(products.keySet());
+		List<InvoiceItemRequest> requests = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			InvoiceItemRequest request = new InvoiceItemRequest();
+			request.setProductId(ids.get(i % ids.size()));
+			request.setQuantity(random.nextInt(1, 51));
+			requests.add(request);
+		}
+		return requests;
+	}
+
+	// Invoice whose items are already priced, as loaded for the view page
+	public static Invoice invoice(Map<Long, Product> products, int itemCount) {
+		Invoice invoice = new Invoice();
+		for (InvoiceItemRequest request : itemRequests(products, itemCount)) {
+			invoice.addItem(new InvoiceItem(products.get(request.getProductId()), request.getQuantity()));
+		}
+		return invoice;
+	}
+}
@@ -0,0 +1,105 @@
+package com.gst.billing.model;
+
+import com.gst.billing.benchmarks.GstFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of pricing a single invoice line.
+ *
+ * Each benchmark walks the whole rate mix per invocation, so results are per
+ * batch of {@link #LINES} lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceItemBenchmark {
+
+	private static final int LINES = 50;
+
+	private List<Product> products;
+	private int[] quantities;
+	private List<InvoiceItem> items;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		products = new ArrayList<>(GstFixtures.products(LINES).values());
+		quantities = GstFixtures.itemRequests(GstFixtures.products(LINES), LINES).stream()
+				.mapToInt(InvoiceItemRequest::getQuantity).toArray();
+		items = new ArrayList<>(LINES);
+		for (int i = 0; i < LINES; i++) {
+			items.add(new InvoiceItem(products.get(i), quantities[i]));
+		}
+	}
+
+	// new InvoiceItem(product, quantity): one calculation per line
+	@Benchmark
+	public InvoiceItem construct() {
+		InvoiceItem last = null;
+		for (int i = 0; i < LINES; i++) {
+			last = new InvoiceItem(products.get(i), quantities[i]);
+		}
+		return last;
+	}
+
+	// The setter sequence InvoiceService uses: every setter recalculates
+	@Benchmark
+	public InvoiceItem buildWithSetters() {
+		InvoiceItem last = null;
+		for (int i = 0; i < LINES; i++) {
+			Product product = products.get(i);
+			InvoiceItem item = new InvoiceItem();
+			item.setProduct(product);
+			item.setQuantity(quantities[i]);
+			item.setUnitPrice(product.getPrice());
+			item.setGstRate(product.getGstRate());
+			item.calculateAmounts();
+			last = item;
+		}
+		return last;
+	}
+
+	// The BigDecimal formula InvoiceItem falls back to, as a baseline for the paise path
+	@Benchmark
+	public BigDecimal bigDecimalBaseline() {
+		BigDecimal last = null;
+		for (int i = 0; i < LINES; i++) {
+			Product product = products.get(i);
+			BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(quantities[i]));
+			BigDecimal gst = itemTotal.multiply(product.getGstRate()).divide(BigDecimal.valueOf(100), 2,
+					RoundingMode.HALF_UP);
+			last = itemTotal.add(gst);
+		}
+		return last;
+	}
+
+	// A single recalculation on an already built line
+	@Benchmark
+	public InvoiceItem calculateAmounts() {
+		InvoiceItem last = null;
+		for (int i = 0; i < LINES; i++) {
+			last = items.get(i);
+			last.calculateAmounts();
+		}
+		return last;
+	}
+}
@@ -0,0 +1,57 @@
+package com.gst.billing.service;
+
+import com.gst.billing.benchmarks.GstFixtures;
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceItemRequest;
+import com.gst.billing.model.Product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and totalling an invoice of N lines, as createInvoice and the bulk
+ * import do once the products are loaded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceTotalsBenchmark {
+
+	@Param({ "1", "10", "100", "1000" })
+	public int items;
+
+	private final InvoiceService invoiceService = new InvoiceService();
+
+	private Map<Long, Product> products;
+	private List<InvoiceItemRequest> requests;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		products = GstFixtures.products(Math.min(items, 200));
+		requests = GstFixtures.itemRequests(products, items);
+	}
+
+	@Benchmark
+	public Invoice applyItems() {
+		Invoice invoice = new Invoice();
+		invoiceService.applyItems(invoice, requests, products);
+		return invoice;
+	}
+}
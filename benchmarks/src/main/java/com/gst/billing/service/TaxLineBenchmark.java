@@ -0,0 +1,52 @@
+package com.gst.billing.service;
+
+import com.gst.billing.benchmarks.GstFixtures;
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceTaxLine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-rate tax lines worked out once when an invoice is written, for both the
+ * CGST + SGST split and IGST.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaxLineBenchmark {
+
+	@Param({ "5", "50", "500" })
+	public int items;
+
+	@Param({ "false", "true" })
+	public boolean interState;
+
+	private Invoice invoice;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		invoice = GstFixtures.invoice(GstFixtures.products(Math.min(items, 200)), items);
+	}
+
+	@Benchmark
+	public List<InvoiceTaxLine> calculateTaxLines() {
+		return InvoiceTaxService.calculateTaxLines(invoice.getItems(), interState);
+	}
+}
@@ -0,0 +1,292 @@
+package com.gst.billing.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concurrent clients acting as the seeded tenants over real HTTP. Each client
+ * logs in through the login form, makes load.session-requests requests drawn
+ * from the operation mix with that session, then logs in again, possibly as
+ * another tenant. Busier tenants get proportionally more sessions. Only
+ * requests started after the warm-up are measured.
+ */
+public class LoadDriver {
+
+	public enum Operation {
+		LOGIN, CREATE, LIST, SEARCH, DASHBOARD, PDF, EXCEL
+	}
+
+	// A seeded user and ids to build its requests from: its favourite customers and products and recent invoices
+	public record Tenant(String username, long invoiceCount, List<Long> customerIds, List<Long> productIds,
+			List<Long> invoiceIds, List<String> invoiceNumbers) {
+	}
+
+	// Slowest latency the histograms record exactly; anything longer is clamped to it
+	private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final String baseUrl;
+	private final LoadSettings settings;
+	private final List<Tenant> tenants;
+	private final double[] tenantWeights;
+	private final Operation[] operations;
+	private final double[] operationWeights;
+	private final HttpClient http;
+
+	private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+	private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+	private final Map<Operation, AtomicReference<String>> firstError = new EnumMap<>(Operation.class);
+
+	public LoadDriver(String baseUrl, LoadSettings settings, List<Tenant> tenants) {
+		this.baseUrl = baseUrl;
+		this.settings = settings;
+		this.tenants = tenants;
+
+		tenantWeights = new double[tenants.size()];
+		double sum = 0;
+		for (int i = 0; i < tenants.size(); i++) {
+			sum += Math.max(1, tenants.get(i).invoiceCount());
+			tenantWeights[i] = sum;
+		}
+
+		operations = settings.getMix().keySet().toArray(Operation[]::new);
+		operationWeights = new double[operations.length];
+		sum = 0;
+		for (int i = 0; i < operations.length; i++) {
+			sum += settings.getMix().get(operations[i]);
+			operationWeights[i] = sum;
+		}
+
+		for (Operation operation : Operation.values()) {
+			latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+			errors.put(operation, new AtomicLong());
+			firstError.put(operation, new AtomicReference<>());
+		}
+
+		// One client for all sessions, as a browser population shares the network; sessions differ by cookie
+		http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.followRedirects(HttpClient.Redirect.NEVER).connectTimeout(Duration.ofSeconds(10)).build();
+	}
+
+	// Every USER with ids for its requests, weighted by its number of invoices
+	public static List<Tenant> tenants(DataSource dataSource) {
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		List<Tenant> tenants = new ArrayList<>();
+		jdbc.query("select u.id, u.username, count(i.id) from users u left join invoices i on i.user_id = u.id "
+				+ "where u.role = 'USER' and u.enabled group by u.id, u.username order by u.id", row -> {
+					long userId = row.getLong(1);
+					// Lowest ids are the most popular customers and products; users open their latest invoices
+					List<Long> customers = jdbc.queryForList(
+							"select id from customers where created_by = ? order by id limit 20", Long.class, userId);
+					List<Long> products = jdbc.queryForList(
+							"select id from products where created_by = ? order by id limit 20", Long.class, userId);
+					List<Long> invoiceIds = new ArrayList<>();
+					List<String> invoiceNumbers = new ArrayList<>();
+					jdbc.query("select id, invoice_number from invoices where user_id = ? "
+							+ "order by invoice_date desc, id desc limit 50", invoice -> {
+								invoiceIds.add(invoice.getLong(1));
+								invoiceNumbers.add(invoice.getString(2));
+							}, userId);
+					if (!customers.isEmpty() && !products.isEmpty()) {
+						tenants.add(new Tenant(row.getString(2), row.getLong(3), customers, products, invoiceIds,
+								invoiceNumbers));
+					}
+				});
+		return tenants;
+	}
+
+	// Run the warm-up and the measured period, then report the measured requests
+	public String run() throws InterruptedException {
+		long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+		long end = warmupEnd + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+		// Clients block on I/O most of the time, so each gets a virtual thread
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int c = 0; c < settings.getClients(); c++) {
+				SplittableRandom random = new SplittableRandom(settings.getSeed() + c);
+				executor.submit(() -> client(random, warmupEnd, end));
+			}
+		}
+		return report();
+	}
+
+	private void client(SplittableRandom random, long warmupEnd, long end) {
+		while (System.nanoTime() < end) {
+			Session session = new Session(tenants.get(SyntheticData.sample(tenantWeights, random)));
+			if (!measure(Operation.LOGIN, warmupEnd, () -> session.login())) {
+				continue;
+			}
+			for (int r = 0; r < settings.getSessionRequests() && System.nanoTime() < end; r++) {
+				Operation operation = operations[SyntheticData.sample(operationWeights, random)];
+				measure(operation, warmupEnd, () -> session.perform(operation, random));
+			}
+		}
+	}
+
+	private interface Request {
+		// Null when the response is what the page returns on success, else what went wrong
+		String send() throws IOException, InterruptedException;
+	}
+
+	private boolean measure(Operation operation, long warmupEnd, Request request) {
+		long started = System.nanoTime();
+		String error;
+		try {
+			error = request.send();
+		} catch (IOException e) {
+			error = e.toString();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		if (started >= warmupEnd) {
+			if (error == null) {
+				long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+				latencies.get(operation).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+			} else {
+				errors.get(operation).incrementAndGet();
+				firstError.get(operation).compareAndSet(null, error);
+			}
+		}
+		return error == null;
+	}
+
+	// One logged-in browser session of a tenant
+	private class Session {
+		private final Tenant tenant;
+		private String cookie;
+
+		Session(Tenant tenant) {
+			this.tenant = tenant;
+		}
+
+		String login() throws IOException, InterruptedException {
+			HttpResponse<Void> response = http.send(form("/login", "username=" + encode(tenant.username())
+					+ "&password=" + encode(settings.getPassword())).build(), HttpResponse.BodyHandlers.discarding());
+			String location = response.headers().firstValue("Location").orElse("");
+			if (response.statusCode() != 302 || !location.endsWith("/dashboard")) {
+				return "login of " + tenant.username() + " answered " + response.statusCode() + " " + location;
+			}
+			cookie = response.headers().allValues("Set-Cookie").stream().filter(c -> c.startsWith("JSESSIONID="))
+					.map(c -> c.substring(0, c.indexOf(';') > 0 ? c.indexOf(';') : c.length())).findFirst()
+					.orElse(null);
+			return cookie != null ? null : "login of " + tenant.username() + " set no session cookie";
+		}
+
+		String perform(Operation operation, SplittableRandom random) throws IOException, InterruptedException {
+			boolean hasInvoices = !tenant.invoiceIds().isEmpty();
+			int invoice = hasInvoices ? random.nextInt(tenant.invoiceIds().size()) : 0;
+			return switch (operation) {
+			case CREATE -> create(random);
+			case LIST -> get("/invoices/list");
+			case SEARCH -> get(hasInvoices ? "/invoices/search?query=" + encode(tenant.invoiceNumbers().get(invoice))
+					: "/invoices/list");
+			case DASHBOARD -> get("/dashboard");
+			case PDF -> get(hasInvoices ? "/invoices/download/" + tenant.invoiceIds().get(invoice) : "/invoices/list");
+			case EXCEL -> get("/invoices/download/excel");
+			case LOGIN -> login();
+			};
+		}
+
+		// An invoice of one to five lines for one of the tenant's regular customers
+		private String create(SplittableRandom random) throws IOException, InterruptedException {
+			List<Long> customers = tenant.customerIds();
+			List<Long> products = tenant.productIds();
+			// The lower of two draws favours the first, most regular customers
+			int customer = Math.min(random.nextInt(customers.size()), random.nextInt(customers.size()));
+			StringBuilder body = new StringBuilder("customerId=").append(customers.get(customer));
+			int lines = 1 + random.nextInt(5);
+			for (int i = 0; i < lines; i++) {
+				body.append("&items%5B").append(i).append("%5D.productId=")
+						.append(products.get(random.nextInt(products.size())));
+				body.append("&items%5B").append(i).append("%5D.quantity=").append(1 + random.nextInt(10));
+			}
+			HttpResponse<Void> response = http.send(withCookie(form("/invoices/create", body.toString())),
+					HttpResponse.BodyHandlers.discarding());
+			String location = response.headers().firstValue("Location").orElse("");
+			return response.statusCode() == 302 && location.contains("/invoices/list?message") ? null
+					: "create answered " + response.statusCode() + " " + location;
+		}
+
+		private String get(String path) throws IOException, InterruptedException {
+			HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+			int status = http.send(withCookie(request), HttpResponse.BodyHandlers.discarding()).statusCode();
+			return status == 200 ? null : path + " answered " + status;
+		}
+
+		private HttpRequest withCookie(HttpRequest.Builder request) {
+			return request.header("Cookie", cookie).timeout(Duration.ofSeconds(120)).build();
+		}
+	}
+
+	private HttpRequest.Builder form(String path, String body) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(body));
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	public boolean hasErrors() {
+		return errors.values().stream().anyMatch(count -> count.get() > 0);
+	}
+
+	// Throughput and latency percentiles per operation over the measured period
+	private String report() {
+		double seconds = settings.getDurationSeconds();
+		StringBuilder text = new StringBuilder(String.format("%-10s %9s %7s %9s %9s %9s %9s %9s %9s%n", "operation",
+				"requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+		long allErrors = 0;
+		for (Operation operation : Operation.values()) {
+			Histogram histogram = latencies.get(operation);
+			long failed = errors.get(operation).get();
+			if (histogram.getTotalCount() == 0 && failed == 0) {
+				continue;
+			}
+			all.add(histogram);
+			allErrors += failed;
+			text.append(row(operation.name().toLowerCase(Locale.ROOT), histogram, failed, seconds));
+		}
+		text.append(row("all", all, allErrors, seconds));
+		for (Operation operation : Operation.values()) {
+			String error = firstError.get(operation).get();
+			if (error != null) {
+				text.append(String.format("first %s error: %s%n", operation.name().toLowerCase(Locale.ROOT), error));
+			}
+		}
+		return text.toString();
+	}
+
+	private static String row(String name, Histogram histogram, long errors, double seconds) {
+		return String.format("%-10s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, histogram.getTotalCount(),
+				errors, histogram.getTotalCount() / seconds, millis(histogram, 50), millis(histogram, 90),
+				millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+	}
+
+	private static double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+}
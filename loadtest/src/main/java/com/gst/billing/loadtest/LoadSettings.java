@@ -0,0 +1,164 @@
+package com.gst.billing.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Knobs of a load test run, read from -Dload.* system properties. The
+ * defaults reproduce the production shape: 500 users, 50k customers, 20k
+ * products and 5M invoice lines.
+ */
+public class LoadSettings {
+
+	// Data shape
+	private final int users = Integer.getInteger("load.users", 500);
+	private final int customers = Integer.getInteger("load.customers", 50_000);
+	private final int products = Integer.getInteger("load.products", 20_000);
+	private final long lines = Long.getLong("load.lines", 5_000_000L);
+	private final int days = Integer.getInteger("load.days", 730);
+	private final double skew = Double.parseDouble(System.getProperty("load.skew", "0.8"));
+	private final long seed = Long.getLong("load.seed", 20240601L);
+	private final int seedThreads = Integer.getInteger("load.seed-threads",
+			Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+	private final boolean reseed = Boolean.getBoolean("load.reseed");
+	private final String password = System.getProperty("load.password", "load-secret");
+	private final String companyGstin = System.getProperty("load.seller-gstin", "29AABCU9603R1ZX");
+
+	// Database; an H2 file under target/ keeps the seeded data between runs
+	private final String dbUrl = System.getProperty("load.db.url",
+			"jdbc:h2:file:./target/loadtest/gst_billing;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+	private final String dbUsername = System.getProperty("load.db.username", "sa");
+	private final String dbPassword = System.getProperty("load.db.password", "");
+	private final int poolSize = Integer.getInteger("load.pool-size", 30);
+
+	// Traffic
+	private final int clients = Integer.getInteger("load.clients", 100);
+	private final int warmupSeconds = Integer.getInteger("load.warmup-seconds", 30);
+	private final int durationSeconds = Integer.getInteger("load.duration-seconds", 120);
+	private final int sessionRequests = Integer.getInteger("load.session-requests", 50);
+	private final boolean virtualThreads = Boolean.getBoolean("load.virtual-threads");
+	private final Map<LoadDriver.Operation, Integer> mix = parseMix(
+			System.getProperty("load.mix", "create=10,list=25,search=15,dashboard=20,pdf=25,excel=5"));
+
+	// "create=10,list=25,..." to weights per operation; operations left out are not run
+	static Map<LoadDriver.Operation, Integer> parseMix(String text) {
+		Map<LoadDriver.Operation, Integer> weights = new EnumMap<>(LoadDriver.Operation.class);
+		for (String part : text.split(",")) {
+			String[] pair = part.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("load.mix entry must be operation=weight: " + part);
+			}
+			LoadDriver.Operation operation = LoadDriver.Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+			if (operation == LoadDriver.Operation.LOGIN) {
+				throw new IllegalArgumentException("Logins follow load.session-requests and have no weight");
+			}
+			weights.put(operation, Integer.parseInt(pair[1].trim()));
+		}
+		return weights;
+	}
+
+	// h2 or mysql, the Flyway migration folder of the database
+	public String vendor() {
+		if (dbUrl.startsWith("jdbc:h2:")) {
+			return "h2";
+		}
+		if (dbUrl.startsWith("jdbc:mysql:")) {
+			return "mysql";
+		}
+		throw new IllegalArgumentException("load.db.url must be an H2 or MySQL JDBC URL: " + dbUrl);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d users, %d customers, %d products, %d lines over %d days (skew %.2f)%n"
+				+ "%d clients, %ds warm-up + %ds measured, login every %d requests, %s threads, pool of %d, mix %s",
+				users, customers, products, lines, days, skew, clients, warmupSeconds, durationSeconds,
+				sessionRequests, virtualThreads ? "virtual" : "platform", poolSize, mix);
+	}
+
+	// Getters
+	public int getUsers() {
+		return users;
+	}
+
+	public int getCustomers() {
+		return customers;
+	}
+
+	public int getProducts() {
+		return products;
+	}
+
+	public long getLines() {
+		return lines;
+	}
+
+	public int getDays() {
+		return days;
+	}
+
+	public double getSkew() {
+		return skew;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getSeedThreads() {
+		return seedThreads;
+	}
+
+	public boolean isReseed() {
+		return reseed;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public String getCompanyGstin() {
+		return companyGstin;
+	}
+
+	public String getDbUrl() {
+		return dbUrl;
+	}
+
+	public String getDbUsername() {
+		return dbUsername;
+	}
+
+	public String getDbPassword() {
+		return dbPassword;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public int getClients() {
+		return clients;
+	}
+
+	public int getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public int getSessionRequests() {
+		return sessionRequests;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public Map<LoadDriver.Operation, Integer> getMix() {
+		return mix;
+	}
+}
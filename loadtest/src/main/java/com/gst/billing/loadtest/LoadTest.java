@@ -0,0 +1,82 @@
+package com.gst.billing.loadtest;
+
+import com.gst.billing.GstBillingSystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seeds a production-sized database (once; later runs reuse it), starts the
+ * application on it in this JVM and drives it over HTTP from many logged-in
+ * clients. Throughput and latency percentiles per operation are printed and
+ * written to target/load-report.txt; the run fails if any request failed.
+ *
+ * <pre>
+ * java -Dload.clients=200 -Dload.duration-seconds=300 -jar target/loadtest.jar
+ * </pre>
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws Exception {
+		LoadSettings settings = new LoadSettings();
+		System.out.println(settings);
+
+		new TenantSeeder(settings).seedIfEmpty();
+
+		long started = System.nanoTime();
+		// Command-line arguments, unlike default properties, win over the application's own properties file
+		List<String> arguments = new ArrayList<>(applicationArguments(settings));
+		arguments.addAll(Arrays.asList(args));
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GstBillingSystemApplication.class)
+				.run(arguments.toArray(String[]::new))) {
+			Environment environment = context.getEnvironment();
+			String baseUrl = "http://localhost:" + environment.getProperty("local.server.port");
+			System.out.printf("Application started in %.1fs at %s, metrics at http://localhost:%s/actuator/prometheus%n",
+					(System.nanoTime() - started) / 1e9, baseUrl, environment.getProperty("local.management.port"));
+
+			List<LoadDriver.Tenant> tenants = LoadDriver.tenants(context.getBean(DataSource.class));
+			LoadDriver driver = new LoadDriver(baseUrl, settings, tenants);
+			String report = settings + System.lineSeparator() + driver.run();
+			System.out.println(report);
+			Files.writeString(Path.of("target", "load-report.txt"), report);
+
+			if (driver.hasErrors()) {
+				System.exit(1);
+			}
+		}
+		System.exit(0);
+	}
+
+	// The seeded database, quiet logging and production caching instead of the development settings
+	private static List<String> applicationArguments(LoadSettings settings) {
+		String dialect = "mysql".equals(settings.vendor()) ? "org.hibernate.dialect.MySQLDialect"
+				: "org.hibernate.dialect.H2Dialect";
+		return List.of(
+				"--spring.datasource.url=" + settings.getDbUrl(),
+				"--spring.datasource.username=" + settings.getDbUsername(),
+				"--spring.datasource.password=" + settings.getDbPassword(),
+				"--spring.datasource.hikari.maximum-pool-size=" + settings.getPoolSize(),
+				"--spring.datasource.hikari.minimum-idle=" + settings.getPoolSize(),
+				"--spring.jpa.properties.hibernate.dialect=" + dialect,
+				"--spring.jpa.show-sql=false",
+				"--spring.thymeleaf.cache=true",
+				"--spring.threads.virtual.enabled=" + settings.isVirtualThreads(),
+				"--debug=false",
+				"--logging.level.root=WARN",
+				"--logging.level.org.springframework.security=WARN",
+				"--logging.level.org.springframework.web=WARN",
+				"--logging.level.org.thymeleaf=ERROR",
+				"--server.port=0",
+				"--management.server.port=0",
+				"--billing.seller.gstin=" + settings.getCompanyGstin(),
+				"--billing.search.directory=target/loadtest/search-index",
+				"--billing.pdf-cache.directory=target/loadtest/pdf-cache");
+	}
+}
@@ -0,0 +1,194 @@
+package com.gst.billing.loadtest;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Distributions behind the seeded data. Tenant size, customer reuse and
+ * product popularity follow Zipf laws; GST rates come from the HSN code of
+ * each product, and the HSN codes are weighted so that 18% lines dominate as
+ * they do in real returns, followed by 12%, 5%, 28% and exempt goods.
+ */
+public final class SyntheticData {
+
+	// An HSN (goods) or SAC (services) code, its GST rate, a typical unit price and its share of catalogs
+	public record Hsn(String code, String label, String rate, long typicalPaise, int weight) {
+	}
+
+	public static final List<Hsn> HSN_CODES = List.of(
+			new Hsn("8471", "Laptop", "18.00", 5_500_000, 60),
+			new Hsn("8517", "Mobile Phone", "18.00", 1_800_000, 60),
+			new Hsn("8528", "LED Monitor", "18.00", 1_200_000, 30),
+			new Hsn("8504", "Power Adapter", "18.00", 90_000, 40),
+			new Hsn("8544", "Copper Cable", "18.00", 25_000, 60),
+			new Hsn("7318", "Steel Bolt Set", "18.00", 4_500, 70),
+			new Hsn("7308", "Steel Channel", "18.00", 350_000, 30),
+			new Hsn("3917", "PVC Pipe", "18.00", 60_000, 40),
+			new Hsn("3926", "Plastic Crate", "18.00", 30_000, 40),
+			new Hsn("4819", "Corrugated Carton", "18.00", 3_500, 50),
+			new Hsn("9403", "Office Chair", "18.00", 650_000, 30),
+			new Hsn("3208", "Enamel Paint", "18.00", 110_000, 30),
+			new Hsn("9983", "Consulting Hour", "18.00", 250_000, 50),
+			new Hsn("9973", "Equipment Rental Day", "18.00", 400_000, 20),
+			new Hsn("6203", "Cotton Trousers", "12.00", 90_000, 35),
+			new Hsn("3004", "Tablet Strip", "12.00", 12_000, 40),
+			new Hsn("9018", "Surgical Instrument", "12.00", 250_000, 15),
+			new Hsn("4802", "Copier Paper Ream", "12.00", 28_000, 30),
+			new Hsn("6109", "Cotton T-Shirt", "5.00", 45_000, 40),
+			new Hsn("1006", "Basmati Rice 25kg", "5.00", 220_000, 35),
+			new Hsn("0902", "Tea 1kg", "5.00", 45_000, 30),
+			new Hsn("1701", "Sugar 50kg", "5.00", 210_000, 25),
+			new Hsn("1507", "Soybean Oil 15L", "5.00", 190_000, 25),
+			new Hsn("9963", "Catering Plate", "5.00", 35_000, 15),
+			new Hsn("8415", "Split Air Conditioner", "28.00", 4_200_000, 15),
+			new Hsn("8708", "Brake Pad Set", "28.00", 180_000, 25),
+			new Hsn("2523", "Cement Bag", "28.00", 42_000, 25),
+			new Hsn("8711", "Motorcycle", "28.00", 9_500_000, 5),
+			new Hsn("0401", "Milk 1L", "0.00", 6_500, 20),
+			new Hsn("0713", "Toor Dal 30kg", "0.00", 420_000, 15),
+			new Hsn("4901", "Printed Book", "0.00", 60_000, 15));
+
+	// GST state codes of sellers and buyers, by share of registrations
+	private static final String[] STATE_CODES = { "27", "29", "33", "07", "24", "09", "19", "36", "32", "08" };
+	private static final int[] STATE_WEIGHTS = { 25, 15, 10, 12, 12, 8, 6, 6, 3, 3 };
+
+	private static final String[] SURNAMES = { "Sharma", "Patel", "Gupta", "Reddy", "Iyer", "Singh", "Khan",
+			"Mehta", "Joshi", "Nair", "Das", "Rao", "Agarwal", "Kapoor", "Bose", "Menon", "Shah", "Verma", "Chopra",
+			"Pillai", "Banerjee", "Kulkarni", "Desai", "Jain", "Malhotra" };
+	private static final String[] TRADES = { "Traders", "Enterprises", "Industries", "Stores", "Agencies",
+			"and Sons", "Pharma", "Textiles", "Steel Works", "Electronics", "Foods", "Logistics", "Hardware",
+			"Distributors", "Exports" };
+	private static final String[] CITIES = { "Mumbai", "Bengaluru", "Chennai", "New Delhi", "Ahmedabad", "Lucknow",
+			"Kolkata", "Hyderabad", "Kochi", "Jaipur" };
+
+	private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+	private static final String ALPHANUMERIC = "0123456789" + LETTERS;
+
+	private SyntheticData() {
+	}
+
+	// Cumulative Zipf weights of ranks 0..n-1: rank k is drawn in proportion to 1 / (k + 1)^exponent
+	public static double[] zipf(int n, double exponent) {
+		double[] cumulative = new double[n];
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			sum += 1 / Math.pow(k + 1, exponent);
+			cumulative[k] = sum;
+		}
+		return cumulative;
+	}
+
+	// Index drawn from cumulative weights
+	public static int sample(double[] cumulative, SplittableRandom random) {
+		double target = random.nextDouble() * cumulative[cumulative.length - 1];
+		int low = 0;
+		int high = cumulative.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cumulative[middle] <= target) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// total split in proportion to the (non-cumulative) weights, at least minimum each, summing to total
+	public static long[] apportion(long total, double[] cumulative, long minimum) {
+		int n = cumulative.length;
+		long spare = total - minimum * n;
+		if (spare < 0) {
+			throw new IllegalArgumentException("Cannot give " + n + " shares at least " + minimum + " of " + total);
+		}
+		double sum = cumulative[n - 1];
+		long[] shares = new long[n];
+		long given = 0;
+		for (int k = 0; k < n; k++) {
+			double weight = cumulative[k] - (k == 0 ? 0 : cumulative[k - 1]);
+			shares[k] = minimum + (long) Math.floor(spare * weight / sum);
+			given += shares[k];
+		}
+		// Rounding leftovers go to the largest shares
+		for (int k = 0; given < total; k = (k + 1) % n) {
+			shares[k]++;
+			given++;
+		}
+		return shares;
+	}
+
+	// Cumulative HSN weights, either over the whole list or favouring a tenant's own trade
+	public static double[] hsnWeights(SplittableRandom random, int specialities) {
+		double[] cumulative = new double[HSN_CODES.size()];
+		boolean[] favoured = new boolean[HSN_CODES.size()];
+		for (int i = 0; i < specialities; i++) {
+			favoured[random.nextInt(HSN_CODES.size())] = true;
+		}
+		double sum = 0;
+		for (int i = 0; i < HSN_CODES.size(); i++) {
+			// A tenant's own trade makes up most of its catalog
+			sum += HSN_CODES.get(i).weight() * (favoured[i] ? 20 : 1);
+			cumulative[i] = sum;
+		}
+		return cumulative;
+	}
+
+	public static String stateCode(SplittableRandom random) {
+		int target = random.nextInt(100);
+		for (int i = 0; i < STATE_CODES.length; i++) {
+			target -= STATE_WEIGHTS[i];
+			if (target < 0) {
+				return STATE_CODES[i];
+			}
+		}
+		return STATE_CODES[0];
+	}
+
+	// Well-formed GSTIN: state code, PAN (5 letters, 4 digits, letter), entity number, Z, check character
+	public static String gstin(String stateCode, SplittableRandom random) {
+		StringBuilder gstin = new StringBuilder(15).append(stateCode);
+		for (int i = 0; i < 5; i++) {
+			gstin.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+		}
+		for (int i = 0; i < 4; i++) {
+			gstin.append((char) ('0' + random.nextInt(10)));
+		}
+		gstin.append(LETTERS.charAt(random.nextInt(LETTERS.length()))).append('1').append('Z');
+		return gstin.append(ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length()))).toString();
+	}
+
+	public static String businessName(SplittableRandom random) {
+		return SURNAMES[random.nextInt(SURNAMES.length)] + " " + TRADES[random.nextInt(TRADES.length)];
+	}
+
+	public static String city(SplittableRandom random) {
+		return CITIES[random.nextInt(CITIES.length)];
+	}
+
+	// Unit price around the typical one for the code, log-normally spread, in paise
+	public static long price(Hsn hsn, SplittableRandom random) {
+		double factor = Math.exp(random.nextGaussian() * 0.5);
+		return Math.max(100, Math.round(hsn.typicalPaise() * factor));
+	}
+
+	// Quantity of a line: cheap goods sell in bulk, expensive ones one or two at a time
+	public static int quantity(long pricePaise, SplittableRandom random) {
+		if (pricePaise >= 1_000_000) {
+			return 1 + random.nextInt(2);
+		}
+		int quantity = 1;
+		while (quantity < 50 && random.nextDouble() < 0.7) {
+			quantity++;
+		}
+		return quantity;
+	}
+
+	// Lines on one invoice: mostly a handful, occasionally dozens (mean about five)
+	public static int linesPerInvoice(SplittableRandom random) {
+		int lines = 1;
+		while (lines < 40 && random.nextDouble() < 0.8) {
+			lines++;
+		}
+		return lines;
+	}
+}
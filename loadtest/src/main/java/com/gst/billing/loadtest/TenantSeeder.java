@@ -0,0 +1,428 @@
+package com.gst.billing.loadtest;
+
+import com.gst.billing.service.InvoiceNumberAllocator;
+import com.gst.billing.service.InvoiceTaxService;
+import com.gst.billing.util.GstCalculator;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the synthetic tenants straight into the schema with JDBC batches,
+ * bypassing JPA: users, then their customers and products, then invoices with
+ * their items and tax lines, one writer thread per group of users. Amounts,
+ * tax lines, invoice numbers and the seller's GSTIN are computed with the same
+ * rules the application uses, so seeded invoices look like created ones. The
+ * revenue rollups and the search index are left to the application, which
+ * rebuilds both at startup.
+ */
+public class TenantSeeder {
+
+	// Rows per executeBatch; invoices also commit at this size
+	private static final int BATCH_SIZE = 1_000;
+
+	// Hibernate's pooled generators hand out ids up to the sequence value, 50 at a time
+	private static final int ALLOCATION_SIZE = 50;
+
+	private final LoadSettings settings;
+
+	// Per tenant, filled by seedCatalog; user ids are 1..users, largest tenant first
+	private long[] firstCustomerId;
+	private int[] customerCount;
+	private long[] firstProductId;
+	private int[] productCount;
+	private long[] lineQuota;
+	private String[] sellerGstin;
+
+	// Per catalog row, indexed by id
+	private String[] customerGstin;
+	private long[] productPrice;
+	private long[] productRate;
+
+	private final AtomicLong nextInvoiceId = new AtomicLong(1);
+	private final AtomicLong nextItemId = new AtomicLong(1);
+	private final AtomicLong nextTaxLineId = new AtomicLong(1);
+	private final AtomicLong linesWritten = new AtomicLong();
+
+	public TenantSeeder(LoadSettings settings) {
+		this.settings = settings;
+	}
+
+	// Migrate the schema and seed it unless users already exist
+	public void seedIfEmpty() throws Exception {
+		Flyway flyway = Flyway.configure()
+				.dataSource(settings.getDbUrl(), settings.getDbUsername(), settings.getDbPassword())
+				.locations("classpath:db/migration/common", "classpath:db/migration/" + settings.vendor())
+				.baselineOnMigrate(true).baselineVersion("1.1").cleanDisabled(!settings.isReseed()).load();
+		if (settings.isReseed()) {
+			flyway.clean();
+		}
+		flyway.migrate();
+
+		try (Connection connection = connect()) {
+			long users = count(connection, "select count(*) from users");
+			if (users > 0) {
+				System.out.printf("Database already holds %d users and %d invoice lines; reusing them "
+						+ "(-Dload.reseed=true starts over)%n", users,
+						count(connection, "select count(*) from invoice_items"));
+				return;
+			}
+		}
+
+		long started = System.nanoTime();
+		seedCatalog();
+		seedInvoices();
+		try (Connection connection = connect()) {
+			advanceGenerators(connection);
+		}
+		System.out.printf("Seeded %d invoices with %d lines in %.0f s%n", nextInvoiceId.get() - 1,
+				linesWritten.get(), (System.nanoTime() - started) / 1e9);
+	}
+
+	// Users, customers and products, on one connection
+	private void seedCatalog() throws SQLException {
+		int users = settings.getUsers();
+		SplittableRandom random = new SplittableRandom(settings.getSeed());
+		double[] tenantSizes = SyntheticData.zipf(users, settings.getSkew());
+		long[] customerShares = SyntheticData.apportion(settings.getCustomers(), tenantSizes, 5);
+		long[] productShares = SyntheticData.apportion(settings.getProducts(), tenantSizes, 5);
+		lineQuota = SyntheticData.apportion(settings.getLines(), tenantSizes, 10);
+
+		firstCustomerId = new long[users];
+		customerCount = new int[users];
+		firstProductId = new long[users];
+		productCount = new int[users];
+		sellerGstin = new String[users];
+		customerGstin = new String[settings.getCustomers() + 1];
+		productPrice = new long[settings.getProducts() + 1];
+		productRate = new long[settings.getProducts() + 1];
+
+		String password = new BCryptPasswordEncoder().encode(settings.getPassword());
+		LocalDateTime now = LocalDateTime.now();
+		try (Connection connection = connect()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement insert = connection.prepareStatement("insert into users "
+					+ "(id, username, email, password, gstin, role, enabled, created_at, updated_at) "
+					+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+				for (int u = 0; u < users; u++) {
+					// Three in four tenants have their own registration; the rest invoice under the company's
+					String gstin = random.nextInt(4) > 0 ? SyntheticData.gstin(SyntheticData.stateCode(random), random)
+							: null;
+					sellerGstin[u] = gstin != null ? gstin : settings.getCompanyGstin();
+					addUser(insert, u + 1, "tenant" + (u + 1), password, gstin, "USER", now);
+				}
+				// An administrator without data of its own, for looking around while the test runs
+				addUser(insert, users + 1, "loadadmin", password, null, "ADMIN", now);
+				insert.executeBatch();
+			}
+
+			long customerId = 1;
+			long productId = 1;
+			try (PreparedStatement customers = connection.prepareStatement("insert into customers "
+					+ "(id, name, address, phone, email, gstin, created_by, created_at) "
+					+ "values (?, ?, ?, ?, ?, ?, ?, ?)");
+					PreparedStatement products = connection.prepareStatement("insert into products "
+							+ "(id, name, description, price, hsn_code, gst_rate, created_by, created_at) "
+							+ "values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+				int pendingCustomers = 0;
+				int pendingProducts = 0;
+				for (int u = 0; u < users; u++) {
+					String sellerState = InvoiceTaxService.stateCode(sellerGstin[u]);
+					firstCustomerId[u] = customerId;
+					customerCount[u] = (int) customerShares[u];
+					for (int c = 0; c < customerCount[u]; c++, customerId++) {
+						// Six in ten buyers are registered businesses, most of them in the seller's state
+						String gstin = null;
+						if (random.nextInt(10) < 6) {
+							String state = random.nextInt(10) < 6 ? sellerState : SyntheticData.stateCode(random);
+							gstin = SyntheticData.gstin(state, random);
+						}
+						customerGstin[(int) customerId] = gstin;
+						String city = SyntheticData.city(random);
+						customers.setLong(1, customerId);
+						customers.setString(2, SyntheticData.businessName(random));
+						customers.setString(3, (1 + random.nextInt(300)) + ", Market Road, " + city);
+						customers.setString(4, String.valueOf(7_000_000_000L + random.nextLong(2_999_999_999L)));
+						customers.setString(5,
+								random.nextInt(10) < 7 ? "customer" + customerId + "@load.example" : null);
+						customers.setString(6, gstin);
+						customers.setLong(7, u + 1);
+						customers.setObject(8, now);
+						customers.addBatch();
+						pendingCustomers = flush(customers, pendingCustomers);
+					}
+
+					double[] hsnWeights = SyntheticData.hsnWeights(random, 1 + random.nextInt(4));
+					firstProductId[u] = productId;
+					productCount[u] = (int) productShares[u];
+					for (int p = 0; p < productCount[u]; p++, productId++) {
+						SyntheticData.Hsn hsn = SyntheticData.HSN_CODES.get(SyntheticData.sample(hsnWeights, random));
+						long price = SyntheticData.price(hsn, random);
+						productPrice[(int) productId] = price;
+						productRate[(int) productId] = GstCalculator.toBasisPoints(new BigDecimal(hsn.rate()));
+						products.setLong(1, productId);
+						products.setString(2, hsn.label() + " #" + (p + 1));
+						products.setString(3, hsn.label());
+						products.setBigDecimal(4, GstCalculator.toRupees(price));
+						products.setString(5, hsn.code());
+						products.setBigDecimal(6, new BigDecimal(hsn.rate()));
+						products.setLong(7, u + 1);
+						products.setObject(8, now);
+						products.addBatch();
+						pendingProducts = flush(products, pendingProducts);
+					}
+				}
+				customers.executeBatch();
+				products.executeBatch();
+			}
+			connection.commit();
+		}
+		System.out.printf("Seeded %d users, %d customers and %d products%n", users, settings.getCustomers(),
+				settings.getProducts());
+	}
+
+	private static void addUser(PreparedStatement insert, long id, String username, String password, String gstin,
+			String role, LocalDateTime now) throws SQLException {
+		insert.setLong(1, id);
+		insert.setString(2, username);
+		insert.setString(3, username + "@load.example");
+		insert.setString(4, password);
+		insert.setString(5, gstin);
+		insert.setString(6, role);
+		insert.setBoolean(7, true);
+		insert.setObject(8, now);
+		insert.setObject(9, now);
+		insert.addBatch();
+	}
+
+	// Executes the statement's batch once it is full; returns the rows still pending
+	private static int flush(PreparedStatement statement, int pending) throws SQLException {
+		if (++pending < BATCH_SIZE) {
+			return pending;
+		}
+		statement.executeBatch();
+		return 0;
+	}
+
+	// Invoices of every tenant, tenants spread over the writer threads largest first
+	private void seedInvoices() throws Exception {
+		int threads = settings.getSeedThreads();
+		List<Future<?>> writers = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int t = 0; t < threads; t++) {
+				int first = t;
+				writers.add(executor.submit(() -> {
+					try (Connection connection = connect()) {
+						connection.setAutoCommit(false);
+						for (int u = first; u < settings.getUsers(); u += threads) {
+							seedInvoices(connection, u);
+						}
+					}
+					return null;
+				}));
+			}
+			executor.shutdown();
+			while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+				System.out.printf("  %,d of %,d invoice lines%n", linesWritten.get(), settings.getLines());
+			}
+			for (Future<?> writer : writers) {
+				writer.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// One tenant's invoices in date order, numbered per financial year as the allocator numbers them
+	private void seedInvoices(Connection connection, int u) throws SQLException {
+		long userId = u + 1;
+		SplittableRandom random = new SplittableRandom(settings.getSeed() * 31 + userId);
+		double[] customerReuse = SyntheticData.zipf(customerCount[u], 1.1);
+		double[] productPopularity = SyntheticData.zipf(productCount[u], 1.0);
+
+		List<Integer> sizes = new ArrayList<>();
+		for (long remaining = lineQuota[u]; remaining > 0;) {
+			int lines = (int) Math.min(remaining, SyntheticData.linesPerInvoice(random));
+			sizes.add(lines);
+			remaining -= lines;
+		}
+		// Business grows: later days get proportionally more invoices
+		LocalDate today = LocalDate.now();
+		long[] days = new long[sizes.size()];
+		for (int i = 0; i < days.length; i++) {
+			days[i] = today.toEpochDay() - (long) Math.floor(settings.getDays() * (1 - Math.sqrt(random.nextDouble())));
+		}
+		Arrays.sort(days);
+
+		Map<String, Long> lastNumber = new LinkedHashMap<>();
+		try (PreparedStatement invoices = connection.prepareStatement("insert into invoices "
+				+ "(id, invoice_number, invoice_date, customer_id, user_id, subtotal, total_gst, total_amount, "
+				+ "seller_gstin, inter_state, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement items = connection.prepareStatement("insert into invoice_items "
+						+ "(id, invoice_id, product_id, quantity, unit_price, gst_rate, gst_amount, total_amount) "
+						+ "values (?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement taxLines = connection.prepareStatement("insert into invoice_tax_lines "
+						+ "(id, invoice_id, gst_rate, taxable_amount, cgst_amount, sgst_amount, igst_amount) "
+						+ "values (?, ?, ?, ?, ?, ?, ?)")) {
+			int pending = 0;
+			for (int i = 0; i < days.length; i++) {
+				LocalDate date = LocalDate.ofEpochDay(days[i]);
+				String financialYear = InvoiceNumberAllocator.financialYear(date);
+				long number = lastNumber.merge(financialYear, 1L, Long::sum);
+				long invoiceId = nextInvoiceId.getAndIncrement();
+				long customerId = firstCustomerId[u] + SyntheticData.sample(customerReuse, random);
+				boolean interState = InvoiceTaxService.isInterState(sellerGstin[u],
+						customerGstin[(int) customerId]);
+
+				// rate in basis points -> {taxable, gst} in paise
+				Map<Long, long[]> byRate = new TreeMap<>();
+				long subtotal = 0;
+				long gst = 0;
+				int lines = sizes.get(i);
+				long itemId = nextItemId.getAndAdd(lines);
+				for (int line = 0; line < lines; line++) {
+					int productId = (int) (firstProductId[u] + SyntheticData.sample(productPopularity, random));
+					long price = productPrice[productId];
+					long rate = productRate[productId];
+					int quantity = SyntheticData.quantity(price, random);
+					long lineSubtotal = GstCalculator.lineSubtotal(price, quantity);
+					long lineGst = GstCalculator.gstOn(lineSubtotal, rate);
+					subtotal += lineSubtotal;
+					gst += lineGst;
+					long[] sum = byRate.computeIfAbsent(rate, k -> new long[2]);
+					sum[0] += lineSubtotal;
+					sum[1] += lineGst;
+
+					items.setLong(1, itemId + line);
+					items.setLong(2, invoiceId);
+					items.setLong(3, productId);
+					items.setInt(4, quantity);
+					items.setBigDecimal(5, GstCalculator.toRupees(price));
+					items.setBigDecimal(6, GstCalculator.toRupees(rate));
+					items.setBigDecimal(7, GstCalculator.toRupees(lineGst));
+					items.setBigDecimal(8, GstCalculator.toRupees(lineSubtotal + lineGst));
+					items.addBatch();
+				}
+
+				long taxLineId = nextTaxLineId.getAndAdd(byRate.size());
+				for (Map.Entry<Long, long[]> entry : byRate.entrySet()) {
+					long rateGst = entry.getValue()[1];
+					long cgst = interState ? 0 : GstCalculator.halfOf(rateGst);
+					taxLines.setLong(1, taxLineId++);
+					taxLines.setLong(2, invoiceId);
+					taxLines.setBigDecimal(3, GstCalculator.toRupees(entry.getKey()));
+					taxLines.setBigDecimal(4, GstCalculator.toRupees(entry.getValue()[0]));
+					taxLines.setBigDecimal(5, GstCalculator.toRupees(cgst));
+					taxLines.setBigDecimal(6, GstCalculator.toRupees(interState ? 0 : rateGst - cgst));
+					taxLines.setBigDecimal(7, GstCalculator.toRupees(interState ? rateGst : 0));
+					taxLines.addBatch();
+				}
+
+				invoices.setLong(1, invoiceId);
+				invoices.setString(2, InvoiceNumberAllocator.invoiceNumber(userId, financialYear, number));
+				invoices.setObject(3, date);
+				invoices.setLong(4, customerId);
+				invoices.setLong(5, userId);
+				invoices.setBigDecimal(6, GstCalculator.toRupees(subtotal));
+				invoices.setBigDecimal(7, GstCalculator.toRupees(gst));
+				invoices.setBigDecimal(8, GstCalculator.toRupees(subtotal + gst));
+				invoices.setString(9, sellerGstin[u]);
+				invoices.setBoolean(10, interState);
+				invoices.setObject(11, date.atTime(9 + random.nextInt(10), random.nextInt(60)));
+				invoices.addBatch();
+
+				linesWritten.addAndGet(lines);
+				if (++pending == BATCH_SIZE) {
+					writeInvoices(connection, invoices, items, taxLines);
+					pending = 0;
+				}
+			}
+			writeInvoices(connection, invoices, items, taxLines);
+		}
+
+		// Let the allocator continue each series after the seeded numbers
+		try (PreparedStatement counters = connection.prepareStatement(
+				"insert into invoice_number_counters (series_key, financial_year, next_value) values (?, ?, ?)")) {
+			for (Map.Entry<String, Long> entry : lastNumber.entrySet()) {
+				counters.setString(1, String.valueOf(userId));
+				counters.setString(2, entry.getKey());
+				counters.setLong(3, entry.getValue() + 1);
+				counters.addBatch();
+			}
+			counters.executeBatch();
+		}
+		connection.commit();
+	}
+
+	// Parents before children, then commit
+	private static void writeInvoices(Connection connection, PreparedStatement invoices, PreparedStatement items,
+			PreparedStatement taxLines) throws SQLException {
+		invoices.executeBatch();
+		items.executeBatch();
+		taxLines.executeBatch();
+		connection.commit();
+	}
+
+	// Move identity columns and id sequences past the seeded ids
+	private void advanceGenerators(Connection connection) throws SQLException {
+		Map<String, String> sequences = Map.of("invoices_seq", "invoices", "invoice_items_seq", "invoice_items",
+				"invoice_tax_lines_seq", "invoice_tax_lines");
+		try (Statement statement = connection.createStatement()) {
+			if (settings.vendor().equals("h2")) {
+				// H2 does not move an identity column past explicitly inserted ids
+				for (String table : List.of("users", "customers", "products")) {
+					statement.execute("alter table " + table + " alter column id restart with "
+							+ (count(connection, "select coalesce(max(id), 0) from " + table) + 1));
+				}
+				for (Map.Entry<String, String> sequence : sequences.entrySet()) {
+					statement.execute("alter sequence " + sequence.getKey() + " restart with "
+							+ nextSequenceValue(connection, sequence.getValue()));
+				}
+			} else {
+				for (Map.Entry<String, String> sequence : sequences.entrySet()) {
+					statement.executeUpdate("update " + sequence.getKey() + " set next_val = "
+							+ nextSequenceValue(connection, sequence.getValue()));
+				}
+			}
+		}
+	}
+
+	// Past the highest id plus a full allocation, as the V2_1 migration moves them
+	private static long nextSequenceValue(Connection connection, String table) throws SQLException {
+		return count(connection, "select coalesce(max(id), 0) from " + table) + ALLOCATION_SIZE + 1;
+	}
+
+	private static long count(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+			rows.next();
+			return rows.getLong(1);
+		}
+	}
+
+	private Connection connect() throws SQLException {
+		return DriverManager.getConnection(settings.getDbUrl(), settings.getDbUsername(), settings.getDbPassword());
+	}
+}
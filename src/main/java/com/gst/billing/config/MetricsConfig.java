@@ -0,0 +1,64 @@
+package com.gst.billing.config;
+
+import io.micrometer.common.KeyValues;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Adds the caller's role to http.server.requests next to Spring's uri, method,
+ * status and outcome tags. The request metric is recorded after the security
+ * filters have cleared the security context, so the role is read while the
+ * handler runs and kept as a request attribute until then.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+	private static final String ROLE_ATTRIBUTE = MetricsConfig.class.getName() + ".role";
+
+	@Bean
+	public ServerRequestObservationConvention serverRequestObservationConvention() {
+		return new DefaultServerRequestObservationConvention() {
+			@Override
+			public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+				Object role = context.getCarrier().getAttribute(ROLE_ATTRIBUTE);
+				return super.getLowCardinalityKeyValues(context).and("role",
+						role != null ? role.toString() : "anonymous");
+			}
+		};
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				request.setAttribute(ROLE_ATTRIBUTE, role(SecurityContextHolder.getContext().getAuthentication()));
+				return true;
+			}
+		});
+	}
+
+	// admin, user or anonymous
+	private static String role(Authentication authentication) {
+		if (authentication == null || !authentication.isAuthenticated()) {
+			return "anonymous";
+		}
+		if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+			return "admin";
+		}
+		return authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")) ? "user"
+				: "anonymous";
+	}
+}
@@ -1,19 +1,36 @@
 package com.gst.billing.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+	// HTTP Basic for machine clients of the bulk invoice endpoint, kept out of the form-login pages
 	@Bean
+	@Order(1)
+	public SecurityFilterChain bulkImportFilterChain(HttpSecurity http) throws Exception {
+		http.securityMatcher(new AntPathRequestMatcher("/invoices/bulk/**")).csrf(csrf -> csrf.disable())
+				.authorizeHttpRequests(authz -> authz.anyRequest().authenticated())
+				.httpBasic(Customizer.withDefaults())
+				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+		return http.build();
+	}
+
+	@Bean
+	@Order(2)
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		http
 				// Disable CSRF for development
@@ -26,6 +43,9 @@ public class SecurityConfig {
 								"/webjars/**", "/images/**", "/error", "/favicon.ico")
 						.permitAll()
 
+						// Health checks and Prometheus scrapes (on the management port outside tests)
+						.requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+
 						// Admin only endpoints
 						.requestMatchers("/admin/**").hasRole("ADMIN")
 
@@ -1,15 +1,22 @@
 package com.gst.billing.controller;
 
 import com.gst.billing.model.User;
-import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
 import com.gst.billing.model.Role;
 import com.gst.billing.model.Invoice;
 import com.gst.billing.model.Customer;
 import com.gst.billing.model.Product;
+import com.gst.billing.model.InvoiceTotals;
 import com.gst.billing.service.UserService;
+import com.gst.billing.service.AdminMetricsService;
 import com.gst.billing.service.InvoiceService;
 import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.DashboardService;
 import com.gst.billing.service.ProductService;
+import com.gst.billing.service.RevenueRollupService;
+import com.gst.billing.util.InvoicePdfCache;
+import com.gst.billing.util.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,14 +26,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
-import java.time.Month;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/admin")
@@ -45,52 +46,42 @@ public class AdminController {
 	private ProductService productService;
 
 	@Autowired
-	private InvoiceRepository invoiceRepository;
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InvoicePdfCache invoicePdfCache;
+
+	@Autowired
+	private RevenueRollupService revenueRollupService;
+
+	@Autowired
+	private AdminMetricsService adminMetricsService;
+
+	@Autowired
+	private DashboardService dashboardService;
 
 	// Admin Dashboard
 	@GetMapping("/dashboard")
 	public String adminDashboard(@AuthenticationPrincipal UserDetails userDetails, Model model) {
 		try {
-			// Get all statistics for admin dashboard
-			long totalUsers = userService.getUserCount();
-			long totalInvoices = invoiceService.getAllInvoices().size();
-			long totalCustomers = customerService.getAllCustomers().size();
-			long totalProducts = productService.getAllProducts().size();
-
-			// Calculate total revenue
-			BigDecimal totalRevenue = BigDecimal.ZERO;
-			List<Invoice> allInvoices = invoiceService.getAllInvoices();
-			for (Invoice invoice : allInvoices) {
-				totalRevenue = totalRevenue.add(invoice.getTotalAmount());
-			}
-
-			// Get recent activities
-			List<Invoice> recentInvoices = allInvoices.size() > 5
-					? allInvoices.subList(0, Math.min(5, allInvoices.size()))
-					: allInvoices;
-
-			model.addAttribute("totalUsers", totalUsers);
-			model.addAttribute("totalInvoices", totalInvoices);
-			model.addAttribute("totalCustomers", totalCustomers);
-			model.addAttribute("totalProducts", totalProducts);
-			model.addAttribute("totalRevenue", totalRevenue);
-			model.addAttribute("recentInvoices", recentInvoices);
+			// Aggregated statistics for admin dashboard
+			AdminMetricsService.AdminMetrics metrics = adminMetricsService.getMetrics();
+
+			model.addAttribute("totalUsers", metrics.getTotalUsers());
+			model.addAttribute("totalInvoices", metrics.getTotalInvoices());
+			model.addAttribute("totalCustomers", metrics.getTotalCustomers());
+			model.addAttribute("totalProducts", metrics.getTotalProducts());
+			model.addAttribute("totalRevenue", metrics.getTotalRevenue());
+			model.addAttribute("recentInvoices", metrics.getRecentInvoices());
 			model.addAttribute("title", "Admin Dashboard");
 
-			// Monthly revenue for chart
-			List<Object[]> monthlyRevenueData = invoiceRepository.getMonthlyRevenueAll();
-			List<String> monthLabels = new ArrayList<>();
-			List<BigDecimal> revenueValues = new ArrayList<>();
-
-			for (Object[] obj : monthlyRevenueData) {
-				Integer month = (Integer) obj[0];
-				BigDecimal revenue = (BigDecimal) obj[1];
-				monthLabels.add(Month.of(month).name()); // JANUARY, FEBRUARY...
-				revenueValues.add(revenue);
-			}
-
-			model.addAttribute("monthLabels", monthLabels);
-			model.addAttribute("revenueValues", revenueValues);
+			// Monthly revenue for chart: the last twelve months across all users
+			DashboardService.RevenueSeries monthly = dashboardService.getMonthlySeries(null, true);
+			model.addAttribute("monthLabels", monthly.getLabels());
+			model.addAttribute("revenueValues", monthly.getValues());
 
 			return "admin/dashboard";
 		} catch (Exception e) {
@@ -133,8 +124,11 @@ public class AdminController {
 			User existingUser = userService.getUserById(id);
 			existingUser.setRole(userDetails.getRole());
 			existingUser.setEnabled(userDetails.isEnabled());
+			String gstin = userDetails.getGstin();
+			existingUser.setGstin(gstin == null || gstin.isBlank() ? null : gstin.trim().toUpperCase());
 
 			userService.updateUser(existingUser);
+			adminMetricsService.invalidate();
 			redirectAttributes.addFlashAttribute("message", "User updated successfully!");
 		} catch (Exception e) {
 			redirectAttributes.addFlashAttribute("error", "Error updating user: " + e.getMessage());
@@ -153,6 +147,7 @@ public class AdminController {
 			}
 
 			userService.deleteUser(id);
+			adminMetricsService.invalidate();
 			redirectAttributes.addFlashAttribute("message", "User deleted successfully!");
 		} catch (Exception e) {
 			redirectAttributes.addFlashAttribute("error", "Error deleting user: " + e.getMessage());
@@ -162,16 +157,20 @@ public class AdminController {
 
 	// All Invoices View
 	@GetMapping("/invoices")
-	public String viewAllInvoices(Model model) {
+	public String viewAllInvoices(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "newest") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size, Model model) {
 		try {
-			List<Invoice> invoices = invoiceService.getAllInvoices();
-			BigDecimal totalRevenue = invoices.stream().map(Invoice::getTotalAmount).reduce(BigDecimal.ZERO,
-					BigDecimal::add);
-			BigDecimal totalGst = invoices.stream().map(Invoice::getTotalGst).reduce(BigDecimal.ZERO, BigDecimal::add);
-
-			model.addAttribute("invoices", invoices);
-			model.addAttribute("totalRevenue", totalRevenue);
-			model.addAttribute("totalGst", totalGst);
+			KeysetPage<Invoice> page = invoiceService.getAllInvoicePage(cursor, sort, size);
+			InvoiceTotals totals = invoiceService.getInvoiceTotals(null);
+
+			model.addAttribute("invoices", page.getItems());
+			model.addAttribute("page", page);
+			model.addAttribute("sort", sort);
+			model.addAttribute("size", size);
+			model.addAttribute("totalInvoices", totals.getInvoiceCount());
+			model.addAttribute("totalRevenue", totals.getTotalAmount());
+			model.addAttribute("totalGst", totals.getTotalGst());
 			model.addAttribute("title", "All Invoices");
 			return "admin/invoices";
 		} catch (Exception e) {
@@ -182,37 +181,28 @@ public class AdminController {
 
 	// All Customers View
 	@GetMapping("/customers")
-	public String viewAllCustomers(Model model) {
+	public String viewAllCustomers(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "name") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size, Model model) {
 		try {
-			List<Customer> customers = customerService.getAllCustomers();
-			model.addAttribute("customers", customers);
+			KeysetPage<Customer> page = customerService.getAllCustomerPage(cursor, sort, size);
+			model.addAttribute("customers", page.getItems());
+			model.addAttribute("page", page);
+			model.addAttribute("sort", sort);
+			model.addAttribute("size", size);
 			model.addAttribute("title", "All Customers");
 
-			// Calculate statistics in controller
-			long customersWithGstin = customers.stream()
-					.filter(c -> c.getGstin() != null && !c.getGstin().trim().isEmpty()).count();
-
-			long customersWithEmail = customers.stream()
-					.filter(c -> c.getEmail() != null && !c.getEmail().trim().isEmpty()).count();
-
-			long uniqueUsers = customers.stream().map(c -> c.getCreatedBy().getId()).distinct().count();
-
-			// Calculate user distribution
-			Map<String, UserDistribution> userDistributionMap = new HashMap<>();
-			for (Customer customer : customers) {
-				String username = customer.getCreatedBy().getUsername();
-				String role = customer.getCreatedBy().getRole().name();
-
-				userDistributionMap.computeIfAbsent(username, k -> new UserDistribution(username, role, 0))
-						.incrementCount();
+			// Statistics over all customers come from aggregate queries
+			List<UserDistribution> userDistribution = new ArrayList<>();
+			for (Object[] row : customerRepository.countCustomersByOwner()) {
+				userDistribution.add(new UserDistribution((String) row[0], ((Role) row[1]).name(),
+						((Number) row[2]).intValue()));
 			}
 
-			List<UserDistribution> userDistribution = new ArrayList<>(userDistributionMap.values());
-			userDistribution.sort((a, b) -> Integer.compare(b.getCustomerCount(), a.getCustomerCount()));
-
-			model.addAttribute("customersWithGstin", customersWithGstin);
-			model.addAttribute("customersWithEmail", customersWithEmail);
-			model.addAttribute("uniqueUsers", uniqueUsers);
+			model.addAttribute("totalCustomers", customerRepository.count());
+			model.addAttribute("customersWithGstin", customerRepository.countWithGstin());
+			model.addAttribute("customersWithEmail", customerRepository.countWithEmail());
+			model.addAttribute("uniqueUsers", customerRepository.countDistinctOwners());
 			model.addAttribute("userDistribution", userDistribution);
 
 		} catch (Exception e) {
@@ -253,29 +243,28 @@ public class AdminController {
 
 	// All Products View
 	@GetMapping("/products")
-	public String viewAllProducts(Model model) {
+	public String viewAllProducts(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "name") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size, Model model) {
 		try {
-			List<Product> products = productService.getAllProducts();
-			model.addAttribute("products", products);
+			KeysetPage<Product> page = productService.getAllProductPage(cursor, sort, size);
+			model.addAttribute("products", page.getItems());
+			model.addAttribute("page", page);
+			model.addAttribute("sort", sort);
+			model.addAttribute("size", size);
 			model.addAttribute("title", "All Products");
 
-			// Calculate statistics in controller
-			long productsWithHsn = products.stream()
-					.filter(p -> p.getHsnCode() != null && !p.getHsnCode().trim().isEmpty()).count();
-
-			// Get unique GST rates
-			Set<BigDecimal> uniqueGstRates = products.stream().map(Product::getGstRate).collect(Collectors.toSet());
-
-			// Get unique users
-			long uniqueUsers = products.stream().map(p -> p.getCreatedBy().getId()).distinct().count();
-
-			// Get GST rates for template
-			List<BigDecimal> gstRates = new ArrayList<>(uniqueGstRates);
-			Collections.sort(gstRates);
+			// Statistics over all products come from aggregate queries
+			List<GstRateSummary> gstRates = new ArrayList<>();
+			for (Object[] row : productRepository.summarizeByGstRate()) {
+				gstRates.add(new GstRateSummary((BigDecimal) row[0], ((Number) row[1]).longValue(),
+						((Number) row[2]).doubleValue()));
+			}
 
-			model.addAttribute("productsWithHsn", productsWithHsn);
-			model.addAttribute("uniqueGstRates", uniqueGstRates.size());
-			model.addAttribute("uniqueUsers", uniqueUsers);
+			model.addAttribute("totalProducts", productRepository.count());
+			model.addAttribute("productsWithHsn", productRepository.countWithHsnCode());
+			model.addAttribute("uniqueGstRates", gstRates.size());
+			model.addAttribute("uniqueUsers", productRepository.countDistinctOwners());
 			model.addAttribute("gstRates", gstRates);
 
 		} catch (Exception e) {
@@ -284,37 +273,49 @@ public class AdminController {
 		return "admin/products";
 	}
 
+	// Helper class for products per GST rate
+	public static class GstRateSummary {
+		private final BigDecimal gstRate;
+		private final long productCount;
+		private final double averagePrice;
+
+		public GstRateSummary(BigDecimal gstRate, long productCount, double averagePrice) {
+			this.gstRate = gstRate;
+			this.productCount = productCount;
+			this.averagePrice = averagePrice;
+		}
+
+		// Getters
+		public BigDecimal getGstRate() {
+			return gstRate;
+		}
+
+		public long getProductCount() {
+			return productCount;
+		}
+
+		public double getAveragePrice() {
+			return averagePrice;
+		}
+	}
+
 	// System Statistics
 	@GetMapping("/statistics")
 	public String systemStatistics(Model model) {
 		try {
-			// User statistics
-			long totalUsers = userService.getUserCount();
-			long activeUsers = userService.getActiveUsersCount();
-			long adminUsers = userService.getAdminUsersCount();
-
-			// Invoice statistics
-			List<Invoice> allInvoices = invoiceService.getAllInvoices();
-			long totalInvoices = allInvoices.size();
-			BigDecimal totalRevenue = allInvoices.stream().map(Invoice::getTotalAmount).reduce(BigDecimal.ZERO,
-					BigDecimal::add);
-			BigDecimal totalGst = allInvoices.stream().map(Invoice::getTotalGst).reduce(BigDecimal.ZERO,
-					BigDecimal::add);
-
-			// Customer statistics
-			long totalCustomers = customerService.getAllCustomers().size();
-
-			// Product statistics
-			long totalProducts = productService.getAllProducts().size();
-
-			model.addAttribute("totalUsers", totalUsers);
-			model.addAttribute("activeUsers", activeUsers);
-			model.addAttribute("adminUsers", adminUsers);
-			model.addAttribute("totalInvoices", totalInvoices);
-			model.addAttribute("totalRevenue", totalRevenue);
-			model.addAttribute("totalGst", totalGst);
-			model.addAttribute("totalCustomers", totalCustomers);
-			model.addAttribute("totalProducts", totalProducts);
+			AdminMetricsService.AdminMetrics metrics = adminMetricsService.getMetrics();
+
+			model.addAttribute("totalUsers", metrics.getTotalUsers());
+			model.addAttribute("activeUsers", metrics.getActiveUsers());
+			model.addAttribute("adminUsers", metrics.getAdminUsers());
+			model.addAttribute("totalInvoices", metrics.getTotalInvoices());
+			model.addAttribute("totalRevenue", metrics.getTotalRevenue());
+			model.addAttribute("totalGst", metrics.getTotalGst());
+			model.addAttribute("totalCustomers", metrics.getTotalCustomers());
+			model.addAttribute("totalProducts", metrics.getTotalProducts());
+			model.addAttribute("pdfCacheStats", invoicePdfCache.getStats());
+			model.addAttribute("productCacheStats", productService.getCacheStats());
+			model.addAttribute("customerCacheStats", customerService.getCacheStats());
 			model.addAttribute("title", "System Statistics");
 
 			return "admin/statistics";
@@ -323,4 +324,15 @@ public class AdminController {
 			return "admin/statistics";
 		}
 	}
-}
\ No newline at end of file
+
+	@PostMapping("/statistics/rebuild-rollups")
+	public String rebuildRevenueRollups(RedirectAttributes redirectAttributes) {
+		try {
+			revenueRollupService.rebuild();
+			redirectAttributes.addFlashAttribute("message", "Revenue rollups rebuilt successfully!");
+		} catch (Exception e) {
+			redirectAttributes.addFlashAttribute("error", "Error rebuilding revenue rollups: " + e.getMessage());
+		}
+		return "redirect:/admin/statistics";
+	}
+}
@@ -0,0 +1,58 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.model.CustomerOption;
+import com.gst.billing.model.ProductOption;
+import com.gst.billing.model.User;
+import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.ProductService;
+import com.gst.billing.service.UserService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Typeahead lookups for the invoice form, served from the user's cached catalog
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogApiController {
+
+	private static final int DEFAULT_LIMIT = 10;
+	private static final int MAX_LIMIT = 50;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private UserService userService;
+
+	@GetMapping("/products")
+	public List<ProductOption> products(@RequestParam(defaultValue = "") String prefix,
+			@RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+			@AuthenticationPrincipal UserDetails userDetails) {
+		User currentUser = userService.getUser(userDetails);
+		return productService.findByPrefix(currentUser, prefix, limit(limit)).stream().map(ProductOption::new)
+				.toList();
+	}
+
+	@GetMapping("/customers")
+	public List<CustomerOption> customers(@RequestParam(defaultValue = "") String prefix,
+			@RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+			@AuthenticationPrincipal UserDetails userDetails) {
+		User currentUser = userService.getUser(userDetails);
+		return customerService.findByPrefix(currentUser, prefix, limit(limit)).stream().map(CustomerOption::new)
+				.toList();
+	}
+
+	private static int limit(int requested) {
+		return Math.max(1, Math.min(requested, MAX_LIMIT));
+	}
+}
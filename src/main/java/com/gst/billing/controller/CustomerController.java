@@ -4,6 +4,8 @@ import com.gst.billing.model.Customer;
 import com.gst.billing.model.User;
 import com.gst.billing.service.CustomerService;
 import com.gst.billing.service.UserService;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.SearchPage;
 
 import jakarta.validation.Valid;
 
@@ -17,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 
-import java.util.List;
 
 @Controller
 @RequestMapping("/customers")
@@ -30,12 +31,18 @@ public class CustomerController {
 	private UserService userService;
 
 	@GetMapping
-	public String listCustomers(Model model, @AuthenticationPrincipal UserDetails userDetails) {
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
-
-		List<Customer> customers = customerService.getUserCustomers(currentUser);
-		model.addAttribute("customers", customers);
+	public String listCustomers(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "name") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size, Model model,
+			@AuthenticationPrincipal UserDetails userDetails) {
+		User currentUser = userService.getUser(userDetails);
+
+		KeysetPage<Customer> page = customerService.getCustomerPage(currentUser, cursor, sort, size);
+		model.addAttribute("customers", page.getItems());
+		model.addAttribute("page", page);
+		model.addAttribute("sort", sort);
+		model.addAttribute("size", size);
+		model.addAttribute("totalCustomers", customerService.getCustomerCount(currentUser));
 		model.addAttribute("title", "Manage Customers");
 		return "customers/list";
 	}
@@ -56,8 +63,7 @@ public class CustomerController {
 		}
 
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			customerService.createCustomer(customer, currentUser);
 			redirectAttributes.addFlashAttribute("message", "Customer created successfully!");
@@ -72,8 +78,7 @@ public class CustomerController {
 	@GetMapping("/edit/{id}")
 	public String showEditForm(@PathVariable Long id, Model model, @AuthenticationPrincipal UserDetails userDetails) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			Customer customer = customerService.getCustomerById(id);
 
@@ -100,8 +105,7 @@ public class CustomerController {
 		}
 
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			customerService.updateCustomer(id, customer, currentUser);
 			redirectAttributes.addFlashAttribute("message", "Customer updated successfully!");
@@ -117,8 +121,7 @@ public class CustomerController {
 	public String deleteCustomer(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails,
 			RedirectAttributes redirectAttributes) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			customerService.deleteCustomer(id, currentUser);
 			redirectAttributes.addFlashAttribute("message", "Customer deleted successfully!");
@@ -129,13 +132,14 @@ public class CustomerController {
 	}
 
 	@GetMapping("/search")
-	public String searchCustomers(@RequestParam String query, @AuthenticationPrincipal UserDetails userDetails,
-			Model model) {
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
-
-		List<Customer> customers = customerService.searchCustomers(query, currentUser);
-		model.addAttribute("customers", customers);
+	public String searchCustomers(@RequestParam String query, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size,
+			@AuthenticationPrincipal UserDetails userDetails, Model model) {
+		User currentUser = userService.getUser(userDetails);
+
+		SearchPage<Customer> results = customerService.searchCustomers(query, currentUser, page, size);
+		model.addAttribute("customers", results.getItems());
+		model.addAttribute("results", results);
 		model.addAttribute("searchQuery", query);
 		model.addAttribute("title", "Search Customers");
 		return "customers/list";
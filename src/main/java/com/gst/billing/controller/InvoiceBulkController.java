@@ -0,0 +1,94 @@
+package com.gst.billing.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.gst.billing.model.User;
+import com.gst.billing.service.InvoiceBulkImportService;
+import com.gst.billing.service.InvoiceBulkImportService.ImportResult;
+import com.gst.billing.service.InvoiceBulkImportService.ImportSummary;
+import com.gst.billing.service.UserService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+// Bulk invoice ingestion for ERP pushes; results are streamed back as NDJSON, one line per record
+@Controller
+@RequestMapping("/invoices")
+public class InvoiceBulkController {
+
+	private static final int MAX_CHUNK_SIZE = 5000;
+
+	@Autowired
+	private InvoiceBulkImportService bulkImportService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${billing.bulk-import.chunk-size:500}")
+	private int defaultChunkSize;
+
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public void bulkCreateFromNdjson(@RequestParam(required = false) Integer chunkSize, HttpServletRequest request,
+			HttpServletResponse response, @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+		User currentUser = userService.getUser(userDetails);
+
+		try (SequenceWriter writer = resultWriter(response)) {
+			ImportSummary summary = bulkImportService.importNdjson(request.getInputStream(), currentUser,
+					chunkSize(chunkSize), results -> write(writer, response, results));
+			writer.write(Map.of("summary", summary));
+		}
+	}
+
+	@PostMapping(value = "/bulk", consumes = "text/csv")
+	public void bulkCreateFromCsv(@RequestParam(required = false) Integer chunkSize, HttpServletRequest request,
+			HttpServletResponse response, @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+		User currentUser = userService.getUser(userDetails);
+
+		try (SequenceWriter writer = resultWriter(response)) {
+			ImportSummary summary = bulkImportService.importCsv(request.getInputStream(), currentUser,
+					chunkSize(chunkSize), results -> write(writer, response, results));
+			writer.write(Map.of("summary", summary));
+		}
+	}
+
+	private int chunkSize(Integer requested) {
+		int size = requested != null ? requested : defaultChunkSize;
+		return Math.max(1, Math.min(size, MAX_CHUNK_SIZE));
+	}
+
+	private SequenceWriter resultWriter(HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		return objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream());
+	}
+
+	// Flush after every committed chunk so the client sees progress
+	private void write(SequenceWriter writer, HttpServletResponse response, Iterable<ImportResult> results) {
+		try {
+			for (ImportResult result : results) {
+				writer.write(result);
+			}
+			writer.flush();
+			response.flushBuffer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -1,20 +1,22 @@
 package com.gst.billing.controller;
 
 import com.gst.billing.model.*;
+import com.gst.billing.service.Gstr1Service;
+import com.gst.billing.service.InvoiceExportService;
+import com.gst.billing.service.InvoiceNumberAllocator;
 import com.gst.billing.service.InvoiceService;
-import com.gst.billing.service.ProductService;
+import com.gst.billing.service.InvoiceTaxService;
+import com.gst.billing.service.RevenueRollupService;
 import com.gst.billing.service.CustomerService;
 import com.gst.billing.service.UserService;
-import com.gst.billing.util.PdfGenerator;
+import com.gst.billing.util.InvoicePdfCache;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.SearchPage;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,13 +24,11 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 
 @Controller
 @RequestMapping("/invoices")
@@ -37,9 +37,6 @@ public class InvoiceController {
 	@Autowired
 	private InvoiceService invoiceService;
 
-	@Autowired
-	private ProductService productService;
-
 	@Autowired
 	private CustomerService customerService;
 
@@ -47,21 +44,28 @@ public class InvoiceController {
 	private UserService userService;
 
 	@Autowired
-	private PdfGenerator pdfGenerator;
+	private InvoicePdfCache invoicePdfCache;
 
-	@GetMapping("/create")
-	public String showInvoiceForm(Model model, @AuthenticationPrincipal UserDetails userDetails) {
-		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+	@Autowired
+	private InvoiceNumberAllocator invoiceNumberAllocator;
 
-			InvoiceRequest invoiceRequest = new InvoiceRequest();
-			List<Product> products = productService.getUserProducts(currentUser);
-			List<Customer> customers = customerService.getUserCustomers(currentUser);
+	@Autowired
+	private InvoiceExportService invoiceExportService;
+
+	@Autowired
+	private RevenueRollupService revenueRollupService;
 
-			model.addAttribute("invoiceRequest", invoiceRequest);
-			model.addAttribute("products", products);
-			model.addAttribute("customers", customers);
+	@Autowired
+	private Gstr1Service gstr1Service;
+
+	@Autowired
+	private InvoiceTaxService invoiceTaxService;
+
+	@GetMapping("/create")
+	public String showInvoiceForm(Model model) {
+		try {
+			// Products and customers are looked up by the form's typeahead
+			model.addAttribute("invoiceRequest", new InvoiceRequest());
 			model.addAttribute("title", "Create Invoice");
 
 			return "invoices/create";
@@ -78,14 +82,9 @@ public class InvoiceController {
 		// Check for validation errors
 		if (result.hasErrors()) {
 			try {
-				User currentUser = userService.findByUsername(userDetails.getUsername())
-						.orElseThrow(() -> new RuntimeException("User not found"));
-
-				List<Product> products = productService.getUserProducts(currentUser);
-				List<Customer> customers = customerService.getUserCustomers(currentUser);
+				User currentUser = userService.getUser(userDetails);
 
-				model.addAttribute("products", products);
-				model.addAttribute("customers", customers);
+				addSelectedCustomer(model, invoiceRequest, currentUser);
 				model.addAttribute("title", "Create Invoice");
 				return "invoices/create";
 			} catch (Exception e) {
@@ -97,14 +96,9 @@ public class InvoiceController {
 		// Check if items are present
 		if (invoiceRequest.getItems() == null || invoiceRequest.getItems().isEmpty()) {
 			try {
-				User currentUser = userService.findByUsername(userDetails.getUsername())
-						.orElseThrow(() -> new RuntimeException("User not found"));
+				User currentUser = userService.getUser(userDetails);
 
-				List<Product> products = productService.getUserProducts(currentUser);
-				List<Customer> customers = customerService.getUserCustomers(currentUser);
-
-				model.addAttribute("products", products);
-				model.addAttribute("customers", customers);
+				addSelectedCustomer(model, invoiceRequest, currentUser);
 				model.addAttribute("error", "Please add at least one item to the invoice");
 				model.addAttribute("title", "Create Invoice");
 				return "invoices/create";
@@ -115,22 +109,16 @@ public class InvoiceController {
 		}
 
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			// Create the invoice
 			Invoice invoice = invoiceService.createInvoice(invoiceRequest, currentUser);
 			return "redirect:/invoices/list?message=Invoice created successfully!";
 		} catch (Exception e) {
 			try {
-				User currentUser = userService.findByUsername(userDetails.getUsername())
-						.orElseThrow(() -> new RuntimeException("User not found"));
-
-				List<Product> products = productService.getUserProducts(currentUser);
-				List<Customer> customers = customerService.getUserCustomers(currentUser);
+				User currentUser = userService.getUser(userDetails);
 
-				model.addAttribute("products", products);
-				model.addAttribute("customers", customers);
+				addSelectedCustomer(model, invoiceRequest, currentUser);
 				model.addAttribute("error", "Error creating invoice: " + e.getMessage());
 				model.addAttribute("title", "Create Invoice");
 				return "invoices/create";
@@ -142,23 +130,27 @@ public class InvoiceController {
 	}
 
 	@GetMapping("/list")
-	public String listInvoices(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+	public String listInvoices(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "newest") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size,
+			@AuthenticationPrincipal UserDetails userDetails, Model model) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
-
-			List<Invoice> invoices = invoiceService.getUserInvoices(currentUser);
-
-			// Calculate statistics
-			long totalInvoices = invoiceService.getInvoiceCount(currentUser);
-			BigDecimal totalRevenue = invoiceService.getTotalSalesByUser(currentUser);
-			BigDecimal totalGst = invoiceService.getTotalGstByUser(currentUser);
-
-			model.addAttribute("invoices", invoices);
-			model.addAttribute("totalInvoices", totalInvoices);
-			model.addAttribute("totalRevenue", totalRevenue);
-			model.addAttribute("totalGst", totalGst);
-			model.addAttribute("monthlyInvoices", invoices.size());
+			User currentUser = userService.getUser(userDetails);
+
+			KeysetPage<Invoice> page = invoiceService.getUserInvoicePage(currentUser, cursor, sort, size);
+
+			// Totals come from aggregate queries, not from the page
+			InvoiceTotals totals = invoiceService.getInvoiceTotals(currentUser);
+
+			model.addAttribute("invoices", page.getItems());
+			model.addAttribute("page", page);
+			model.addAttribute("sort", sort);
+			model.addAttribute("size", size);
+			model.addAttribute("totalInvoices", totals.getInvoiceCount());
+			model.addAttribute("totalRevenue", totals.getTotalAmount());
+			model.addAttribute("totalGst", totals.getTotalGst());
+			model.addAttribute("monthlyInvoices",
+					revenueRollupService.getInvoiceCount(currentUser.getId(), YearMonth.now()));
 			model.addAttribute("title", "Manage Invoices");
 
 			return "invoices/list";
@@ -170,24 +162,24 @@ public class InvoiceController {
 	}
 
 	@GetMapping("/search")
-	public String searchInvoices(@RequestParam String query, @AuthenticationPrincipal UserDetails userDetails,
-			Model model) {
+	public String searchInvoices(@RequestParam String query, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size,
+			@AuthenticationPrincipal UserDetails userDetails, Model model) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
-			List<Invoice> invoices = invoiceService.searchInvoicesByNumber(query, currentUser);
+			SearchPage<Invoice> results = invoiceService.searchInvoicesByNumber(query, currentUser, page, size);
 
 			// Calculate statistics
-			long totalInvoices = invoiceService.getInvoiceCount(currentUser);
-			BigDecimal totalRevenue = invoiceService.getTotalSalesByUser(currentUser);
-			BigDecimal totalGst = invoiceService.getTotalGstByUser(currentUser);
-
-			model.addAttribute("invoices", invoices);
-			model.addAttribute("totalInvoices", totalInvoices);
-			model.addAttribute("totalRevenue", totalRevenue);
-			model.addAttribute("totalGst", totalGst);
-			model.addAttribute("monthlyInvoices", invoices.size());
+			InvoiceTotals totals = invoiceService.getInvoiceTotals(currentUser);
+
+			model.addAttribute("invoices", results.getItems());
+			model.addAttribute("results", results);
+			model.addAttribute("totalInvoices", totals.getInvoiceCount());
+			model.addAttribute("totalRevenue", totals.getTotalAmount());
+			model.addAttribute("totalGst", totals.getTotalGst());
+			model.addAttribute("monthlyInvoices",
+					revenueRollupService.getInvoiceCount(currentUser.getId(), YearMonth.now()));
 			model.addAttribute("searchQuery", query);
 			model.addAttribute("title", "Search Invoices");
 
@@ -199,11 +191,41 @@ public class InvoiceController {
 		return "invoices/list";
 	}
 
+	@GetMapping("/advanced-search")
+	public String advancedSearch(@ModelAttribute("criteria") InvoiceSearchCriteria criteria,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "newest") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size,
+			@RequestParam(required = false) Long total, @AuthenticationPrincipal UserDetails userDetails,
+			Model model) {
+		try {
+			User currentUser = userService.getUser(userDetails);
+
+			KeysetPage<Invoice> page = invoiceService.searchInvoices(currentUser, criteria, cursor, sort, size);
+
+			// Counted on the first page only; later pages carry the count in their links
+			long matches = total != null && cursor != null ? total
+					: invoiceService.countInvoices(currentUser, criteria);
+
+			model.addAttribute("invoices", page.getItems());
+			model.addAttribute("page", page);
+			model.addAttribute("sort", sort);
+			model.addAttribute("size", size);
+			model.addAttribute("total", matches);
+			model.addAttribute("pageUrl", ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("cursor")
+					.replaceQueryParam("total", matches).toUriString());
+		} catch (Exception e) {
+			model.addAttribute("error", "Error searching invoices: " + e.getMessage());
+			model.addAttribute("invoices", java.util.Collections.emptyList());
+		}
+
+		model.addAttribute("title", "Advanced Invoice Search");
+		return "invoices/advanced-search";
+	}
+
 	@GetMapping("/view/{id}")
 	public String viewInvoice(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails, Model model) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			Invoice invoice = invoiceService.getInvoiceById(id);
 
@@ -213,9 +235,6 @@ public class InvoiceController {
 				return "redirect:/access-denied";
 			}
 
-			// Calculate GST breakdown
-			Map<BigDecimal, GstBreakdown> gstBreakdown = calculateGstBreakdown(invoice);
-			model.addAttribute("gstBreakdown", gstBreakdown);
 			model.addAttribute("invoice", invoice);
 			model.addAttribute("title", "View Invoice - " + invoice.getInvoiceNumber());
 			return "invoices/view";
@@ -224,54 +243,11 @@ public class InvoiceController {
 		}
 	}
 
-	private Map<BigDecimal, GstBreakdown> calculateGstBreakdown(Invoice invoice) {
-		Map<BigDecimal, GstBreakdown> breakdown = new HashMap<>();
-
-		for (InvoiceItem item : invoice.getItems()) {
-			BigDecimal gstRate = item.getGstRate();
-			BigDecimal taxableAmount = item.getSubtotal();
-			BigDecimal gstAmount = item.getGstAmount();
-
-			breakdown.computeIfAbsent(gstRate, k -> new GstBreakdown()).addItem(taxableAmount, gstAmount);
-		}
-
-		return breakdown;
-	}
-
-	// Helper class for GST breakdown
-	public static class GstBreakdown {
-		private BigDecimal taxableAmount = BigDecimal.ZERO;
-		private BigDecimal gstAmount = BigDecimal.ZERO;
-
-		public void addItem(BigDecimal taxable, BigDecimal gst) {
-			this.taxableAmount = this.taxableAmount.add(taxable);
-			this.gstAmount = this.gstAmount.add(gst);
-		}
-
-		// Getters
-		public BigDecimal getTaxableAmount() {
-			return taxableAmount;
-		}
-
-		public BigDecimal getGstAmount() {
-			return gstAmount;
-		}
-
-		public BigDecimal getCgst() {
-			return gstAmount.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
-		}
-
-		public BigDecimal getSgst() {
-			return gstAmount.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
-		}
-	}
-
 	@GetMapping("/download/{id}")
-	public void downloadInvoice(@PathVariable Long id, HttpServletResponse response,
+	public void downloadInvoice(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response,
 			@AuthenticationPrincipal UserDetails userDetails) throws IOException {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			Invoice invoice = invoiceService.getInvoiceById(id);
 
@@ -286,7 +262,7 @@ public class InvoiceController {
 			response.setHeader("Content-Disposition",
 					"attachment; filename=invoice_" + invoice.getInvoiceNumber() + ".pdf");
 
-			pdfGenerator.generateInvoice(invoice, response.getOutputStream());
+			invoicePdfCache.writeTo(invoice, request, response);
 
 		} catch (Exception e) {
 			response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error generating PDF: " + e.getMessage());
@@ -299,58 +275,61 @@ public class InvoiceController {
 		response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 		response.setHeader("Content-Disposition", "attachment; filename=invoices.xlsx");
 
-		List<Invoice> invoices;
-
 		// ✅ Find current user
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
-
-		// ✅ If Admin → get all invoices; else → only user’s invoices
-		if (userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
-			invoices = invoiceService.getAllInvoices();
-		} else {
-			invoices = invoiceService.getInvoicesByUserId(currentUser.getId());
-		}
+		User currentUser = userService.getUser(userDetails);
 
-		// ✅ Generate Excel file
-		Workbook workbook = new XSSFWorkbook();
-		Sheet sheet = workbook.createSheet("Invoices");
-		int rowNum = 0;
-
-		// Header row
-		Row headerRow = sheet.createRow(rowNum++);
-		String[] headers = { "Invoice ID", "Customer Name", "Invoice Date", "Subtotal", "GST", "Total Amount" };
-		for (int i = 0; i < headers.length; i++) {
-			Cell cell = headerRow.createCell(i);
-			cell.setCellValue(headers[i]);
-		}
+		// ✅ If Admin → export all invoices; else → only user’s invoices
+		boolean isAdmin = userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+		// ✅ Stream rows straight into the response
+		invoiceExportService.writeExcel(isAdmin ? null : currentUser.getId(), response.getOutputStream());
+	}
 
-		// Data rows
-		for (Invoice invoice : invoices) {
-			Row row = sheet.createRow(rowNum++);
-			row.createCell(0).setCellValue(invoice.getId());
-			row.createCell(1).setCellValue(invoice.getCustomer().getName());
-			row.createCell(2).setCellValue(invoice.getInvoiceDate().toString());
-			row.createCell(3).setCellValue(invoice.getSubtotal().doubleValue());
-			row.createCell(4).setCellValue(invoice.getTotalGst().doubleValue());
-			row.createCell(5).setCellValue(invoice.getTotalAmount().doubleValue());
+	// GSTR-1 JSON of the user's invoices in a month (yyyy-MM), by default the month just ended
+	@GetMapping("/gstr1")
+	public void downloadGstr1(@RequestParam(required = false) String period, HttpServletResponse response,
+			@AuthenticationPrincipal UserDetails userDetails) throws IOException {
+		YearMonth month;
+		try {
+			month = period != null ? YearMonth.parse(period) : YearMonth.now().minusMonths(1);
+		} catch (DateTimeParseException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Period must be a month such as 2024-04");
+			return;
 		}
 
-		// Auto-size columns
-		for (int i = 0; i < headers.length; i++) {
-			sheet.autoSizeColumn(i);
+		User currentUser = userService.getUser(userDetails);
+		if (invoiceTaxService.sellerGstin(currentUser) == null) {
+			response.sendError(HttpServletResponse.SC_CONFLICT,
+					"No GSTIN is registered: add one to your profile or set billing.seller.gstin");
+			return;
 		}
 
-		// Write workbook to response
-		workbook.write(response.getOutputStream());
-		workbook.close();
+		response.setContentType("application/json");
+		response.setHeader("Content-Disposition", "attachment; filename=GSTR1_" + month + ".json");
+		gstr1Service.writeJson(currentUser, month, response.getOutputStream());
+	}
+
+	@GetMapping("/number-gaps")
+	public String showNumberGaps(@RequestParam(required = false) String financialYear,
+			@AuthenticationPrincipal UserDetails userDetails, Model model) {
+		try {
+			User currentUser = userService.getUser(userDetails);
+
+			String year = financialYear != null ? financialYear
+					: InvoiceNumberAllocator.financialYear(java.time.LocalDate.now());
+
+			model.addAttribute("report", invoiceNumberAllocator.getGapReport(currentUser, year));
+		} catch (Exception e) {
+			model.addAttribute("error", "Error loading gap report: " + e.getMessage());
+		}
+		model.addAttribute("title", "Invoice Number Gaps");
+		return "invoices/number-gaps";
 	}
 
 	@GetMapping("/delete/{id}")
 	public String deleteInvoice(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			invoiceService.deleteInvoice(id, currentUser);
 			return "redirect:/invoices/list?message=Invoice deleted successfully";
@@ -358,4 +337,11 @@ public class InvoiceController {
 			return "redirect:/invoices/list?error=Error deleting invoice: " + e.getMessage();
 		}
 	}
-}
\ No newline at end of file
+
+	// Shown again in the customer typeahead when the form is redisplayed
+	private void addSelectedCustomer(Model model, InvoiceRequest invoiceRequest, User user) {
+		if (invoiceRequest.getCustomerId() != null) {
+			model.addAttribute("selectedCustomer", customerService.getCustomerById(invoiceRequest.getCustomerId(), user));
+		}
+	}
+}
@@ -6,17 +6,17 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.time.LocalDate;
+
+import com.gst.billing.model.DashboardStatistics;
 import com.gst.billing.model.User;
 import com.gst.billing.service.CustomerService;
 import com.gst.billing.service.DashboardService;
-import com.gst.billing.service.InvoiceService;
 import com.gst.billing.service.ProductService;
 import com.gst.billing.service.UserService;
 
 @Controller
 public class LoginController {
-	@Autowired
-	private InvoiceService invoiceService;
 	@Autowired
 	private UserService userService;
 	@Autowired
@@ -33,24 +33,28 @@ public class LoginController {
 
 	@GetMapping("/dashboard")
 	public String dashboard(@AuthenticationPrincipal UserDetails userDetails, Model model) {
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
+		User currentUser = userService.getUser(userDetails);
 		boolean isAdmin = userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
-		// Calculate statistics
-		long totalInvoices = invoiceService.getInvoiceCount(currentUser);
+		// Invoice figures come from one aggregate, cached for months that are over
+		DashboardStatistics stats = dashboardService.getStatistics(currentUser, DashboardService.ALL_TIME_START,
+				LocalDate.now());
 		long totalCustomer = customerService.getCustomerCount(currentUser);
 
 		long productCount = productService.getProductCount(currentUser);
-		model.addAttribute("invoiceCount", totalInvoices);
+		model.addAttribute("stats", stats);
+		model.addAttribute("invoiceCount", stats.getInvoiceCount());
 		model.addAttribute("customerCount", totalCustomer);
 		model.addAttribute("productCount", productCount);
 
 		// chart data
-		model.addAttribute("monthLabels", dashboardService.getMonthLabels(currentUser, isAdmin));
-		model.addAttribute("monthRevenue", dashboardService.getMonthRevenue(currentUser, isAdmin));
-		model.addAttribute("dayLabels", dashboardService.getDayLabels(currentUser, isAdmin));
-		model.addAttribute("dayRevenue", dashboardService.getDayRevenue(currentUser, isAdmin));
+		DashboardService.RevenueSeries monthly = dashboardService.getMonthlySeries(currentUser, isAdmin);
+		DashboardService.RevenueSeries daily = dashboardService.getDailySeries(currentUser, isAdmin);
+		model.addAttribute("monthLabels", monthly.getLabels());
+		model.addAttribute("monthRevenue", monthly.getValues());
+		model.addAttribute("monthAverage", monthly.getAverages());
+		model.addAttribute("dayLabels", daily.getLabels());
+		model.addAttribute("dayRevenue", daily.getValues());
 
 		model.addAttribute("isAdmin", isAdmin);
 		model.addAttribute("title", "Dashboard");
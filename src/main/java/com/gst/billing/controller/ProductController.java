@@ -4,6 +4,8 @@ import com.gst.billing.model.Product;
 import com.gst.billing.model.User;
 import com.gst.billing.service.ProductService;
 import com.gst.billing.service.UserService;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.SearchPage;
 
 import jakarta.validation.Valid;
 
@@ -17,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 
-import java.util.List;
 
 @Controller
 @RequestMapping("/products")
@@ -30,12 +31,18 @@ public class ProductController {
 	private UserService userService;
 
 	@GetMapping
-	public String listProducts(Model model, @AuthenticationPrincipal UserDetails userDetails) {
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
-
-		List<Product> products = productService.getUserProducts(currentUser);
-		model.addAttribute("products", products);
+	public String listProducts(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "name") String sort,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size, Model model,
+			@AuthenticationPrincipal UserDetails userDetails) {
+		User currentUser = userService.getUser(userDetails);
+
+		KeysetPage<Product> page = productService.getProductPage(currentUser, cursor, sort, size);
+		model.addAttribute("products", page.getItems());
+		model.addAttribute("page", page);
+		model.addAttribute("sort", sort);
+		model.addAttribute("size", size);
+		model.addAttribute("totalProducts", productService.getProductCount(currentUser));
 		model.addAttribute("title", "Manage Products");
 		return "products/list";
 	}
@@ -56,8 +63,7 @@ public class ProductController {
 		}
 
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			productService.createProduct(product, currentUser);
 			redirectAttributes.addFlashAttribute("message", "Product created successfully!");
@@ -72,8 +78,7 @@ public class ProductController {
 	@GetMapping("/edit/{id}")
 	public String showEditForm(@PathVariable Long id, Model model, @AuthenticationPrincipal UserDetails userDetails) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			Product product = productService.getProductById(id);
 
@@ -100,8 +105,7 @@ public class ProductController {
 		}
 
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			productService.updateProduct(id, product, currentUser);
 			redirectAttributes.addFlashAttribute("message", "Product updated successfully!");
@@ -117,8 +121,7 @@ public class ProductController {
 	public String deleteProduct(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails,
 			RedirectAttributes redirectAttributes) {
 		try {
-			User currentUser = userService.findByUsername(userDetails.getUsername())
-					.orElseThrow(() -> new RuntimeException("User not found"));
+			User currentUser = userService.getUser(userDetails);
 
 			productService.deleteProduct(id, currentUser);
 			redirectAttributes.addFlashAttribute("message", "Product deleted successfully!");
@@ -129,27 +132,30 @@ public class ProductController {
 	}
 
 	@GetMapping("/search")
-	public String searchProducts(@RequestParam String query, @AuthenticationPrincipal UserDetails userDetails,
-			Model model) {
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
-
-		List<Product> products = productService.searchProducts(query, currentUser);
-		model.addAttribute("products", products);
+	public String searchProducts(@RequestParam String query, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size,
+			@AuthenticationPrincipal UserDetails userDetails, Model model) {
+		User currentUser = userService.getUser(userDetails);
+
+		SearchPage<Product> results = productService.searchProducts(query, currentUser, page, size);
+		model.addAttribute("products", results.getItems());
+		model.addAttribute("results", results);
 		model.addAttribute("searchQuery", query);
 		model.addAttribute("title", "Search Products");
 		return "products/list";
 	}
 
 	@GetMapping("/search-by-hsn")
-	public String searchProductsByHsn(@RequestParam String hsnCode, @AuthenticationPrincipal UserDetails userDetails,
-			Model model) {
-		User currentUser = userService.findByUsername(userDetails.getUsername())
-				.orElseThrow(() -> new RuntimeException("User not found"));
-
-		List<Product> products = productService.searchProductsByHsnCode(hsnCode, currentUser);
-		model.addAttribute("products", products);
+	public String searchProductsByHsn(@RequestParam String hsnCode, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "" + KeysetPage.DEFAULT_SIZE) int size,
+			@AuthenticationPrincipal UserDetails userDetails, Model model) {
+		User currentUser = userService.getUser(userDetails);
+
+		SearchPage<Product> results = productService.searchProductsByHsnCode(hsnCode, currentUser, page, size);
+		model.addAttribute("products", results.getItems());
+		model.addAttribute("results", results);
 		model.addAttribute("searchQuery", hsnCode);
+		model.addAttribute("searchBy", "hsnCode");
 		model.addAttribute("title", "Search Products by HSN");
 		return "products/list";
 	}
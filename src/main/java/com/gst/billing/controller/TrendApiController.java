@@ -0,0 +1,57 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.model.SalesTrendPoint;
+import com.gst.billing.model.TrendPeriod;
+import com.gst.billing.model.User;
+import com.gst.billing.service.DashboardService;
+import com.gst.billing.service.UserService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Sales trends by day, week, month, quarter or financial year; admins see every user's sales
+@RestController
+@RequestMapping("/api/trends")
+public class TrendApiController {
+
+	private static final int MAX_WINDOW = 24;
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private UserService userService;
+
+	@GetMapping
+	public List<SalesTrendPoint> trend(@RequestParam(defaultValue = "month") String period,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "3") int window, @AuthenticationPrincipal UserDetails userDetails) {
+		User currentUser = userService.getUser(userDetails);
+		boolean isAdmin = userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+		TrendPeriod trendPeriod;
+		try {
+			trendPeriod = TrendPeriod.parse(period);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		LocalDate end = to != null ? to : LocalDate.now();
+		if (from != null && from.isAfter(end)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+		}
+		return dashboardService.getTrend(currentUser, isAdmin, trendPeriod, from, end,
+				Math.max(1, Math.min(window, MAX_WINDOW)));
+	}
+}
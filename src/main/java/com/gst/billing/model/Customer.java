@@ -7,7 +7,9 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = { @Index(name = "idx_customers_owner_name", columnList = "created_by, name, id"),
+		@Index(name = "idx_customers_name", columnList = "name, id"),
+		@Index(name = "idx_customers_gstin", columnList = "gstin") })
 public class Customer {
 
 	@Id
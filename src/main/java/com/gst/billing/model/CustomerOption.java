@@ -0,0 +1,28 @@
+package com.gst.billing.model;
+
+// What the invoice form's customer typeahead shows
+public class CustomerOption {
+
+	private final Long id;
+	private final String name;
+	private final String gstin;
+
+	public CustomerOption(Customer customer) {
+		this.id = customer.getId();
+		this.name = customer.getName();
+		this.gstin = customer.getGstin();
+	}
+
+	// Getters
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getGstin() {
+		return gstin;
+	}
+}
@@ -0,0 +1,48 @@
+package com.gst.billing.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Invoice count, sums and customers billed over a date range, computed by the database
+public class DashboardStatistics {
+
+	private final long invoiceCount;
+	private final BigDecimal totalRevenue;
+	private final BigDecimal totalGst;
+	private final long uniqueCustomers;
+
+	public DashboardStatistics(long invoiceCount, BigDecimal totalRevenue, BigDecimal totalGst, long uniqueCustomers) {
+		this.invoiceCount = invoiceCount;
+		this.totalRevenue = totalRevenue != null ? totalRevenue : BigDecimal.ZERO;
+		this.totalGst = totalGst != null ? totalGst : BigDecimal.ZERO;
+		this.uniqueCustomers = uniqueCustomers;
+	}
+
+	// Statistics of two adjacent ranges; the later one must count only customers not billed in this one
+	public DashboardStatistics plus(DashboardStatistics later) {
+		return new DashboardStatistics(invoiceCount + later.invoiceCount, totalRevenue.add(later.totalRevenue),
+				totalGst.add(later.totalGst), uniqueCustomers + later.uniqueCustomers);
+	}
+
+	// Getters
+	public long getInvoiceCount() {
+		return invoiceCount;
+	}
+
+	public BigDecimal getTotalRevenue() {
+		return totalRevenue;
+	}
+
+	public BigDecimal getTotalGst() {
+		return totalGst;
+	}
+
+	public long getUniqueCustomers() {
+		return uniqueCustomers;
+	}
+
+	public BigDecimal getAverageInvoiceValue() {
+		return invoiceCount == 0 ? BigDecimal.ZERO
+				: totalRevenue.divide(BigDecimal.valueOf(invoiceCount), 2, RoundingMode.HALF_UP);
+	}
+}
@@ -0,0 +1,114 @@
+package com.gst.billing.model;
+
+import com.gst.billing.util.GstCalculator;
+import com.gst.billing.util.GstCalculator.PaiseSum;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One invoice item with the invoice and customer fields GSTR-1 needs, selected directly instead of loading entities
+public class Gstr1Row {
+
+	private final Long invoiceId;
+	private final String invoiceNumber;
+	private final LocalDate invoiceDate;
+	private final BigDecimal invoiceTotal;
+	private final boolean interState;
+	private final String customerGstin;
+	private final String hsnCode;
+	private final String productName;
+	private final Integer quantity;
+	private final BigDecimal unitPrice;
+	private final BigDecimal gstRate;
+	private final BigDecimal gstAmount;
+
+	public Gstr1Row(Long invoiceId, String invoiceNumber, LocalDate invoiceDate, BigDecimal invoiceTotal,
+			boolean interState, String customerGstin, String hsnCode, String productName, Integer quantity,
+			BigDecimal unitPrice, BigDecimal gstRate, BigDecimal gstAmount) {
+		this.invoiceId = invoiceId;
+		this.invoiceNumber = invoiceNumber;
+		this.invoiceDate = invoiceDate;
+		this.invoiceTotal = invoiceTotal;
+		this.interState = interState;
+		this.customerGstin = customerGstin;
+		this.hsnCode = hsnCode;
+		this.productName = productName;
+		this.quantity = quantity;
+		this.unitPrice = unitPrice;
+		this.gstRate = gstRate;
+		this.gstAmount = gstAmount;
+	}
+
+	// Add this item's taxable amount and GST to running totals, as InvoiceItem.addTo does for a loaded item
+	public void addTo(PaiseSum taxable, PaiseSum gst) {
+		long price = GstCalculator.toPaise(unitPrice);
+		long subtotal = GstCalculator.NOT_FIXED;
+		if (price != GstCalculator.NOT_FIXED) {
+			try {
+				subtotal = GstCalculator.lineSubtotal(price, quantity);
+			} catch (ArithmeticException e) {
+				// Left on the BigDecimal path
+			}
+		}
+		if (subtotal != GstCalculator.NOT_FIXED) {
+			taxable.add(subtotal);
+		} else {
+			taxable.add(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+		}
+		gst.add(gstAmount);
+	}
+
+	// The customer's GSTIN when it has one, else null (an unregistered buyer)
+	public String getRegisteredGstin() {
+		return customerGstin != null && !customerGstin.isBlank() ? customerGstin.trim() : null;
+	}
+
+	// Getters
+	public Long getInvoiceId() {
+		return invoiceId;
+	}
+
+	public String getInvoiceNumber() {
+		return invoiceNumber;
+	}
+
+	public LocalDate getInvoiceDate() {
+		return invoiceDate;
+	}
+
+	public BigDecimal getInvoiceTotal() {
+		return invoiceTotal;
+	}
+
+	public boolean isInterState() {
+		return interState;
+	}
+
+	public String getCustomerGstin() {
+		return customerGstin;
+	}
+
+	public String getHsnCode() {
+		return hsnCode;
+	}
+
+	public String getProductName() {
+		return productName;
+	}
+
+	public Integer getQuantity() {
+		return quantity;
+	}
+
+	public BigDecimal getUnitPrice() {
+		return unitPrice;
+	}
+
+	public BigDecimal getGstRate() {
+		return gstRate;
+	}
+
+	public BigDecimal getGstAmount() {
+		return gstAmount;
+	}
+}
@@ -1,6 +1,9 @@
 package com.gst.billing.model;
 
 import jakarta.persistence.*;
+
+import org.hibernate.annotations.BatchSize;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -8,11 +11,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+// Indexes back the keyset-paged lists, per user and system-wide
+@Table(name = "invoices", indexes = { @Index(name = "idx_invoices_user_date", columnList = "user_id, invoice_date, id"),
+		@Index(name = "idx_invoices_date", columnList = "invoice_date, id"),
+		@Index(name = "idx_invoices_customer_date", columnList = "customer_id, invoice_date, id") })
+// Fetch plans per screen: list rows show customer and owner; the view and PDF also need items with products
+@NamedEntityGraph(name = "Invoice.list", attributeNodes = { @NamedAttributeNode("customer"),
+		@NamedAttributeNode("user") })
+@NamedEntityGraph(name = "Invoice.detail", attributeNodes = { @NamedAttributeNode("customer"),
+		@NamedAttributeNode("user"), @NamedAttributeNode(value = "items", subgraph = "items") }, subgraphs = {
+				@NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product")) })
 public class Invoice {
 
+	// Pooled sequence (table-backed on MySQL) so inserts can be JDBC-batched
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_seq")
+	@SequenceGenerator(name = "invoice_seq", sequenceName = "invoices_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(unique = true, nullable = false, length = 50)
@@ -41,9 +55,24 @@ public class Invoice {
 	@Column(name = "created_at", updatable = false)
 	private LocalDateTime createdAt;
 
+	// Supplier registration the tax was worked out for, and whether that made it an inter-state supply
+	@Column(name = "seller_gstin", length = 15)
+	private String sellerGstin;
+
+	@Column(name = "inter_state", nullable = false)
+	private boolean interState;
+
+	// Items of a whole list page are loaded together rather than per row
 	@OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+	@BatchSize(size = 100)
 	private List<InvoiceItem> items = new ArrayList<>();
 
+	// One row per GST rate, written with the items
+	@OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+	@OrderBy("gstRate ASC")
+	@BatchSize(size = 100)
+	private List<InvoiceTaxLine> taxLines = new ArrayList<>();
+
 	// ---------- Constructors ----------
 	public Invoice() {
 	}
@@ -59,6 +88,11 @@ public class Invoice {
 		item.setInvoice(null);
 	}
 
+	public void addTaxLine(InvoiceTaxLine taxLine) {
+		taxLines.add(taxLine);
+		taxLine.setInvoice(this);
+	}
+
 	// ---------- Lifecycle ----------
 	@PrePersist
 	protected void onCreate() {
@@ -151,6 +185,30 @@ public class Invoice {
 		this.items = items;
 	}
 
+	public String getSellerGstin() {
+		return sellerGstin;
+	}
+
+	public void setSellerGstin(String sellerGstin) {
+		this.sellerGstin = sellerGstin;
+	}
+
+	public boolean isInterState() {
+		return interState;
+	}
+
+	public void setInterState(boolean interState) {
+		this.interState = interState;
+	}
+
+	public List<InvoiceTaxLine> getTaxLines() {
+		return taxLines;
+	}
+
+	public void setTaxLines(List<InvoiceTaxLine> taxLines) {
+		this.taxLines = taxLines;
+	}
+
 	@Override
 	public String toString() {
 		return "Invoice{" + "id=" + id + ", invoiceNumber='" + invoiceNumber + '\'' + ", invoiceDate=" + invoiceDate
@@ -0,0 +1,68 @@
+package com.gst.billing.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One spreadsheet row, selected directly by the export query instead of loading entities
+public class InvoiceExportRow {
+
+	private final Long id;
+	private final String customerName;
+	private final LocalDate invoiceDate;
+	private final BigDecimal subtotal;
+	private final BigDecimal totalGst;
+	private final BigDecimal totalAmount;
+	private final BigDecimal cgst;
+	private final BigDecimal sgst;
+	private final BigDecimal igst;
+
+	public InvoiceExportRow(Long id, String customerName, LocalDate invoiceDate, BigDecimal subtotal,
+			BigDecimal totalGst, BigDecimal totalAmount, BigDecimal cgst, BigDecimal sgst, BigDecimal igst) {
+		this.id = id;
+		this.customerName = customerName;
+		this.invoiceDate = invoiceDate;
+		this.subtotal = subtotal;
+		this.totalGst = totalGst;
+		this.totalAmount = totalAmount;
+		this.cgst = cgst;
+		this.sgst = sgst;
+		this.igst = igst;
+	}
+
+	// Getters
+	public Long getId() {
+		return id;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public LocalDate getInvoiceDate() {
+		return invoiceDate;
+	}
+
+	public BigDecimal getSubtotal() {
+		return subtotal;
+	}
+
+	public BigDecimal getTotalGst() {
+		return totalGst;
+	}
+
+	public BigDecimal getTotalAmount() {
+		return totalAmount;
+	}
+
+	public BigDecimal getCgst() {
+		return cgst;
+	}
+
+	public BigDecimal getSgst() {
+		return sgst;
+	}
+
+	public BigDecimal getIgst() {
+		return igst;
+	}
+}
@@ -1,22 +1,26 @@
 package com.gst.billing.model;
 
+import com.gst.billing.util.GstCalculator;
+import com.gst.billing.util.GstCalculator.PaiseSum;
+
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
 @Entity
-@Table(name = "invoice_items")
+@Table(name = "invoice_items", indexes = @Index(name = "idx_invoice_items_product", columnList = "product_id, invoice_id"))
 public class InvoiceItem {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_item_seq")
+	@SequenceGenerator(name = "invoice_item_seq", sequenceName = "invoice_items_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "invoice_id", nullable = false)
 	private Invoice invoice;
 
-	@ManyToOne(fetch = FetchType.EAGER, optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false) // Batch-loaded, see Product
 	@JoinColumn(name = "product_id", nullable = false)
 	private Product product;
 
@@ -35,6 +39,16 @@ public class InvoiceItem {
 	@Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
 	private BigDecimal totalAmount = BigDecimal.ZERO;
 
+	// Subtotal and GST in paise, kept in step with the columns above while fixedPoint is set
+	@Transient
+	private long subtotalPaise;
+
+	@Transient
+	private long gstPaise;
+
+	@Transient
+	private boolean fixedPoint;
+
 	// ---------- Constructors ----------
 	public InvoiceItem() {
 	}
@@ -51,7 +65,11 @@ public class InvoiceItem {
 
 	// ---------- Business methods ----------
 	public void calculateAmounts() {
+		fixedPoint = false;
 		if (unitPrice != null && quantity != null && gstRate != null) {
+			if (calculateInPaise()) {
+				return;
+			}
 			BigDecimal itemTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
 			this.gstAmount = itemTotal.multiply(gstRate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
 			this.totalAmount = itemTotal.add(gstAmount);
@@ -61,6 +79,57 @@ public class InvoiceItem {
 		}
 	}
 
+	// Same result as the BigDecimal formula, computed in paise; false when the inputs don't fit
+	private boolean calculateInPaise() {
+		long price = GstCalculator.toPaise(unitPrice);
+		long rate = GstCalculator.toBasisPoints(gstRate);
+		if (price == GstCalculator.NOT_FIXED || rate == GstCalculator.NOT_FIXED) {
+			return false;
+		}
+		try {
+			long subtotal = GstCalculator.lineSubtotal(price, quantity);
+			long gst = GstCalculator.gstOn(subtotal, rate);
+			long total = Math.addExact(subtotal, gst);
+			this.gstAmount = GstCalculator.toRupees(gst);
+			this.totalAmount = GstCalculator.toRupees(total);
+			this.subtotalPaise = subtotal;
+			this.gstPaise = gst;
+			this.fixedPoint = true;
+			return true;
+		} catch (ArithmeticException e) {
+			return false;
+		}
+	}
+
+	// Add this line's subtotal and GST to running totals
+	public void addTo(PaiseSum subtotal, PaiseSum gst) {
+		if (fixedPoint) {
+			subtotal.add(subtotalPaise);
+			gst.add(gstPaise);
+		} else {
+			subtotal.add(getSubtotal());
+			gst.add(gstAmount);
+		}
+	}
+
+	// ---------- Lifecycle ----------
+	// Derive the paise amounts from the stored columns without recalculating them
+	@PostLoad
+	protected void onLoad() {
+		fixedPoint = false;
+		long price = GstCalculator.toPaise(unitPrice);
+		long gst = GstCalculator.toPaise(gstAmount);
+		if (price != GstCalculator.NOT_FIXED && gst != GstCalculator.NOT_FIXED && quantity != null) {
+			try {
+				subtotalPaise = GstCalculator.lineSubtotal(price, quantity);
+				gstPaise = gst;
+				fixedPoint = true;
+			} catch (ArithmeticException e) {
+				// Left on the BigDecimal path
+			}
+		}
+	}
+
 	// ---------- Getters & Setters ----------
 	public Long getId() {
 		return id;
@@ -124,6 +193,7 @@ public class InvoiceItem {
 
 	public void setGstAmount(BigDecimal gstAmount) {
 		this.gstAmount = gstAmount;
+		this.fixedPoint = false;
 	}
 
 	public BigDecimal getTotalAmount() {
@@ -137,6 +207,9 @@ public class InvoiceItem {
 	// Helper method to get subtotal before GST
 	// Add this method to InvoiceItem.java
 	public BigDecimal getSubtotal() {
+		if (fixedPoint) {
+			return GstCalculator.toRupees(subtotalPaise);
+		}
 		if (unitPrice != null && quantity != null) {
 			return unitPrice.multiply(BigDecimal.valueOf(quantity));
 		}
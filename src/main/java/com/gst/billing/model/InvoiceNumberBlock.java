@@ -0,0 +1,92 @@
+package com.gst.billing.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Block of invoice numbers [startValue, endValue) reserved by one application node and not yet given back
+@Entity
+@Table(name = "invoice_number_blocks", uniqueConstraints = @UniqueConstraint(columnNames = { "series_key",
+		"financial_year", "start_value" }))
+public class InvoiceNumberBlock {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "series_key", nullable = false, length = 30)
+	private String seriesKey;
+
+	@Column(name = "financial_year", nullable = false, length = 7)
+	private String financialYear;
+
+	@Column(name = "start_value", nullable = false)
+	private Long startValue;
+
+	@Column(name = "end_value", nullable = false)
+	private Long endValue;
+
+	@Column(name = "reserved_at", nullable = false)
+	private LocalDateTime reservedAt;
+
+	// Constructors
+	public InvoiceNumberBlock() {
+	}
+
+	public InvoiceNumberBlock(String seriesKey, String financialYear, Long startValue, Long endValue) {
+		this.seriesKey = seriesKey;
+		this.financialYear = financialYear;
+		this.startValue = startValue;
+		this.endValue = endValue;
+		this.reservedAt = LocalDateTime.now();
+	}
+
+	// Getters and Setters
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getSeriesKey() {
+		return seriesKey;
+	}
+
+	public void setSeriesKey(String seriesKey) {
+		this.seriesKey = seriesKey;
+	}
+
+	public String getFinancialYear() {
+		return financialYear;
+	}
+
+	public void setFinancialYear(String financialYear) {
+		this.financialYear = financialYear;
+	}
+
+	public Long getStartValue() {
+		return startValue;
+	}
+
+	public void setStartValue(Long startValue) {
+		this.startValue = startValue;
+	}
+
+	public Long getEndValue() {
+		return endValue;
+	}
+
+	public void setEndValue(Long endValue) {
+		this.endValue = endValue;
+	}
+
+	public LocalDateTime getReservedAt() {
+		return reservedAt;
+	}
+
+	public void setReservedAt(LocalDateTime reservedAt) {
+		this.reservedAt = reservedAt;
+	}
+}
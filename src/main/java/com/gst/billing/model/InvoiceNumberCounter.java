@@ -0,0 +1,71 @@
+package com.gst.billing.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "invoice_number_counters", uniqueConstraints = @UniqueConstraint(columnNames = { "series_key",
+		"financial_year" }))
+public class InvoiceNumberCounter {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "series_key", nullable = false, length = 30)
+	private String seriesKey;
+
+	@Column(name = "financial_year", nullable = false, length = 7)
+	private String financialYear;
+
+	// First number not yet handed out to any application node
+	@Column(name = "next_value", nullable = false)
+	private Long nextValue = 1L;
+
+	// Constructors
+	public InvoiceNumberCounter() {
+	}
+
+	public InvoiceNumberCounter(String seriesKey, String financialYear) {
+		this.seriesKey = seriesKey;
+		this.financialYear = financialYear;
+	}
+
+	// Getters and Setters
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getSeriesKey() {
+		return seriesKey;
+	}
+
+	public void setSeriesKey(String seriesKey) {
+		this.seriesKey = seriesKey;
+	}
+
+	public String getFinancialYear() {
+		return financialYear;
+	}
+
+	public void setFinancialYear(String financialYear) {
+		this.financialYear = financialYear;
+	}
+
+	public Long getNextValue() {
+		return nextValue;
+	}
+
+	public void setNextValue(Long nextValue) {
+		this.nextValue = nextValue;
+	}
+
+	@Override
+	public String toString() {
+		return "InvoiceNumberCounter{" + "seriesKey='" + seriesKey + '\'' + ", financialYear='" + financialYear + '\''
+				+ ", nextValue=" + nextValue + '}';
+	}
+}
@@ -0,0 +1,115 @@
+package com.gst.billing.model;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Filters of the advanced invoice search; a null or blank field does not filter
+public class InvoiceSearchCriteria {
+
+	private Long customerId;
+
+	// Part of the customer's name, in any case
+	private String customerName;
+
+	private BigDecimal minAmount;
+
+	private BigDecimal maxAmount;
+
+	@DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+	private LocalDate fromDate;
+
+	@DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+	private LocalDate toDate;
+
+	// Invoices with at least one line taxed at this rate
+	private BigDecimal gstRate;
+
+	// Invoices with at least one line for this product
+	private Long productId;
+
+	// Invoices with at least one line whose product's HSN code starts with this
+	private String hsnCode;
+
+	public boolean hasCustomerName() {
+		return customerName != null && !customerName.isBlank();
+	}
+
+	public boolean hasHsnCode() {
+		return hsnCode != null && !hsnCode.isBlank();
+	}
+
+	// Getters and Setters
+	public Long getCustomerId() {
+		return customerId;
+	}
+
+	public void setCustomerId(Long customerId) {
+		this.customerId = customerId;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public void setCustomerName(String customerName) {
+		this.customerName = customerName;
+	}
+
+	public BigDecimal getMinAmount() {
+		return minAmount;
+	}
+
+	public void setMinAmount(BigDecimal minAmount) {
+		this.minAmount = minAmount;
+	}
+
+	public BigDecimal getMaxAmount() {
+		return maxAmount;
+	}
+
+	public void setMaxAmount(BigDecimal maxAmount) {
+		this.maxAmount = maxAmount;
+	}
+
+	public LocalDate getFromDate() {
+		return fromDate;
+	}
+
+	public void setFromDate(LocalDate fromDate) {
+		this.fromDate = fromDate;
+	}
+
+	public LocalDate getToDate() {
+		return toDate;
+	}
+
+	public void setToDate(LocalDate toDate) {
+		this.toDate = toDate;
+	}
+
+	public BigDecimal getGstRate() {
+		return gstRate;
+	}
+
+	public void setGstRate(BigDecimal gstRate) {
+		this.gstRate = gstRate;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public String getHsnCode() {
+		return hsnCode;
+	}
+
+	public void setHsnCode(String hsnCode) {
+		this.hsnCode = hsnCode;
+	}
+}
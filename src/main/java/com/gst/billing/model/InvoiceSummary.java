@@ -0,0 +1,50 @@
+package com.gst.billing.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Read-only invoice row for lists that do not need items or the full entity
+public class InvoiceSummary {
+
+	private final Long id;
+	private final String invoiceNumber;
+	private final String customerName;
+	private final String username;
+	private final LocalDate invoiceDate;
+	private final BigDecimal totalAmount;
+
+	public InvoiceSummary(Long id, String invoiceNumber, String customerName, String username, LocalDate invoiceDate,
+			BigDecimal totalAmount) {
+		this.id = id;
+		this.invoiceNumber = invoiceNumber;
+		this.customerName = customerName;
+		this.username = username;
+		this.invoiceDate = invoiceDate;
+		this.totalAmount = totalAmount;
+	}
+
+	// Getters
+	public Long getId() {
+		return id;
+	}
+
+	public String getInvoiceNumber() {
+		return invoiceNumber;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public LocalDate getInvoiceDate() {
+		return invoiceDate;
+	}
+
+	public BigDecimal getTotalAmount() {
+		return totalAmount;
+	}
+}
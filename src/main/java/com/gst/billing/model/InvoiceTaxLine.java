@@ -0,0 +1,115 @@
+package com.gst.billing.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+// Tax on an invoice for one GST rate, split into CGST/SGST or charged as IGST
+@Entity
+@Table(name = "invoice_tax_lines")
+public class InvoiceTaxLine {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_tax_line_seq")
+	@SequenceGenerator(name = "invoice_tax_line_seq", sequenceName = "invoice_tax_lines_seq", allocationSize = 50)
+	private Long id;
+
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "invoice_id", nullable = false)
+	private Invoice invoice;
+
+	@Column(name = "gst_rate", nullable = false, precision = 5, scale = 2)
+	private BigDecimal gstRate;
+
+	@Column(name = "taxable_amount", nullable = false, precision = 10, scale = 2)
+	private BigDecimal taxableAmount = BigDecimal.ZERO;
+
+	@Column(name = "cgst_amount", nullable = false, precision = 10, scale = 2)
+	private BigDecimal cgstAmount = BigDecimal.ZERO;
+
+	@Column(name = "sgst_amount", nullable = false, precision = 10, scale = 2)
+	private BigDecimal sgstAmount = BigDecimal.ZERO;
+
+	@Column(name = "igst_amount", nullable = false, precision = 10, scale = 2)
+	private BigDecimal igstAmount = BigDecimal.ZERO;
+
+	// ---------- Constructors ----------
+	public InvoiceTaxLine() {
+	}
+
+	public InvoiceTaxLine(BigDecimal gstRate, BigDecimal taxableAmount, BigDecimal cgstAmount, BigDecimal sgstAmount,
+			BigDecimal igstAmount) {
+		this.gstRate = gstRate;
+		this.taxableAmount = taxableAmount;
+		this.cgstAmount = cgstAmount;
+		this.sgstAmount = sgstAmount;
+		this.igstAmount = igstAmount;
+	}
+
+	// Total GST charged at this rate
+	public BigDecimal getGstAmount() {
+		return cgstAmount.add(sgstAmount).add(igstAmount);
+	}
+
+	// ---------- Getters & Setters ----------
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Invoice getInvoice() {
+		return invoice;
+	}
+
+	public void setInvoice(Invoice invoice) {
+		this.invoice = invoice;
+	}
+
+	public BigDecimal getGstRate() {
+		return gstRate;
+	}
+
+	public void setGstRate(BigDecimal gstRate) {
+		this.gstRate = gstRate;
+	}
+
+	public BigDecimal getTaxableAmount() {
+		return taxableAmount;
+	}
+
+	public void setTaxableAmount(BigDecimal taxableAmount) {
+		this.taxableAmount = taxableAmount;
+	}
+
+	public BigDecimal getCgstAmount() {
+		return cgstAmount;
+	}
+
+	public void setCgstAmount(BigDecimal cgstAmount) {
+		this.cgstAmount = cgstAmount;
+	}
+
+	public BigDecimal getSgstAmount() {
+		return sgstAmount;
+	}
+
+	public void setSgstAmount(BigDecimal sgstAmount) {
+		this.sgstAmount = sgstAmount;
+	}
+
+	public BigDecimal getIgstAmount() {
+		return igstAmount;
+	}
+
+	public void setIgstAmount(BigDecimal igstAmount) {
+		this.igstAmount = igstAmount;
+	}
+
+	@Override
+	public String toString() {
+		return "InvoiceTaxLine{" + "gstRate=" + gstRate + ", taxableAmount=" + taxableAmount + ", cgstAmount="
+				+ cgstAmount + ", sgstAmount=" + sgstAmount + ", igstAmount=" + igstAmount + '}';
+	}
+}
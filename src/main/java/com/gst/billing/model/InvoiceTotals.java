@@ -0,0 +1,30 @@
+package com.gst.billing.model;
+
+import java.math.BigDecimal;
+
+// Invoice count and sums computed by the database
+public class InvoiceTotals {
+
+	private final long invoiceCount;
+	private final BigDecimal totalAmount;
+	private final BigDecimal totalGst;
+
+	public InvoiceTotals(Long invoiceCount, BigDecimal totalAmount, BigDecimal totalGst) {
+		this.invoiceCount = invoiceCount != null ? invoiceCount : 0;
+		this.totalAmount = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+		this.totalGst = totalGst != null ? totalGst : BigDecimal.ZERO;
+	}
+
+	// Getters
+	public long getInvoiceCount() {
+		return invoiceCount;
+	}
+
+	public BigDecimal getTotalAmount() {
+		return totalAmount;
+	}
+
+	public BigDecimal getTotalGst() {
+		return totalGst;
+	}
+}
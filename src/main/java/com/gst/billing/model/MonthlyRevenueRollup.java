@@ -0,0 +1,90 @@
+package com.gst.billing.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+// Invoice totals per user and calendar month, kept up to date by InvoiceService
+@Entity
+@Table(name = "monthly_revenue_rollup", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id",
+		"revenue_year", "revenue_month" }))
+public class MonthlyRevenueRollup {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Column(name = "revenue_year", nullable = false)
+	private Integer revenueYear;
+
+	@Column(name = "revenue_month", nullable = false)
+	private Integer revenueMonth;
+
+	@Column(name = "invoice_count", nullable = false)
+	private Long invoiceCount = 0L;
+
+	@Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+	private BigDecimal totalAmount = BigDecimal.ZERO;
+
+	@Column(name = "total_gst", nullable = false, precision = 14, scale = 2)
+	private BigDecimal totalGst = BigDecimal.ZERO;
+
+	// Getters and Setters
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Integer getRevenueYear() {
+		return revenueYear;
+	}
+
+	public void setRevenueYear(Integer revenueYear) {
+		this.revenueYear = revenueYear;
+	}
+
+	public Integer getRevenueMonth() {
+		return revenueMonth;
+	}
+
+	public void setRevenueMonth(Integer revenueMonth) {
+		this.revenueMonth = revenueMonth;
+	}
+
+	public Long getInvoiceCount() {
+		return invoiceCount;
+	}
+
+	public void setInvoiceCount(Long invoiceCount) {
+		this.invoiceCount = invoiceCount;
+	}
+
+	public BigDecimal getTotalAmount() {
+		return totalAmount;
+	}
+
+	public void setTotalAmount(BigDecimal totalAmount) {
+		this.totalAmount = totalAmount;
+	}
+
+	public BigDecimal getTotalGst() {
+		return totalGst;
+	}
+
+	public void setTotalGst(BigDecimal totalGst) {
+		this.totalGst = totalGst;
+	}
+}
@@ -7,8 +7,14 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = { @Index(name = "idx_products_owner_name", columnList = "created_by, name, id"),
+		@Index(name = "idx_products_name", columnList = "name, id"),
+		@Index(name = "idx_products_owner_hsn", columnList = "created_by, hsn_code") })
+// Products referenced by the invoice items on a page are loaded with one IN query
+@BatchSize(size = 100)
 public class Product {
 
 	@Id
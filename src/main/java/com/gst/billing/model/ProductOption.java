@@ -0,0 +1,42 @@
+package com.gst.billing.model;
+
+import java.math.BigDecimal;
+
+// What the invoice form's product typeahead shows and needs for its running totals
+public class ProductOption {
+
+	private final Long id;
+	private final String name;
+	private final String hsnCode;
+	private final BigDecimal price;
+	private final BigDecimal gstRate;
+
+	public ProductOption(Product product) {
+		this.id = product.getId();
+		this.name = product.getName();
+		this.hsnCode = product.getHsnCode();
+		this.price = product.getPrice();
+		this.gstRate = product.getGstRate();
+	}
+
+	// Getters
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHsnCode() {
+		return hsnCode;
+	}
+
+	public BigDecimal getPrice() {
+		return price;
+	}
+
+	public BigDecimal getGstRate() {
+		return gstRate;
+	}
+}
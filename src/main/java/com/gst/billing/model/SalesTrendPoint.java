@@ -0,0 +1,58 @@
+package com.gst.billing.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One bucket of a sales trend; buckets without invoices are present with zero figures
+public class SalesTrendPoint {
+
+	private final LocalDate periodStart;
+	private final String label;
+	private final long invoiceCount;
+	private final BigDecimal revenue;
+	private final BigDecimal gst;
+	private final BigDecimal growthPercent;
+	private final BigDecimal movingAverage;
+
+	public SalesTrendPoint(LocalDate periodStart, String label, long invoiceCount, BigDecimal revenue, BigDecimal gst,
+			BigDecimal growthPercent, BigDecimal movingAverage) {
+		this.periodStart = periodStart;
+		this.label = label;
+		this.invoiceCount = invoiceCount;
+		this.revenue = revenue;
+		this.gst = gst;
+		this.growthPercent = growthPercent;
+		this.movingAverage = movingAverage;
+	}
+
+	// Getters
+	public LocalDate getPeriodStart() {
+		return periodStart;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public long getInvoiceCount() {
+		return invoiceCount;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+
+	public BigDecimal getGst() {
+		return gst;
+	}
+
+	// Revenue change against the previous bucket in percent; null when that bucket had no revenue
+	public BigDecimal getGrowthPercent() {
+		return growthPercent;
+	}
+
+	// Average revenue of this bucket and the ones before it, up to the window size
+	public BigDecimal getMovingAverage() {
+		return movingAverage;
+	}
+}
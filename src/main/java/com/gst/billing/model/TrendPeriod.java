@@ -0,0 +1,75 @@
+package com.gst.billing.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Buckets of a sales trend. Every bucket is identified by its first day, so
+ * the same month of different years never lands in the same bucket. Weeks
+ * are ISO weeks starting on Monday; quarters and financial years follow the
+ * Indian financial year, which starts on 1 April.
+ */
+public enum TrendPeriod {
+	DAY, WEEK, MONTH, QUARTER, FINANCIAL_YEAR;
+
+	private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy", Locale.ENGLISH);
+
+	// Accepts day, week, month, quarter and financial-year (or fy), in any case
+	public static TrendPeriod parse(String value) {
+		if (value == null || value.isBlank()) {
+			return MONTH;
+		}
+		String normalized = value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+		if (normalized.equals("FY") || normalized.equals("YEAR")) {
+			return FINANCIAL_YEAR;
+		}
+		try {
+			return valueOf(normalized);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown trend period: " + value);
+		}
+	}
+
+	// First day of the bucket holding the date
+	public LocalDate start(LocalDate date) {
+		return switch (this) {
+		case DAY -> date;
+		case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		case MONTH -> date.withDayOfMonth(1);
+		case QUARTER -> date.withDayOfMonth(1).minusMonths((date.getMonthValue() - 1) % 3);
+		case FINANCIAL_YEAR -> LocalDate.of(date.getMonthValue() >= 4 ? date.getYear() : date.getYear() - 1, 4, 1);
+		};
+	}
+
+	// First day of the bucket after the one starting on start
+	public LocalDate next(LocalDate start) {
+		return switch (this) {
+		case DAY -> start.plusDays(1);
+		case WEEK -> start.plusWeeks(1);
+		case MONTH -> start.plusMonths(1);
+		case QUARTER -> start.plusMonths(3);
+		case FINANCIAL_YEAR -> start.plusYears(1);
+		};
+	}
+
+	// e.g. 2026-04-18, 2026-W16, Apr 2026, Q1 2026-27, FY 2026-27
+	public String label(LocalDate start) {
+		return switch (this) {
+		case DAY -> start.toString();
+		case WEEK -> String.format("%d-W%02d", start.get(IsoFields.WEEK_BASED_YEAR),
+				start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+		case MONTH -> MONTH_LABEL.format(start);
+		case QUARTER -> "Q" + ((start.getMonthValue() + 8) % 12 / 3 + 1) + " " + financialYear(start);
+		case FINANCIAL_YEAR -> "FY " + financialYear(start);
+		};
+	}
+
+	private static String financialYear(LocalDate date) {
+		int startYear = date.getMonthValue() >= 4 ? date.getYear() : date.getYear() - 1;
+		return startYear + "-" + String.format("%02d", (startYear + 1) % 100);
+	}
+}
@@ -29,6 +29,10 @@ public class User {
 
 	private boolean enabled = true;
 
+	// GST registration invoices are issued under; the configured company GSTIN is used when empty
+	@Column(length = 15)
+	private String gstin;
+
 	private LocalDateTime createdAt;
 	private LocalDateTime updatedAt;
 
@@ -80,6 +84,14 @@ public class User {
 		this.enabled = enabled;
 	}
 
+	public String getGstin() {
+		return gstin;
+	}
+
+	public void setGstin(String gstin) {
+		this.gstin = gstin;
+	}
+
 	public LocalDateTime getCreatedAt() {
 		return createdAt;
 	}
@@ -2,6 +2,11 @@ package com.gst.billing.repository;
 
 import com.gst.billing.model.Customer;
 import com.gst.billing.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -34,6 +39,31 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
 	long countByCreatedBy(User createdBy);
 
+	// Keyset-paged lists; the sort must end with id
+	Window<Customer> findByCreatedBy(User createdBy, ScrollPosition position, Sort sort, Limit limit);
+
+	// The admin list shows each owner, so fetch it with the page
+	@EntityGraph(attributePaths = "createdBy")
+	Window<Customer> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+	// A batch in id order after the given id, for rebuilding the search index
+	List<Customer> findByIdGreaterThanOrderById(Long afterId, Limit limit);
+
+	// Aggregates for the admin customer page
+	@Query("SELECT COUNT(c) FROM Customer c WHERE c.gstin IS NOT NULL AND TRIM(c.gstin) <> ''")
+	long countWithGstin();
+
+	@Query("SELECT COUNT(c) FROM Customer c WHERE c.email IS NOT NULL AND TRIM(c.email) <> ''")
+	long countWithEmail();
+
+	@Query("SELECT COUNT(DISTINCT c.createdBy.id) FROM Customer c")
+	long countDistinctOwners();
+
+	// [username, role, customer count] per owner, largest first
+	@Query("SELECT u.username, u.role, COUNT(c) FROM Customer c JOIN c.createdBy u "
+			+ "GROUP BY u.id, u.username, u.role ORDER BY COUNT(c) DESC")
+	List<Object[]> countCustomersByOwner();
+
 	// Simple search query
 	@Query("SELECT c FROM Customer c WHERE c.createdBy = :user AND "
 			+ "(LOWER(c.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR "
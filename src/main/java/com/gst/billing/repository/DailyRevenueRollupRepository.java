@@ -0,0 +1,52 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.model.DailyRevenueRollup;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyRevenueRollupRepository extends JpaRepository<DailyRevenueRollup, Long> {
+
+	// Add a delta to the row of one user and day, creating it if needed
+	@Modifying
+	@Query(value = "INSERT INTO daily_revenue_rollup (user_id, revenue_date, invoice_count, total_amount, total_gst) "
+			+ "VALUES (:userId, :revenueDate, :invoiceCount, :totalAmount, :totalGst) "
+			+ "ON DUPLICATE KEY UPDATE invoice_count = invoice_count + :invoiceCount, "
+			+ "total_amount = total_amount + :totalAmount, total_gst = total_gst + :totalGst", nativeQuery = true)
+	int addDelta(@Param("userId") Long userId, @Param("revenueDate") LocalDate revenueDate,
+			@Param("invoiceCount") long invoiceCount, @Param("totalAmount") BigDecimal totalAmount,
+			@Param("totalGst") BigDecimal totalGst);
+
+	// Drop the row of one user and day once its last invoice is gone; touches that row only
+	@Modifying
+	@Query(value = "DELETE FROM daily_revenue_rollup WHERE user_id = :userId AND revenue_date = :revenueDate "
+			+ "AND invoice_count <= 0", nativeQuery = true)
+	int deleteIfEmpty(@Param("userId") Long userId, @Param("revenueDate") LocalDate revenueDate);
+
+	@Modifying
+	@Query(value = "DELETE FROM daily_revenue_rollup", nativeQuery = true)
+	int deleteAllRows();
+
+	// Regenerate every row from the invoices table
+	@Modifying
+	@Query(value = "INSERT INTO daily_revenue_rollup (user_id, revenue_date, invoice_count, total_amount, total_gst) "
+			+ "SELECT user_id, invoice_date, COUNT(*), SUM(total_amount), SUM(total_gst) FROM invoices "
+			+ "GROUP BY user_id, invoice_date", nativeQuery = true)
+	int rebuildFromInvoices();
+
+	@Query("SELECT r.revenueDate, r.totalAmount FROM DailyRevenueRollup r WHERE r.userId = :userId "
+			+ "ORDER BY r.revenueDate")
+	List<Object[]> getDailyRevenue(@Param("userId") Long userId);
+
+	@Query("SELECT r.revenueDate, SUM(r.totalAmount) FROM DailyRevenueRollup r GROUP BY r.revenueDate "
+			+ "ORDER BY r.revenueDate")
+	List<Object[]> getDailyRevenueAll();
+}
@@ -1,16 +1,24 @@
 package com.gst.billing.repository;
 
+import com.gst.billing.model.Gstr1Row;
 import com.gst.billing.model.Invoice;
 import com.gst.billing.model.InvoiceItem;
 import com.gst.billing.model.Product;
 import com.gst.billing.model.User;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
@@ -37,4 +45,20 @@ public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long>
 
 	@Query("SELECT COALESCE(AVG(ii.gstRate), 0) FROM InvoiceItem ii WHERE ii.invoice.user = :user")
 	Double getAverageGstRateByUser(@Param("user") User user);
-}
\ No newline at end of file
+
+	// (product id, id of the latest invoice it is on) for each product a user has invoiced
+	@Query("SELECT ii.product.id, MAX(ii.invoice.id) FROM InvoiceItem ii WHERE ii.invoice.user.id = :userId "
+			+ "GROUP BY ii.product.id")
+	List<Object[]> findLastInvoiceIdByProduct(@Param("userId") Long userId);
+
+	// Items of one user's invoices dated in [from, to], streamed for GSTR-1; callers must consume them inside a
+	// transaction. Buyers with a GSTIN come first, grouped by it, so each B2B group arrives in one run
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("SELECT new com.gst.billing.model.Gstr1Row(i.id, i.invoiceNumber, i.invoiceDate, i.totalAmount, "
+			+ "i.interState, c.gstin, p.hsnCode, p.name, ii.quantity, ii.unitPrice, ii.gstRate, ii.gstAmount) "
+			+ "FROM InvoiceItem ii JOIN ii.invoice i JOIN i.customer c JOIN ii.product p "
+			+ "WHERE i.user.id = :userId AND i.invoiceDate BETWEEN :from AND :to ORDER BY "
+			+ "CASE WHEN c.gstin IS NULL OR TRIM(c.gstin) = '' THEN 1 ELSE 0 END, TRIM(c.gstin), i.id, ii.id")
+	Stream<Gstr1Row> streamGstr1Rows(@Param("userId") Long userId, @Param("from") LocalDate from,
+			@Param("to") LocalDate to);
+}
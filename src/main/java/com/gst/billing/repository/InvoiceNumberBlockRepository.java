@@ -0,0 +1,24 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.model.InvoiceNumberBlock;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvoiceNumberBlockRepository extends JpaRepository<InvoiceNumberBlock, Long> {
+
+	List<InvoiceNumberBlock> findBySeriesKeyAndFinancialYearOrderByStartValue(String seriesKey, String financialYear);
+
+	// Forget a block once it is used up or given back
+	@Modifying
+	@Query("DELETE FROM InvoiceNumberBlock b WHERE b.seriesKey = :seriesKey AND b.financialYear = :financialYear "
+			+ "AND b.startValue = :startValue")
+	int deleteBlock(@Param("seriesKey") String seriesKey, @Param("financialYear") String financialYear,
+			@Param("startValue") Long startValue);
+}
@@ -0,0 +1,21 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.model.InvoiceNumberCounter;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface InvoiceNumberCounterRepository extends JpaRepository<InvoiceNumberCounter, Long> {
+
+	Optional<InvoiceNumberCounter> findBySeriesKeyAndFinancialYear(String seriesKey, String financialYear);
+
+	// Row lock held until the block reservation commits
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<InvoiceNumberCounter> findForUpdateBySeriesKeyAndFinancialYear(String seriesKey, String financialYear);
+}
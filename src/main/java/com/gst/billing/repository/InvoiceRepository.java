@@ -2,19 +2,42 @@ package com.gst.billing.repository;
 
 import com.gst.billing.model.Customer;
 import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceExportRow;
+import com.gst.billing.model.InvoiceSummary;
+import com.gst.billing.model.InvoiceTotals;
 import com.gst.billing.model.User;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, InvoiceRepositoryCustom {
+
+	// Export row of an invoice i with customer c, its CGST, SGST and IGST summed over the joined tax lines t
+	String EXPORT_ROW = "new com.gst.billing.model.InvoiceExportRow(i.id, c.name, i.invoiceDate, i.subtotal, "
+			+ "i.totalGst, i.totalAmount, COALESCE(SUM(t.cgstAmount), 0), COALESCE(SUM(t.sgstAmount), 0), "
+			+ "COALESCE(SUM(t.igstAmount), 0))";
+
+	String EXPORT_ROW_GROUP = " GROUP BY i.id, c.name, i.invoiceDate, i.subtotal, i.totalGst, i.totalAmount ";
 
 	// Basic CRUD operations
 	List<Invoice> findByUserOrderByInvoiceDateDesc(User user);
@@ -30,6 +53,7 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
 	List<Invoice> findByInvoiceDateAndUserOrderByInvoiceDateDesc(LocalDate invoiceDate, User user);
 
+	@EntityGraph("Invoice.list")
 	List<Invoice> findByInvoiceNumberContainingIgnoreCaseAndUser(String invoiceNumber, User user);
 
 	long countByUser(User user);
@@ -40,6 +64,33 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
 	List<Invoice> findByUserIdOrderByInvoiceDateDesc(Long userId);
 
+	// Keyset-paged lists; the sort must end with id
+	@EntityGraph("Invoice.list")
+	Window<Invoice> findByUser(User user, ScrollPosition position, Sort sort, Limit limit);
+
+	@EntityGraph("Invoice.list")
+	Window<Invoice> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+	// One invoice with everything the view page and the PDF render
+	@EntityGraph("Invoice.detail")
+	Optional<Invoice> findWithDetailsById(Long id);
+
+	// Ids of invoices with items but no stored tax lines, in id order after the given one
+	@Query("SELECT i.id FROM Invoice i WHERE i.id > :afterId AND i.taxLines IS EMPTY AND i.items IS NOT EMPTY "
+			+ "ORDER BY i.id")
+	List<Long> findIdsWithoutTaxLines(@Param("afterId") Long afterId, Limit limit);
+
+	// A batch in id order after the given id, for rebuilding the search index
+	List<Invoice> findByIdGreaterThanOrderById(Long afterId, Limit limit);
+
+	// (customer id, id of the latest invoice) for each customer a user has invoiced
+	@Query("SELECT i.customer.id, MAX(i.id) FROM Invoice i WHERE i.user.id = :userId GROUP BY i.customer.id")
+	List<Object[]> findLastInvoiceIdByCustomer(@Param("userId") Long userId);
+
+	// One user's invoices among the given ids, with what the list page shows
+	@EntityGraph("Invoice.list")
+	List<Invoice> findByUserAndIdIn(User user, Collection<Long> ids);
+
 	// Simple queries
 	@Query("SELECT i FROM Invoice i WHERE i.user = :user ORDER BY i.invoiceDate DESC")
 	List<Invoice> findLatestInvoicesByUser(@Param("user") User user);
@@ -50,24 +101,42 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 	@Query("SELECT COALESCE(SUM(i.totalGst), 0) FROM Invoice i WHERE i.user = :user")
 	BigDecimal getTotalGstByUser(@Param("user") User user);
 
+	// Count and sums over all invoices in one aggregate query
+	@Query("SELECT new com.gst.billing.model.InvoiceTotals(COUNT(i), SUM(i.totalAmount), SUM(i.totalGst)) "
+			+ "FROM Invoice i")
+	InvoiceTotals getInvoiceTotals();
+
+	@Query("SELECT new com.gst.billing.model.InvoiceTotals(COUNT(i), SUM(i.totalAmount), SUM(i.totalGst)) "
+			+ "FROM Invoice i WHERE i.user = :user")
+	InvoiceTotals getInvoiceTotalsByUser(@Param("user") User user);
+
+	// Newest invoices first; the page size becomes a LIMIT
+	@Query("SELECT new com.gst.billing.model.InvoiceSummary(i.id, i.invoiceNumber, c.name, u.username, "
+			+ "i.invoiceDate, i.totalAmount) FROM Invoice i JOIN i.customer c JOIN i.user u "
+			+ "ORDER BY i.invoiceDate DESC, i.id DESC")
+	List<InvoiceSummary> findRecentInvoiceSummaries(Pageable pageable);
+
+	// Invoice numbers of one series (served by the unique index on invoice_number). The
+	// wildcard is appended to the bound value so the pattern stays a plain prefix the
+	// planner can turn into an index range, which it cannot do for CONCAT(:prefix, '%')
+	@Query("SELECT i.invoiceNumber FROM Invoice i WHERE i.invoiceNumber LIKE :prefix%")
+	List<String> findInvoiceNumbersByPrefix(@Param("prefix") String prefix);
+
+	// Export rows streamed from the database; callers must consume them inside a transaction
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("SELECT " + EXPORT_ROW + " FROM Invoice i JOIN i.customer c LEFT JOIN i.taxLines t "
+			+ "WHERE i.user.id = :userId" + EXPORT_ROW_GROUP + "ORDER BY i.invoiceDate DESC, i.id DESC")
+	Stream<InvoiceExportRow> streamExportRowsByUserId(@Param("userId") Long userId);
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("SELECT " + EXPORT_ROW + " FROM Invoice i JOIN i.customer c LEFT JOIN i.taxLines t" + EXPORT_ROW_GROUP
+			+ "ORDER BY i.invoiceDate DESC, i.id DESC")
+	Stream<InvoiceExportRow> streamAllExportRows();
+
 	// Simple search
 	@Query("SELECT i FROM Invoice i WHERE i.user = :user AND "
 			+ "(LOWER(i.invoiceNumber) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR "
 			+ "LOWER(i.customer.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
 	List<Invoice> searchInvoices(@Param("user") User user, @Param("searchTerm") String searchTerm);
 
-	@Query("SELECT MONTH(i.invoiceDate), SUM(i.totalAmount) FROM Invoice i WHERE i.user = :user GROUP BY MONTH(i.invoiceDate) ORDER BY MONTH(i.invoiceDate)")
-	List<Object[]> getMonthlyRevenue(User user);
-
-	// 📅 Day-wise total revenue for user
-	@Query("SELECT DATE(i.invoiceDate), SUM(i.totalAmount) FROM Invoice i WHERE i.user = :user GROUP BY DATE(i.invoiceDate) ORDER BY DATE(i.invoiceDate)")
-	List<Object[]> getDailyRevenue(User user);
-
-	// 🔹 Admin — all users together
-	@Query("SELECT MONTH(i.invoiceDate), SUM(i.totalAmount) FROM Invoice i GROUP BY MONTH(i.invoiceDate) ORDER BY MONTH(i.invoiceDate)")
-	List<Object[]> getMonthlyRevenueAll();
-
-	@Query("SELECT DATE(i.invoiceDate), SUM(i.totalAmount) FROM Invoice i GROUP BY DATE(i.invoiceDate) ORDER BY DATE(i.invoiceDate)")
-	List<Object[]> getDailyRevenueAll();
-
 }
\ No newline at end of file
@@ -1,17 +1,51 @@
 package com.gst.billing.repository;
 
+import com.gst.billing.model.DashboardStatistics;
 import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceSearchCriteria;
+import com.gst.billing.model.SalesTrendPoint;
+import com.gst.billing.model.TrendPeriod;
 import com.gst.billing.model.User;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 
 public interface InvoiceRepositoryCustom {
 
-	List<Invoice> findInvoicesWithComplexCriteria(User user, Map<String, Object> criteria);
+	/**
+	 * One keyset page of the invoices matching the criteria, ordered by date and
+	 * then id, with customer and owner loaded. A null user searches everyone's
+	 * invoices. Positions in the window hold invoiceDate and id.
+	 */
+	Window<Invoice> findByCriteria(User user, InvoiceSearchCriteria criteria, ScrollPosition position,
+			Sort.Direction direction, Limit limit);
+
+	// Number of invoices matching the criteria; customers are joined only to filter on their name
+	long countByCriteria(User user, InvoiceSearchCriteria criteria);
+
+	// Count, revenue, GST and distinct customers of a user's invoices dated startDate..endDate
+	default DashboardStatistics getDashboardStatistics(User user, LocalDate startDate, LocalDate endDate) {
+		return getDashboardStatistics(user, startDate, endDate, startDate);
+	}
+
+	// As above, but customers already billed from billedSince up to startDate are not counted again
+	DashboardStatistics getDashboardStatistics(User user, LocalDate startDate, LocalDate endDate,
+			LocalDate billedSince);
 
-	Map<String, Object> getDashboardStatistics(User user, LocalDate startDate, LocalDate endDate);
+	// A user's (or, for null, everyone's) whole sales history up to today, by period, with a 3-period moving average
+	default List<SalesTrendPoint> getSalesTrendAnalysis(User user, String periodType) {
+		return getSalesTrend(user, TrendPeriod.parse(periodType), null, LocalDate.now(), 3);
+	}
 
-	List<Map<String, Object>> getSalesTrendAnalysis(User user, String periodType);
+	/**
+	 * Sales by period from the bucket holding from (or the first sale, when null) to
+	 * the one holding to, with every bucket present, growth against the previous
+	 * bucket and a trailing moving average over window buckets.
+	 */
+	List<SalesTrendPoint> getSalesTrend(User user, TrendPeriod period, LocalDate from, LocalDate to, int window);
 }
\ No newline at end of file
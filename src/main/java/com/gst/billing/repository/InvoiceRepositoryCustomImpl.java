@@ -1,101 +1,293 @@
 package com.gst.billing.repository;
 
+import com.gst.billing.model.DashboardStatistics;
 import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceSearchCriteria;
+import com.gst.billing.model.SalesTrendPoint;
+import com.gst.billing.model.TrendPeriod;
 import com.gst.billing.model.User;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Root;
 
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Repository;
-import jakarta.persistence.criteria.Predicate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
 public class InvoiceRepositoryCustomImpl implements InvoiceRepositoryCustom {
 
-	@PersistenceContext
-	private EntityManager entityManager;
-
-	@Override
-	public List<Invoice> findInvoicesWithComplexCriteria(User user, Map<String, Object> criteria) {
-		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-		CriteriaQuery<Invoice> query = cb.createQuery(Invoice.class);
-		Root<Invoice> invoice = query.from(Invoice.class);
+	private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
 
-		List<Predicate> predicates = new ArrayList<>();
+	// Conditions of the advanced search, in the order they appear in the query
+	private enum Filter {
+		USER("i.user = :user"),
+		CUSTOMER("i.customer.id = :customerId"),
+		CUSTOMER_NAME("LOWER(c.name) LIKE :customerName"),
+		MIN_AMOUNT("i.totalAmount >= :minAmount"),
+		MAX_AMOUNT("i.totalAmount <= :maxAmount"),
+		FROM_DATE("i.invoiceDate >= :fromDate"),
+		TO_DATE("i.invoiceDate <= :toDate"),
+		GST_RATE("EXISTS (SELECT 1 FROM InvoiceTaxLine t WHERE t.invoice = i AND t.gstRate = :gstRate)"),
+		PRODUCT("EXISTS (SELECT 1 FROM InvoiceItem p WHERE p.invoice = i AND p.product.id = :productId)"),
+		HSN_CODE("EXISTS (SELECT 1 FROM InvoiceItem h WHERE h.invoice = i AND h.product.hsnCode LIKE :hsnCode)");
 
-		// Always filter by user
-		predicates.add(cb.equal(invoice.get("user"), user));
+		private final String condition;
 
-		// Add dynamic criteria
-		if (criteria.containsKey("customerName")) {
-			predicates.add(cb.like(cb.lower(invoice.get("customer").get("name")),
-					"%" + criteria.get("customerName").toString().toLowerCase() + "%"));
+		Filter(String condition) {
+			this.condition = condition;
 		}
 
-		if (criteria.containsKey("minAmount")) {
-			predicates.add(cb.greaterThanOrEqualTo(invoice.get("totalAmount"), (Double) criteria.get("minAmount")));
+		int bit() {
+			return 1 << ordinal();
 		}
 
-		if (criteria.containsKey("maxAmount")) {
-			predicates.add(cb.lessThanOrEqualTo(invoice.get("totalAmount"), (Double) criteria.get("maxAmount")));
+		boolean in(int filters) {
+			return (filters & bit()) != 0;
 		}
+	}
 
-		if (criteria.containsKey("startDate")) {
-			predicates.add(cb.greaterThanOrEqualTo(invoice.get("invoiceDate"), (LocalDate) criteria.get("startDate")));
+	// Shape bits above the filter bits
+	private static final int SEEK = 1 << 16;
+	private static final int DESCENDING = 1 << 17;
+
+	// JPQL per query shape, built once so every search with the same filters sends the same
+	// string and reuses Hibernate's parsed query and the driver's prepared statement
+	private final Map<Integer, String> searchShapes = new ConcurrentHashMap<>();
+	private final Map<Integer, String> countShapes = new ConcurrentHashMap<>();
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Window<Invoice> findByCriteria(User user, InvoiceSearchCriteria criteria, ScrollPosition position,
+			Sort.Direction direction, Limit limit) {
+		KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+		boolean seek = !keyset.isInitial();
+		boolean backward = keyset.scrollsBackward();
+		// Scrolling back reads the rows before the key in reverse and flips them afterwards
+		boolean descending = direction.isDescending() != backward;
+		int filters = filters(user, criteria);
+		int shape = filters | (seek ? SEEK : 0) | (descending ? DESCENDING : 0);
+
+		String jpql = searchShapes.computeIfAbsent(shape, key -> {
+			String comparison = descending ? "<" : ">";
+			String order = descending ? " DESC" : " ASC";
+			String where = where(filters);
+			if (seek) {
+				where = (where.isEmpty() ? " WHERE " : where + " AND ") + "(i.invoiceDate " + comparison
+						+ " :keyDate OR (i.invoiceDate = :keyDate AND i.id " + comparison + " :keyId))";
+			}
+			return "SELECT i FROM Invoice i" + from(filters) + where + " ORDER BY i.invoiceDate" + order + ", i.id"
+					+ order;
+		});
+
+		TypedQuery<Invoice> query = entityManager.createQuery(jpql, Invoice.class)
+				.setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph("Invoice.list"))
+				.setMaxResults(limit.max() + 1);
+		bind(query, user, criteria);
+		if (seek) {
+			query.setParameter("keyDate", keyset.getKeys().get("invoiceDate"));
+			query.setParameter("keyId", keyset.getKeys().get("id"));
 		}
 
-		if (criteria.containsKey("endDate")) {
-			predicates.add(cb.lessThanOrEqualTo(invoice.get("invoiceDate"), (LocalDate) criteria.get("endDate")));
+		// One row past the page tells whether there is more
+		List<Invoice> rows = new ArrayList<>(query.getResultList());
+		boolean hasMore = rows.size() > limit.max();
+		List<Invoice> items = hasMore ? rows.subList(0, limit.max()) : rows;
+		if (backward) {
+			Collections.reverse(items);
 		}
+		return Window.from(items, index -> {
+			Invoice invoice = items.get(index);
+			Map<String, Object> keys = new LinkedHashMap<>();
+			keys.put("invoiceDate", invoice.getInvoiceDate());
+			keys.put("id", invoice.getId());
+			return ScrollPosition.forward(keys);
+		}, hasMore);
+	}
 
-		query.where(predicates.toArray(new Predicate[0]));
-		query.orderBy(cb.desc(invoice.get("invoiceDate")));
+	@Override
+	public long countByCriteria(User user, InvoiceSearchCriteria criteria) {
+		int filters = filters(user, criteria);
+		String jpql = countShapes.computeIfAbsent(filters,
+				key -> "SELECT COUNT(i) FROM Invoice i" + from(filters) + where(filters));
 
-		TypedQuery<Invoice> typedQuery = entityManager.createQuery(query);
+		TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+		bind(query, user, criteria);
+		return query.getSingleResult();
+	}
 
-		// Add pagination if provided
-		if (criteria.containsKey("page") && criteria.containsKey("size")) {
-			int page = (Integer) criteria.get("page");
-			int size = (Integer) criteria.get("size");
-			typedQuery.setFirstResult(page * size);
-			typedQuery.setMaxResults(size);
+	// Bitmask of the filters in use; each combination is one query shape
+	private static int filters(User user, InvoiceSearchCriteria criteria) {
+		int filters = 0;
+		filters |= user != null ? Filter.USER.bit() : 0;
+		filters |= criteria.getCustomerId() != null ? Filter.CUSTOMER.bit() : 0;
+		filters |= criteria.hasCustomerName() ? Filter.CUSTOMER_NAME.bit() : 0;
+		filters |= criteria.getMinAmount() != null ? Filter.MIN_AMOUNT.bit() : 0;
+		filters |= criteria.getMaxAmount() != null ? Filter.MAX_AMOUNT.bit() : 0;
+		filters |= criteria.getFromDate() != null ? Filter.FROM_DATE.bit() : 0;
+		filters |= criteria.getToDate() != null ? Filter.TO_DATE.bit() : 0;
+		filters |= criteria.getGstRate() != null ? Filter.GST_RATE.bit() : 0;
+		filters |= criteria.getProductId() != null ? Filter.PRODUCT.bit() : 0;
+		filters |= criteria.hasHsnCode() ? Filter.HSN_CODE.bit() : 0;
+		return filters;
+	}
+
+	private static String from(int filters) {
+		return Filter.CUSTOMER_NAME.in(filters) ? " JOIN i.customer c" : "";
+	}
+
+	private static String where(int filters) {
+		StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+		for (Filter filter : Filter.values()) {
+			if (filter.in(filters)) {
+				where.add(filter.condition);
+			}
 		}
+		return where.toString();
+	}
 
-		return typedQuery.getResultList();
+	private static void bind(TypedQuery<?> query, User user, InvoiceSearchCriteria criteria) {
+		if (user != null) {
+			query.setParameter("user", user);
+		}
+		if (criteria.getCustomerId() != null) {
+			query.setParameter("customerId", criteria.getCustomerId());
+		}
+		if (criteria.hasCustomerName()) {
+			query.setParameter("customerName", "%" + criteria.getCustomerName().trim().toLowerCase() + "%");
+		}
+		if (criteria.getMinAmount() != null) {
+			query.setParameter("minAmount", criteria.getMinAmount());
+		}
+		if (criteria.getMaxAmount() != null) {
+			query.setParameter("maxAmount", criteria.getMaxAmount());
+		}
+		if (criteria.getFromDate() != null) {
+			query.setParameter("fromDate", criteria.getFromDate());
+		}
+		if (criteria.getToDate() != null) {
+			query.setParameter("toDate", criteria.getToDate());
+		}
+		if (criteria.getGstRate() != null) {
+			query.setParameter("gstRate", criteria.getGstRate());
+		}
+		if (criteria.getProductId() != null) {
+			query.setParameter("productId", criteria.getProductId());
+		}
+		if (criteria.hasHsnCode()) {
+			query.setParameter("hsnCode", criteria.getHsnCode().trim() + "%");
+		}
+	}
+
+	@Override
+	public DashboardStatistics getDashboardStatistics(User user, LocalDate startDate, LocalDate endDate,
+			LocalDate billedSince) {
+		// One pass over the user's invoices in the range (idx_invoices_user_date). With a look-back
+		// window, each customer is checked against idx_invoices_customer_date once per invoice; without
+		// one, every customer in the range counts as new and the check is left out of the SQL
+		boolean lookBack = billedSince.isBefore(startDate);
+		String newCustomers = lookBack
+				? "COUNT(DISTINCT CASE WHEN NOT EXISTS (SELECT 1 FROM invoices p WHERE p.customer_id = i.customer_id "
+						+ "AND p.user_id = i.user_id AND p.invoice_date >= :billedSince "
+						+ "AND p.invoice_date < :startDate) THEN i.customer_id END)"
+				: "COUNT(DISTINCT i.customer_id)";
+		String sql = "SELECT COUNT(*), COALESCE(SUM(i.total_amount), 0), COALESCE(SUM(i.total_gst), 0), "
+				+ newCustomers
+				+ " FROM invoices i WHERE i.user_id = :userId AND i.invoice_date BETWEEN :startDate AND :endDate";
+
+		Query query = entityManager.createNativeQuery(sql).setParameter("userId", user.getId())
+				.setParameter("startDate", startDate).setParameter("endDate", endDate);
+		if (lookBack) {
+			query.setParameter("billedSince", billedSince);
+		}
+		Object[] row = (Object[]) query.getSingleResult();
+		return new DashboardStatistics(((Number) row[0]).longValue(), toBigDecimal(row[1]), toBigDecimal(row[2]),
+				((Number) row[3]).longValue());
 	}
 
 	@Override
-	public Map<String, Object> getDashboardStatistics(User user, LocalDate startDate, LocalDate endDate) {
-		Map<String, Object> stats = new HashMap<>();
+	public List<SalesTrendPoint> getSalesTrend(User user, TrendPeriod period, LocalDate from, LocalDate to,
+			int window) {
+		if (window < 1) {
+			throw new IllegalArgumentException("Moving average window must be at least 1");
+		}
 
-		// Implement complex statistics calculation
-		@SuppressWarnings("unused")
-		String sql = "SELECT " + "COUNT(*) as totalInvoices, " + "SUM(total_amount) as totalRevenue, "
-				+ "SUM(total_gst) as totalGst, " + "AVG(total_amount) as averageInvoiceValue, "
-				+ "COUNT(DISTINCT customer_id) as uniqueCustomers " + "FROM invoices "
-				+ "WHERE user_id = :userId AND invoice_date BETWEEN :startDate AND :endDate";
+		// Days with sales from the daily rollup (one row per day, however many invoices it had),
+		// folded into buckets in one pass
+		String jpql = "SELECT r.revenueDate, SUM(r.invoiceCount), SUM(r.totalAmount), SUM(r.totalGst) "
+				+ "FROM DailyRevenueRollup r WHERE r.revenueDate <= :to"
+				+ (from != null ? " AND r.revenueDate >= :from" : "") + (user != null ? " AND r.userId = :userId" : "")
+				+ " GROUP BY r.revenueDate ORDER BY r.revenueDate";
+		TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class).setParameter("to", to);
+		if (from != null) {
+			query.setParameter("from", period.start(from));
+		}
+		if (user != null) {
+			query.setParameter("userId", user.getId());
+		}
+		List<Object[]> days = query.getResultList();
 
-		// Execute native query and populate stats map
-		// This is a simplified version - you'd need to implement the actual query
-		// execution
+		List<SalesTrendPoint> trend = new ArrayList<>();
+		if (from == null && days.isEmpty()) {
+			return trend;
+		}
+
+		LocalDate last = period.start(to);
+		BigDecimal[] recent = new BigDecimal[window];
+		BigDecimal windowSum = BigDecimal.ZERO;
+		BigDecimal previous = null;
+		int day = 0;
+		int index = 0;
+		for (LocalDate bucket = period.start(from != null ? from : (LocalDate) days.get(0)[0]); !bucket
+				.isAfter(last); bucket = period.next(bucket), index++) {
+			LocalDate next = period.next(bucket);
+			long count = 0;
+			BigDecimal revenue = BigDecimal.ZERO;
+			BigDecimal gst = BigDecimal.ZERO;
+			while (day < days.size() && ((LocalDate) days.get(day)[0]).isBefore(next)) {
+				Object[] row = days.get(day++);
+				count += ((Number) row[1]).longValue();
+				revenue = revenue.add(toBigDecimal(row[2]));
+				gst = gst.add(toBigDecimal(row[3]));
+			}
+
+			// Trailing window kept as a ring of the last revenues and their running sum
+			int slot = index % window;
+			if (recent[slot] != null) {
+				windowSum = windowSum.subtract(recent[slot]);
+			}
+			recent[slot] = revenue;
+			windowSum = windowSum.add(revenue);
+			BigDecimal movingAverage = windowSum.divide(BigDecimal.valueOf(Math.min(index + 1, window)), 2,
+					RoundingMode.HALF_UP);
 
-		return stats;
+			BigDecimal growth = previous == null || previous.signum() == 0 ? null
+					: revenue.subtract(previous).multiply(ONE_HUNDRED).divide(previous, 2, RoundingMode.HALF_UP);
+			trend.add(new SalesTrendPoint(bucket, period.label(bucket), count, revenue, gst, growth, movingAverage));
+			previous = revenue;
+		}
+		return trend;
 	}
 
-	@Override
-	public List<Map<String, Object>> getSalesTrendAnalysis(User user, String periodType) {
-		// Implement sales trend analysis
-		List<Map<String, Object>> trends = new ArrayList<>();
-		// Add implementation for sales trend analysis
-		return trends;
+	private static BigDecimal toBigDecimal(Object value) {
+		return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.model.MonthlyRevenueRollup;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyRevenueRollupRepository extends JpaRepository<MonthlyRevenueRollup, Long> {
+
+	// Add a delta to the row of one user and month, creating it if needed
+	@Modifying
+	@Query(value = "INSERT INTO monthly_revenue_rollup "
+			+ "(user_id, revenue_year, revenue_month, invoice_count, total_amount, total_gst) "
+			+ "VALUES (:userId, :revenueYear, :revenueMonth, :invoiceCount, :totalAmount, :totalGst) "
+			+ "ON DUPLICATE KEY UPDATE invoice_count = invoice_count + :invoiceCount, "
+			+ "total_amount = total_amount + :totalAmount, total_gst = total_gst + :totalGst", nativeQuery = true)
+	int addDelta(@Param("userId") Long userId, @Param("revenueYear") int revenueYear,
+			@Param("revenueMonth") int revenueMonth, @Param("invoiceCount") long invoiceCount,
+			@Param("totalAmount") BigDecimal totalAmount, @Param("totalGst") BigDecimal totalGst);
+
+	// Drop the row of one user and month once its last invoice is gone; touches that row only
+	@Modifying
+	@Query(value = "DELETE FROM monthly_revenue_rollup WHERE user_id = :userId AND revenue_year = :revenueYear "
+			+ "AND revenue_month = :revenueMonth AND invoice_count <= 0", nativeQuery = true)
+	int deleteIfEmpty(@Param("userId") Long userId, @Param("revenueYear") int revenueYear,
+			@Param("revenueMonth") int revenueMonth);
+
+	@Modifying
+	@Query(value = "DELETE FROM monthly_revenue_rollup", nativeQuery = true)
+	int deleteAllRows();
+
+	// Regenerate every row from the invoices table
+	@Modifying
+	@Query(value = "INSERT INTO monthly_revenue_rollup "
+			+ "(user_id, revenue_year, revenue_month, invoice_count, total_amount, total_gst) "
+			+ "SELECT user_id, YEAR(invoice_date), MONTH(invoice_date), COUNT(*), SUM(total_amount), SUM(total_gst) "
+			+ "FROM invoices GROUP BY user_id, YEAR(invoice_date), MONTH(invoice_date)", nativeQuery = true)
+	int rebuildFromInvoices();
+
+	Optional<MonthlyRevenueRollup> findByUserIdAndRevenueYearAndRevenueMonth(Long userId, Integer revenueYear,
+			Integer revenueMonth);
+
+	// [year, month, revenue] rows in calendar order; months of different years stay apart
+	@Query("SELECT r.revenueYear, r.revenueMonth, r.totalAmount FROM MonthlyRevenueRollup r "
+			+ "WHERE r.userId = :userId ORDER BY r.revenueYear, r.revenueMonth")
+	List<Object[]> getMonthlyRevenue(@Param("userId") Long userId);
+
+	@Query("SELECT r.revenueYear, r.revenueMonth, SUM(r.totalAmount) FROM MonthlyRevenueRollup r "
+			+ "GROUP BY r.revenueYear, r.revenueMonth ORDER BY r.revenueYear, r.revenueMonth")
+	List<Object[]> getMonthlyRevenueAll();
+}
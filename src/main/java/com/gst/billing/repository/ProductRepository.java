@@ -2,6 +2,11 @@ package com.gst.billing.repository;
 
 import com.gst.billing.model.Product;
 import com.gst.billing.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -37,6 +42,27 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
 	long countByCreatedBy(User createdBy);
 
+	// Keyset-paged lists; the sort must end with id
+	Window<Product> findByCreatedBy(User createdBy, ScrollPosition position, Sort sort, Limit limit);
+
+	// The admin list shows each owner, so fetch it with the page
+	@EntityGraph(attributePaths = "createdBy")
+	Window<Product> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+	// A batch in id order after the given id, for rebuilding the search index
+	List<Product> findByIdGreaterThanOrderById(Long afterId, Limit limit);
+
+	// Aggregates for the admin product page
+	@Query("SELECT COUNT(p) FROM Product p WHERE p.hsnCode IS NOT NULL AND TRIM(p.hsnCode) <> ''")
+	long countWithHsnCode();
+
+	@Query("SELECT COUNT(DISTINCT p.createdBy.id) FROM Product p")
+	long countDistinctOwners();
+
+	// [GST rate, product count, average price] per rate
+	@Query("SELECT p.gstRate, COUNT(p), AVG(p.price) FROM Product p GROUP BY p.gstRate ORDER BY p.gstRate")
+	List<Object[]> summarizeByGstRate();
+
 	// Simple search query
 	@Query("SELECT p FROM Product p WHERE p.createdBy = :user AND "
 			+ "(LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR "
@@ -0,0 +1,166 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.InvoiceSummary;
+import com.gst.billing.model.InvoiceTotals;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * System-wide figures for the admin pages, computed with aggregate queries.
+ *
+ * The snapshot is cached for a short time. Only one thread reloads an expired
+ * snapshot; other admins keep getting the previous one meanwhile, and only
+ * wait when there is no snapshot at all yet.
+ */
+@Service
+public class AdminMetricsService {
+
+	private static final int RECENT_INVOICES = 5;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final long ttlNanos;
+
+	private final ReentrantLock refreshLock = new ReentrantLock();
+
+	private volatile AdminMetrics snapshot;
+
+	public AdminMetricsService(@Value("${billing.admin-metrics.ttl-seconds:30}") long ttlSeconds) {
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+	}
+
+	public AdminMetrics getMetrics() {
+		AdminMetrics current = snapshot;
+		if (current != null && !isExpired(current)) {
+			return current;
+		}
+
+		if (current == null) {
+			refreshLock.lock();
+		} else if (!refreshLock.tryLock()) {
+			// Another thread is already reloading
+			return current;
+		}
+		try {
+			current = snapshot;
+			if (current == null || isExpired(current)) {
+				current = load();
+				snapshot = current;
+			}
+			return current;
+		} finally {
+			refreshLock.unlock();
+		}
+	}
+
+	// Drop the snapshot so the next request reloads it
+	public void invalidate() {
+		snapshot = null;
+	}
+
+	private boolean isExpired(AdminMetrics metrics) {
+		return System.nanoTime() - metrics.loadedAtNanos >= ttlNanos;
+	}
+
+	private AdminMetrics load() {
+		InvoiceTotals totals = invoiceRepository.getInvoiceTotals();
+		List<InvoiceSummary> recentInvoices = invoiceRepository
+				.findRecentInvoiceSummaries(PageRequest.of(0, RECENT_INVOICES));
+
+		return new AdminMetrics(userService.getUserCount(), userService.getActiveUsersCount(),
+				userService.getAdminUsersCount(), totals.getInvoiceCount(), totals.getTotalAmount(),
+				totals.getTotalGst(), customerRepository.count(), productRepository.count(), recentInvoices);
+	}
+
+	// Helper class for the admin snapshot
+	public static class AdminMetrics {
+		private final long totalUsers;
+		private final long activeUsers;
+		private final long adminUsers;
+		private final long totalInvoices;
+		private final BigDecimal totalRevenue;
+		private final BigDecimal totalGst;
+		private final long totalCustomers;
+		private final long totalProducts;
+		private final List<InvoiceSummary> recentInvoices;
+		private final LocalDateTime generatedAt = LocalDateTime.now();
+		private final long loadedAtNanos = System.nanoTime();
+
+		public AdminMetrics(long totalUsers, long activeUsers, long adminUsers, long totalInvoices,
+				BigDecimal totalRevenue, BigDecimal totalGst, long totalCustomers, long totalProducts,
+				List<InvoiceSummary> recentInvoices) {
+			this.totalUsers = totalUsers;
+			this.activeUsers = activeUsers;
+			this.adminUsers = adminUsers;
+			this.totalInvoices = totalInvoices;
+			this.totalRevenue = totalRevenue;
+			this.totalGst = totalGst;
+			this.totalCustomers = totalCustomers;
+			this.totalProducts = totalProducts;
+			this.recentInvoices = List.copyOf(recentInvoices);
+		}
+
+		// Getters
+		public long getTotalUsers() {
+			return totalUsers;
+		}
+
+		public long getActiveUsers() {
+			return activeUsers;
+		}
+
+		public long getAdminUsers() {
+			return adminUsers;
+		}
+
+		public long getTotalInvoices() {
+			return totalInvoices;
+		}
+
+		public BigDecimal getTotalRevenue() {
+			return totalRevenue;
+		}
+
+		public BigDecimal getTotalGst() {
+			return totalGst;
+		}
+
+		public long getTotalCustomers() {
+			return totalCustomers;
+		}
+
+		public long getTotalProducts() {
+			return totalProducts;
+		}
+
+		public List<InvoiceSummary> getRecentInvoices() {
+			return recentInvoices;
+		}
+
+		public LocalDateTime getGeneratedAt() {
+			return generatedAt;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.Role;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// Authenticated principal that also carries the user's id and role, as they were at login
+public class BillingUserDetails extends User {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Long userId;
+	private final Role role;
+
+	public BillingUserDetails(Long userId, Role role, String username, String password, boolean enabled,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(username, password, enabled, true, true, true, authorities);
+		this.userId = userId;
+		this.role = role;
+	}
+
+	// Getters
+	public Long getUserId() {
+		return userId;
+	}
+
+	public Role getRole() {
+		return role;
+	}
+}
@@ -23,9 +23,10 @@ public class CustomUserDetailsService implements UserDetailsService {
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		User user = userRepository.findByUsername(username)
 				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-		return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
-				user.isEnabled(), true, true, true, getAuthorities(user));
+		// Called before the password is checked, so the user is cached by the first request after login
+		// (UserService.getUser) rather than here, where failed logins would fill the cache
+		return new BillingUserDetails(user.getId(), user.getRole(), user.getUsername(), user.getPassword(),
+				user.isEnabled(), getAuthorities(user));
 	}
 
 	private Collection<? extends GrantedAuthority> getAuthorities(User user) {
@@ -2,14 +2,26 @@ package com.gst.billing.service;
 
 import com.gst.billing.model.Customer;
 import com.gst.billing.model.User;
+import com.gst.billing.util.CatalogCache;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.RecentUsage;
+import com.gst.billing.util.SearchPage;
 import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
 
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -18,10 +30,32 @@ public class CustomerService {
 	@Autowired
 	private CustomerRepository customerRepository;
 
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	// Each user's customers, dropped on every write to them
+	private final CatalogCache<Customer> catalogCache;
+
+	// When each customer was last invoiced, for ranking typeahead matches
+	private final RecentUsage recentUsage;
+
+	public CustomerService(@Value("${billing.catalog-cache.max-users:1000}") long maxUsers,
+			@Value("${billing.catalog-cache.ttl-minutes:10}") long ttlMinutes) {
+		this.catalogCache = new CatalogCache<>(maxUsers, Duration.ofMinutes(ttlMinutes), Customer::getId,
+				CustomerService::typeaheadKeys);
+		this.recentUsage = new RecentUsage(maxUsers, Duration.ofMinutes(ttlMinutes));
+	}
+
 	// Create new customer
 	public Customer createCustomer(Customer customer, User createdBy) {
 		customer.setCreatedBy(createdBy);
-		return customerRepository.save(customer);
+		Customer savedCustomer = customerRepository.save(customer);
+		catalogCache.invalidate(createdBy.getId());
+		searchIndexService.indexCustomer(savedCustomer);
+		return savedCustomer;
 	}
 
 	// Get customer by ID
@@ -30,9 +64,94 @@ public class CustomerService {
 				.orElseThrow(() -> new EntityNotFoundException("Customer not found with id: " + id));
 	}
 
-	// Get all customers for a specific user
+	// Same, served from the user's cached catalog when it is one of theirs (do not modify it)
+	public Customer getCustomerById(Long id, User user) {
+		Customer customer = catalog(user).get(id);
+		return customer != null ? customer : getCustomerById(id);
+	}
+
+	// Get customers by IDs with a single query, keyed by customer ID
+	public Map<Long, Customer> getCustomersByIds(Collection<Long> ids) {
+		Map<Long, Customer> customers = new HashMap<>();
+		for (Customer customer : customerRepository.findAllById(ids)) {
+			customers.put(customer.getId(), customer);
+		}
+		return customers;
+	}
+
+	// Same, served from the user's cached catalog; ids outside it are queried
+	public Map<Long, Customer> getCustomersByIds(User user, Collection<Long> ids) {
+		CatalogCache.Catalog<Customer> catalog = catalog(user);
+		Map<Long, Customer> customers = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : ids) {
+			Customer customer = catalog.get(id);
+			if (customer != null) {
+				customers.put(id, customer);
+			} else {
+				missing.add(id);
+			}
+		}
+		if (!missing.isEmpty()) {
+			customers.putAll(getCustomersByIds(missing));
+		}
+		return customers;
+	}
+
+	// Get all customers for a specific user (cached; do not modify the returned customers)
 	public List<Customer> getUserCustomers(User user) {
-		return customerRepository.findByCreatedByOrderByName(user);
+		return catalog(user).getItems();
+	}
+
+	private CatalogCache.Catalog<Customer> catalog(User user) {
+		return catalogCache.get(user.getId(), () -> customerRepository.findByCreatedByOrderByName(user));
+	}
+
+	// Customers whose name, a word of it or GSTIN starts with the prefix, most recently invoiced first;
+	// a blank prefix ranks the whole catalog
+	public List<Customer> findByPrefix(User user, String prefix, int limit) {
+		CatalogCache.Catalog<Customer> catalog = catalog(user);
+		Collection<Customer> matches = prefix == null || prefix.isBlank() ? catalog.getItems()
+				: catalog.startingWith(prefix);
+		if (matches.isEmpty()) {
+			return List.of();
+		}
+		return recentUsage.mostRecentFirst(user.getId(), matches, Customer::getId, limit,
+				() -> invoiceRepository.findLastInvoiceIdByCustomer(user.getId()));
+	}
+
+	// Note that the customer was just invoiced, so typeahead ranks them first
+	public void recordUsage(User user, Long customerId, Long invoiceId) {
+		recentUsage.record(user.getId(), List.of(customerId), invoiceId);
+	}
+
+	static List<String> typeaheadKeys(Customer customer) {
+		List<String> keys = new ArrayList<>();
+		keys.add(customer.getName());
+		keys.addAll(ProductService.laterWords(customer.getName()));
+		keys.add(customer.getGstin());
+		return keys;
+	}
+
+	public CatalogCache.CacheStats getCacheStats() {
+		return catalogCache.getStats();
+	}
+
+	// One page of a user's customers sorted by name; "name_desc" reverses the order
+	public KeysetPage<Customer> getCustomerPage(User user, String cursor, String sort, int size) {
+		return KeysetPage.fetch(cursor, "name", name -> name,
+				position -> customerRepository.findByCreatedBy(user, position, nameSort(sort), KeysetPage.limit(size)));
+	}
+
+	// One page of all customers (admin only)
+	public KeysetPage<Customer> getAllCustomerPage(String cursor, String sort, int size) {
+		return KeysetPage.fetch(cursor, "name", name -> name,
+				position -> customerRepository.findBy(position, nameSort(sort), KeysetPage.limit(size)));
+	}
+
+	private static Sort nameSort(String sort) {
+		Sort.Direction direction = "name_desc".equals(sort) ? Sort.Direction.DESC : Sort.Direction.ASC;
+		return Sort.by(direction, "name", "id");
 	}
 
 	// Get all customers (admin only)
@@ -58,7 +177,10 @@ public class CustomerService {
 		existingCustomer.setAddress(customerDetails.getAddress());
 		existingCustomer.setGstin(customerDetails.getGstin());
 
-		return customerRepository.save(existingCustomer);
+		Customer savedCustomer = customerRepository.save(existingCustomer);
+		catalogCache.invalidate(existingCustomer.getCreatedBy().getId());
+		searchIndexService.indexCustomer(savedCustomer);
+		return savedCustomer;
 	}
 
 	// Delete customer
@@ -71,11 +193,19 @@ public class CustomerService {
 		}
 
 		customerRepository.delete(customer);
+		catalogCache.invalidate(customer.getCreatedBy().getId());
+		searchIndexService.remove(SearchIndexService.Type.CUSTOMER, id);
 	}
 
-	// Search customers by name
-	public List<Customer> searchCustomers(String name, User user) {
-		return customerRepository.findByNameContainingIgnoreCaseAndCreatedBy(name, user);
+	// Search the user's customers by name, email, phone or GSTIN, best matches first
+	public SearchPage<Customer> searchCustomers(String query, User user, int page, int size) {
+		if (!searchIndexService.isReady()) {
+			return SearchPage.of(customerRepository.findByNameContainingIgnoreCaseAndCreatedBy(query, user), page,
+					size);
+		}
+		SearchPage<Long> ids = searchIndexService.search(SearchIndexService.Type.CUSTOMER, user.getId(), query,
+				page, size);
+		return ids.map(getCustomersByIds(user, ids.getItems()));
 	}
 
 	// Check if customer exists by email
@@ -1,68 +1,209 @@
 package com.gst.billing.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gst.billing.model.DashboardStatistics;
+import com.gst.billing.model.SalesTrendPoint;
+import com.gst.billing.model.TrendPeriod;
 import com.gst.billing.model.User;
 import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.util.BillingMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.Month;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 @Service
 public class DashboardService {
 
+	// Start of the all-time range the dashboard cards cover
+	public static final LocalDate ALL_TIME_START = LocalDate.of(2000, 1, 1);
+
+	@Autowired
+	private RevenueRollupService revenueRollupService;
+
 	@Autowired
 	private InvoiceRepository invoiceRepository;
 
+	// Statistics of ranges that end before the current month. New invoices are always
+	// dated today, so these only change when an older invoice is edited or deleted. Such
+	// an edit only evicts this node's entries, so every entry also expires after a while.
+	private final Cache<RangeKey, DashboardStatistics> closedRanges;
+
+	@Autowired
+	private BillingMetrics metrics;
+
+	public DashboardService(@Value("${billing.dashboard-cache.max-entries:10000}") long maxEntries,
+			@Value("${billing.dashboard-cache.ttl-seconds:60}") long ttlSeconds, MeterRegistry meterRegistry) {
+		this.closedRanges = Caffeine.newBuilder().maximumSize(maxEntries)
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds)).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, closedRanges, "dashboard.closed-ranges");
+	}
+
 	/**
-	 * Monthly Revenue Chart Data (User vs Admin)
+	 * Statistics of a user's invoices dated startDate..endDate. The part of the
+	 * range before the current month is cached until one of its invoices
+	 * changes; only the current month is queried on every call.
 	 */
-	public List<String> getMonthLabels(User user, boolean isAdmin) {
-		List<Object[]> results = isAdmin ? invoiceRepository.getMonthlyRevenueAll()
-				: invoiceRepository.getMonthlyRevenue(user);
-
-		List<String> labels = new ArrayList<>();
-		for (Object[] row : results) {
-			int monthNum = ((Number) row[0]).intValue();
-			labels.add(Month.of(monthNum).name());
+	public DashboardStatistics getStatistics(User user, LocalDate startDate, LocalDate endDate) {
+		Timer.Sample sample = metrics.start();
+		boolean success = false;
+		try {
+			DashboardStatistics statistics = getStatistics(user, startDate, endDate, YearMonth.now());
+			success = true;
+			return statistics;
+		} finally {
+			metrics.stop(sample, BillingMetrics.DASHBOARD_STATISTICS, success, "role", BillingMetrics.role(user));
 		}
-		return labels;
 	}
 
-	public List<Double> getMonthRevenue(User user, boolean isAdmin) {
-		List<Object[]> results = isAdmin ? invoiceRepository.getMonthlyRevenueAll()
-				: invoiceRepository.getMonthlyRevenue(user);
+	DashboardStatistics getStatistics(User user, LocalDate startDate, LocalDate endDate, YearMonth currentMonth) {
+		LocalDate monthStart = currentMonth.atDay(1);
+		if (!startDate.isBefore(monthStart)) {
+			return invoiceRepository.getDashboardStatistics(user, startDate, endDate);
+		}
+
+		LocalDate closedEnd = endDate.isBefore(monthStart) ? endDate : monthStart.minusDays(1);
+		DashboardStatistics closed = closedRanges.get(new RangeKey(user.getId(), startDate, closedEnd),
+				key -> invoiceRepository.getDashboardStatistics(user, startDate, closedEnd));
+		if (endDate.isBefore(monthStart)) {
+			return closed;
+		}
+		// Customers already counted in the closed part are not counted again
+		return closed.plus(invoiceRepository.getDashboardStatistics(user, monthStart, endDate, startDate));
+	}
+
+	// Drop the user's cached ranges when an invoice dated before this month is edited or deleted
+	public void invalidate(Long userId, LocalDate invoiceDate) {
+		if (!invoiceDate.isBefore(YearMonth.now().atDay(1))) {
+			return;
+		}
+		evictUser(userId);
+		// A reader may cache the old figures before the transaction commits
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					evictUser(userId);
+				}
+			});
+		}
+	}
+
+	private void evictUser(Long userId) {
+		closedRanges.asMap().keySet().removeIf(key -> key.userId.equals(userId));
+	}
+
+	/**
+	 * Monthly Revenue Chart Data (User vs Admin): the last twelve months, months
+	 * without sales included, with a three-month moving average
+	 */
+	public RevenueSeries getMonthlySeries(User user, boolean isAdmin) {
+		LocalDate today = LocalDate.now();
+		RevenueSeries series = new RevenueSeries();
+		for (SalesTrendPoint point : getTrend(user, isAdmin, TrendPeriod.MONTH, today.minusMonths(11), today, 3)) {
+			series.add(point.getLabel(), point.getRevenue().doubleValue());
+			series.averages.add(point.getMovingAverage().doubleValue());
+		}
+		return series;
+	}
 
-		List<Double> revenue = new ArrayList<>();
-		for (Object[] row : results) {
-			revenue.add(((Number) row[1]).doubleValue());
+	/**
+	 * Sales trend by period between two dates (the whole history when from is
+	 * null), read from the daily rollup rather than the invoices
+	 */
+	public List<SalesTrendPoint> getTrend(User user, boolean isAdmin, TrendPeriod period, LocalDate from,
+			LocalDate to, int window) {
+		Timer.Sample sample = metrics.start();
+		boolean success = false;
+		try {
+			List<SalesTrendPoint> trend = invoiceRepository.getSalesTrend(isAdmin ? null : user, period, from, to,
+					window);
+			success = true;
+			return trend;
+		} finally {
+			metrics.stop(sample, BillingMetrics.DASHBOARD_TREND, success, "role",
+					isAdmin ? "admin" : BillingMetrics.role(user), "period", period.name().toLowerCase(Locale.ROOT));
 		}
-		return revenue;
 	}
 
 	/**
 	 * Daily Revenue Chart Data (User vs Admin)
 	 */
-	public List<String> getDayLabels(User user, boolean isAdmin) {
-		List<Object[]> results = isAdmin ? invoiceRepository.getDailyRevenueAll()
-				: invoiceRepository.getDailyRevenue(user);
+	public RevenueSeries getDailySeries(User user, boolean isAdmin) {
+		RevenueSeries series = new RevenueSeries();
+		for (Object[] row : revenueRollupService.getDailyRevenue(isAdmin ? null : user.getId())) {
+			series.add(row[0].toString(), ((Number) row[1]).doubleValue()); // Format: YYYY-MM-DD
+		}
+		return series;
+	}
+
+	private static class RangeKey {
+		private final Long userId;
+		private final LocalDate startDate;
+		private final LocalDate endDate;
 
-		List<String> labels = new ArrayList<>();
-		for (Object[] row : results) {
-			labels.add(row[0].toString()); // Format: YYYY-MM-DD
+		RangeKey(Long userId, LocalDate startDate, LocalDate endDate) {
+			this.userId = userId;
+			this.startDate = startDate;
+			this.endDate = endDate;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof RangeKey)) {
+				return false;
+			}
+			RangeKey other = (RangeKey) o;
+			return userId.equals(other.userId) && startDate.equals(other.startDate) && endDate.equals(other.endDate);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(userId, startDate, endDate);
 		}
-		return labels;
 	}
 
-	public List<Double> getDayRevenue(User user, boolean isAdmin) {
-		List<Object[]> results = isAdmin ? invoiceRepository.getDailyRevenueAll()
-				: invoiceRepository.getDailyRevenue(user);
+	// Helper class for chart labels and values
+	public static class RevenueSeries {
+		private final List<String> labels = new ArrayList<>();
+		private final List<Double> values = new ArrayList<>();
+		private final List<Double> averages = new ArrayList<>();
+
+		void add(String label, double value) {
+			labels.add(label);
+			values.add(value);
+		}
+
+		// Getters
+		public List<String> getLabels() {
+			return labels;
+		}
+
+		public List<Double> getValues() {
+			return values;
+		}
 
-		List<Double> revenue = new ArrayList<>();
-		for (Object[] row : results) {
-			revenue.add(((Number) row[1]).doubleValue());
+		// Moving averages, for series that have them
+		public List<Double> getAverages() {
+			return averages;
 		}
-		return revenue;
 	}
 }
@@ -0,0 +1,312 @@
+package com.gst.billing.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.gst.billing.model.Gstr1Row;
+import com.gst.billing.model.InvoiceTaxLine;
+import com.gst.billing.model.User;
+import com.gst.billing.repository.InvoiceItemRepository;
+import com.gst.billing.util.BillingMetrics;
+import com.gst.billing.util.GstCalculator.PaiseSum;
+
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Writes a month's GSTR-1 return as GSTN-schema JSON while item rows are still
+ * arriving from the database, in a single pass.
+ *
+ * Rows come ordered by buyer GSTIN and invoice, so each B2B group and each
+ * invoice arrives in one run and is written as soon as it ends; only the
+ * current invoice is held. B2CS and the HSN summary are sums per (place of
+ * supply, rate) and per (HSN, rate), whose number depends on the catalog, not
+ * on how many invoices the month has.
+ *
+ * Tax per rate is split exactly as the invoice's stored tax lines are. Buyers
+ * without a GSTIN are placed in the seller's state (see InvoiceTaxService), so
+ * every sale to them is intra-state: B2CS has one INTRA row per rate with the
+ * seller's state as place of supply, and B2CL, which lists only inter-state
+ * sales to unregistered buyers, is always written empty.
+ */
+@Service
+public class Gstr1Service {
+
+	private static final DateTimeFormatter INVOICE_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+	private static final DateTimeFormatter FILING_PERIOD = DateTimeFormatter.ofPattern("MMyyyy");
+
+	// Products have no unit of measure, so quantities are reported as numbers
+	private static final String UNIT = "NOS";
+	private static final int HSN_DESCRIPTION_LENGTH = 30;
+
+	// Amounts keep their two decimals and rates print as 18 rather than 1.8E+1
+	private static final JsonFactory JSON = JsonFactory.builder().enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+			.disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
+	@Autowired
+	private InvoiceItemRepository invoiceItemRepository;
+
+	@Autowired
+	private InvoiceTaxService invoiceTaxService;
+
+	@Autowired
+	private BillingMetrics metrics;
+
+	// The return of one user's invoices dated in the given month; the seller must have a GSTIN
+	@Transactional(readOnly = true)
+	public void writeJson(User user, YearMonth period, OutputStream out) throws IOException {
+		String gstin = invoiceTaxService.sellerGstin(user);
+		if (gstin == null) {
+			throw new IllegalStateException("No GSTIN is registered for " + user.getUsername());
+		}
+		String role = BillingMetrics.role(user);
+		Timer.Sample sample = metrics.start();
+		boolean success = false;
+		try (Stream<Gstr1Row> rows = invoiceItemRepository.streamGstr1Rows(user.getId(), period.atDay(1),
+				period.atEndOfMonth())) {
+			long invoices = writeJson(gstin, period, rows, out);
+			metrics.record(BillingMetrics.EXPORT_GSTR1_INVOICES, "invoices", invoices, "role", role);
+			success = true;
+		} finally {
+			metrics.stop(sample, BillingMetrics.EXPORT_GSTR1, success, "role", role);
+		}
+	}
+
+	// Returns the number of invoices reported; rows must be in the order streamGstr1Rows gives
+	long writeJson(String gstin, YearMonth period, Stream<Gstr1Row> rows, OutputStream out) throws IOException {
+		try (JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+			ReturnWriter writer = new ReturnWriter(json, InvoiceTaxService.stateCode(gstin));
+			json.writeStartObject();
+			json.writeStringField("gstin", gstin);
+			json.writeStringField("fp", period.format(FILING_PERIOD));
+			json.writeArrayFieldStart("b2b");
+
+			Iterator<Gstr1Row> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				writer.add(iterator.next());
+			}
+			writer.finish();
+
+			json.writeEndObject();
+			return writer.invoices;
+		}
+	}
+
+	private record HsnKey(String code, BigDecimal rate) {
+	}
+
+	private static class HsnTotals {
+		private String description;
+		private long quantity;
+		private final PaiseSum taxable = new PaiseSum();
+		private final PaiseSum intraStateGst = new PaiseSum();
+		private final PaiseSum interStateGst = new PaiseSum();
+	}
+
+	/**
+	 * State of one pass: the open B2B group, the invoice being read, and the
+	 * B2CS and HSN sums written at the end.
+	 */
+	private static class ReturnWriter {
+		private final JsonGenerator json;
+		private final String sellerState;
+
+		private boolean inB2c;
+		private String openGstin;
+
+		private Gstr1Row invoice;
+		private final Map<BigDecimal, PaiseSum[]> rates = new TreeMap<>();
+
+		// Taxable value, CGST and SGST per rate
+		private final Map<BigDecimal, PaiseSum[]> b2cs = new TreeMap<>();
+		private final Map<HsnKey, HsnTotals> hsn = new TreeMap<>(
+				Comparator.comparing(HsnKey::code).thenComparing(HsnKey::rate));
+
+		private long invoices;
+
+		ReturnWriter(JsonGenerator json, String sellerState) {
+			this.json = json;
+			this.sellerState = sellerState;
+		}
+
+		void add(Gstr1Row row) throws IOException {
+			if (invoice != null && !invoice.getInvoiceId().equals(row.getInvoiceId())) {
+				finishInvoice();
+			}
+			if (invoice == null) {
+				invoice = row;
+			}
+			PaiseSum[] sums = rates.computeIfAbsent(row.getGstRate(), k -> new PaiseSum[] { new PaiseSum(),
+					new PaiseSum() });
+			row.addTo(sums[0], sums[1]);
+
+			String code = row.getHsnCode() != null ? row.getHsnCode().trim() : "";
+			HsnTotals totals = hsn.computeIfAbsent(new HsnKey(code, row.getGstRate()), k -> new HsnTotals());
+			if (totals.description == null && row.getProductName() != null) {
+				String name = row.getProductName().trim();
+				totals.description = name.length() > HSN_DESCRIPTION_LENGTH
+						? name.substring(0, HSN_DESCRIPTION_LENGTH)
+						: name;
+			}
+			totals.quantity += row.getQuantity();
+			row.addTo(totals.taxable, row.isInterState() ? totals.interStateGst : totals.intraStateGst);
+		}
+
+		// Close the open sections and write the sums
+		void finish() throws IOException {
+			if (invoice != null) {
+				finishInvoice();
+			}
+			enterB2c();
+
+			json.writeArrayFieldStart("b2cs");
+			for (Map.Entry<BigDecimal, PaiseSum[]> entry : b2cs.entrySet()) {
+				PaiseSum[] sums = entry.getValue();
+				json.writeStartObject();
+				json.writeStringField("sply_ty", "INTRA");
+				json.writeStringField("pos", sellerState);
+				json.writeStringField("typ", "OE");
+				writeRate(entry.getKey());
+				json.writeNumberField("txval", sums[0].toBigDecimal());
+				writeTax(sums[1].toBigDecimal(), sums[2].toBigDecimal(), null, false);
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+
+			json.writeObjectFieldStart("hsn");
+			json.writeArrayFieldStart("data");
+			int num = 1;
+			for (Map.Entry<HsnKey, HsnTotals> entry : hsn.entrySet()) {
+				HsnTotals totals = entry.getValue();
+				InvoiceTaxLine intraState = InvoiceTaxService.taxLine(entry.getKey().rate(), totals.taxable,
+						totals.intraStateGst, false);
+				json.writeStartObject();
+				json.writeNumberField("num", num++);
+				json.writeStringField("hsn_sc", entry.getKey().code());
+				json.writeStringField("desc", totals.description);
+				json.writeStringField("uqc", UNIT);
+				json.writeNumberField("qty", totals.quantity);
+				writeRate(entry.getKey().rate());
+				json.writeNumberField("txval", totals.taxable.toBigDecimal());
+				json.writeNumberField("iamt", totals.interStateGst.toBigDecimal());
+				json.writeNumberField("camt", intraState.getCgstAmount());
+				json.writeNumberField("samt", intraState.getSgstAmount());
+				json.writeNumberField("csamt", 0);
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+		}
+
+		private void finishInvoice() throws IOException {
+			List<InvoiceTaxLine> taxLines = new ArrayList<>(rates.size());
+			for (Map.Entry<BigDecimal, PaiseSum[]> entry : rates.entrySet()) {
+				taxLines.add(InvoiceTaxService.taxLine(entry.getKey(), entry.getValue()[0], entry.getValue()[1],
+						invoice.isInterState()));
+			}
+
+			String buyerGstin = invoice.getRegisteredGstin();
+			if (buyerGstin != null) {
+				if (!buyerGstin.equals(openGstin)) {
+					closeGstin();
+					json.writeStartObject();
+					json.writeStringField("ctin", buyerGstin);
+					json.writeArrayFieldStart("inv");
+					openGstin = buyerGstin;
+				}
+				String buyerState = InvoiceTaxService.stateCode(buyerGstin);
+				writeInvoice(taxLines, buyerState != null ? buyerState : sellerState);
+			} else {
+				enterB2c();
+				for (InvoiceTaxLine taxLine : taxLines) {
+					PaiseSum[] sums = b2cs.computeIfAbsent(taxLine.getGstRate(),
+							k -> new PaiseSum[] { new PaiseSum(), new PaiseSum(), new PaiseSum() });
+					sums[0].add(taxLine.getTaxableAmount());
+					sums[1].add(taxLine.getCgstAmount());
+					sums[2].add(taxLine.getSgstAmount());
+				}
+			}
+
+			invoices++;
+			invoice = null;
+			rates.clear();
+		}
+
+		private void writeInvoice(List<InvoiceTaxLine> taxLines, String placeOfSupply) throws IOException {
+			json.writeStartObject();
+			json.writeStringField("inum", invoice.getInvoiceNumber());
+			json.writeStringField("idt", invoice.getInvoiceDate().format(INVOICE_DATE));
+			json.writeNumberField("val", invoice.getInvoiceTotal());
+			json.writeStringField("pos", placeOfSupply);
+			json.writeStringField("rchrg", "N");
+			json.writeStringField("inv_typ", "R");
+			json.writeArrayFieldStart("itms");
+			int num = 1;
+			for (InvoiceTaxLine taxLine : taxLines) {
+				json.writeStartObject();
+				json.writeNumberField("num", num++);
+				json.writeObjectFieldStart("itm_det");
+				writeRate(taxLine.getGstRate());
+				json.writeNumberField("txval", taxLine.getTaxableAmount());
+				writeTax(taxLine.getCgstAmount(), taxLine.getSgstAmount(), taxLine.getIgstAmount(),
+						invoice.isInterState());
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+		}
+
+		private void writeRate(BigDecimal rate) throws IOException {
+			json.writeNumberField("rt", rate.stripTrailingZeros());
+		}
+
+		// IGST for inter-state supplies, else CGST and SGST; no cess is charged
+		private void writeTax(BigDecimal cgst, BigDecimal sgst, BigDecimal igst, boolean interState)
+				throws IOException {
+			if (interState) {
+				json.writeNumberField("iamt", igst);
+			} else {
+				json.writeNumberField("camt", cgst);
+				json.writeNumberField("samt", sgst);
+			}
+			json.writeNumberField("csamt", 0);
+		}
+
+		// Leave B2B for the unregistered buyers that follow; B2CL stays empty
+		private void enterB2c() throws IOException {
+			if (!inB2c) {
+				closeGstin();
+				json.writeEndArray();
+				json.writeArrayFieldStart("b2cl");
+				json.writeEndArray();
+				inB2c = true;
+			}
+		}
+
+		private void closeGstin() throws IOException {
+			if (openGstin != null) {
+				json.writeEndArray();
+				json.writeEndObject();
+				openGstin = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,497 @@
+package com.gst.billing.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.InvoiceRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Creates invoices from a streamed NDJSON or CSV upload.
+ *
+ * Records are parsed one at a time and saved in chunks, one transaction per
+ * chunk. If a chunk cannot be committed its records are retried one per
+ * transaction, so a bad record never takes its neighbours down with it.
+ *
+ * Invoice numbers are taken only for records that pass validation. Numbers
+ * taken by a transaction that rolls back are handed to the next records in
+ * order, so only those still unused when the upload ends, one per record the
+ * database rejected, are lost and show up in the gap report.
+ */
+@Service
+public class InvoiceBulkImportService {
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceNumberAllocator invoiceNumberAllocator;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private RevenueRollupService revenueRollupService;
+
+	@Autowired
+	private InvoiceTaxService invoiceTaxService;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final TransactionTemplate chunkTransaction;
+
+	public InvoiceBulkImportService(PlatformTransactionManager transactionManager) {
+		this.chunkTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	// One InvoiceRequest JSON object per line, with an optional "ref" echoed in the results
+	public ImportSummary importNdjson(InputStream body, User user, int chunkSize,
+			Consumer<List<ImportResult>> chunkListener) throws IOException {
+		return importRecords(new NdjsonRecordReader(reader(body)), user, chunkSize, chunkListener);
+	}
+
+	// invoice_ref,customer_id,product_id,quantity; consecutive rows with the same ref form one invoice
+	public ImportSummary importCsv(InputStream body, User user, int chunkSize,
+			Consumer<List<ImportResult>> chunkListener) throws IOException {
+		return importRecords(new CsvRecordReader(reader(body)), user, chunkSize, chunkListener);
+	}
+
+	private ImportSummary importRecords(RecordReader reader, User user, int chunkSize,
+			Consumer<List<ImportResult>> chunkListener) throws IOException {
+		ImportSummary summary = new ImportSummary();
+		InvoiceNumbers numbers = new InvoiceNumbers(user);
+		List<BulkRecord> chunk = new ArrayList<>(chunkSize);
+
+		BulkRecord record;
+		while ((record = reader.next()) != null) {
+			chunk.add(record);
+			if (chunk.size() >= chunkSize) {
+				processChunk(chunk, user, numbers, summary, chunkListener);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			processChunk(chunk, user, numbers, summary, chunkListener);
+		}
+
+		return summary;
+	}
+
+	private void processChunk(List<BulkRecord> chunk, User user, InvoiceNumbers numbers, ImportSummary summary,
+			Consumer<List<ImportResult>> chunkListener) {
+		LocalDate today = LocalDate.now();
+		int parsed = 0;
+		for (BulkRecord record : chunk) {
+			if (record.error == null) {
+				parsed++;
+			}
+		}
+		// Reserving numbers may take a connection of its own, so it happens before the chunk's transaction opens
+		numbers.prepare(parsed, today);
+
+		List<ImportResult> results;
+		try {
+			results = chunkTransaction.execute(status -> persist(chunk, user, numbers, today));
+			numbers.committed();
+		} catch (RuntimeException e) {
+			numbers.rolledBack();
+			// Retry one record per transaction so only the failing record is rejected
+			results = new ArrayList<>(chunk.size());
+			for (BulkRecord record : chunk) {
+				try {
+					numbers.prepare(1, today);
+					results.add(chunkTransaction
+							.execute(status -> persist(List.of(record), user, numbers, today).get(0)));
+					numbers.committed();
+				} catch (RuntimeException ex) {
+					numbers.rolledBack();
+					results.add(ImportResult.failed(record, rootMessage(ex)));
+				}
+			}
+		}
+
+		for (ImportResult result : results) {
+			summary.add(result);
+		}
+		chunkListener.accept(results);
+	}
+
+	// Save the valid records of a chunk, loading its customers and products once from the database
+	private List<ImportResult> persist(List<BulkRecord> records, User user, InvoiceNumbers numbers,
+			LocalDate today) {
+		Set<Long> customerIds = new HashSet<>();
+		Set<Long> productIds = new HashSet<>();
+		for (BulkRecord record : records) {
+			if (record.error == null) {
+				customerIds.add(record.request.getCustomerId());
+				productIds.addAll(InvoiceService.productIds(record.request.getItems()));
+			}
+		}
+		Map<Long, Customer> customers = customerService.getCustomersByIds(customerIds);
+		Map<Long, Product> products = productService.getProductsByIds(productIds);
+
+		List<ImportResult> results = new ArrayList<>(records.size());
+		List<Invoice> invoices = new ArrayList<>(records.size());
+		for (BulkRecord record : records) {
+			String error = record.error != null ? record.error : validate(record.request, customers, products);
+			if (error != null) {
+				results.add(ImportResult.failed(record, error));
+				continue;
+			}
+
+			Invoice invoice = invoiceService.newInvoice(customers.get(record.request.getCustomerId()), user, today,
+					numbers.next(today));
+			invoiceService.applyItems(invoice, record.request.getItems(), products);
+			invoiceTaxService.applyTaxLines(invoice);
+			invoices.add(invoice);
+			results.add(ImportResult.created(record, invoice));
+		}
+
+		invoiceRepository.saveAll(invoices);
+		revenueRollupService.recordCreated(invoices);
+		invoices.forEach(searchIndexService::indexInvoice);
+		invoices.forEach(invoiceService::recordUsage);
+		entityManager.flush();
+		// Keep the persistence context flat across chunks
+		entityManager.clear();
+
+		for (ImportResult result : results) {
+			if (result.invoice != null) {
+				result.invoiceId = result.invoice.getId();
+				result.invoice = null;
+			}
+		}
+		return results;
+	}
+
+	private String validate(InvoiceRequest request, Map<Long, Customer> customers, Map<Long, Product> products) {
+		if (request.getCustomerId() == null) {
+			return "Customer is required";
+		}
+		if (!customers.containsKey(request.getCustomerId())) {
+			return "Customer not found with id: " + request.getCustomerId();
+		}
+		if (request.getItems() == null || request.getItems().isEmpty()) {
+			return "Please add at least one item to the invoice";
+		}
+		for (InvoiceItemRequest item : request.getItems()) {
+			if (item.getProductId() == null) {
+				return "Product is required";
+			}
+			if (!products.containsKey(item.getProductId())) {
+				return "Product not found with id: " + item.getProductId();
+			}
+			if (item.getQuantity() == null || item.getQuantity() < 1) {
+				return "Quantity must be at least 1";
+			}
+		}
+		return null;
+	}
+
+	private static String rootMessage(Throwable e) {
+		Throwable root = e;
+		while (root.getCause() != null && root.getCause() != root) {
+			root = root.getCause();
+		}
+		return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+	}
+
+	private static BufferedReader reader(InputStream body) {
+		return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Invoice numbers of one upload. They are taken from the allocator before a
+	 * transaction opens and handed out in order inside it; numbers taken in a
+	 * transaction that rolled back, or left over because records failed
+	 * validation, are handed out again first. Numbers left over at the end of
+	 * the upload show up as gaps.
+	 */
+	private class InvoiceNumbers {
+		private final User user;
+		private final Deque<String> returned = new ArrayDeque<>();
+		private final List<String> taken = new ArrayList<>();
+		private String financialYear;
+
+		InvoiceNumbers(User user) {
+			this.user = user;
+		}
+
+		// Have at least count numbers ready for invoices dated invoiceDate
+		void prepare(int count, LocalDate invoiceDate) {
+			String year = InvoiceNumberAllocator.financialYear(invoiceDate);
+			if (!year.equals(financialYear)) {
+				// Numbers of the year that just ended cannot be used in the new one
+				returned.clear();
+				financialYear = year;
+			}
+			while (returned.size() < count) {
+				returned.addLast(invoiceNumberAllocator.nextInvoiceNumber(user, invoiceDate));
+			}
+		}
+
+		String next(LocalDate invoiceDate) {
+			prepare(1, invoiceDate);
+			String number = returned.poll();
+			taken.add(number);
+			return number;
+		}
+
+		void committed() {
+			taken.clear();
+		}
+
+		void rolledBack() {
+			for (int i = taken.size() - 1; i >= 0; i--) {
+				returned.addFirst(taken.get(i));
+			}
+			taken.clear();
+		}
+	}
+
+	// One parsed upload record; error is set when the record could not be parsed
+	private static class BulkRecord {
+		private final int number;
+		private final String ref;
+		private final InvoiceRequest request;
+		private final String error;
+
+		BulkRecord(int number, String ref, InvoiceRequest request, String error) {
+			this.number = number;
+			this.ref = ref;
+			this.request = request;
+			this.error = error;
+		}
+	}
+
+	private interface RecordReader {
+		BulkRecord next() throws IOException;
+	}
+
+	private class NdjsonRecordReader implements RecordReader {
+		private final BufferedReader reader;
+		private int recordNumber;
+
+		NdjsonRecordReader(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public BulkRecord next() throws IOException {
+			String line;
+			do {
+				line = reader.readLine();
+				if (line == null) {
+					return null;
+				}
+			} while (line.isBlank());
+
+			recordNumber++;
+			try {
+				JsonNode node = objectMapper.readTree(line);
+				String ref = node.hasNonNull("ref") ? node.get("ref").asText() : null;
+				return new BulkRecord(recordNumber, ref, objectMapper.treeToValue(node, InvoiceRequest.class), null);
+			} catch (JsonProcessingException e) {
+				return new BulkRecord(recordNumber, null, null, "Malformed record: " + e.getOriginalMessage());
+			}
+		}
+	}
+
+	private static class CsvRecordReader implements RecordReader {
+		private final BufferedReader reader;
+		private String[] pending;
+		private int lineNumber;
+		private int recordNumber;
+
+		CsvRecordReader(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public BulkRecord next() throws IOException {
+			if (pending == null) {
+				pending = readRow();
+				if (pending == null) {
+					return null;
+				}
+			}
+
+			recordNumber++;
+			String ref = pending[0];
+			InvoiceRequest request = new InvoiceRequest();
+			String error = null;
+
+			while (pending != null && pending[0].equals(ref)) {
+				if (error == null) {
+					error = addRow(request, pending);
+				}
+				pending = readRow();
+			}
+
+			return new BulkRecord(recordNumber, ref, error == null ? request : null, error);
+		}
+
+		private String addRow(InvoiceRequest request, String[] row) {
+			if (row.length != 5) {
+				return "Line " + row[row.length - 1] + ": expected invoice_ref,customer_id,product_id,quantity";
+			}
+			try {
+				Long customerId = Long.valueOf(row[1]);
+				if (request.getCustomerId() != null && !request.getCustomerId().equals(customerId)) {
+					return "Line " + row[4] + ": customer differs from earlier rows of the invoice";
+				}
+				request.setCustomerId(customerId);
+
+				InvoiceItemRequest item = new InvoiceItemRequest();
+				item.setProductId(Long.valueOf(row[2]));
+				item.setQuantity(Integer.valueOf(row[3]));
+				request.getItems().add(item);
+				return null;
+			} catch (NumberFormatException e) {
+				return "Line " + row[row.length - 1] + ": invalid number " + e.getMessage();
+			}
+		}
+
+		// Next data row, with its line number appended as the last column
+		private String[] readRow() throws IOException {
+			String line;
+			do {
+				line = reader.readLine();
+				if (line == null) {
+					return null;
+				}
+				lineNumber++;
+			} while (line.isBlank() || (lineNumber == 1 && line.trim().toLowerCase().startsWith("invoice_ref")));
+
+			String[] columns = line.split(",", -1);
+			String[] row = new String[columns.length + 1];
+			for (int i = 0; i < columns.length; i++) {
+				row[i] = columns[i].trim();
+			}
+			row[columns.length] = String.valueOf(lineNumber);
+			return row;
+		}
+	}
+
+	// Outcome of one record, written back to the client as one NDJSON line
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class ImportResult {
+		private final int record;
+		private final String ref;
+		private final String status;
+		private Long invoiceId;
+		private final String invoiceNumber;
+		private final String error;
+		private Invoice invoice;
+
+		private ImportResult(int record, String ref, String status, String invoiceNumber, String error) {
+			this.record = record;
+			this.ref = ref;
+			this.status = status;
+			this.invoiceNumber = invoiceNumber;
+			this.error = error;
+		}
+
+		static ImportResult created(BulkRecord record, Invoice invoice) {
+			ImportResult result = new ImportResult(record.number, record.ref, "CREATED", invoice.getInvoiceNumber(),
+					null);
+			result.invoice = invoice;
+			return result;
+		}
+
+		static ImportResult failed(BulkRecord record, String error) {
+			return new ImportResult(record.number, record.ref, "FAILED", null, error);
+		}
+
+		// Getters
+		public int getRecord() {
+			return record;
+		}
+
+		public String getRef() {
+			return ref;
+		}
+
+		public String getStatus() {
+			return status;
+		}
+
+		public Long getInvoiceId() {
+			return invoiceId;
+		}
+
+		public String getInvoiceNumber() {
+			return invoiceNumber;
+		}
+
+		public String getError() {
+			return error;
+		}
+	}
+
+	// Totals for the whole upload
+	public static class ImportSummary {
+		private long records;
+		private long created;
+		private long failed;
+
+		void add(ImportResult result) {
+			records++;
+			if ("CREATED".equals(result.getStatus())) {
+				created++;
+			} else {
+				failed++;
+			}
+		}
+
+		// Getters
+		public long getRecords() {
+			return records;
+		}
+
+		public long getCreated() {
+			return created;
+		}
+
+		public long getFailed() {
+			return failed;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.InvoiceExportRow;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.util.BillingMetrics;
+
+import io.micrometer.core.instrument.Timer;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the invoice spreadsheet while rows are still arriving from the
+ * database. Only a small window of rows is kept in memory; POI flushes older
+ * rows to a compressed temp file, so the heap used does not depend on how
+ * many invoices are exported.
+ */
+@Service
+public class InvoiceExportService {
+
+	// Rows kept in memory before POI flushes them to its temp file
+	private static final int ROW_WINDOW = 100;
+
+	private static final String[] HEADERS = { "Invoice ID", "Customer Name", "Invoice Date", "Subtotal", "GST",
+			"Total Amount", "CGST", "SGST", "IGST" };
+
+	// Fixed widths in characters; auto-sizing would rescan every cell
+	private static final int[] COLUMN_WIDTHS = { 12, 40, 14, 16, 14, 16, 14, 14, 14 };
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private BillingMetrics metrics;
+
+	// Export invoices of one user, or of every user when userId is null
+	@Transactional(readOnly = true)
+	public void writeExcel(Long userId, OutputStream out) throws IOException {
+		String scope = userId != null ? "user" : "all";
+		Timer.Sample sample = metrics.start();
+		boolean success = false;
+		try (Stream<InvoiceExportRow> rows = userId != null ? invoiceRepository.streamExportRowsByUserId(userId)
+				: invoiceRepository.streamAllExportRows()) {
+			long written = writeExcel(rows, out);
+			metrics.record(BillingMetrics.EXPORT_ROWS, "rows", written, "scope", scope);
+			success = true;
+		} finally {
+			metrics.stop(sample, BillingMetrics.EXPORT_EXCEL, success, "scope", scope);
+		}
+	}
+
+	// Returns the number of data rows written
+	long writeExcel(Stream<InvoiceExportRow> rows, OutputStream out) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+		workbook.setCompressTempFiles(true);
+		try {
+			SXSSFSheet sheet = workbook.createSheet("Invoices");
+			for (int i = 0; i < COLUMN_WIDTHS.length; i++) {
+				sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+			}
+
+			int rowNum = 0;
+			Row headerRow = sheet.createRow(rowNum++);
+			for (int i = 0; i < HEADERS.length; i++) {
+				headerRow.createCell(i).setCellValue(HEADERS[i]);
+			}
+
+			Iterator<InvoiceExportRow> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				InvoiceExportRow invoice = iterator.next();
+				Row row = sheet.createRow(rowNum++);
+				row.createCell(0).setCellValue(invoice.getId());
+				row.createCell(1).setCellValue(invoice.getCustomerName());
+				row.createCell(2).setCellValue(invoice.getInvoiceDate().toString());
+				row.createCell(3).setCellValue(invoice.getSubtotal().doubleValue());
+				row.createCell(4).setCellValue(invoice.getTotalGst().doubleValue());
+				row.createCell(5).setCellValue(invoice.getTotalAmount().doubleValue());
+				row.createCell(6).setCellValue(invoice.getCgst().doubleValue());
+				row.createCell(7).setCellValue(invoice.getSgst().doubleValue());
+				row.createCell(8).setCellValue(invoice.getIgst().doubleValue());
+			}
+
+			workbook.write(out);
+			return rowNum - 1;
+		} finally {
+			workbook.close();
+			workbook.dispose();
+		}
+	}
+}
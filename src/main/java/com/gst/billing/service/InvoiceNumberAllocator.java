@@ -0,0 +1,311 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.InvoiceNumberBlock;
+import com.gst.billing.model.InvoiceNumberCounter;
+import com.gst.billing.model.User;
+import com.gst.billing.repository.InvoiceNumberBlockRepository;
+import com.gst.billing.repository.InvoiceNumberCounterRepository;
+import com.gst.billing.repository.InvoiceRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out sequential invoice numbers per user and financial year.
+ *
+ * Numbers look like 5-26000001: the user id in base 36, the year the financial
+ * year starts in, and six digits of sequence, so they stay within the 16
+ * characters GST rule 46 and GSTR-1 allow for an invoice number.
+ *
+ * Numbers are reserved from the invoice_number_counters table in blocks
+ * (hi/lo), so each node serves most numbers from memory and only takes a row
+ * lock when its current block runs out. Several nodes sharing one database get
+ * disjoint blocks; numbers that are handed out but never saved show up in the
+ * gap report.
+ *
+ * Each reserved block is also recorded in invoice_number_blocks until the node
+ * reserves its next one or gives it back. The gap report leaves those ranges out, since another
+ * node may still hand them out; a node that stops without giving its block back
+ * leaves the row behind, and the report lists it so it can be deleted.
+ */
+@Service
+public class InvoiceNumberAllocator {
+
+	// Longest invoice number GST rule 46 and the GSTR-1 inum field accept
+	public static final int MAX_LENGTH = 16;
+
+	// Earlier numbers looked like INV-5/2026-27/000001
+	private static final String LEGACY_PREFIX = "INV-";
+
+	@Autowired
+	private InvoiceNumberCounterRepository counterRepository;
+
+	@Autowired
+	private InvoiceNumberBlockRepository blockRepository;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	private final TransactionTemplate blockTransaction;
+
+	private final int blockSize;
+
+	private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+	public InvoiceNumberAllocator(PlatformTransactionManager transactionManager,
+			@Value("${billing.invoice-number.block-size:20}") int blockSize) {
+		this.blockTransaction = new TransactionTemplate(transactionManager);
+		this.blockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.blockSize = blockSize;
+	}
+
+	// Next invoice number for the user's series in the financial year of the date. Call it outside a transaction:
+	// reserving a new block takes a second connection, and a thread holding one while it waits can exhaust the pool
+	public String nextInvoiceNumber(User user, LocalDate invoiceDate) {
+		String seriesKey = seriesKey(user);
+		String financialYear = financialYear(invoiceDate);
+		Block block = blocks.computeIfAbsent(seriesKey + "|" + financialYear,
+				k -> new Block(seriesKey, financialYear));
+		return invoiceNumber(user.getId(), financialYear, block.next());
+	}
+
+	// Financial year label for a date, e.g. 2026-27 for April 2026 to March 2027
+	public static String financialYear(LocalDate date) {
+		int startYear = date.getMonthValue() >= 4 ? date.getYear() : date.getYear() - 1;
+		return startYear + "-" + String.format("%02d", (startYear + 1) % 100);
+	}
+
+	// Numbers handed out for the series but missing from saved invoices. Numbers in a block another node still
+	// holds are left out; this node's own block is left out only from the next number it would hand out
+	public NumberGapReport getGapReport(User user, String financialYear) {
+		String seriesKey = seriesKey(user);
+		String prefix = seriesPrefix(user.getId(), financialYear);
+
+		long issuedUpTo = counterRepository.findBySeriesKeyAndFinancialYear(seriesKey, financialYear)
+				.map(counter -> counter.getNextValue() - 1).orElse(0L);
+
+		Block ownBlock = blocks.get(seriesKey + "|" + financialYear);
+		long[] own = ownBlock != null ? ownBlock.range() : null;
+		BitSet notHandedOut = new BitSet();
+		List<InvoiceNumberBlock> heldElsewhere = new ArrayList<>();
+		for (InvoiceNumberBlock held : blockRepository.findBySeriesKeyAndFinancialYearOrderByStartValue(seriesKey,
+				financialYear)) {
+			if (own != null && own[0] == held.getStartValue()) {
+				notHandedOut.set((int) own[1], (int) own[2]);
+			} else {
+				notHandedOut.set(held.getStartValue().intValue(), held.getEndValue().intValue());
+				heldElsewhere.add(held);
+			}
+		}
+
+		BitSet used = new BitSet();
+		markUsed(used, prefix);
+		// Numbers issued before the compact format share the same counter
+		markUsed(used, LEGACY_PREFIX + seriesKey + "/" + financialYear + "/");
+
+		int highestUsed = used.length() - 1;
+		List<Long> missing = new ArrayList<>();
+		for (int n = used.nextClearBit(1); n < highestUsed; n = used.nextClearBit(n + 1)) {
+			if (!notHandedOut.get(n)) {
+				missing.add((long) n);
+			}
+		}
+
+		return new NumberGapReport(financialYear, prefix, issuedUpTo, Math.max(highestUsed, 0), missing,
+				heldElsewhere);
+	}
+
+	private void markUsed(BitSet used, String prefix) {
+		for (String invoiceNumber : invoiceRepository.findInvoiceNumbersByPrefix(prefix)) {
+			try {
+				used.set(Integer.parseInt(invoiceNumber.substring(prefix.length())));
+			} catch (NumberFormatException e) {
+				// Not produced by this allocator
+			}
+		}
+	}
+
+	// Give the unused tail of each block back when no other node has reserved past it
+	@PreDestroy
+	public void releaseUnusedBlocks() {
+		for (Block block : blocks.values()) {
+			try {
+				block.release();
+			} catch (RuntimeException e) {
+				// Unreleased numbers are reported as gaps
+			}
+		}
+		blocks.clear();
+	}
+
+	private String seriesKey(User user) {
+		return String.valueOf(user.getId());
+	}
+
+	// Invoice number of the given place in a user's series, e.g. 5-26000001 for the first of 2026-27
+	public static String invoiceNumber(long userId, String financialYear, long number) {
+		String invoiceNumber = seriesPrefix(userId, financialYear) + String.format("%06d", number);
+		if (invoiceNumber.length() > MAX_LENGTH) {
+			throw new IllegalStateException(
+					"Invoice number " + invoiceNumber + " is longer than " + MAX_LENGTH + " characters");
+		}
+		return invoiceNumber;
+	}
+
+	// Base-36 user id and the two-digit year the financial year starts in, e.g. 5-26 for 2026-27
+	static String seriesPrefix(long userId, String financialYear) {
+		return Long.toString(userId, 36).toUpperCase() + "-" + financialYear.substring(2, 4);
+	}
+
+	// Reserve [start, start + blockSize) by advancing the shared counter, and forget the used-up block it replaces
+	private long reserveBlock(String seriesKey, String financialYear, Long usedUpStart) {
+		for (int attempt = 0;; attempt++) {
+			try {
+				return blockTransaction.execute(status -> {
+					InvoiceNumberCounter counter = counterRepository
+							.findForUpdateBySeriesKeyAndFinancialYear(seriesKey, financialYear)
+							.orElseGet(() -> counterRepository
+									.saveAndFlush(new InvoiceNumberCounter(seriesKey, financialYear)));
+					long start = counter.getNextValue();
+					counter.setNextValue(start + blockSize);
+					if (usedUpStart != null) {
+						blockRepository.deleteBlock(seriesKey, financialYear, usedUpStart);
+					}
+					blockRepository.save(new InvoiceNumberBlock(seriesKey, financialYear, start, start + blockSize));
+					return start;
+				});
+			} catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+				// Another node created the counter row first; lock it on the next attempt
+				if (attempt >= 2) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	// Numbers past next that cannot go back to the counter are lost and show up as gaps
+	private void releaseBlock(String seriesKey, String financialYear, long start, long next, long end) {
+		blockTransaction.executeWithoutResult(status -> {
+			counterRepository.findForUpdateBySeriesKeyAndFinancialYear(seriesKey, financialYear).ifPresent(counter -> {
+				if (counter.getNextValue() == end) {
+					counter.setNextValue(next);
+				}
+			});
+			blockRepository.deleteBlock(seriesKey, financialYear, start);
+		});
+	}
+
+	// Block of numbers owned by this node. Guarded by a lock rather than synchronized: refilling
+	// waits on the database, which would pin the carrier thread of a virtual thread on Java 21
+	private class Block {
+		private final String seriesKey;
+		private final String financialYear;
+		private final ReentrantLock lock = new ReentrantLock();
+		private Long start;
+		private long next;
+		private long end;
+
+		Block(String seriesKey, String financialYear) {
+			this.seriesKey = seriesKey;
+			this.financialYear = financialYear;
+		}
+
+		long next() {
+			lock.lock();
+			try {
+				if (next >= end) {
+					start = reserveBlock(seriesKey, financialYear, start);
+					next = start;
+					end = next + blockSize;
+				}
+				return next++;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void release() {
+			lock.lock();
+			try {
+				if (start != null) {
+					releaseBlock(seriesKey, financialYear, start, next, end);
+					start = null;
+					next = end;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		// Start, next number and end of the block, or null before the first reservation
+		long[] range() {
+			lock.lock();
+			try {
+				return start != null ? new long[] { start, next, end } : null;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	// Helper class for the gap report
+	public static class NumberGapReport {
+		private final String financialYear;
+		private final String prefix;
+		private final long issuedUpTo;
+		private final long highestUsed;
+		private final List<Long> missingNumbers;
+		private final List<InvoiceNumberBlock> blocksHeldElsewhere;
+
+		public NumberGapReport(String financialYear, String prefix, long issuedUpTo, long highestUsed,
+				List<Long> missingNumbers, List<InvoiceNumberBlock> blocksHeldElsewhere) {
+			this.financialYear = financialYear;
+			this.prefix = prefix;
+			this.issuedUpTo = issuedUpTo;
+			this.highestUsed = highestUsed;
+			this.missingNumbers = missingNumbers;
+			this.blocksHeldElsewhere = blocksHeldElsewhere;
+		}
+
+		// Getters
+		public String getFinancialYear() {
+			return financialYear;
+		}
+
+		public String getPrefix() {
+			return prefix;
+		}
+
+		public long getIssuedUpTo() {
+			return issuedUpTo;
+		}
+
+		public long getHighestUsed() {
+			return highestUsed;
+		}
+
+		public List<Long> getMissingNumbers() {
+			return missingNumbers;
+		}
+
+		public List<InvoiceNumberBlock> getBlocksHeldElsewhere() {
+			return blocksHeldElsewhere;
+		}
+	}
+}
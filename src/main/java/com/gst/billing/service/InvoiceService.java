@@ -2,18 +2,31 @@ package com.gst.billing.service;
 
 import com.gst.billing.model.*;
 import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.util.BillingMetrics;
+import com.gst.billing.util.GstCalculator.PaiseSum;
+import com.gst.billing.util.InvoicePdfCache;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.SearchPage;
+
+import io.micrometer.core.instrument.Timer;
 
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class InvoiceService {
@@ -27,56 +40,126 @@ public class InvoiceService {
 	@Autowired
 	private ProductService productService;
 
-	// Create new invoice
-	@Transactional
+	@Autowired
+	private InvoiceNumberAllocator invoiceNumberAllocator;
+
+	@Autowired
+	private InvoicePdfCache invoicePdfCache;
+
+	@Autowired
+	private RevenueRollupService revenueRollupService;
+
+	@Autowired
+	private InvoiceTaxService invoiceTaxService;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private BillingMetrics metrics;
+
+	private final TransactionTemplate invoiceTransaction;
+
+	public InvoiceService(PlatformTransactionManager transactionManager) {
+		this.invoiceTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	// Create new invoice. The number is taken before the transaction opens: when the allocator has to
+	// reserve a new block it needs a connection of its own, which must not be awaited while holding one
 	public Invoice createInvoice(InvoiceRequest request, User user) {
-		// Validate customer
-		Customer customer = customerService.getCustomerById(request.getCustomerId());
+		Timer.Sample sample = metrics.start();
+		boolean success = false;
+		try {
+			// Validate customer; loaded from the database, as the cached catalog may be stale on this node
+			Customer customer = customerService.getCustomerById(request.getCustomerId());
+			LocalDate today = LocalDate.now();
+			String invoiceNumber = invoiceNumberAllocator.nextInvoiceNumber(user, today);
+
+			Invoice savedInvoice = invoiceTransaction.execute(status -> {
+				Invoice invoice = newInvoice(customer, user, today, invoiceNumber);
+				applyItems(invoice, request.getItems());
+				invoiceTaxService.applyTaxLines(invoice);
+
+				Invoice saved = invoiceRepository.save(invoice);
+				revenueRollupService.recordCreated(List.of(saved));
+				searchIndexService.indexInvoice(saved);
+				recordUsage(saved);
+				return saved;
+			});
+			metrics.record(BillingMetrics.INVOICE_ITEMS, "items", savedInvoice.getItems().size(), "role",
+					BillingMetrics.role(user));
+			success = true;
+			return savedInvoice;
+		} finally {
+			metrics.stop(sample, BillingMetrics.INVOICE_CREATE, success, "role", BillingMetrics.role(user));
+		}
+	}
 
+	// Start an unsaved invoice with a number the caller has already taken from the allocator
+	Invoice newInvoice(Customer customer, User user, LocalDate invoiceDate, String invoiceNumber) {
 		Invoice invoice = new Invoice();
-		invoice.setInvoiceNumber(generateInvoiceNumber());
-		invoice.setInvoiceDate(LocalDate.now());
+		invoice.setInvoiceDate(invoiceDate);
+		invoice.setInvoiceNumber(invoiceNumber);
 		invoice.setCustomer(customer);
 		invoice.setUser(user);
+		return invoice;
+	}
+
+	// Build invoice items from products loaded from the database (never the cached catalog, which another node's
+	// price change may not have reached yet) and recalculate totals
+	void applyItems(Invoice invoice, List<InvoiceItemRequest> itemRequests) {
+		applyItems(invoice, itemRequests, productService.getProductsByIds(productIds(itemRequests)));
+	}
 
-		BigDecimal subtotal = BigDecimal.ZERO;
-		BigDecimal totalGst = BigDecimal.ZERO;
+	// Build invoice items from already loaded products and recalculate totals
+	void applyItems(Invoice invoice, List<InvoiceItemRequest> itemRequests, Map<Long, Product> products) {
+		PaiseSum subtotal = new PaiseSum();
+		PaiseSum totalGst = new PaiseSum();
 
 		// Process invoice items
-		for (InvoiceItemRequest itemRequest : request.getItems()) {
-			Product product = productService.getProductById(itemRequest.getProductId());
+		for (InvoiceItemRequest itemRequest : itemRequests) {
+			Product product = products.get(itemRequest.getProductId());
+			if (product == null) {
+				throw new EntityNotFoundException("Product not found with id: " + itemRequest.getProductId());
+			}
 
-			InvoiceItem item = new InvoiceItem();
+			// Price and rate come from the product; amounts are calculated once
+			InvoiceItem item = new InvoiceItem(product, itemRequest.getQuantity());
 			item.setInvoice(invoice);
-			item.setProduct(product);
-			item.setQuantity(itemRequest.getQuantity());
-			item.setUnitPrice(product.getPrice());
-			item.setGstRate(product.getGstRate());
-			item.calculateAmounts();
 
 			invoice.getItems().add(item);
-
-			subtotal = subtotal.add(item.getSubtotal());
-			totalGst = totalGst.add(item.getGstAmount());
+			item.addTo(subtotal, totalGst);
 		}
 
-		invoice.setSubtotal(subtotal);
-		invoice.setTotalGst(totalGst);
-		invoice.setTotalAmount(subtotal.add(totalGst));
+		invoice.setSubtotal(subtotal.toBigDecimal());
+		invoice.setTotalGst(totalGst.toBigDecimal());
+		invoice.setTotalAmount(invoice.getSubtotal().add(invoice.getTotalGst()));
+	}
 
-		return invoiceRepository.save(invoice);
+	// Rank the invoice's customer and products first in the invoice form's typeahead
+	void recordUsage(Invoice invoice) {
+		Set<Long> productIds = new HashSet<>();
+		for (InvoiceItem item : invoice.getItems()) {
+			productIds.add(item.getProduct().getId());
+		}
+		productService.recordUsage(invoice.getUser(), productIds, invoice.getId());
+		customerService.recordUsage(invoice.getUser(), invoice.getCustomer().getId(), invoice.getId());
 	}
 
-	// Generate unique invoice number
-	private String generateInvoiceNumber() {
-		String timestamp = String.valueOf(System.currentTimeMillis());
-		String random = String.valueOf((int) (Math.random() * 1000));
-		return "INV-" + timestamp.substring(timestamp.length() - 6) + "-" + random;
+	static Set<Long> productIds(List<InvoiceItemRequest> itemRequests) {
+		Set<Long> productIds = new HashSet<>();
+		for (InvoiceItemRequest itemRequest : itemRequests) {
+			productIds.add(itemRequest.getProductId());
+		}
+		return productIds;
 	}
 
 	// Get invoice by ID
 	public Invoice getInvoiceById(Long id) {
-		return invoiceRepository.findById(id)
+		return invoiceRepository.findWithDetailsById(id)
 				.orElseThrow(() -> new EntityNotFoundException("Invoice not found with id: " + id));
 	}
 
@@ -90,6 +173,41 @@ public class InvoiceService {
 		return invoiceRepository.findAllByOrderByInvoiceDateDesc();
 	}
 
+	// One page of a user's invoices, newest first unless sort is "oldest"
+	public KeysetPage<Invoice> getUserInvoicePage(User user, String cursor, String sort, int size) {
+		return KeysetPage.fetch(cursor, "invoiceDate", LocalDate::parse,
+				position -> invoiceRepository.findByUser(user, position, dateSort(sort), KeysetPage.limit(size)));
+	}
+
+	// One page of all invoices (admin only)
+	public KeysetPage<Invoice> getAllInvoicePage(String cursor, String sort, int size) {
+		return KeysetPage.fetch(cursor, "invoiceDate", LocalDate::parse,
+				position -> invoiceRepository.findBy(position, dateSort(sort), KeysetPage.limit(size)));
+	}
+
+	// One page of a user's invoices matching the advanced-search filters, newest first unless sort is "oldest"
+	public KeysetPage<Invoice> searchInvoices(User user, InvoiceSearchCriteria criteria, String cursor, String sort,
+			int size) {
+		Sort.Direction direction = dateSort(sort).getOrderFor("invoiceDate").getDirection();
+		return KeysetPage.fetch(cursor, "invoiceDate", LocalDate::parse, position -> invoiceRepository
+				.findByCriteria(user, criteria, position, direction, KeysetPage.limit(size)));
+	}
+
+	// Number of a user's invoices matching the advanced-search filters
+	public long countInvoices(User user, InvoiceSearchCriteria criteria) {
+		return invoiceRepository.countByCriteria(user, criteria);
+	}
+
+	private static Sort dateSort(String sort) {
+		Sort.Direction direction = "oldest".equals(sort) ? Sort.Direction.ASC : Sort.Direction.DESC;
+		return Sort.by(direction, "invoiceDate", "id");
+	}
+
+	// Count and sums of a user's invoices, or of all invoices when user is null
+	public InvoiceTotals getInvoiceTotals(User user) {
+		return user != null ? invoiceRepository.getInvoiceTotalsByUser(user) : invoiceRepository.getInvoiceTotals();
+	}
+
 	// Get invoices by date range
 	public List<Invoice> getInvoicesByDateRange(LocalDate startDate, LocalDate endDate, User user) {
 		return invoiceRepository.findByInvoiceDateBetweenAndUserOrderByInvoiceDateDesc(startDate, endDate, user);
@@ -112,40 +230,31 @@ public class InvoiceService {
 		}
 
 		// Only allow updates to certain fields
+		boolean taxChanged = false;
 		if (request.getCustomerId() != null) {
 			Customer customer = customerService.getCustomerById(request.getCustomerId());
 			existingInvoice.setCustomer(customer);
+			taxChanged = true;
 		}
 
 		// Recalculate if items are updated
 		if (request.getItems() != null && !request.getItems().isEmpty()) {
+			BigDecimal previousAmount = existingInvoice.getTotalAmount();
+			BigDecimal previousGst = existingInvoice.getTotalGst();
 			existingInvoice.getItems().clear();
+			applyItems(existingInvoice, request.getItems());
+			revenueRollupService.recordChanged(existingInvoice, previousAmount, previousGst);
+			taxChanged = true;
+		}
 
-			BigDecimal subtotal = BigDecimal.ZERO;
-			BigDecimal totalGst = BigDecimal.ZERO;
-
-			for (InvoiceItemRequest itemRequest : request.getItems()) {
-				Product product = productService.getProductById(itemRequest.getProductId());
-
-				InvoiceItem item = new InvoiceItem();
-				item.setInvoice(existingInvoice);
-				item.setProduct(product);
-				item.setQuantity(itemRequest.getQuantity());
-				item.setUnitPrice(product.getPrice());
-				item.setGstRate(product.getGstRate());
-				item.calculateAmounts();
-
-				existingInvoice.getItems().add(item);
-
-				subtotal = subtotal.add(item.getSubtotal());
-				totalGst = totalGst.add(item.getGstAmount());
-			}
-
-			existingInvoice.setSubtotal(subtotal);
-			existingInvoice.setTotalGst(totalGst);
-			existingInvoice.setTotalAmount(subtotal.add(totalGst));
+		// A new customer can change the place of supply, new items the amounts; either
+		// also changes the dashboard figures of the invoice's month
+		if (taxChanged) {
+			invoiceTaxService.applyTaxLines(existingInvoice);
+			dashboardService.invalidate(existingInvoice.getUser().getId(), existingInvoice.getInvoiceDate());
 		}
 
+		invoicePdfCache.evict(id);
 		return invoiceRepository.save(existingInvoice);
 	}
 
@@ -160,6 +269,10 @@ public class InvoiceService {
 		}
 
 		invoiceRepository.delete(invoice);
+		revenueRollupService.recordDeleted(invoice);
+		dashboardService.invalidate(invoice.getUser().getId(), invoice.getInvoiceDate());
+		invoicePdfCache.evict(id);
+		searchIndexService.remove(SearchIndexService.Type.INVOICE, id);
 	}
 
 	// Get invoice statistics for user
@@ -176,9 +289,21 @@ public class InvoiceService {
 		return new InvoiceStatistics(totalInvoices, totalRevenue, totalGst);
 	}
 
-	// Search invoices by invoice number
-	public List<Invoice> searchInvoicesByNumber(String invoiceNumber, User user) {
-		return invoiceRepository.findByInvoiceNumberContainingIgnoreCaseAndUser(invoiceNumber, user);
+	// Search the user's invoices by number, best matches first
+	public SearchPage<Invoice> searchInvoicesByNumber(String invoiceNumber, User user, int page, int size) {
+		if (!searchIndexService.isReady()) {
+			return SearchPage.of(invoiceRepository.findByInvoiceNumberContainingIgnoreCaseAndUser(invoiceNumber, user),
+					page, size);
+		}
+		SearchPage<Long> ids = searchIndexService.search(SearchIndexService.Type.INVOICE, user.getId(),
+				invoiceNumber, page, size);
+		Map<Long, Invoice> invoices = new HashMap<>();
+		if (!ids.isEmpty()) {
+			for (Invoice invoice : invoiceRepository.findByUserAndIdIn(user, ids.getItems())) {
+				invoices.put(invoice.getId(), invoice);
+			}
+		}
+		return ids.map(invoices);
 	}
 
 	// Get invoice count for user
@@ -229,21 +354,20 @@ public class InvoiceService {
 	}
 
 	public Map<String, BigDecimal> getMonthlyRevenue(User user, boolean isAdmin) {
-		List<Object[]> data = isAdmin ? invoiceRepository.getMonthlyRevenueAll()
-				: invoiceRepository.getMonthlyRevenue(user);
+		List<Object[]> data = revenueRollupService.getMonthlyRevenue(isAdmin ? null : user.getId());
 
 		Map<String, BigDecimal> result = new LinkedHashMap<>();
 		for (Object[] row : data) {
-			int month = ((Number) row[0]).intValue();
-			BigDecimal total = (BigDecimal) row[1];
-			result.put(getMonthName(month), total);
+			int year = ((Number) row[0]).intValue();
+			int month = ((Number) row[1]).intValue();
+			BigDecimal total = (BigDecimal) row[2];
+			result.put(getMonthName(month) + " " + year, total);
 		}
 		return result;
 	}
 
 	public Map<String, BigDecimal> getDailyRevenue(User user, boolean isAdmin) {
-		List<Object[]> data = isAdmin ? invoiceRepository.getDailyRevenueAll()
-				: invoiceRepository.getDailyRevenue(user);
+		List<Object[]> data = revenueRollupService.getDailyRevenue(isAdmin ? null : user.getId());
 
 		Map<String, BigDecimal> result = new LinkedHashMap<>();
 		for (Object[] row : data) {
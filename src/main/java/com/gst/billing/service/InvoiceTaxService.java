@@ -0,0 +1,147 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceItem;
+import com.gst.billing.model.InvoiceTaxLine;
+import com.gst.billing.model.User;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.util.GstCalculator;
+import com.gst.billing.util.GstCalculator.PaiseSum;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Works out the per-rate tax lines of an invoice when it is written.
+ *
+ * A supply is inter-state, and charged IGST, when the state codes at the start
+ * of the seller's and the customer's GSTIN differ. Otherwise the GST is split
+ * into CGST and SGST; a customer without a GSTIN is treated as in the seller's
+ * state.
+ */
+@Service
+public class InvoiceTaxService {
+
+	private static final int BACKFILL_BATCH_SIZE = 200;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	private final String companyGstin;
+
+	private final TransactionTemplate backfillTransaction;
+
+	public InvoiceTaxService(@Value("${billing.seller.gstin:}") String companyGstin,
+			PlatformTransactionManager transactionManager) {
+		this.companyGstin = companyGstin.isBlank() ? null : companyGstin.trim();
+		this.backfillTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	// Replace the tax lines of an invoice whose items and customer are set
+	public void applyTaxLines(Invoice invoice) {
+		String sellerGstin = sellerGstin(invoice.getUser());
+		boolean interState = isInterState(sellerGstin, invoice.getCustomer().getGstin());
+
+		invoice.setSellerGstin(sellerGstin);
+		invoice.setInterState(interState);
+		invoice.getTaxLines().clear();
+		for (InvoiceTaxLine taxLine : calculateTaxLines(invoice.getItems(), interState)) {
+			invoice.addTaxLine(taxLine);
+		}
+	}
+
+	// One line per rate, in rate order; CGST takes the rounded half and SGST the rest
+	public static List<InvoiceTaxLine> calculateTaxLines(List<InvoiceItem> items, boolean interState) {
+		Map<BigDecimal, PaiseSum[]> sums = new TreeMap<>();
+		for (InvoiceItem item : items) {
+			PaiseSum[] sum = sums.computeIfAbsent(item.getGstRate(), k -> new PaiseSum[] { new PaiseSum(),
+					new PaiseSum() });
+			item.addTo(sum[0], sum[1]);
+		}
+
+		List<InvoiceTaxLine> taxLines = new ArrayList<>(sums.size());
+		for (Map.Entry<BigDecimal, PaiseSum[]> entry : sums.entrySet()) {
+			taxLines.add(taxLine(entry.getKey(), entry.getValue()[0], entry.getValue()[1], interState));
+		}
+		return taxLines;
+	}
+
+	// Tax line of one rate from the summed taxable amount and GST of its items
+	public static InvoiceTaxLine taxLine(BigDecimal rate, PaiseSum taxable, PaiseSum gst, boolean interState) {
+		if (interState) {
+			return new InvoiceTaxLine(rate, taxable.toBigDecimal(), BigDecimal.ZERO, BigDecimal.ZERO,
+					gst.toBigDecimal());
+		}
+
+		BigDecimal cgst;
+		BigDecimal sgst;
+		long gstPaise = gst.getPaise();
+		if (gstPaise != GstCalculator.NOT_FIXED) {
+			long cgstPaise = GstCalculator.halfOf(gstPaise);
+			cgst = GstCalculator.toRupees(cgstPaise);
+			sgst = GstCalculator.toRupees(gstPaise - cgstPaise);
+		} else {
+			cgst = gst.toBigDecimal().divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+			sgst = gst.toBigDecimal().subtract(cgst);
+		}
+		return new InvoiceTaxLine(rate, taxable.toBigDecimal(), cgst, sgst, BigDecimal.ZERO);
+	}
+
+	// The user's own registration, else the company's; null when neither is configured
+	public String sellerGstin(User user) {
+		if (user != null && user.getGstin() != null && !user.getGstin().isBlank()) {
+			return user.getGstin().trim();
+		}
+		return companyGstin;
+	}
+
+	// The first two characters of a GSTIN are the state code
+	public static String stateCode(String gstin) {
+		if (gstin == null) {
+			return null;
+		}
+		String trimmed = gstin.trim();
+		if (trimmed.length() < 2 || !Character.isDigit(trimmed.charAt(0)) || !Character.isDigit(trimmed.charAt(1))) {
+			return null;
+		}
+		return trimmed.substring(0, 2);
+	}
+
+	public static boolean isInterState(String sellerGstin, String customerGstin) {
+		String sellerState = stateCode(sellerGstin);
+		String customerState = stateCode(customerGstin);
+		return sellerState != null && customerState != null && !sellerState.equals(customerState);
+	}
+
+	// Write tax lines for invoices saved before they existed, a batch per transaction
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		long afterId = 0;
+		List<Long> ids;
+		do {
+			ids = invoiceRepository.findIdsWithoutTaxLines(afterId, Limit.of(BACKFILL_BATCH_SIZE));
+			List<Long> batch = ids;
+			backfillTransaction.executeWithoutResult(status -> {
+				for (Long id : batch) {
+					invoiceRepository.findWithDetailsById(id).ifPresent(this::applyTaxLines);
+				}
+			});
+			if (!ids.isEmpty()) {
+				afterId = ids.get(ids.size() - 1);
+			}
+		} while (ids.size() == BACKFILL_BATCH_SIZE);
+	}
+}
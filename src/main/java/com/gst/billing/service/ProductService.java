@@ -2,15 +2,28 @@ package com.gst.billing.service;
 
 import com.gst.billing.model.Product;
 import com.gst.billing.model.User;
+import com.gst.billing.util.CatalogCache;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.RecentUsage;
+import com.gst.billing.util.SearchPage;
+import com.gst.billing.repository.InvoiceItemRepository;
 import com.gst.billing.repository.ProductRepository;
 
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,10 +32,32 @@ public class ProductService {
 	@Autowired
 	private ProductRepository productRepository;
 
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private InvoiceItemRepository invoiceItemRepository;
+
+	// Each user's products, dropped on every write to them
+	private final CatalogCache<Product> catalogCache;
+
+	// When each product was last invoiced, for ranking typeahead matches
+	private final RecentUsage recentUsage;
+
+	public ProductService(@Value("${billing.catalog-cache.max-users:1000}") long maxUsers,
+			@Value("${billing.catalog-cache.ttl-minutes:10}") long ttlMinutes) {
+		this.catalogCache = new CatalogCache<>(maxUsers, Duration.ofMinutes(ttlMinutes), Product::getId,
+				ProductService::typeaheadKeys);
+		this.recentUsage = new RecentUsage(maxUsers, Duration.ofMinutes(ttlMinutes));
+	}
+
 	// Create new product
 	public Product createProduct(Product product, User createdBy) {
 		product.setCreatedBy(createdBy);
-		return productRepository.save(product);
+		Product savedProduct = productRepository.save(product);
+		catalogCache.invalidate(createdBy.getId());
+		searchIndexService.indexProduct(savedProduct);
+		return savedProduct;
 	}
 
 	// Get product by ID
@@ -31,11 +66,99 @@ public class ProductService {
 				.orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
 	}
 
+	// Get products by IDs with a single query, keyed by product ID
+	public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+		Map<Long, Product> products = new HashMap<>();
+		for (Product product : productRepository.findAllById(ids)) {
+			products.put(product.getId(), product);
+		}
+		return products;
+	}
+
+	// Same, served from the user's cached catalog; ids outside it are queried
+	public Map<Long, Product> getProductsByIds(User user, Collection<Long> ids) {
+		CatalogCache.Catalog<Product> catalog = catalog(user);
+		Map<Long, Product> products = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : ids) {
+			Product product = catalog.get(id);
+			if (product != null) {
+				products.put(id, product);
+			} else {
+				missing.add(id);
+			}
+		}
+		if (!missing.isEmpty()) {
+			products.putAll(getProductsByIds(missing));
+		}
+		return products;
+	}
+
 	// Get recent products (last N days)
 
-	// Get all products for a specific user
+	// Get all products for a specific user (cached; do not modify the returned products)
 	public List<Product> getUserProducts(User user) {
-		return productRepository.findByCreatedByOrderByName(user);
+		return catalog(user).getItems();
+	}
+
+	private CatalogCache.Catalog<Product> catalog(User user) {
+		return catalogCache.get(user.getId(), () -> productRepository.findByCreatedByOrderByName(user));
+	}
+
+	// Products whose name, a word of it or HSN code starts with the prefix, most recently invoiced first;
+	// a blank prefix ranks the whole catalog
+	public List<Product> findByPrefix(User user, String prefix, int limit) {
+		CatalogCache.Catalog<Product> catalog = catalog(user);
+		Collection<Product> matches = prefix == null || prefix.isBlank() ? catalog.getItems()
+				: catalog.startingWith(prefix);
+		if (matches.isEmpty()) {
+			return List.of();
+		}
+		return recentUsage.mostRecentFirst(user.getId(), matches, Product::getId, limit,
+				() -> invoiceItemRepository.findLastInvoiceIdByProduct(user.getId()));
+	}
+
+	// Note that the products were just invoiced, so typeahead ranks them first
+	public void recordUsage(User user, Collection<Long> productIds, Long invoiceId) {
+		recentUsage.record(user.getId(), productIds, invoiceId);
+	}
+
+	static List<String> typeaheadKeys(Product product) {
+		List<String> keys = new ArrayList<>();
+		keys.add(product.getName());
+		keys.addAll(laterWords(product.getName()));
+		keys.add(product.getHsnCode());
+		return keys;
+	}
+
+	// Every word of a name but the first, which the name itself already starts with
+	static List<String> laterWords(String name) {
+		if (name == null) {
+			return List.of();
+		}
+		String[] words = name.trim().split("[\\s\\-/,.()&]+");
+		return words.length > 1 ? Arrays.asList(words).subList(1, words.length) : List.of();
+	}
+
+	public CatalogCache.CacheStats getCacheStats() {
+		return catalogCache.getStats();
+	}
+
+	// One page of a user's products sorted by name; "name_desc" reverses the order
+	public KeysetPage<Product> getProductPage(User user, String cursor, String sort, int size) {
+		return KeysetPage.fetch(cursor, "name", name -> name,
+				position -> productRepository.findByCreatedBy(user, position, nameSort(sort), KeysetPage.limit(size)));
+	}
+
+	// One page of all products (admin only)
+	public KeysetPage<Product> getAllProductPage(String cursor, String sort, int size) {
+		return KeysetPage.fetch(cursor, "name", name -> name,
+				position -> productRepository.findBy(position, nameSort(sort), KeysetPage.limit(size)));
+	}
+
+	private static Sort nameSort(String sort) {
+		Sort.Direction direction = "name_desc".equals(sort) ? Sort.Direction.DESC : Sort.Direction.ASC;
+		return Sort.by(direction, "name", "id");
 	}
 
 	// Get all products (admin only)
@@ -58,7 +181,10 @@ public class ProductService {
 		existingProduct.setHsnCode(productDetails.getHsnCode());
 		existingProduct.setGstRate(productDetails.getGstRate());
 
-		return productRepository.save(existingProduct);
+		Product savedProduct = productRepository.save(existingProduct);
+		catalogCache.invalidate(existingProduct.getCreatedBy().getId());
+		searchIndexService.indexProduct(savedProduct);
+		return savedProduct;
 	}
 
 	// Delete product
@@ -71,16 +197,28 @@ public class ProductService {
 		}
 
 		productRepository.delete(product);
+		catalogCache.invalidate(product.getCreatedBy().getId());
+		searchIndexService.remove(SearchIndexService.Type.PRODUCT, id);
 	}
 
-	// Search products by name
-	public List<Product> searchProducts(String name, User user) {
-		return productRepository.findByNameContainingIgnoreCaseAndCreatedBy(name, user);
+	// Search the user's products by name, description or HSN code, best matches first
+	public SearchPage<Product> searchProducts(String query, User user, int page, int size) {
+		if (!searchIndexService.isReady()) {
+			return SearchPage.of(productRepository.findByNameContainingIgnoreCaseAndCreatedBy(query, user), page,
+					size);
+		}
+		SearchPage<Long> ids = searchIndexService.search(SearchIndexService.Type.PRODUCT, user.getId(), query, page,
+				size);
+		return ids.map(getProductsByIds(user, ids.getItems()));
 	}
 
-	// Search products by HSN code
-	public List<Product> searchProductsByHsnCode(String hsnCode, User user) {
-		return productRepository.findByHsnCodeContainingAndCreatedBy(hsnCode, user);
+	// Search the user's products by HSN code
+	public SearchPage<Product> searchProductsByHsnCode(String hsnCode, User user, int page, int size) {
+		if (!searchIndexService.isReady()) {
+			return SearchPage.of(productRepository.findByHsnCodeContainingAndCreatedBy(hsnCode, user), page, size);
+		}
+		SearchPage<Long> ids = searchIndexService.searchHsnCodes(user.getId(), hsnCode, page, size);
+		return ids.map(getProductsByIds(user, ids.getItems()));
 	}
 
 	// Get products by price range
@@ -111,6 +249,9 @@ public class ProductService {
 	// Bulk product creation
 	public List<Product> createProducts(List<Product> products, User createdBy) {
 		products.forEach(product -> product.setCreatedBy(createdBy));
-		return productRepository.saveAll(products);
+		List<Product> savedProducts = productRepository.saveAll(products);
+		catalogCache.invalidate(createdBy.getId());
+		savedProducts.forEach(searchIndexService::indexProduct);
+		return savedProducts;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.MonthlyRevenueRollup;
+import com.gst.billing.repository.DailyRevenueRollupRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.MonthlyRevenueRollupRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains the daily and monthly revenue rollups that back the dashboard
+ * charts. Every invoice write adds its delta to the rollup rows inside the
+ * same transaction, so reads never have to group the invoices table.
+ */
+@Service
+public class RevenueRollupService {
+
+	@Autowired
+	private DailyRevenueRollupRepository dailyRollupRepository;
+
+	@Autowired
+	private MonthlyRevenueRollupRepository monthlyRollupRepository;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	private final TransactionTemplate rebuildTransaction;
+
+	public RevenueRollupService(PlatformTransactionManager transactionManager) {
+		this.rebuildTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	// Add newly saved invoices, one upsert per user and day
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void recordCreated(Collection<Invoice> invoices) {
+		Map<RollupKey, Delta> deltas = new LinkedHashMap<>();
+		for (Invoice invoice : invoices) {
+			deltas.computeIfAbsent(new RollupKey(invoice.getUser().getId(), invoice.getInvoiceDate()), k -> new Delta())
+					.add(1, invoice.getTotalAmount(), invoice.getTotalGst());
+		}
+		deltas.forEach((key, delta) -> apply(key.userId, key.date, delta.count, delta.amount, delta.gst));
+	}
+
+	// Replace the previous totals of an edited invoice with its current ones
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void recordChanged(Invoice invoice, BigDecimal previousAmount, BigDecimal previousGst) {
+		BigDecimal amount = invoice.getTotalAmount().subtract(previousAmount);
+		BigDecimal gst = invoice.getTotalGst().subtract(previousGst);
+		if (amount.signum() != 0 || gst.signum() != 0) {
+			apply(invoice.getUser().getId(), invoice.getInvoiceDate(), 0, amount, gst);
+		}
+	}
+
+	// Remove a deleted invoice; only the rows of its user, day and month are touched
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void recordDeleted(Invoice invoice) {
+		Long userId = invoice.getUser().getId();
+		LocalDate date = invoice.getInvoiceDate();
+		apply(userId, date, -1, invoice.getTotalAmount().negate(), invoice.getTotalGst().negate());
+		dailyRollupRepository.deleteIfEmpty(userId, date);
+		monthlyRollupRepository.deleteIfEmpty(userId, date.getYear(), date.getMonthValue());
+	}
+
+	// Regenerate both rollups from the raw invoices
+	public void rebuild() {
+		rebuildTransaction.executeWithoutResult(status -> {
+			dailyRollupRepository.deleteAllRows();
+			monthlyRollupRepository.deleteAllRows();
+			dailyRollupRepository.rebuildFromInvoices();
+			monthlyRollupRepository.rebuildFromInvoices();
+		});
+	}
+
+	// Fill the rollups of a database that has invoices from before they existed
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildIfEmpty() {
+		if (dailyRollupRepository.count() == 0 && invoiceRepository.count() > 0) {
+			rebuild();
+		}
+	}
+
+	// [year, month number, revenue] rows in calendar order
+	public List<Object[]> getMonthlyRevenue(Long userId) {
+		return userId != null ? monthlyRollupRepository.getMonthlyRevenue(userId)
+				: monthlyRollupRepository.getMonthlyRevenueAll();
+	}
+
+	// [date, revenue] rows
+	public List<Object[]> getDailyRevenue(Long userId) {
+		return userId != null ? dailyRollupRepository.getDailyRevenue(userId)
+				: dailyRollupRepository.getDailyRevenueAll();
+	}
+
+	// Invoices a user has dated in the given month
+	public long getInvoiceCount(Long userId, YearMonth month) {
+		return monthlyRollupRepository
+				.findByUserIdAndRevenueYearAndRevenueMonth(userId, month.getYear(), month.getMonthValue())
+				.map(MonthlyRevenueRollup::getInvoiceCount).orElse(0L);
+	}
+
+	private void apply(Long userId, LocalDate date, long count, BigDecimal amount, BigDecimal gst) {
+		dailyRollupRepository.addDelta(userId, date, count, amount, gst);
+		monthlyRollupRepository.addDelta(userId, date.getYear(), date.getMonthValue(), count, amount, gst);
+	}
+
+	private static class RollupKey {
+		private final Long userId;
+		private final LocalDate date;
+
+		RollupKey(Long userId, LocalDate date) {
+			this.userId = userId;
+			this.date = date;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof RollupKey)) {
+				return false;
+			}
+			RollupKey other = (RollupKey) o;
+			return userId.equals(other.userId) && date.equals(other.date);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(userId, date);
+		}
+	}
+
+	private static class Delta {
+		private long count;
+		private BigDecimal amount = BigDecimal.ZERO;
+		private BigDecimal gst = BigDecimal.ZERO;
+
+		void add(long count, BigDecimal amount, BigDecimal gst) {
+			this.count += count;
+			this.amount = this.amount.add(amount);
+			this.gst = this.gst.add(gst);
+		}
+	}
+}
@@ -0,0 +1,372 @@
+package com.gst.billing.service;
+
+import com.gst.billing.model.Customer;
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.Product;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.util.KeysetPage;
+import com.gst.billing.util.SearchPage;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Full-text index over each user's invoice numbers, customers and products,
+ * kept in-process with Lucene on local disk.
+ *
+ * Values are indexed as 1 to 3 character grams, so a term still matches
+ * anywhere inside a value as the old LIKE '%term%' queries did, but is looked
+ * up in an inverted index instead of scanning the table. Whole words and whole
+ * values are indexed as well and lift hits that match them above partial ones.
+ * Changes reach the index once their transaction commits, and the index is
+ * rebuilt from the database at startup; until then searches fall back to the
+ * database.
+ */
+@Service
+public class SearchIndexService {
+
+	// What a document describes
+	public enum Type {
+		INVOICE, CUSTOMER, PRODUCT
+	}
+
+	private static final String KEY = "key";
+	private static final String TYPE = "type";
+	private static final String OWNER = "owner";
+	private static final String ID = "id";
+	private static final String GRAMS = "grams";
+	private static final String HSN_GRAMS = "hsnGrams";
+	private static final String WORDS = "words";
+	private static final String EXACT = "exact";
+
+	private static final int MAX_GRAM = 3;
+	private static final float WORD_BOOST = 4f;
+	private static final float PREFIX_BOOST = 2f;
+	private static final float EXACT_BOOST = 8f;
+
+	// Hits beyond this are not paged to
+	private static final int MAX_HITS = 10_000;
+
+	private static final int REBUILD_BATCH_SIZE = 500;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final IndexWriter writer;
+	private final SearcherManager searcherManager;
+	private final TransactionTemplate rebuildTransaction;
+	private volatile boolean ready;
+
+	public SearchIndexService(
+			@Value("${billing.search.directory:${java.io.tmpdir}/gst-billing/search-index}") String directory,
+			PlatformTransactionManager transactionManager) throws IOException {
+		Path path = Paths.get(directory);
+		Files.createDirectories(path);
+
+		Analyzer grams = new Analyzer() {
+			@Override
+			protected TokenStreamComponents createComponents(String fieldName) {
+				Tokenizer tokenizer = new NGramTokenizer(1, MAX_GRAM);
+				return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+			}
+		};
+		Analyzer analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(CharArraySet.EMPTY_SET),
+				Map.of(GRAMS, grams, HSN_GRAMS, grams));
+
+		// Always start empty; the startup rebuild fills it from the database
+		IndexWriterConfig config = new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+		this.writer = new IndexWriter(FSDirectory.open(path), config);
+		this.searcherManager = new SearcherManager(writer, null);
+		this.rebuildTransaction = new TransactionTemplate(transactionManager);
+		this.rebuildTransaction.setReadOnly(true);
+	}
+
+	// Index (or re-index) an invoice under its number
+	public void indexInvoice(Invoice invoice) {
+		Document document = invoiceDocument(invoice);
+		afterCommit(() -> update(document));
+	}
+
+	// Index (or re-index) a customer under its name, email, phone and GSTIN
+	public void indexCustomer(Customer customer) {
+		Document document = customerDocument(customer);
+		if (document != null) {
+			afterCommit(() -> update(document));
+		}
+	}
+
+	// Index (or re-index) a product under its name, description and HSN code
+	public void indexProduct(Product product) {
+		Document document = productDocument(product);
+		if (document != null) {
+			afterCommit(() -> update(document));
+		}
+	}
+
+	public void remove(Type type, Long id) {
+		afterCommit(() -> {
+			try {
+				writer.deleteDocuments(key(type, id));
+				searcherManager.maybeRefreshBlocking();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	// False until the startup rebuild has finished
+	public boolean isReady() {
+		return ready;
+	}
+
+	// Ids of one owner's documents of a type matching every word of the text, best match first
+	public SearchPage<Long> search(Type type, Long ownerId, String text, int page, int size) {
+		return search(type, ownerId, text, GRAMS, page, size);
+	}
+
+	// Ids of one owner's products whose HSN code contains the text
+	public SearchPage<Long> searchHsnCodes(Long ownerId, String text, int page, int size) {
+		return search(Type.PRODUCT, ownerId, text, HSN_GRAMS, page, size);
+	}
+
+	private SearchPage<Long> search(Type type, Long ownerId, String text, String gramField, int page, int size) {
+		int pageSize = KeysetPage.limit(size).max();
+		int pageNumber = Math.max(0, Math.min(page, MAX_HITS / pageSize - 1));
+		String normalized = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+		if (normalized.isEmpty()) {
+			return new SearchPage<>(List.of(), pageNumber, pageSize, 0);
+		}
+
+		Query query = query(type, ownerId, normalized, gramField);
+		try {
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				int total = searcher.count(query);
+				int from = pageNumber * pageSize;
+				TopDocs top = searcher.search(query, from + pageSize);
+				StoredFields storedFields = searcher.storedFields();
+				List<Long> ids = new ArrayList<>(pageSize);
+				ScoreDoc[] hits = top.scoreDocs;
+				for (int i = from; i < hits.length; i++) {
+					ids.add(storedFields.document(hits[i].doc).getField(ID).numericValue().longValue());
+				}
+				return new SearchPage<>(ids, pageNumber, pageSize, total);
+			} finally {
+				searcherManager.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Every word must occur somewhere in the document; whole words and whole values rank higher
+	private static Query query(Type type, Long ownerId, String normalized, String gramField) {
+		BooleanQuery.Builder query = new BooleanQuery.Builder()
+				.add(new TermQuery(new Term(TYPE, type.name())), Occur.FILTER)
+				.add(new TermQuery(new Term(OWNER, ownerId.toString())), Occur.FILTER);
+
+		for (String word : normalized.split("\\s+")) {
+			BooleanQuery.Builder match = new BooleanQuery.Builder();
+			for (String gram : grams(word)) {
+				match.add(new TermQuery(new Term(gramField, gram)), Occur.MUST);
+			}
+			if (GRAMS.equals(gramField)) {
+				match.add(new BoostQuery(new TermQuery(new Term(WORDS, word)), WORD_BOOST), Occur.SHOULD);
+				match.add(new BoostQuery(new PrefixQuery(new Term(WORDS, word)), PREFIX_BOOST), Occur.SHOULD);
+			}
+			query.add(match.build(), Occur.MUST);
+		}
+
+		if (GRAMS.equals(gramField)) {
+			query.add(new BoostQuery(new TermQuery(new Term(EXACT, normalized)), EXACT_BOOST), Occur.SHOULD);
+		}
+		return query.build();
+	}
+
+	// Overlapping grams of the longest indexed length that together spell the word
+	static List<String> grams(String word) {
+		if (word.length() <= MAX_GRAM) {
+			return List.of(word);
+		}
+		List<String> grams = new ArrayList<>(word.length() - MAX_GRAM + 1);
+		for (int i = 0; i + MAX_GRAM <= word.length(); i++) {
+			grams.add(word.substring(i, i + MAX_GRAM));
+		}
+		return grams;
+	}
+
+	private static Document invoiceDocument(Invoice invoice) {
+		return document(Type.INVOICE, invoice.getId(), invoice.getUser().getId(), invoice.getInvoiceNumber());
+	}
+
+	// Null for customers without an owner, which no user can search
+	private static Document customerDocument(Customer customer) {
+		if (customer.getCreatedBy() == null) {
+			return null;
+		}
+		return document(Type.CUSTOMER, customer.getId(), customer.getCreatedBy().getId(), customer.getName(),
+				customer.getEmail(), customer.getPhone(), customer.getGstin());
+	}
+
+	private static Document productDocument(Product product) {
+		if (product.getCreatedBy() == null) {
+			return null;
+		}
+		Document document = document(Type.PRODUCT, product.getId(), product.getCreatedBy().getId(),
+				product.getName(), product.getDescription(), product.getHsnCode());
+		if (product.getHsnCode() != null) {
+			document.add(new TextField(HSN_GRAMS, product.getHsnCode(), Field.Store.NO));
+		}
+		return document;
+	}
+
+	private static Document document(Type type, Long id, Long ownerId, String... values) {
+		Document document = new Document();
+		document.add(new StringField(KEY, key(type, id).text(), Field.Store.NO));
+		document.add(new StringField(TYPE, type.name(), Field.Store.NO));
+		document.add(new StringField(OWNER, ownerId.toString(), Field.Store.NO));
+		document.add(new StoredField(ID, id));
+		for (String value : values) {
+			if (value == null || value.isBlank()) {
+				continue;
+			}
+			document.add(new TextField(GRAMS, value, Field.Store.NO));
+			document.add(new TextField(WORDS, value, Field.Store.NO));
+			document.add(new StringField(EXACT, value.trim().toLowerCase(Locale.ROOT), Field.Store.NO));
+		}
+		return document;
+	}
+
+	private static Term key(Type type, Long id) {
+		return new Term(KEY, type.name() + ":" + id);
+	}
+
+	// Replace the document with the same key and make the change visible to searches
+	private void update(Document document) {
+		try {
+			writer.updateDocument(new Term(KEY, document.get(KEY)), document);
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Apply an index change once the surrounding transaction commits, or now outside one
+	private static void afterCommit(Runnable change) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					change.run();
+				}
+			});
+		} else {
+			change.run();
+		}
+	}
+
+	// Index every invoice, customer and product, a batch per read-only transaction
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() throws IOException {
+		rebuild(afterId -> invoiceRepository.findByIdGreaterThanOrderById(afterId, Limit.of(REBUILD_BATCH_SIZE)),
+				Invoice::getId, SearchIndexService::invoiceDocument);
+		rebuild(afterId -> customerRepository.findByIdGreaterThanOrderById(afterId, Limit.of(REBUILD_BATCH_SIZE)),
+				Customer::getId, SearchIndexService::customerDocument);
+		rebuild(afterId -> productRepository.findByIdGreaterThanOrderById(afterId, Limit.of(REBUILD_BATCH_SIZE)),
+				Product::getId, SearchIndexService::productDocument);
+		writer.commit();
+		searcherManager.maybeRefreshBlocking();
+		ready = true;
+	}
+
+	private <T> void rebuild(Function<Long, List<T>> batch, Function<T, Long> idOf, Function<T, Document> toDocument)
+			throws IOException {
+		long afterId = 0;
+		List<Document> documents = new ArrayList<>(REBUILD_BATCH_SIZE);
+		int loaded;
+		do {
+			long from = afterId;
+			documents.clear();
+			List<Long> ids = rebuildTransaction.execute(status -> {
+				List<T> rows = batch.apply(from);
+				for (T row : rows) {
+					Document document = toDocument.apply(row);
+					if (document != null) {
+						documents.add(document);
+					}
+				}
+				return rows.stream().map(idOf).toList();
+			});
+			// Written without a refresh each; rebuild() makes them visible at the end
+			for (Document document : documents) {
+				writer.updateDocument(new Term(KEY, document.get(KEY)), document);
+			}
+			loaded = ids.size();
+			if (loaded > 0) {
+				afterId = ids.get(loaded - 1);
+			}
+		} while (loaded == REBUILD_BATCH_SIZE);
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		searcherManager.close();
+		writer.close();
+	}
+}
@@ -4,14 +4,22 @@ import com.gst.billing.model.User;
 import com.gst.billing.model.Role;
 import com.gst.billing.repository.UserRepository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +32,16 @@ public class UserService {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 
+	// Users behind authenticated requests by id, so resolving the principal needs no query.
+	// Entries are detached and shared between requests; callers must not modify them.
+	private final Cache<Long, User> principalCache;
+
+	public UserService(@Value("${billing.user-cache.max-users:10000}") long maxUsers,
+			@Value("${billing.user-cache.ttl-minutes:10}") long ttlMinutes) {
+		this.principalCache = Caffeine.newBuilder().maximumSize(maxUsers)
+				.expireAfterWrite(Duration.ofMinutes(ttlMinutes)).build();
+	}
+
 	public User registerUser(User user) {
 		// Check if username already exists
 		if (userRepository.findByUsername(user.getUsername()).isPresent()) {
@@ -47,6 +65,17 @@ public class UserService {
 		return userRepository.findByUsername(username);
 	}
 
+	// The user behind an authenticated principal, from the cache when it carries the id
+	public User getUser(UserDetails principal) {
+		if (principal instanceof BillingUserDetails billingUser) {
+			return principalCache.get(billingUser.getUserId(), this::getUserById);
+		}
+		User user = userRepository.findByUsername(principal.getUsername())
+				.orElseThrow(() -> new EntityNotFoundException("User not found: " + principal.getUsername()));
+		cacheUser(user);
+		return user;
+	}
+
 	public Optional<User> findByEmail(String email) {
 		return userRepository.findByEmail(email);
 	}
@@ -65,12 +94,15 @@ public class UserService {
 	}
 
 	public User updateUser(User user) {
-		return userRepository.save(user);
+		User savedUser = userRepository.save(user);
+		evict(user.getId());
+		return savedUser;
 	}
 
 	public void deleteUser(Long id) {
 		User user = getUserById(id);
 		userRepository.delete(user);
+		evict(id);
 	}
 
 	public long getUserCount() {
@@ -83,6 +115,9 @@ public class UserService {
 
 	public User getCurrentUser() {
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication.getPrincipal() instanceof UserDetails principal) {
+			return getUser(principal);
+		}
 		String username = authentication.getName();
 		return userRepository.findByUsername(username)
 				.orElseThrow(() -> new EntityNotFoundException("Current user not found"));
@@ -96,7 +131,25 @@ public class UserService {
 		User user = getUserById(id);
 		user.setEnabled(!user.isEnabled());
 		userRepository.save(user);
+		evict(id);
 		return user.isEnabled();
 	}
 
+	void cacheUser(User user) {
+		principalCache.put(user.getId(), user);
+	}
+
+	// Drop a changed user now and, inside a transaction, again once it ends
+	private void evict(Long id) {
+		principalCache.invalidate(id);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					principalCache.invalidate(id);
+				}
+			});
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.gst.billing.util;
+
+import com.gst.billing.model.User;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Timers and size histograms of the billing hot paths, published under
+ * billing.* (billing_* in Prometheus). Tags stay low-cardinality: the caller's
+ * role, the outcome and, for some meters, a small fixed set of values such as
+ * the trend period. Never tag with user ids, invoice numbers or dates.
+ */
+@Component
+public class BillingMetrics {
+
+	public static final String INVOICE_CREATE = "billing.invoice.create";
+	public static final String INVOICE_ITEMS = "billing.invoice.items";
+	public static final String PDF_RENDER = "billing.pdf.render";
+	public static final String PDF_BYTES = "billing.pdf.bytes";
+	public static final String EXPORT_EXCEL = "billing.export.excel";
+	public static final String EXPORT_ROWS = "billing.export.rows";
+	public static final String EXPORT_GSTR1 = "billing.export.gstr1";
+	public static final String EXPORT_GSTR1_INVOICES = "billing.export.gstr1.invoices";
+	public static final String DASHBOARD_STATISTICS = "billing.dashboard.statistics";
+	public static final String DASHBOARD_TREND = "billing.dashboard.trend";
+
+	private final MeterRegistry registry;
+
+	public BillingMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	public Timer.Sample start() {
+		return Timer.start(registry);
+	}
+
+	// Stop a sample started with start() as name{outcome=success|failure} plus the given tags
+	public void stop(Timer.Sample sample, String name, boolean success, String... tags) {
+		sample.stop(Timer.builder(name).tags(Tags.of(tags).and("outcome", success ? "success" : "failure"))
+				.publishPercentileHistogram().register(registry));
+	}
+
+	// Record a size (items, bytes, rows) in the histogram of that name
+	public void record(String name, String baseUnit, double amount, String... tags) {
+		DistributionSummary.builder(name).baseUnit(baseUnit).tags(tags).publishPercentileHistogram()
+				.register(registry).record(amount);
+	}
+
+	// Role tag of a user: admin, user or anonymous
+	public static String role(User user) {
+		return user != null && user.getRole() != null ? user.getRole().name().toLowerCase(Locale.ROOT) : "anonymous";
+	}
+}
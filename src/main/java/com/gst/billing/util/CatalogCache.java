@@ -0,0 +1,139 @@
+package com.gst.billing.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Each user's products or customers, kept in memory between requests.
+ *
+ * A user's catalog is loaded with one query and dropped whenever it is
+ * written. Inside a transaction it is dropped again once the transaction
+ * ends, so a reader that loaded it in the meantime cannot keep rows that were
+ * rolled back or not yet committed. The entities are detached and shared
+ * between requests; callers must not modify them. A prefix trie over each
+ * catalog's typeahead keys is built on first use and dropped with it.
+ */
+public class CatalogCache<T> {
+
+	private final Cache<Long, Catalog<T>> cache;
+	private final Function<T, Long> idOf;
+	private final Function<T, List<String>> keysOf;
+
+	public CatalogCache(long maxUsers, Duration ttl, Function<T, Long> idOf, Function<T, List<String>> keysOf) {
+		this.cache = Caffeine.newBuilder().maximumSize(maxUsers).expireAfterWrite(ttl).recordStats().build();
+		this.idOf = idOf;
+		this.keysOf = keysOf;
+	}
+
+	// The user's catalog, loaded on a miss
+	public Catalog<T> get(Long userId, Supplier<List<T>> loader) {
+		return cache.get(userId, id -> new Catalog<>(loader.get(), idOf, keysOf));
+	}
+
+	public void invalidate(Long userId) {
+		cache.invalidate(userId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					cache.invalidate(userId);
+				}
+			});
+		}
+	}
+
+	public CacheStats getStats() {
+		com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.stats();
+		return new CacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+	}
+
+	// One user's entities in name order, with a lookup by id and by key prefix
+	public static class Catalog<T> {
+		private final List<T> items;
+		private final Map<Long, T> byId;
+		private final Function<T, List<String>> keysOf;
+		private volatile PrefixTrie<T> trie;
+
+		Catalog(List<T> items, Function<T, Long> idOf, Function<T, List<String>> keysOf) {
+			this.items = List.copyOf(items);
+			this.byId = new HashMap<>(items.size() * 2);
+			for (T item : items) {
+				byId.put(idOf.apply(item), item);
+			}
+			this.keysOf = keysOf;
+		}
+
+		// Distinct entities with a key starting with the prefix, in key order
+		public Set<T> startingWith(String prefix) {
+			PrefixTrie<T> built = trie;
+			if (built == null) {
+				// Two threads may both build it; either result is the same
+				PrefixTrie.Builder<T> builder = PrefixTrie.builder();
+				for (T item : items) {
+					for (String key : keysOf.apply(item)) {
+						builder.add(key, item);
+					}
+				}
+				trie = built = builder.build();
+			}
+			return built.startingWith(prefix);
+		}
+
+		public List<T> getItems() {
+			return items;
+		}
+
+		// Null when the id is not in this catalog
+		public T get(Long id) {
+			return byId.get(id);
+		}
+	}
+
+	// Helper class for cache statistics
+	public static class CacheStats {
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final long entries;
+
+		public CacheStats(long hits, long misses, long evictions, long entries) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.entries = entries;
+		}
+
+		// Getters
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getEvictions() {
+			return evictions;
+		}
+
+		public long getEntries() {
+			return entries;
+		}
+
+		public double getHitRatio() {
+			long requests = hits + misses;
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+	}
+}
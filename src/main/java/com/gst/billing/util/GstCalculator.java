@@ -0,0 +1,125 @@
+package com.gst.billing.util;
+
+import java.math.BigDecimal;
+
+/**
+ * GST arithmetic on whole paise held in longs.
+ *
+ * Rounding is HALF_UP to the paisa, exactly as
+ * {@code amount.multiply(rate).divide(100, 2, HALF_UP)} rounds, so results
+ * match the BigDecimal formulas digit for digit. Inputs that are not plain
+ * two-decimal amounts, and results that would overflow a long, are reported
+ * so callers can fall back to BigDecimal.
+ */
+public final class GstCalculator {
+
+	// Returned by the conversions when a value has no exact fixed-point form
+	public static final long NOT_FIXED = Long.MIN_VALUE;
+
+	private static final long PAISE_PER_RUPEE = 100;
+
+	// taxable paise x rate basis points / 10,000 = GST paise
+	private static final long BASIS_POINTS_DIVISOR = 10_000;
+
+	private GstCalculator() {
+	}
+
+	// Amount with exactly two decimals (as stored) in paise, else NOT_FIXED
+	public static long toPaise(BigDecimal amount) {
+		if (amount == null || amount.scale() != 2 || amount.precision() > 15) {
+			return NOT_FIXED;
+		}
+		return scaledByHundred(amount);
+	}
+
+	// GST rate in hundredths of a percent (18.00% -> 1800), else NOT_FIXED
+	public static long toBasisPoints(BigDecimal rate) {
+		if (rate == null || rate.scale() < 0 || rate.scale() > 2 || rate.precision() > 12) {
+			return NOT_FIXED;
+		}
+		return scaledByHundred(rate);
+	}
+
+	// value x 100 without allocating. Below 10^15 the double holds value x 100
+	// to within a quarter, so rounding recovers the exact integer.
+	private static long scaledByHundred(BigDecimal value) {
+		return Math.round(value.doubleValue() * PAISE_PER_RUPEE);
+	}
+
+	public static BigDecimal toRupees(long paise) {
+		return BigDecimal.valueOf(paise, 2);
+	}
+
+	// Throws ArithmeticException on overflow
+	public static long lineSubtotal(long unitPricePaise, int quantity) {
+		return Math.multiplyExact(unitPricePaise, quantity);
+	}
+
+	// GST on a taxable amount, rounded HALF_UP to the paisa; throws ArithmeticException on overflow
+	public static long gstOn(long taxablePaise, long rateBasisPoints) {
+		return divideHalfUp(Math.multiplyExact(taxablePaise, rateBasisPoints), BASIS_POINTS_DIVISOR);
+	}
+
+	// CGST or SGST share of a GST amount, rounded HALF_UP
+	public static long halfOf(long gstPaise) {
+		return divideHalfUp(gstPaise, 2);
+	}
+
+	// Ties round away from zero, as RoundingMode.HALF_UP does
+	static long divideHalfUp(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long remainder = Math.abs(dividend % divisor);
+		if (remainder * 2 >= divisor) {
+			quotient += dividend < 0 ? -1 : 1;
+		}
+		return quotient;
+	}
+
+	/**
+	 * Running total in paise. Switches to BigDecimal if an added amount has no
+	 * fixed-point form or the sum overflows, and reproduces the scale a chain
+	 * of {@code BigDecimal.ZERO.add(...)} calls would give.
+	 */
+	public static class PaiseSum {
+		private long paise;
+		private boolean empty = true;
+		private BigDecimal exact;
+
+		public void add(long amountPaise) {
+			if (exact == null) {
+				try {
+					paise = Math.addExact(paise, amountPaise);
+					empty = false;
+					return;
+				} catch (ArithmeticException e) {
+					exact = toRupees(paise);
+				}
+			}
+			exact = exact.add(toRupees(amountPaise));
+		}
+
+		public void add(BigDecimal amount) {
+			long amountPaise = toPaise(amount);
+			if (amountPaise != NOT_FIXED) {
+				add(amountPaise);
+				return;
+			}
+			if (exact == null) {
+				exact = empty ? BigDecimal.ZERO : toRupees(paise);
+			}
+			exact = exact.add(amount);
+		}
+
+		// NOT_FIXED once the sum has left the fixed-point path
+		public long getPaise() {
+			return exact == null ? paise : NOT_FIXED;
+		}
+
+		public BigDecimal toBigDecimal() {
+			if (exact != null) {
+				return exact;
+			}
+			return empty ? BigDecimal.ZERO : toRupees(paise);
+		}
+	}
+}
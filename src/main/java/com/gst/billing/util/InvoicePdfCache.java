@@ -0,0 +1,288 @@
+package com.gst.billing.util;
+
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceItem;
+import com.gst.billing.model.InvoiceTaxLine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rendered invoice PDFs on local disk, keyed by invoice id and a digest of
+ * everything the PDF shows. A changed invoice or customer therefore never
+ * serves a stale file; updates and deletes also evict the old files right
+ * away. The least recently used files are removed once the cache grows past
+ * its size limit.
+ *
+ * Where the connector supports it (Tomcat's NIO connector without TLS), the
+ * file is handed to Tomcat, which sends it with sendfile after the request
+ * returns, so the bytes never pass through the JVM. Elsewhere it is copied to
+ * the servlet output stream: the servlet API exposes no channel a
+ * FileChannel.transferTo could hand its bytes to directly.
+ */
+@Component
+public class InvoicePdfCache {
+
+	// Bump when the PdfGenerator layout changes so old renders are not served
+	private static final String RENDER_VERSION = "2";
+
+	// Request attributes of Tomcat's sendfile support
+	static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+	static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	private final PdfGenerator pdfGenerator;
+	private final Path directory;
+	private final long maxBytes;
+
+	// Cached files in access order, oldest first
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalBytes;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public InvoicePdfCache(PdfGenerator pdfGenerator,
+			@Value("${billing.pdf-cache.directory:${java.io.tmpdir}/gst-billing/pdf-cache}") String directory,
+			@Value("${billing.pdf-cache.max-size-mb:256}") long maxSizeMb) throws IOException {
+		this.pdfGenerator = pdfGenerator;
+		this.directory = Paths.get(directory);
+		this.maxBytes = maxSizeMb * 1024 * 1024;
+		Files.createDirectories(this.directory);
+		loadExistingFiles();
+	}
+
+	// Send the invoice PDF as the response, rendering it first on a cache miss. With sendfile the file is read
+	// after this returns; an update or delete that evicts it in that moment fails the download, not the invoice
+	public void writeTo(Invoice invoice, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		Path file = directory.resolve(fileName(invoice));
+		try (FileChannel pdf = open(invoice)) {
+			long size = pdf.size();
+			response.setContentLengthLong(size);
+			if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+				request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+				request.setAttribute(SENDFILE_START, 0L);
+				request.setAttribute(SENDFILE_END, size);
+				return;
+			}
+			try (InputStream in = Channels.newInputStream(pdf)) {
+				in.transferTo(response.getOutputStream());
+			}
+		}
+	}
+
+	// Open the cached PDF for reading; an evicted file stays readable while open
+	public FileChannel open(Invoice invoice) throws IOException {
+		String fileName = fileName(invoice);
+		Path file = directory.resolve(fileName);
+
+		synchronized (this) {
+			if (entries.get(fileName) != null) {
+				try {
+					FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+					hits.incrementAndGet();
+					return channel;
+				} catch (IOException e) {
+					// Removed behind our back; render it again
+					forget(fileName);
+				}
+			}
+		}
+
+		misses.incrementAndGet();
+		Path temp = Files.createTempFile(directory, "render-", ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				pdfGenerator.generateInvoice(invoice, out);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		synchronized (this) {
+			remember(fileName, channel.size());
+			evictOverflow();
+		}
+		return channel;
+	}
+
+	// Remove every cached version of an invoice
+	public synchronized void evict(Long invoiceId) {
+		String prefix = invoiceId + "-";
+		Iterator<Map.Entry<String, Long>> files = entries.entrySet().iterator();
+		while (files.hasNext()) {
+			Map.Entry<String, Long> entry = files.next();
+			if (entry.getKey().startsWith(prefix)) {
+				totalBytes -= entry.getValue();
+				files.remove();
+				delete(entry.getKey());
+			}
+		}
+	}
+
+	public synchronized CacheStats getStats() {
+		return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), totalBytes, maxBytes);
+	}
+
+	private void remember(String fileName, long size) {
+		Long previous = entries.put(fileName, size);
+		totalBytes += size - (previous != null ? previous : 0);
+	}
+
+	private void forget(String fileName) {
+		Long size = entries.remove(fileName);
+		if (size != null) {
+			totalBytes -= size;
+		}
+	}
+
+	private void evictOverflow() {
+		Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+		while (totalBytes > maxBytes && eldest.hasNext()) {
+			Map.Entry<String, Long> entry = eldest.next();
+			totalBytes -= entry.getValue();
+			eldest.remove();
+			delete(entry.getKey());
+			evictions.incrementAndGet();
+		}
+	}
+
+	private void delete(String fileName) {
+		try {
+			Files.deleteIfExists(directory.resolve(fileName));
+		} catch (IOException e) {
+			// Left for the next startup scan
+		}
+	}
+
+	// Pick up files rendered before a restart, least recently modified first
+	private void loadExistingFiles() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path file : stream) {
+				if (file.getFileName().toString().endsWith(".pdf")) {
+					files.add(file);
+				} else {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+		files.sort(Comparator.comparing(file -> file.toFile().lastModified()));
+		for (Path file : files) {
+			remember(file.getFileName().toString(), Files.size(file));
+		}
+		evictOverflow();
+	}
+
+	private String fileName(Invoice invoice) {
+		return invoice.getId() + "-" + contentVersion(invoice) + ".pdf";
+	}
+
+	// Digest of the fields rendered by PdfGenerator
+	static String contentVersion(Invoice invoice) {
+		StringBuilder content = new StringBuilder(256).append(RENDER_VERSION).append('|')
+				.append(invoice.getInvoiceNumber()).append('|').append(invoice.getInvoiceDate()).append('|')
+				.append(invoice.getCustomer().getName()).append('|').append(invoice.getCustomer().getGstin()).append('|')
+				.append(invoice.getSellerGstin()).append('|').append(invoice.isInterState());
+		for (InvoiceItem item : invoice.getItems()) {
+			content.append('|').append(item.getProduct().getHsnCode()).append(';').append(item.getProduct().getName())
+					.append(';').append(item.getQuantity()).append(';').append(item.getUnitPrice()).append(';')
+					.append(item.getGstRate()).append(';').append(item.getTotalAmount());
+		}
+		for (InvoiceTaxLine taxLine : invoice.getTaxLines()) {
+			content.append('|').append(taxLine.getGstRate()).append(';').append(taxLine.getTaxableAmount()).append(';')
+					.append(taxLine.getCgstAmount()).append(';').append(taxLine.getSgstAmount()).append(';')
+					.append(taxLine.getIgstAmount());
+		}
+		content.append('|').append(invoice.getSubtotal()).append('|').append(invoice.getTotalGst()).append('|')
+				.append(invoice.getTotalAmount());
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest, 0, 12);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Helper class for cache statistics
+	public static class CacheStats {
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final int entries;
+		private final long sizeBytes;
+		private final long maxBytes;
+
+		public CacheStats(long hits, long misses, long evictions, int entries, long sizeBytes, long maxBytes) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.entries = entries;
+			this.sizeBytes = sizeBytes;
+			this.maxBytes = maxBytes;
+		}
+
+		// Getters
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getEvictions() {
+			return evictions;
+		}
+
+		public int getEntries() {
+			return entries;
+		}
+
+		public long getSizeBytes() {
+			return sizeBytes;
+		}
+
+		public long getMaxBytes() {
+			return maxBytes;
+		}
+
+		public double getHitRatio() {
+			long requests = hits + misses;
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+	}
+}
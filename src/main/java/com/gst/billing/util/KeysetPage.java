@@ -0,0 +1,121 @@
+package com.gst.billing.util;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * One page of a list paged by key instead of by offset.
+ *
+ * The cursors are opaque URL-safe strings holding the sort key and id of the
+ * first or last row shown, so the next query starts with an index seek and
+ * page 500 costs the same as page 1.
+ */
+public class KeysetPage<T> {
+
+	public static final int DEFAULT_SIZE = 20;
+
+	private static final int MAX_SIZE = 100;
+
+	private final List<T> items;
+	private final String nextCursor;
+	private final String previousCursor;
+
+	public KeysetPage(List<T> items, String nextCursor, String previousCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+		this.previousCursor = previousCursor;
+	}
+
+	/**
+	 * Run a keyset query for the page a cursor points to.
+	 *
+	 * @param cursor      cursor from a previous page, or null for the first page
+	 * @param keyProperty entity property the list is sorted by, before id
+	 * @param keyParser   turns the cursor text back into a value of that property
+	 * @param query       runs the scroll query for a position
+	 */
+	public static <T> KeysetPage<T> fetch(String cursor, String keyProperty, Function<String, ?> keyParser,
+			Function<ScrollPosition, Window<T>> query) {
+		KeysetScrollPosition position = decode(cursor, keyProperty, keyParser);
+		Window<T> window = query.apply(position);
+		List<T> items = window.getContent();
+		if (items.isEmpty()) {
+			return new KeysetPage<>(items, null, null);
+		}
+
+		boolean backward = position.scrollsBackward();
+		boolean hasNext = backward || window.hasNext();
+		boolean hasPrevious = backward ? window.hasNext() : cursor != null && !position.isInitial();
+
+		String next = hasNext ? encode(true, window.positionAt(items.size() - 1), keyProperty) : null;
+		String previous = hasPrevious ? encode(false, window.positionAt(0), keyProperty) : null;
+		return new KeysetPage<>(items, next, previous);
+	}
+
+	// Page size requested by the client, kept within sensible bounds
+	public static Limit limit(int size) {
+		return Limit.of(Math.max(1, Math.min(size, MAX_SIZE)));
+	}
+
+	private static String encode(boolean forward, ScrollPosition position, String keyProperty) {
+		Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+		String raw = (forward ? "f" : "b") + "|" + keys.get(keyProperty) + "|" + keys.get("id");
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Unreadable cursors start again at the first page
+	private static KeysetScrollPosition decode(String cursor, String keyProperty, Function<String, ?> keyParser) {
+		if (cursor == null || cursor.isBlank()) {
+			return ScrollPosition.keyset();
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int first = raw.indexOf('|');
+			int last = raw.lastIndexOf('|');
+			if (first != 1 || last <= first) {
+				return ScrollPosition.keyset();
+			}
+
+			Map<String, Object> keys = new LinkedHashMap<>();
+			keys.put(keyProperty, keyParser.apply(raw.substring(first + 1, last)));
+			keys.put("id", Long.valueOf(raw.substring(last + 1)));
+			return raw.charAt(0) == 'b' ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+		} catch (RuntimeException e) {
+			return ScrollPosition.keyset();
+		}
+	}
+
+	// Getters
+	public List<T> getItems() {
+		return items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public String getPreviousCursor() {
+		return previousCursor;
+	}
+
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	public boolean hasPrevious() {
+		return previousCursor != null;
+	}
+}
@@ -5,15 +5,39 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
+import io.micrometer.core.instrument.Timer;
+
 import org.springframework.stereotype.Component;
 
 import java.awt.Color;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 
 @Component
 public class PdfGenerator {
 
+	private final BillingMetrics metrics;
+
+	public PdfGenerator(BillingMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	// Render the invoice, timing it and recording the size of the PDF
 	public void generateInvoice(Invoice invoice, OutputStream outputStream) {
+		CountingOutputStream counted = new CountingOutputStream(outputStream);
+		Timer.Sample sample = metrics.start();
+		boolean success = false;
+		try {
+			render(invoice, counted);
+			success = true;
+		} finally {
+			metrics.stop(sample, BillingMetrics.PDF_RENDER, success);
+		}
+		metrics.record(BillingMetrics.PDF_BYTES, "bytes", counted.count);
+	}
+
+	private void render(Invoice invoice, OutputStream outputStream) {
 		Document document = new Document();
 		try {
 			PdfWriter.getInstance(document, outputStream);
@@ -35,6 +59,9 @@ public class PdfGenerator {
 			headerTable.addCell(createCell("Date: " + invoice.getInvoiceDate().toString(), false));
 			headerTable.addCell(createCell("Customer: " + invoice.getCustomer().getName(), false));
 			headerTable.addCell(createCell("GSTIN: " + invoice.getCustomer().getGstin(), false));
+			headerTable.addCell(createCell("Seller GSTIN: "
+					+ (invoice.getSellerGstin() != null ? invoice.getSellerGstin() : "Not registered"), false));
+			headerTable.addCell(createCell("Supply: " + (invoice.isInterState() ? "Inter-state" : "Intra-state"), false));
 
 			document.add(headerTable);
 			document.add(Chunk.NEWLINE);
@@ -65,6 +92,37 @@ public class PdfGenerator {
 			document.add(itemsTable);
 			document.add(Chunk.NEWLINE);
 
+			// Tax lines stored with the invoice
+			if (!invoice.getTaxLines().isEmpty()) {
+				PdfPTable taxTable = new PdfPTable(invoice.isInterState() ? 4 : 5);
+				taxTable.setWidthPercentage(100);
+
+				taxTable.addCell(createCell("GST %", true));
+				taxTable.addCell(createCell("Taxable", true));
+				if (invoice.isInterState()) {
+					taxTable.addCell(createCell("IGST", true));
+				} else {
+					taxTable.addCell(createCell("CGST", true));
+					taxTable.addCell(createCell("SGST", true));
+				}
+				taxTable.addCell(createCell("Total GST", true));
+
+				for (var taxLine : invoice.getTaxLines()) {
+					taxTable.addCell(createCell(taxLine.getGstRate().toString(), false));
+					taxTable.addCell(createCell(taxLine.getTaxableAmount().toString(), false));
+					if (invoice.isInterState()) {
+						taxTable.addCell(createCell(taxLine.getIgstAmount().toString(), false));
+					} else {
+						taxTable.addCell(createCell(taxLine.getCgstAmount().toString(), false));
+						taxTable.addCell(createCell(taxLine.getSgstAmount().toString(), false));
+					}
+					taxTable.addCell(createCell(taxLine.getGstAmount().toString(), false));
+				}
+
+				document.add(taxTable);
+				document.add(Chunk.NEWLINE);
+			}
+
 			// Summary
 			PdfPTable summaryTable = new PdfPTable(2);
 			summaryTable.setWidthPercentage(50);
@@ -94,4 +152,25 @@ public class PdfGenerator {
 		}
 		return cell;
 	}
-}
\ No newline at end of file
+
+	// Passes bytes through while counting them
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
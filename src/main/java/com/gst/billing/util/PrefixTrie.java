@@ -0,0 +1,166 @@
+package com.gst.billing.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable prefix trie from lower-cased keys to values, for typeahead.
+ *
+ * Edges hold whole runs of characters, so a catalog of 20k names needs about
+ * one node per key rather than one per character. Keys are sorted once at
+ * build time and every node knows the range of keys below it, so collecting
+ * the matches of a prefix is a walk down the edges followed by a slice of
+ * that range.
+ */
+public class PrefixTrie<T> {
+
+	private final String[] keys;
+	private final List<T> values;
+	private final Node root;
+
+	private PrefixTrie(String[] keys, List<T> values) {
+		this.keys = keys;
+		this.values = values;
+		this.root = build(0, keys.length, 0);
+	}
+
+	// Build a trie over every (key, value) pair; a value may be added under several keys
+	public static <T> Builder<T> builder() {
+		return new Builder<>();
+	}
+
+	// Distinct values with a key starting with the prefix, in key order
+	public Set<T> startingWith(String prefix) {
+		Set<T> matches = new LinkedHashSet<>();
+		String remaining = normalize(prefix);
+		if (remaining.isEmpty()) {
+			return matches;
+		}
+
+		Node node = root;
+		while (true) {
+			Node child = node.child(remaining.charAt(0));
+			if (child == null) {
+				return matches;
+			}
+			if (child.label.startsWith(remaining)) {
+				node = child;
+				break;
+			}
+			if (!remaining.startsWith(child.label)) {
+				return matches;
+			}
+			remaining = remaining.substring(child.label.length());
+			node = child;
+		}
+
+		for (int i = node.from; i < node.to; i++) {
+			matches.add(values.get(i));
+		}
+		return matches;
+	}
+
+	public int size() {
+		return keys.length;
+	}
+
+	static String normalize(String key) {
+		return key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+	}
+
+	// Node for keys[from, to), all of which share their first `depth` characters
+	private Node build(int from, int to, int depth) {
+		Node node = new Node(from, to);
+		int start = from;
+		// Keys that end here sort first
+		while (start < to && keys[start].length() == depth) {
+			start++;
+		}
+
+		List<Node> children = new ArrayList<>();
+		while (start < to) {
+			char first = keys[start].charAt(depth);
+			int end = start + 1;
+			while (end < to && keys[end].charAt(depth) == first) {
+				end++;
+			}
+			// Keys are sorted, so the first and last of a group share what the whole group shares
+			int common = commonPrefixLength(keys[start], keys[end - 1]);
+			Node child = build(start, end, common);
+			child.label = keys[start].substring(depth, common);
+			children.add(child);
+			start = end;
+		}
+
+		node.children = children.toArray(new Node[0]);
+		node.firsts = new char[node.children.length];
+		for (int i = 0; i < node.children.length; i++) {
+			node.firsts[i] = node.children[i].label.charAt(0);
+		}
+		return node;
+	}
+
+	private static int commonPrefixLength(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < max && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private static class Node {
+		private final int from;
+		private final int to;
+		private String label = "";
+		private char[] firsts;
+		private Node[] children;
+
+		Node(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		Node child(char first) {
+			int index = Arrays.binarySearch(firsts, first);
+			return index >= 0 ? children[index] : null;
+		}
+	}
+
+	// Collects pairs, then sorts them by key once
+	public static class Builder<T> {
+		private final List<String> keys = new ArrayList<>();
+		private final List<T> values = new ArrayList<>();
+
+		// Blank keys are ignored
+		public Builder<T> add(String key, T value) {
+			String normalized = normalize(key);
+			if (!normalized.isEmpty()) {
+				keys.add(normalized);
+				values.add(value);
+			}
+			return this;
+		}
+
+		public PrefixTrie<T> build() {
+			Integer[] order = new Integer[keys.size()];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.comparing(keys::get));
+
+			String[] sortedKeys = new String[order.length];
+			List<T> sortedValues = new ArrayList<>(order.length);
+			for (int i = 0; i < order.length; i++) {
+				sortedKeys[i] = keys.get(order[i]);
+				sortedValues.add(values.get(order[i]));
+			}
+			return new PrefixTrie<>(sortedKeys, sortedValues);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.gst.billing.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * When each of a user's products or customers was last put on an invoice, for
+ * ranking typeahead matches. The id of that invoice stands in for the time, as
+ * ids grow as invoices are created. A user's figures are loaded with one
+ * grouped query on first use and then moved forward as invoices are created.
+ */
+public class RecentUsage {
+
+	private final Cache<Long, Map<Long, Long>> cache;
+
+	public RecentUsage(long maxUsers, Duration ttl) {
+		this.cache = Caffeine.newBuilder().maximumSize(maxUsers).expireAfterWrite(ttl).build();
+	}
+
+	/**
+	 * The items most recently invoiced first, never invoiced ones after them,
+	 * otherwise keeping the given order; at most limit of them.
+	 *
+	 * @param loader rows of (item id, last invoice id) for the user, run on a miss
+	 */
+	public <T> List<T> mostRecentFirst(Long userId, Collection<T> items, Function<T, Long> idOf, int limit,
+			Supplier<List<Object[]>> loader) {
+		Map<Long, Long> lastUsed = cache.get(userId, id -> load(loader.get()));
+		List<T> ranked = new ArrayList<>(items);
+		// Stable sort, so ties keep the catalog order
+		ranked.sort(Comparator.comparingLong((T item) -> lastUsed.getOrDefault(idOf.apply(item), 0L)).reversed());
+		return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+	}
+
+	// Note that these items were just put on an invoice; nothing to do until the user's figures are loaded
+	public void record(Long userId, Collection<Long> itemIds, Long invoiceId) {
+		Map<Long, Long> lastUsed = cache.getIfPresent(userId);
+		if (lastUsed != null) {
+			for (Long itemId : itemIds) {
+				lastUsed.merge(itemId, invoiceId, Math::max);
+			}
+		}
+	}
+
+	private static Map<Long, Long> load(List<Object[]> rows) {
+		Map<Long, Long> lastUsed = new ConcurrentHashMap<>(rows.size() * 2);
+		for (Object[] row : rows) {
+			lastUsed.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+		}
+		return lastUsed;
+	}
+}
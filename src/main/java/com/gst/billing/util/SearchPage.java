@@ -0,0 +1,77 @@
+package com.gst.billing.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of ranked search results, best match first.
+ *
+ * Search hits have no stable sort key to page by, so unlike KeysetPage these
+ * pages are numbered from 0 and carry the total number of hits.
+ */
+public class SearchPage<T> {
+
+	private final List<T> items;
+	private final int page;
+	private final int size;
+	private final long total;
+
+	public SearchPage(List<T> items, int page, int size, long total) {
+		this.items = items;
+		this.page = page;
+		this.size = size;
+		this.total = total;
+	}
+
+	// The requested page of an already complete, already ordered list; size and page are clamped as the index
+	// search clamps them
+	public static <T> SearchPage<T> of(List<T> all, int page, int size) {
+		int pageSize = KeysetPage.limit(size).max();
+		int pageNumber = Math.max(0, page);
+		int from = (int) Math.min((long) pageNumber * pageSize, all.size());
+		int to = Math.min(from + pageSize, all.size());
+		return new SearchPage<>(all.subList(from, to), pageNumber, pageSize, all.size());
+	}
+
+	// The same page with each item replaced by its value in the map, keeping the order; unmapped items are dropped
+	public <R> SearchPage<R> map(Map<T, R> values) {
+		List<R> mapped = new ArrayList<>(items.size());
+		for (T item : items) {
+			R value = values.get(item);
+			if (value != null) {
+				mapped.add(value);
+			}
+		}
+		return new SearchPage<>(mapped, page, size, total);
+	}
+
+	// Getters
+	public List<T> getItems() {
+		return items;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+
+	public boolean hasNext() {
+		return (long) (page + 1) * size < total;
+	}
+
+	public boolean hasPrevious() {
+		return page > 0;
+	}
+}
@@ -0,0 +1,132 @@
+-- Schema as Hibernate generated it before migrations were introduced. Databases
+-- created by ddl-auto from the original five entities are baselined at version 0
+-- and run this too: their tables are kept, the tables added since are created,
+-- and V1_0_1 adds the columns they lack. None of them had these indexes.
+-- Id sequences differ per database and live in the vendor folders.
+
+create table if not exists users (
+    id bigint not null auto_increment,
+    username varchar(255) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    gstin varchar(15),
+    role enum ('ADMIN','USER') not null,
+    enabled bit not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table if not exists customers (
+    id bigint not null auto_increment,
+    name varchar(100) not null,
+    address TEXT,
+    phone varchar(15),
+    email varchar(100),
+    gstin varchar(15),
+    created_by bigint,
+    created_at datetime(6),
+    primary key (id),
+    constraint uk_customers_email unique (email),
+    constraint fk_customers_created_by foreign key (created_by) references users (id)
+) engine=InnoDB;
+
+create index idx_customers_owner_name on customers (created_by, name, id);
+create index idx_customers_name on customers (name, id);
+
+create table if not exists products (
+    id bigint not null auto_increment,
+    name varchar(100) not null,
+    description TEXT,
+    price decimal(10,2) not null,
+    hsn_code varchar(10),
+    gst_rate decimal(5,2) not null,
+    created_by bigint,
+    created_at datetime(6),
+    primary key (id),
+    constraint fk_products_created_by foreign key (created_by) references users (id)
+) engine=InnoDB;
+
+create index idx_products_owner_name on products (created_by, name, id);
+create index idx_products_name on products (name, id);
+
+create table if not exists invoices (
+    id bigint not null,
+    invoice_number varchar(50) not null,
+    invoice_date date not null,
+    customer_id bigint not null,
+    user_id bigint not null,
+    subtotal decimal(10,2) not null,
+    total_gst decimal(10,2) not null,
+    total_amount decimal(10,2) not null,
+    seller_gstin varchar(15),
+    inter_state bit not null,
+    created_at datetime(6),
+    primary key (id),
+    constraint uk_invoices_number unique (invoice_number),
+    constraint fk_invoices_customer foreign key (customer_id) references customers (id),
+    constraint fk_invoices_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create index idx_invoices_user_date on invoices (user_id, invoice_date, id);
+create index idx_invoices_date on invoices (invoice_date, id);
+
+create table if not exists invoice_items (
+    id bigint not null,
+    invoice_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    unit_price decimal(10,2) not null,
+    gst_rate decimal(5,2) not null,
+    gst_amount decimal(10,2) not null,
+    total_amount decimal(10,2) not null,
+    primary key (id),
+    constraint fk_invoice_items_invoice foreign key (invoice_id) references invoices (id),
+    constraint fk_invoice_items_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table if not exists invoice_tax_lines (
+    id bigint not null,
+    invoice_id bigint not null,
+    gst_rate decimal(5,2) not null,
+    taxable_amount decimal(10,2) not null,
+    cgst_amount decimal(10,2) not null,
+    sgst_amount decimal(10,2) not null,
+    igst_amount decimal(10,2) not null,
+    primary key (id),
+    constraint fk_invoice_tax_lines_invoice foreign key (invoice_id) references invoices (id)
+) engine=InnoDB;
+
+create table if not exists invoice_number_counters (
+    id bigint not null auto_increment,
+    series_key varchar(30) not null,
+    financial_year varchar(7) not null,
+    next_value bigint not null,
+    primary key (id),
+    constraint uk_invoice_number_counters unique (series_key, financial_year)
+) engine=InnoDB;
+
+create table if not exists daily_revenue_rollup (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    revenue_date date not null,
+    invoice_count bigint not null,
+    total_amount decimal(14,2) not null,
+    total_gst decimal(14,2) not null,
+    primary key (id),
+    constraint uk_daily_revenue_rollup unique (user_id, revenue_date)
+) engine=InnoDB;
+
+create table if not exists monthly_revenue_rollup (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    revenue_year integer not null,
+    revenue_month integer not null,
+    invoice_count bigint not null,
+    total_amount decimal(14,2) not null,
+    total_gst decimal(14,2) not null,
+    primary key (id),
+    constraint uk_monthly_revenue_rollup unique (user_id, revenue_year, revenue_month)
+) engine=InnoDB;
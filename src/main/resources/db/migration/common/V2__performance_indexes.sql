@@ -0,0 +1,15 @@
+-- Indexes for lookups that otherwise read whole tables; QueryPlanTest fails if a
+-- repository query stops using one
+
+-- existsByGstin checks GSTINs across all owners
+create index idx_customers_gstin on customers (gstin);
+
+-- HSN lookups stay within one owner's catalog
+create index idx_products_owner_hsn on products (created_by, hsn_code);
+
+-- A customer's invoices newest first; also backs the customer foreign key
+create index idx_invoices_customer_date on invoices (customer_id, invoice_date, id);
+
+-- Last invoice per product for typeahead ranking, answered from the index alone;
+-- also backs the product foreign key
+create index idx_invoice_items_product on invoice_items (product_id, invoice_id);
@@ -0,0 +1,12 @@
+-- Invoice number blocks each node holds, so the gap report can tell numbers
+-- another node has yet to hand out from numbers that were lost
+create table invoice_number_blocks (
+    id bigint not null auto_increment,
+    series_key varchar(30) not null,
+    financial_year varchar(7) not null,
+    start_value bigint not null,
+    end_value bigint not null,
+    reserved_at datetime(6) not null,
+    primary key (id),
+    constraint uk_invoice_number_blocks unique (series_key, financial_year, start_value)
+) engine=InnoDB;
@@ -0,0 +1,5 @@
+-- Columns added to the original entities after databases were created by
+-- ddl-auto; V1 already has them on new databases
+alter table users add column if not exists gstin varchar(15);
+alter table invoices add column if not exists seller_gstin varchar(15);
+alter table invoices add column if not exists inter_state bit default 0 not null;
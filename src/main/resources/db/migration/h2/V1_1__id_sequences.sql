@@ -0,0 +1,4 @@
+-- Increments match allocationSize on the @SequenceGenerator mappings
+create sequence invoices_seq start with 1 increment by 50;
+create sequence invoice_items_seq start with 1 increment by 50;
+create sequence invoice_tax_lines_seq start with 1 increment by 50;
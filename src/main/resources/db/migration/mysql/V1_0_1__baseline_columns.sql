@@ -0,0 +1,23 @@
+-- Columns added to the original entities after databases were created by
+-- ddl-auto; V1 already has them on new databases. MySQL has no
+-- "add column if not exists", so each one is added only when missing
+set @ddl = (select if(count(*) = 0, 'alter table users add column gstin varchar(15)', 'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'users' and column_name = 'gstin');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = (select if(count(*) = 0, 'alter table invoices add column seller_gstin varchar(15)', 'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'invoices' and column_name = 'seller_gstin');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = (select if(count(*) = 0, 'alter table invoices add column inter_state bit not null default 0', 'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'invoices' and column_name = 'inter_state');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
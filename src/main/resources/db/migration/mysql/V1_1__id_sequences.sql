@@ -0,0 +1,10 @@
+-- MySQL has no sequences, so Hibernate emulates the pooled generators with
+-- single-row tables
+create table invoices_seq (next_val bigint) engine=InnoDB;
+insert into invoices_seq values (1);
+
+create table invoice_items_seq (next_val bigint) engine=InnoDB;
+insert into invoice_items_seq values (1);
+
+create table invoice_tax_lines_seq (next_val bigint) engine=InnoDB;
+insert into invoice_tax_lines_seq values (1);
@@ -0,0 +1,6 @@
+-- Databases that keyed invoices by AUTO_INCREMENT before the pooled generators
+-- were introduced already hold ids the sequence tables do not know about; move
+-- each one past the highest id plus a full allocation (allocationSize 50)
+update invoices_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from invoices));
+update invoice_items_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from invoice_items));
+update invoice_tax_lines_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from invoice_tax_lines));
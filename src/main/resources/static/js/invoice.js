@@ -1,73 +1,146 @@
 // static/js/invoice.js
+// Invoice form: products and customers are picked with a typeahead that asks the
+// server for matches, instead of rendering the whole catalog into every row
 document.addEventListener('DOMContentLoaded', function() {
+	const form = document.getElementById('invoice-form');
 	const itemsContainer = document.getElementById('items-container');
 	const addItemBtn = document.getElementById('add-item');
-	const productPrices = {};
-
-	// Initialize product prices from options
-	document.querySelectorAll('.product-select option').forEach(option => {
-		if (option.value) {
-			const match = option.text.match(/₹(\d+\.?\d*)/);
-			if (match) {
-				productPrices[option.value] = parseFloat(match[1]);
+	const productOptions = document.getElementById('product-options');
+	const customerOptions = document.getElementById('customer-options');
+	const customerSearch = document.getElementById('customer-search');
+	const customerId = document.getElementById('customerId');
+
+	// Everything the typeahead has offered so far, by the label shown for it. Labels end with the id, so two
+	// customers or products that look alike never share one and the later fetch cannot replace the earlier
+	const productsByLabel = {};
+	const customersByLabel = {};
+
+	function productLabel(product) {
+		const hsn = product.hsnCode ? ` · HSN ${product.hsnCode}` : '';
+		return `${product.name}${hsn} · ₹${Number(product.price).toFixed(2)} · #${product.id}`;
+	}
+
+	function customerLabel(customer) {
+		const gstin = customer.gstin ? ` (${customer.gstin})` : '';
+		return `${customer.name}${gstin} · #${customer.id}`;
+	}
+
+	// Fill the datalist with the matches for what was typed, waiting for a pause in typing
+	function typeahead(input, url, datalist, byLabel, labelOf) {
+		let timer;
+		return function() {
+			clearTimeout(timer);
+			timer = setTimeout(function() {
+				const query = new URLSearchParams({ prefix: input.value, limit: 10 });
+				fetch(`${url}?${query}`, { headers: { 'Accept': 'application/json' } })
+					.then(response => response.ok ? response.json() : [])
+					.then(matches => {
+						datalist.replaceChildren(...matches.map(match => {
+							const label = labelOf(match);
+							byLabel[label] = match;
+							const option = document.createElement('option');
+							option.value = label;
+							return option;
+						}));
+					})
+					.catch(() => datalist.replaceChildren());
+			}, 150);
+		};
+	}
+
+	// Keep the hidden id in step with the text; anything not picked from the list is invalid
+	function bindPicker(input, hidden, url, datalist, byLabel, labelOf, onPick) {
+		const suggest = typeahead(input, url, datalist, byLabel, labelOf);
+		input.addEventListener('focus', suggest);
+		input.addEventListener('input', function() {
+			const picked = byLabel[input.value];
+			hidden.value = picked ? picked.id : '';
+			input.setCustomValidity(picked ? '' : 'Pick an entry from the list');
+			if (onPick) {
+				onPick(picked);
 			}
+			if (!picked) {
+				suggest();
+			}
+		});
+		if (!hidden.value) {
+			input.setCustomValidity(input.value ? 'Pick an entry from the list' : '');
 		}
-	});
+	}
+
+	bindPicker(customerSearch, customerId, form.dataset.customersUrl, customerOptions, customersByLabel,
+		customerLabel);
 
 	addItemBtn.addEventListener('click', function() {
-		const index = document.querySelectorAll('.item-row').length;
+		const index = itemsContainer.querySelectorAll('.item-row').length;
 		const newRow = document.createElement('div');
-		newRow.className = 'item-row row mb-2';
+		newRow.className = 'item-row row mb-3';
 		newRow.innerHTML = `
             <div class="col-md-4">
-                <select class="form-select product-select" name="items[${index}].productId" required>
-                    <option value="">Select Product</option>
-                    ${document.querySelector('.product-select').innerHTML}
-                </select>
+                <label class="form-label">Product *</label>
+                <input type="hidden" class="product-id" name="items[${index}].productId">
+                <input type="text" class="form-control product-search" list="product-options" autocomplete="off"
+                       placeholder="Type a product name or HSN code" required>
             </div>
             <div class="col-md-2">
-                <input type="number" class="form-control quantity" name="items[${index}].quantity" 
+                <label class="form-label">Quantity *</label>
+                <input type="number" class="form-control quantity" name="items[${index}].quantity"
                        min="1" value="1" required>
             </div>
             <div class="col-md-4">
-                <span class="item-total">₹0.00</span>
+                <label class="form-label">Item Total</label>
+                <div class="form-control-plaintext">
+                    <span class="item-total fw-bold">₹0.00</span>
+                </div>
             </div>
             <div class="col-md-2">
-                <button type="button" class="btn btn-danger btn-sm remove-item">Remove</button>
+                <label class="form-label">&nbsp;</label>
+                <button type="button" class="btn btn-danger btn-sm remove-item w-100">Remove</button>
             </div>
         `;
 		itemsContainer.appendChild(newRow);
 		attachEventListeners(newRow);
+		calculateTotals();
 	});
 
 	function attachEventListeners(row) {
-		const productSelect = row.querySelector('.product-select');
+		const productSearch = row.querySelector('.product-search');
+		const productId = row.querySelector('.product-id');
 		const quantityInput = row.querySelector('.quantity');
 		const removeBtn = row.querySelector('.remove-item');
 
-		productSelect.addEventListener('change', calculateTotals);
+		bindPicker(productSearch, productId, form.dataset.productsUrl, productOptions, productsByLabel,
+			productLabel, function(product) {
+				row.product = product;
+				calculateTotals();
+			});
 		quantityInput.addEventListener('input', calculateTotals);
 		removeBtn.addEventListener('click', function() {
 			row.remove();
+			renumberRows();
 			calculateTotals();
 		});
 	}
 
+	// Keep item indexes contiguous so the server binds every row
+	function renumberRows() {
+		itemsContainer.querySelectorAll('.item-row').forEach((row, index) => {
+			row.querySelector('.product-id').name = `items[${index}].productId`;
+			row.querySelector('.quantity').name = `items[${index}].quantity`;
+		});
+	}
+
 	function calculateTotals() {
 		let subtotal = 0;
 		let totalGst = 0;
 
-		document.querySelectorAll('.item-row').forEach(row => {
-			const productId = row.querySelector('.product-select').value;
+		itemsContainer.querySelectorAll('.item-row').forEach(row => {
 			const quantity = parseInt(row.querySelector('.quantity').value) || 0;
 			const itemTotal = row.querySelector('.item-total');
 
-			if (productId && productPrices[productId]) {
-				const price = productPrices[productId];
-				const itemSubtotal = price * quantity;
-				// For demo, using 18% GST - in real app, get from product data
-				const gstRate = 0.18;
-				const gstAmount = itemSubtotal * gstRate;
+			if (row.product) {
+				const itemSubtotal = Number(row.product.price) * quantity;
+				const gstAmount = itemSubtotal * (Number(row.product.gstRate) / 100);
 				const itemTotalAmount = itemSubtotal + gstAmount;
 
 				itemTotal.textContent = `₹${itemTotalAmount.toFixed(2)}`;
@@ -84,6 +157,6 @@ document.addEventListener('DOMContentLoaded', function() {
 	}
 
 	// Attach listeners to initial row
-	document.querySelectorAll('.item-row').forEach(attachEventListeners);
+	itemsContainer.querySelectorAll('.item-row').forEach(attachEventListeners);
 	calculateTotals();
-});
\ No newline at end of file
+});
@@ -0,0 +1,272 @@
+package com.gst.billing;
+
+import com.gst.billing.model.*;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.InvoiceService;
+import com.gst.billing.service.ProductService;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Platform versus virtual request threads under the same mixed load: every
+ * client creates an invoice, lists invoices, opens the dashboard and downloads
+ * a PDF, over and over. Each mode gets its own application on a random port
+ * with a fresh embedded database and the production pool size, so the only
+ * difference is spring.threads.virtual.enabled.
+ *
+ * Run with ./mvnw test -Pload-profile; the figures go to the console and to
+ * target/load-profile.txt. Tune with -Dload.clients, -Dload.iterations,
+ * -Dload.users and -Dload.pool-size.
+ */
+@Tag("load")
+class LoadProfileTest {
+
+	private static final int USERS = Integer.getInteger("load.users", 20);
+	private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+	private static final int ITERATIONS = Integer.getInteger("load.iterations", 5);
+	private static final int POOL_SIZE = Integer.getInteger("load.pool-size", 30);
+	private static final String PASSWORD = "load-secret";
+
+	private enum Operation {
+		CREATE, LIST, DASHBOARD, PDF
+	}
+
+	@Test
+	void comparesPlatformAndVirtualThreads() throws Exception {
+		Profile platform = run(false);
+		Profile virtual = run(true);
+
+		String report = String.format(
+				"Load profile: %d clients x %d iterations, %d users, pool of %d connections%n%s%n%s%n", CLIENTS,
+				ITERATIONS, USERS, POOL_SIZE, platform, virtual);
+		System.out.println(report);
+		Files.createDirectories(Path.of("target"));
+		Files.writeString(Path.of("target", "load-profile.txt"), report);
+
+		assertThat(platform.errors).isZero();
+		assertThat(virtual.errors).isZero();
+	}
+
+	private Profile run(boolean virtualThreads) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GstBillingSystemApplication.class)
+				.properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads,
+						"spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+						"spring.datasource.hikari.connection-timeout=30000", "logging.level.root=WARN")
+				.run()) {
+			String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			List<Tenant> tenants = seed(context, baseUrl);
+
+			// Warm up the JIT, templates and caches before measuring
+			drive(tenants, USERS, 2);
+
+			long started = System.nanoTime();
+			List<long[]> samples = drive(tenants, CLIENTS, ITERATIONS);
+			long elapsed = System.nanoTime() - started;
+			return new Profile(virtualThreads ? "virtual" : "platform", samples, elapsed);
+		}
+	}
+
+	// Users with a customer, a product and one invoice each, logged in over HTTP
+	private List<Tenant> seed(ConfigurableApplicationContext context, String baseUrl) throws Exception {
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+		CustomerService customerService = context.getBean(CustomerService.class);
+		ProductService productService = context.getBean(ProductService.class);
+		InvoiceService invoiceService = context.getBean(InvoiceService.class);
+
+		String password = passwordEncoder.encode(PASSWORD);
+		List<Tenant> tenants = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			User user = new User();
+			user.setUsername("load-" + i);
+			user.setEmail("load-" + i + "@example.com");
+			user.setPassword(password);
+			user.setRole(Role.USER);
+			user = userRepository.save(user);
+
+			Customer customer = customerService.createCustomer(new Customer("Customer " + i, null, null, null, null),
+					user);
+			Product product = productService.createProduct(
+					new Product("Product " + i, null, new BigDecimal("250.00"), "7318", new BigDecimal("18.00")), user);
+			InvoiceRequest request = new InvoiceRequest();
+			request.setCustomerId(customer.getId());
+			InvoiceItemRequest item = new InvoiceItemRequest();
+			item.setProductId(product.getId());
+			item.setQuantity(2);
+			request.getItems().add(item);
+			Invoice invoice = invoiceService.createInvoice(request, user);
+
+			Tenant tenant = new Tenant(baseUrl, customer.getId(), product.getId(), invoice.getId());
+			tenant.login(user.getUsername());
+			tenants.add(tenant);
+		}
+		return tenants;
+	}
+
+	// Latencies in nanoseconds, one array per operation, over all clients
+	private List<long[]> drive(List<Tenant> tenants, int clients, int iterations) throws Exception {
+		AtomicLong errors = new AtomicLong();
+		List<Future<long[][]>> results = new ArrayList<>();
+		// The clients themselves run on virtual threads so the generator never runs out of threads
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int c = 0; c < clients; c++) {
+				Tenant tenant = tenants.get(c % tenants.size());
+				results.add(executor.submit(() -> {
+					long[][] latencies = new long[Operation.values().length][iterations];
+					for (int i = 0; i < iterations; i++) {
+						for (Operation operation : Operation.values()) {
+							long started = System.nanoTime();
+							if (!tenant.perform(operation)) {
+								errors.incrementAndGet();
+							}
+							latencies[operation.ordinal()][i] = System.nanoTime() - started;
+						}
+					}
+					return latencies;
+				}));
+			}
+		}
+
+		List<long[]> samples = new ArrayList<>();
+		for (Operation operation : Operation.values()) {
+			samples.add(new long[clients * iterations]);
+		}
+		int offset = 0;
+		for (Future<long[][]> result : results) {
+			long[][] latencies = result.get();
+			for (Operation operation : Operation.values()) {
+				System.arraycopy(latencies[operation.ordinal()], 0, samples.get(operation.ordinal()), offset,
+						iterations);
+			}
+			offset += iterations;
+		}
+		samples.add(new long[] { errors.get() });
+		return samples;
+	}
+
+	// One logged-in user; its session is shared by every client acting for it
+	private static class Tenant {
+		private final String baseUrl;
+		private final Long customerId;
+		private final Long productId;
+		private final Long invoiceId;
+		private final HttpClient http;
+
+		Tenant(String baseUrl, Long customerId, Long productId, Long invoiceId) {
+			this.baseUrl = baseUrl;
+			this.customerId = customerId;
+			this.productId = productId;
+			this.invoiceId = invoiceId;
+			this.http = HttpClient.newBuilder().cookieHandler(new CookieManager())
+					.followRedirects(HttpClient.Redirect.NEVER).connectTimeout(Duration.ofSeconds(10)).build();
+		}
+
+		void login(String username) throws IOException, InterruptedException {
+			HttpResponse<Void> response = http.send(form("/login", "username=" + username + "&password=" + PASSWORD),
+					HttpResponse.BodyHandlers.discarding());
+			String location = response.headers().firstValue("Location").orElse("");
+			assertThat(location).as("login of " + username).endsWith("/dashboard");
+		}
+
+		// True when the response is the one the page returns on success
+		boolean perform(Operation operation) {
+			try {
+				return switch (operation) {
+				case CREATE -> {
+					HttpResponse<Void> response = http.send(form("/invoices/create", "customerId=" + customerId
+							+ "&items%5B0%5D.productId=" + productId + "&items%5B0%5D.quantity=1"),
+							HttpResponse.BodyHandlers.discarding());
+					yield response.statusCode() == 302
+							&& response.headers().firstValue("Location").orElse("").contains("/invoices/list");
+				}
+				case LIST -> get("/invoices/list");
+				case DASHBOARD -> get("/dashboard");
+				case PDF -> get("/invoices/download/" + invoiceId);
+				};
+			} catch (IOException e) {
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		private boolean get(String path) throws IOException, InterruptedException {
+			HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+			return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+		}
+
+		private HttpRequest form(String path, String body) {
+			return HttpRequest.newBuilder(URI.create(baseUrl + path))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+		}
+	}
+
+	// Throughput and latency percentiles of one mode
+	private static class Profile {
+		private final String mode;
+		private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+		private final long requests;
+		private final long errors;
+		private final double seconds;
+
+		Profile(String mode, List<long[]> samples, long elapsedNanos) {
+			this.mode = mode;
+			long count = 0;
+			for (Operation operation : Operation.values()) {
+				long[] sorted = samples.get(operation.ordinal()).clone();
+				Arrays.sort(sorted);
+				latencies.put(operation, sorted);
+				count += sorted.length;
+			}
+			this.requests = count;
+			this.errors = samples.get(samples.size() - 1)[0];
+			this.seconds = elapsedNanos / 1e9;
+		}
+
+		private static double millis(long[] sorted, double percentile) {
+			int index = (int) Math.ceil(percentile * sorted.length) - 1;
+			return sorted[Math.max(0, index)] / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder(String.format("%-8s %8.1f req/s  %d requests  %d errors", mode,
+					requests / seconds, requests, errors));
+			for (Operation operation : Operation.values()) {
+				long[] sorted = latencies.get(operation);
+				text.append(String.format("%n  %-9s p50 %8.1f ms  p99 %8.1f ms", operation, millis(sorted, 0.50),
+						millis(sorted, 0.99)));
+			}
+			return text.toString();
+		}
+	}
+}
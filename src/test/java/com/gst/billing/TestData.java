@@ -0,0 +1,55 @@
+package com.gst.billing;
+
+import com.gst.billing.model.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Unsaved entities and requests shared by the tests. Usernames and emails carry
+ * a nanoTime suffix so tests that share an application context never collide.
+ */
+public final class TestData {
+
+	private TestData() {
+	}
+
+	// A user with password "secret" and the USER role, named prefix-<suffix>
+	public static User user(String prefix) {
+		String suffix = String.valueOf(System.nanoTime());
+		User user = new User();
+		user.setUsername(prefix + "-" + suffix);
+		user.setEmail(prefix + "-" + suffix + "@example.com");
+		user.setPassword("secret");
+		user.setRole(Role.USER);
+		return user;
+	}
+
+	public static Customer customer(User owner, String name, String gstin) {
+		Customer customer = new Customer(name, null, null, null, gstin);
+		customer.setCreatedBy(owner);
+		return customer;
+	}
+
+	public static Product product(User owner, String name, String hsnCode, String price, String gstRate) {
+		Product product = new Product(name, null, new BigDecimal(price), hsnCode, new BigDecimal(gstRate));
+		product.setCreatedBy(owner);
+		return product;
+	}
+
+	// One item of each product, quantity 1
+	public static InvoiceRequest request(Customer customer, Product... products) {
+		return request(customer, 1, products);
+	}
+
+	public static InvoiceRequest request(Customer customer, int quantity, Product... products) {
+		InvoiceRequest request = new InvoiceRequest();
+		request.setCustomerId(customer.getId());
+		for (Product product : products) {
+			InvoiceItemRequest item = new InvoiceItemRequest();
+			item.setProductId(product.getId());
+			item.setQuantity(quantity);
+			request.getItems().add(item);
+		}
+		return request;
+	}
+}
@@ -0,0 +1,145 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.AdminMetricsService;
+import com.gst.billing.service.InvoiceService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements each AdminController endpoint may run. The admin metrics cache is
+ * emptied first, so the budgets hold for a cold cache.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlCapture.class)
+@ExtendWith(SqlBudgetExtension.class)
+class AdminControllerSqlBudgetTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private AdminMetricsService adminMetricsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private User admin;
+	private User member;
+
+	@BeforeEach
+	void setUp() {
+		admin = TestData.user("budget-admin");
+		admin.setRole(Role.ADMIN);
+		admin = userRepository.save(admin);
+		member = userRepository.save(TestData.user("budget-member"));
+
+		Customer customer = customerRepository.save(TestData.customer(member, "Budget Traders", null));
+		Product product = productRepository.save(TestData.product(member, "Budget Bolt", "7318", "100.00", "18.00"));
+		invoiceService.createInvoice(TestData.request(customer, product), member);
+
+		adminMetricsService.invalidate();
+	}
+
+	@Test
+	@SqlBudget(select = 8)
+	void dashboard() throws Exception {
+		mockMvc.perform(get("/admin/dashboard")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 1)
+	void users() throws Exception {
+		mockMvc.perform(get("/admin/users")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 1)
+	void editUserForm() throws Exception {
+		mockMvc.perform(get("/admin/users/edit/{id}", member.getId())).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 1, update = 1)
+	void updateUser() throws Exception {
+		mockMvc.perform(post("/admin/users/edit/{id}", member.getId()).param("role", "USER")
+				.param("enabled", "false")).andExpect(flash().attribute("message", "User updated successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 2, delete = 1)
+	void deleteUser() throws Exception {
+		User idle = userRepository.save(TestData.user("budget-idle"));
+
+		mockMvc.perform(get("/admin/users/delete/{id}", idle.getId()))
+				.andExpect(flash().attribute("message", "User deleted successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void invoices() throws Exception {
+		mockMvc.perform(get("/admin/invoices")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 6)
+	void customers() throws Exception {
+		mockMvc.perform(get("/admin/customers")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 5)
+	void products() throws Exception {
+		mockMvc.perform(get("/admin/products")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 7)
+	void statistics() throws Exception {
+		mockMvc.perform(get("/admin/statistics")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(insert = 2, delete = 2)
+	void rebuildRollups() throws Exception {
+		mockMvc.perform(post("/admin/statistics/rebuild-rollups"))
+				.andExpect(flash().attribute("message", "Revenue rollups rebuilt successfully!"));
+	}
+
+	private MockHttpServletRequestBuilder get(String url, Object... uriVariables) {
+		return MockMvcRequestBuilders.get(url, uriVariables).with(user(admin.getUsername()).roles("ADMIN"));
+	}
+
+	private MockHttpServletRequestBuilder post(String url, Object... uriVariables) {
+		return MockMvcRequestBuilders.post(url, uriVariables).with(user(admin.getUsername()).roles("ADMIN"))
+				.with(csrf());
+	}
+}
@@ -0,0 +1,134 @@
+package com.gst.billing.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.CustomUserDetailsService;
+import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.InvoiceService;
+import com.gst.billing.service.ProductService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CatalogApiControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User owner;
+	private UserDetails principal;
+
+	@BeforeEach
+	void setUp() {
+		owner = newUser("typeahead");
+		principal = userDetailsService.loadUserByUsername(owner.getUsername());
+	}
+
+	@Test
+	void matchesNameWordsAndCodesOfTheUsersOwnCatalog() throws Exception {
+		productService.createProduct(product("Steel Pipe", "7306"), owner);
+		productService.createProduct(product("Copper Wire", "7408"), owner);
+		productService.createProduct(product("Steel Rod", "7214"), newUser("other"));
+		customerService.createCustomer(new Customer("Kiran Stores", null, null, null, "27AAPFU0939F1ZV"), owner);
+
+		assertThat(names(lookup("products", "ste"))).containsExactly("Steel Pipe");
+		assertThat(names(lookup("products", "wire"))).containsExactly("Copper Wire");
+		assertThat(names(lookup("products", "74"))).containsExactly("Copper Wire");
+		assertThat(lookup("products", "ste").get(0).get("price").decimalValue()).isEqualByComparingTo("10.00");
+		assertThat(names(lookup("customers", "27aap"))).containsExactly("Kiran Stores");
+		assertThat(names(lookup("customers", "sto"))).containsExactly("Kiran Stores");
+	}
+
+	@Test
+	void ranksWhatWasInvoicedMostRecentlyFirst() throws Exception {
+		List<Product> products = new ArrayList<>();
+		for (String name : List.of("Bolt A", "Bolt B", "Bolt C")) {
+			products.add(productService.createProduct(product(name, "7318"), owner));
+		}
+		Customer customer = customerService.createCustomer(new Customer("Acme", null, null, null, null), owner);
+		assertThat(names(lookup("products", "bolt"))).containsExactly("Bolt A", "Bolt B", "Bolt C");
+
+		invoiceService.createInvoice(TestData.request(customer, products.get(2)), owner);
+		invoiceService.createInvoice(TestData.request(customer, products.get(1)), owner);
+
+		assertThat(names(lookup("products", "bolt"))).containsExactly("Bolt B", "Bolt C", "Bolt A");
+		assertThat(names(lookup("products", ""))).containsExactly("Bolt B", "Bolt C", "Bolt A");
+	}
+
+	@Test
+	void answersFromMemoryOnceTheCatalogIsCached() throws Exception {
+		productService.createProduct(product("Widget", "8471"), owner);
+		lookup("products", "w");
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		assertThat(names(lookup("products", "wid"))).containsExactly("Widget");
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	private JsonNode lookup(String catalog, String prefix) throws Exception {
+		String response = mockMvc
+				.perform(get("/api/catalog/" + catalog).param("prefix", prefix).with(user(principal)))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(response);
+	}
+
+	private static List<String> names(JsonNode options) {
+		List<String> names = new ArrayList<>();
+		options.forEach(option -> names.add(option.get("name").asText()));
+		return names;
+	}
+
+	private User newUser(String prefix) {
+		return userRepository.save(TestData.user(prefix));
+	}
+
+	private static Product product(String name, String hsnCode) {
+		return new Product(name, null, new BigDecimal("10.00"), hsnCode, new BigDecimal("18.00"));
+	}
+}
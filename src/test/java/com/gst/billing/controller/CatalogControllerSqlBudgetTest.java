@@ -0,0 +1,193 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.InvoiceService;
+import com.gst.billing.service.ProductService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements the user dashboard and each CustomerController and
+ * ProductController endpoint may run.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlCapture.class)
+@ExtendWith(SqlBudgetExtension.class)
+class CatalogControllerSqlBudgetTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private User owner;
+	private Customer customer;
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		owner = userRepository.save(TestData.user("catalog"));
+
+		customer = customerRepository.save(TestData.customer(owner, "Budget Traders", null));
+		product = productRepository.save(TestData.product(owner, "Budget Bolt", "7318", "100.00", "18.00"));
+
+		invoiceService.createInvoice(TestData.request(customer, product), owner);
+
+		// Searches are served from the cached catalog, which invoice entry no longer loads
+		productService.getUserProducts(owner);
+		customerService.getUserCustomers(owner);
+	}
+
+	@Test
+	@SqlBudget(select = 7)
+	void dashboard() throws Exception {
+		mockMvc.perform(get("/dashboard")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void customers() throws Exception {
+		mockMvc.perform(get("/customers")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget
+	void customerForm() throws Exception {
+		mockMvc.perform(get("/customers/create")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 1, insert = 1)
+	void createCustomer() throws Exception {
+		mockMvc.perform(post("/customers/create").param("name", "New Traders"))
+				.andExpect(flash().attribute("message", "Customer created successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 2)
+	void editCustomerForm() throws Exception {
+		mockMvc.perform(get("/customers/edit/{id}", customer.getId())).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 2, update = 1)
+	void updateCustomer() throws Exception {
+		mockMvc.perform(post("/customers/edit/{id}", customer.getId()).param("name", "Renamed Traders"))
+				.andExpect(flash().attribute("message", "Customer updated successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 2, delete = 1)
+	void deleteCustomer() throws Exception {
+		Customer unused = customerRepository.save(TestData.customer(owner, "Unused Traders", null));
+
+		mockMvc.perform(get("/customers/delete/{id}", unused.getId()))
+				.andExpect(flash().attribute("message", "Customer deleted successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 1)
+	void searchCustomers() throws Exception {
+		mockMvc.perform(get("/customers/search").param("query", "Budget")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void products() throws Exception {
+		mockMvc.perform(get("/products")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget
+	void productForm() throws Exception {
+		mockMvc.perform(get("/products/create")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 1, insert = 1)
+	void createProduct() throws Exception {
+		mockMvc.perform(post("/products/create").param("name", "New Nut").param("price", "5.00")
+				.param("hsnCode", "7318").param("gstRate", "18.00"))
+				.andExpect(flash().attribute("message", "Product created successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 2)
+	void editProductForm() throws Exception {
+		mockMvc.perform(get("/products/edit/{id}", product.getId())).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 2, update = 1)
+	void updateProduct() throws Exception {
+		mockMvc.perform(post("/products/edit/{id}", product.getId()).param("name", "Renamed Bolt")
+				.param("price", "110.00").param("hsnCode", "7318").param("gstRate", "18.00"))
+				.andExpect(flash().attribute("message", "Product updated successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 2, delete = 1)
+	void deleteProduct() throws Exception {
+		Product unused = productRepository.save(TestData.product(owner, "Unused Nut", "7318", "5.00", "18.00"));
+
+		mockMvc.perform(get("/products/delete/{id}", unused.getId()))
+				.andExpect(flash().attribute("message", "Product deleted successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 1)
+	void searchProducts() throws Exception {
+		mockMvc.perform(get("/products/search").param("query", "Budget")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 1)
+	void searchProductsByHsn() throws Exception {
+		mockMvc.perform(get("/products/search-by-hsn").param("hsnCode", "7318")).andExpect(status().isOk());
+	}
+
+	private MockHttpServletRequestBuilder get(String url, Object... uriVariables) {
+		return MockMvcRequestBuilders.get(url, uriVariables).with(user(owner.getUsername()).roles("USER"));
+	}
+
+	private MockHttpServletRequestBuilder post(String url, Object... uriVariables) {
+		return MockMvcRequestBuilders.post(url, uriVariables).with(user(owner.getUsername()).roles("USER"))
+				.with(csrf());
+	}
+}
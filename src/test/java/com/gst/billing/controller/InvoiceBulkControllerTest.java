@@ -0,0 +1,160 @@
+package com.gst.billing.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.InvoiceNumberAllocator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InvoiceBulkControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private InvoiceNumberAllocator invoiceNumberAllocator;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	private User owner;
+	private Customer customer;
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		owner = userRepository.save(TestData.user("erp"));
+		customer = customerRepository.save(TestData.customer(owner, "Bulk Buyer", null));
+		product = productRepository.save(TestData.product(owner, "Cable", "8544", "250.00", "18.00"));
+	}
+
+	@Test
+	void ndjsonUploadReportsEveryRecordAndKeepsGoodOnes() throws Exception {
+		String body = String.join("\n", record("a", product.getId(), 2), "{not json",
+				record("c", 999999L, 1), "", record("d", product.getId(), 1), record("e", product.getId(), 3));
+
+		List<JsonNode> lines = upload(MediaType.APPLICATION_NDJSON_VALUE, body);
+
+		assertThat(lines).hasSize(6);
+		assertThat(lines.subList(0, 5)).extracting(line -> line.get("status").asText())
+				.containsExactly("CREATED", "FAILED", "FAILED", "CREATED", "CREATED");
+		assertThat(lines.get(0).get("ref").asText()).isEqualTo("a");
+		assertThat(lines.get(1).get("error").asText()).startsWith("Malformed record");
+		assertThat(lines.get(2).get("error").asText()).isEqualTo("Product not found with id: 999999");
+
+		JsonNode summary = lines.get(5).get("summary");
+		assertThat(summary.get("created").asLong()).isEqualTo(3);
+		assertThat(summary.get("failed").asLong()).isEqualTo(2);
+		assertThat(invoiceRepository.countByUser(owner)).isEqualTo(3);
+	}
+
+	@Test
+	void csvRowsWithTheSameRefFormOneInvoice() throws Exception {
+		String body = String.join("\n", "invoice_ref,customer_id,product_id,quantity",
+				"A," + customer.getId() + "," + product.getId() + ",1",
+				"A," + customer.getId() + "," + product.getId() + ",4",
+				"B," + customer.getId() + "," + product.getId() + ",x",
+				"C," + customer.getId() + "," + product.getId() + ",2");
+
+		List<JsonNode> lines = upload("text/csv", body);
+
+		assertThat(lines).hasSize(4);
+		assertThat(lines.get(0).get("status").asText()).isEqualTo("CREATED");
+		assertThat(lines.get(1).get("status").asText()).isEqualTo("FAILED");
+		assertThat(lines.get(1).get("error").asText()).startsWith("Line 4:");
+		assertThat(lines.get(2).get("status").asText()).isEqualTo("CREATED");
+
+		Invoice first = invoiceRepository.findByInvoiceNumber(lines.get(0).get("invoiceNumber").asText()).orElseThrow();
+		assertThat(first.getSubtotal()).isEqualByComparingTo("1250.00");
+	}
+
+	@Test
+	void numbersOfARolledBackChunkGoToTheRecordsThatAreSaved() throws Exception {
+		// Passes validation, but its amounts do not fit the columns, so its chunk fails on flush
+		String body = String.join("\n", record("a", product.getId(), 1), record("b", product.getId(), 1_000_000),
+				record("c", product.getId(), 1));
+
+		List<JsonNode> lines = upload(MediaType.APPLICATION_NDJSON_VALUE, body);
+
+		assertThat(lines.subList(0, 3)).extracting(line -> line.get("status").asText())
+				.containsExactly("CREATED", "FAILED", "CREATED");
+		String financialYear = InvoiceNumberAllocator.financialYear(LocalDate.now());
+		assertThat(lines.get(0).get("invoiceNumber").asText())
+				.isEqualTo(InvoiceNumberAllocator.invoiceNumber(owner.getId(), financialYear, 1));
+		assertThat(lines.get(2).get("invoiceNumber").asText())
+				.isEqualTo(InvoiceNumberAllocator.invoiceNumber(owner.getId(), financialYear, 2));
+		assertThat(invoiceNumberAllocator.getGapReport(owner, financialYear).getMissingNumbers()).isEmpty();
+	}
+
+	@Test
+	void basicCredentialsAreAcceptedOnlyByTheBulkEndpoint() throws Exception {
+		owner.setPassword(passwordEncoder.encode("secret"));
+		userRepository.save(owner);
+
+		mockMvc.perform(post("/invoices/bulk").contentType(MediaType.APPLICATION_NDJSON_VALUE)
+				.content(record("a", product.getId(), 1)).with(httpBasic(owner.getUsername(), "secret")))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/dashboard").with(httpBasic(owner.getUsername(), "secret")))
+				.andExpect(status().is3xxRedirection()).andExpect(redirectedUrlPattern("**/login"));
+	}
+
+	private String record(String ref, Long productId, int quantity) {
+		return "{\"ref\":\"" + ref + "\",\"customerId\":" + customer.getId() + ",\"items\":[{\"productId\":"
+				+ productId + ",\"quantity\":" + quantity + "}]}";
+	}
+
+	private List<JsonNode> upload(String contentType, String body) throws Exception {
+		String response = mockMvc
+				.perform(post("/invoices/bulk").param("chunkSize", "2").contentType(contentType).content(body)
+						.with(user(owner.getUsername())))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : response.split("\n")) {
+			lines.add(objectMapper.readTree(line));
+		}
+		return lines;
+	}
+}
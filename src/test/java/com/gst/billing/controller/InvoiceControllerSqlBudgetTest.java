@@ -0,0 +1,150 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.InvoiceService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.YearMonth;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements each InvoiceController endpoint may run for a user with a few
+ * invoices. Raise a budget only when the extra statement is intended.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlCapture.class)
+@ExtendWith(SqlBudgetExtension.class)
+class InvoiceControllerSqlBudgetTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private User owner;
+	private Customer customer;
+	private Product product;
+	private Invoice invoice;
+
+	@BeforeEach
+	void setUp() {
+		owner = userRepository.save(TestData.user("budget"));
+
+		customer = customerRepository.save(TestData.customer(owner, "Budget Traders", null));
+		product = productRepository.save(TestData.product(owner, "Budget Bolt", "7318", "100.00", "18.00"));
+
+		for (int i = 0; i < 3; i++) {
+			invoice = invoiceService.createInvoice(TestData.request(customer, product), owner);
+		}
+	}
+
+	@Test
+	@SqlBudget
+	void createForm() throws Exception {
+		mockMvc.perform(get("/invoices/create")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3, insert = 5)
+	void create() throws Exception {
+		mockMvc.perform(post("/invoices/create").param("customerId", customer.getId().toString())
+				.param("items[0].productId", product.getId().toString()).param("items[0].quantity", "2"))
+				.andExpect(redirectedUrl("/invoices/list?message=Invoice created successfully!"));
+	}
+
+	@Test
+	@SqlBudget(select = 6)
+	void list() throws Exception {
+		mockMvc.perform(get("/invoices/list")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void search() throws Exception {
+		mockMvc.perform(get("/invoices/search").param("query", "Budget")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void advancedSearch() throws Exception {
+		mockMvc.perform(get("/invoices/advanced-search?gstRate=18")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void view() throws Exception {
+		mockMvc.perform(get("/invoices/view/{id}", invoice.getId())).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3)
+	void downloadPdf() throws Exception {
+		mockMvc.perform(get("/invoices/download/{id}", invoice.getId())).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 2)
+	void downloadExcel() throws Exception {
+		mockMvc.perform(get("/invoices/download/excel")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 2)
+	void gstr1() throws Exception {
+		owner.setGstin("27ABCDE1234F1Z5");
+		userRepository.save(owner);
+
+		mockMvc.perform(get("/invoices/gstr1").param("period", YearMonth.now().toString()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 5)
+	void numberGaps() throws Exception {
+		mockMvc.perform(get("/invoices/number-gaps")).andExpect(status().isOk());
+	}
+
+	@Test
+	@SqlBudget(select = 3, insert = 2, delete = 5)
+	void delete() throws Exception {
+		mockMvc.perform(get("/invoices/delete/{id}", invoice.getId()))
+				.andExpect(redirectedUrl("/invoices/list?message=Invoice deleted successfully"));
+	}
+
+	private MockHttpServletRequestBuilder get(String url, Object... uriVariables) {
+		return MockMvcRequestBuilders.get(url, uriVariables).with(user(owner.getUsername()).roles("USER"));
+	}
+
+	private MockHttpServletRequestBuilder post(String url) {
+		return MockMvcRequestBuilders.post(url).with(user(owner.getUsername()).roles("USER")).with(csrf());
+	}
+}
@@ -0,0 +1,124 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.InvoiceService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The statements an invoice screen runs must not grow with the number of
+ * invoices or items it shows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class InvoiceQueryCountTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User owner;
+	private Customer customer;
+	private final List<Product> products = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		owner = TestData.user("fetch");
+		owner.setRole(Role.ADMIN);
+		owner = userRepository.save(owner);
+
+		customer = customerRepository.save(TestData.customer(owner, "Fetch Traders", null));
+		for (int i = 0; i < 10; i++) {
+			products.add(productRepository
+					.save(TestData.product(owner, "Part " + i, "8471", "10.00", i % 2 == 0 ? "18.00" : "5.00")));
+		}
+	}
+
+	@Test
+	void listPagesDoNotGrowWithTheRowsShown() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			invoiceService.createInvoice(request(3), owner);
+		}
+
+		assertThat(statementsFor(get("/invoices/list").param("size", "20")))
+				.isEqualTo(statementsFor(get("/invoices/list").param("size", "1")));
+		assertThat(statementsFor(get("/admin/invoices").param("size", "20")))
+				.isEqualTo(statementsFor(get("/admin/invoices").param("size", "1")));
+	}
+
+	@Test
+	void viewAndPdfDoNotGrowWithTheItems() throws Exception {
+		Invoice small = invoiceService.createInvoice(request(1), owner);
+		Invoice large = invoiceService.createInvoice(request(10), owner);
+
+		assertThat(statementsFor(get("/invoices/view/{id}", large.getId())))
+				.isEqualTo(statementsFor(get("/invoices/view/{id}", small.getId())));
+		assertThat(statementsFor(get("/invoices/download/{id}", large.getId())))
+				.isEqualTo(statementsFor(get("/invoices/download/{id}", small.getId())));
+	}
+
+	@Test
+	void excelExportDoesNotGrowWithTheInvoices() throws Exception {
+		invoiceService.createInvoice(request(2), owner);
+		long oneInvoice = statementsFor(get("/invoices/download/excel"));
+
+		for (int i = 0; i < 15; i++) {
+			invoiceService.createInvoice(request(2), owner);
+		}
+
+		assertThat(statementsFor(get("/invoices/download/excel"))).isEqualTo(oneInvoice);
+	}
+
+	private long statementsFor(RequestBuilder request) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(request).andExpect(status().isOk());
+		return statistics.getPrepareStatementCount();
+	}
+
+	private MockHttpServletRequestBuilder get(String url, Object... uriVariables) {
+		return MockMvcRequestBuilders.get(url, uriVariables)
+				.with(user(owner.getUsername()).roles("ADMIN"));
+	}
+
+	private InvoiceRequest request(int itemCount) {
+		return TestData.request(customer, products.subList(0, itemCount).toArray(Product[]::new));
+	}
+}
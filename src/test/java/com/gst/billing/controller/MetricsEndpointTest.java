@@ -0,0 +1,112 @@
+package com.gst.billing.controller;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.service.CustomUserDetailsService;
+import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.InvoiceService;
+import com.gst.billing.service.ProductService;
+import com.gst.billing.util.BillingMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+	private Customer customer;
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("metrics"));
+
+		customer = customerService.createCustomer(TestData.customer(user, "Acme", null), user);
+		product = productService.createProduct(TestData.product(user, "Bolt", "7318", "100.00", "18.00"), user);
+	}
+
+	@Test
+	void timesHotPathsAndRecordsTheirSizes() throws Exception {
+		UserDetails principal = userDetailsService.loadUserByUsername(user.getUsername());
+		long created = count(BillingMetrics.INVOICE_CREATE);
+
+		mockMvc.perform(post("/invoices/create").param("customerId", customer.getId().toString())
+				.param("items[0].productId", product.getId().toString()).param("items[0].quantity", "3")
+				.with(user(principal))).andExpect(status().is3xxRedirection());
+		Invoice invoice = invoiceService.getUserInvoices(user).get(0);
+		mockMvc.perform(get("/invoices/download/" + invoice.getId()).with(user(principal)))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/invoices/download/excel").with(user(principal))).andExpect(status().isOk());
+		mockMvc.perform(get("/dashboard").with(user(principal))).andExpect(status().isOk());
+
+		assertThat(count(BillingMetrics.INVOICE_CREATE)).isEqualTo(created + 1);
+		assertThat(meterRegistry.get(BillingMetrics.INVOICE_CREATE).tags("role", "user", "outcome", "success")
+				.timer().count()).isPositive();
+		assertThat(meterRegistry.get(BillingMetrics.INVOICE_ITEMS).summary().max()).isGreaterThanOrEqualTo(1);
+		assertThat(meterRegistry.get(BillingMetrics.PDF_BYTES).summary().totalAmount()).isPositive();
+		assertThat(meterRegistry.get(BillingMetrics.EXPORT_ROWS).tag("scope", "user").summary().count())
+				.isPositive();
+		assertThat(meterRegistry.get(BillingMetrics.DASHBOARD_STATISTICS).timer().count()).isPositive();
+		assertThat(meterRegistry.get(BillingMetrics.DASHBOARD_TREND).tag("period", "month").timer().count())
+				.isPositive();
+	}
+
+	@Test
+	void prometheusScrapeShowsEndpointLatencyByRoleAndPoolGauges() throws Exception {
+		invoiceService.createInvoice(TestData.request(customer, product), user);
+		UserDetails principal = userDetailsService.loadUserByUsername(user.getUsername());
+		mockMvc.perform(get("/invoices/list").with(user(principal))).andExpect(status().isOk());
+
+		String scrape = mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk()).andReturn()
+				.getResponse().getContentAsString();
+
+		assertThat(scrape).containsPattern("http_server_requests_seconds_bucket\\{[^}]*outcome=\"SUCCESS\","
+				+ "role=\"user\",status=\"200\",uri=\"/invoices/list\"");
+		assertThat(scrape).contains("hikaricp_connections_active");
+		assertThat(scrape).contains("billing_invoice_create_seconds_bucket");
+		assertThat(scrape).doesNotContain(user.getUsername());
+	}
+
+	private long count(String timer) {
+		return meterRegistry.find(timer).timers().stream().mapToLong(t -> t.count()).sum();
+	}
+}
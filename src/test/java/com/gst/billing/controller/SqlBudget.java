@@ -0,0 +1,25 @@
+package com.gst.billing.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most statements of each kind one MockMvc request in the annotated test may
+ * send to the database; kinds left out allow none. A batch counts as one
+ * statement. Checked by SqlBudgetExtension, which fails the test and lists
+ * the SQL when a request goes over.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+	int select() default 0;
+
+	int insert() default 0;
+
+	int update() default 0;
+
+	int delete() default 0;
+}
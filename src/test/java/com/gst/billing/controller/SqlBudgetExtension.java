@@ -0,0 +1,53 @@
+package com.gst.billing.controller;
+
+import net.ttddyy.dsproxy.QueryType;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks every MockMvc request of a test annotated with @SqlBudget against
+ * its budget. Requests made in @BeforeEach methods are not counted.
+ */
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+	@Override
+	public void beforeTestExecution(ExtensionContext context) {
+		SqlCapture.REQUESTS.clear();
+	}
+
+	@Override
+	public void afterTestExecution(ExtensionContext context) {
+		SqlBudget budget = context.getRequiredTestMethod().getAnnotation(SqlBudget.class);
+		if (budget == null || context.getExecutionException().isPresent()) {
+			return;
+		}
+		assertThat(SqlCapture.REQUESTS).as("requests made by the test").isNotEmpty();
+
+		for (SqlCapture.Request request : SqlCapture.REQUESTS) {
+			List<String> over = new ArrayList<>();
+			check(over, "select", request.count(QueryType.SELECT), budget.select());
+			check(over, "insert", request.count(QueryType.INSERT), budget.insert());
+			check(over, "update", request.count(QueryType.UPDATE), budget.update());
+			check(over, "delete", request.count(QueryType.DELETE), budget.delete());
+			check(over, "other", request.count(QueryType.OTHER), 0);
+			if (!over.isEmpty()) {
+				fail(request.getName() + " is over its SQL budget (" + String.join(", ", over) + "):\n  "
+						+ String.join("\n  ", request.getStatements()));
+			}
+		}
+	}
+
+	private static void check(List<String> over, String kind, int actual, int allowed) {
+		if (actual > allowed) {
+			over.add(kind + " " + actual + " > " + allowed);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.gst.billing.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Wraps the DataSource in a counting proxy and groups the statements it sees
+ * by MockMvc request. Import it into a test together with SqlBudgetExtension.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlCapture {
+
+	// Requests completed since the extension last cleared the list
+	static final List<Request> REQUESTS = new CopyOnWriteArrayList<>();
+
+	// Request being served; MockMvc runs it on the test thread
+	private static final ThreadLocal<Request> CURRENT = new ThreadLocal<>();
+
+	@Bean
+	static BeanPostProcessor countingDataSource() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource) {
+					return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(new Listener())
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+
+	// Outermost filter, so statements of the security filters count too
+	@Bean
+	FilterRegistrationBean<OncePerRequestFilter> sqlCaptureFilter() {
+		FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(
+				new OncePerRequestFilter() {
+					@Override
+					protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+							FilterChain chain) throws ServletException, IOException {
+						Request captured = new Request(request.getMethod() + " " + request.getRequestURI());
+						CURRENT.set(captured);
+						try {
+							chain.doFilter(request, response);
+						} finally {
+							CURRENT.remove();
+							REQUESTS.add(captured);
+						}
+					}
+				});
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	private static class Listener implements QueryExecutionListener {
+		@Override
+		public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		}
+
+		@Override
+		public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			Request request = CURRENT.get();
+			if (request != null && !queryInfoList.isEmpty()) {
+				request.add(queryInfoList.get(0).getQuery(), execInfo.isBatch());
+			}
+		}
+	}
+
+	// Statements one request sent, by kind
+	static class Request {
+		private final String name;
+		private final Map<QueryType, Integer> counts = new EnumMap<>(QueryType.class);
+		private final List<String> statements = new ArrayList<>();
+
+		Request(String name) {
+			this.name = name;
+		}
+
+		void add(String sql, boolean batch) {
+			counts.merge(QueryUtils.getQueryType(sql), 1, Integer::sum);
+			statements.add((batch ? "[batch] " : "") + sql);
+		}
+
+		String getName() {
+			return name;
+		}
+
+		int count(QueryType type) {
+			return counts.getOrDefault(type, 0);
+		}
+
+		List<String> getStatements() {
+			return statements;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.service.CustomerService;
+import com.gst.billing.service.InvoiceService;
+import com.gst.billing.service.ProductService;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every customer, product and invoice repository query against the
+ * migrated schema, asks H2 for the plan of each SQL statement it issued and
+ * fails if a table is read without an index condition, so a query that stops
+ * matching an index (or a dropped index) shows up here rather than in
+ * production latency.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.gst.billing.repository.QueryPlanTest$SqlRecorder")
+class QueryPlanTest {
+
+	// Table reads in an H2 plan: /* public.idx_name: user_id = ?1 */ or /* public.invoices.tableScan */
+	private static final Pattern TABLE_READ = Pattern.compile("/\\* (public\\.[\\w.]+)(: [^*]*)? \\*/");
+
+	// Queries that read whole tables by design: admin-wide aggregates and exports, and
+	// newest-first pages that walk an index in order and stop at the LIMIT
+	private static final Set<String> FULL_READS_ALLOWED = Set.of("customers.findAllByOrderByName",
+			"customers.findBy", "customers.countWithGstin", "customers.countWithEmail",
+			"customers.countDistinctOwners", "customers.countCustomersByOwner", "products.findAllByOrderByName",
+			"products.findBy", "products.countWithHsnCode", "products.countDistinctOwners",
+			"products.summarizeByGstRate", "invoices.findAllByOrderByInvoiceDateDesc", "invoices.findBy",
+			"invoices.getInvoiceTotals", "invoices.findRecentInvoiceSummaries", "invoices.streamAllExportRows");
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private User user;
+	private Customer customer;
+	private Product product;
+	private Invoice invoice;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			user = newUser();
+			for (int j = 0; j < 5; j++) {
+				customer = customerService.createCustomer(new Customer("Customer " + j,
+						"c" + i + j + "-" + System.nanoTime() + "@example.com", "98450" + i + j, null, "27AAPFU0939F1Z" + j), user);
+				product = productService.createProduct(
+						TestData.product(user, "Product " + j, "7318" + j, "10.00", "18.00"), user);
+				invoice = invoiceService.createInvoice(TestData.request(customer, product), user);
+			}
+		}
+		try (Connection connection = dataSource.getConnection()) {
+			connection.createStatement().execute("ANALYZE");
+		}
+	}
+
+	@Test
+	void customerQueriesUseIndexes() throws Exception {
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+		queries.put("findByCreatedByOrderByName", () -> customerRepository.findByCreatedByOrderByName(user));
+		queries.put("findAllByOrderByName", () -> customerRepository.findAllByOrderByName());
+		queries.put("findByEmail", () -> customerRepository.findByEmail(customer.getEmail()));
+		queries.put("findByNameContainingIgnoreCaseAndCreatedBy",
+				() -> customerRepository.findByNameContainingIgnoreCaseAndCreatedBy("cust", user));
+		queries.put("findByGstinAndCreatedBy",
+				() -> customerRepository.findByGstinAndCreatedBy(customer.getGstin(), user));
+		queries.put("findByPhoneAndCreatedBy",
+				() -> customerRepository.findByPhoneAndCreatedBy(customer.getPhone(), user));
+		queries.put("existsByEmail", () -> customerRepository.existsByEmail(customer.getEmail()));
+		queries.put("existsByGstin", () -> customerRepository.existsByGstin(customer.getGstin()));
+		queries.put("existsByEmailAndCreatedBy",
+				() -> customerRepository.existsByEmailAndCreatedBy(customer.getEmail(), user));
+		queries.put("countByCreatedBy", () -> customerRepository.countByCreatedBy(user));
+		queries.put("findByCreatedBy", () -> customerRepository.findByCreatedBy(user, ScrollPosition.keyset(),
+				Sort.by("name", "id"), Limit.of(10)));
+		queries.put("findBy",
+				() -> customerRepository.findBy(ScrollPosition.keyset(), Sort.by("name", "id"), Limit.of(10)));
+		queries.put("findByIdGreaterThanOrderById",
+				() -> customerRepository.findByIdGreaterThanOrderById(0L, Limit.of(10)));
+		queries.put("countWithGstin", () -> customerRepository.countWithGstin());
+		queries.put("countWithEmail", () -> customerRepository.countWithEmail());
+		queries.put("countDistinctOwners", () -> customerRepository.countDistinctOwners());
+		queries.put("countCustomersByOwner", () -> customerRepository.countCustomersByOwner());
+		queries.put("searchCustomers", () -> customerRepository.searchCustomers(user, "cust"));
+
+		assertThat(fullReads("customers", queries)).isEmpty();
+	}
+
+	@Test
+	void productQueriesUseIndexes() throws Exception {
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+		queries.put("findByCreatedByOrderByName", () -> productRepository.findByCreatedByOrderByName(user));
+		queries.put("findAllByOrderByName", () -> productRepository.findAllByOrderByName());
+		queries.put("findByNameAndCreatedBy", () -> productRepository.findByNameAndCreatedBy(product.getName(), user));
+		queries.put("findByHsnCodeAndCreatedBy",
+				() -> productRepository.findByHsnCodeAndCreatedBy(product.getHsnCode(), user));
+		queries.put("findByNameContainingIgnoreCaseAndCreatedBy",
+				() -> productRepository.findByNameContainingIgnoreCaseAndCreatedBy("prod", user));
+		queries.put("findByHsnCodeContainingAndCreatedBy",
+				() -> productRepository.findByHsnCodeContainingAndCreatedBy("7318", user));
+		queries.put("findByPriceBetweenAndCreatedBy", () -> productRepository
+				.findByPriceBetweenAndCreatedBy(BigDecimal.ONE, BigDecimal.TEN, user));
+		queries.put("findByGstRateAndCreatedBy",
+				() -> productRepository.findByGstRateAndCreatedBy(new BigDecimal("18.00"), user));
+		queries.put("countByCreatedBy", () -> productRepository.countByCreatedBy(user));
+		queries.put("findByCreatedBy", () -> productRepository.findByCreatedBy(user, ScrollPosition.keyset(),
+				Sort.by("name", "id"), Limit.of(10)));
+		queries.put("findBy",
+				() -> productRepository.findBy(ScrollPosition.keyset(), Sort.by("name", "id"), Limit.of(10)));
+		queries.put("findByIdGreaterThanOrderById",
+				() -> productRepository.findByIdGreaterThanOrderById(0L, Limit.of(10)));
+		queries.put("countWithHsnCode", () -> productRepository.countWithHsnCode());
+		queries.put("countDistinctOwners", () -> productRepository.countDistinctOwners());
+		queries.put("summarizeByGstRate", () -> productRepository.summarizeByGstRate());
+		queries.put("searchProducts", () -> productRepository.searchProducts(user, "prod"));
+		queries.put("findTopExpensiveProductsByUser", () -> productRepository.findTopExpensiveProductsByUser(user));
+		queries.put("findTopCheapestProductsByUser", () -> productRepository.findTopCheapestProductsByUser(user));
+
+		assertThat(fullReads("products", queries)).isEmpty();
+	}
+
+	@Test
+	void invoiceQueriesUseIndexes() throws Exception {
+		LocalDate today = invoice.getInvoiceDate();
+		String number = invoice.getInvoiceNumber();
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+		queries.put("findByUserOrderByInvoiceDateDesc", () -> invoiceRepository.findByUserOrderByInvoiceDateDesc(user));
+		queries.put("findAllByOrderByInvoiceDateDesc", () -> invoiceRepository.findAllByOrderByInvoiceDateDesc());
+		queries.put("findByInvoiceNumber", () -> invoiceRepository.findByInvoiceNumber(number));
+		queries.put("findByCustomerAndUserOrderByInvoiceDateDesc",
+				() -> invoiceRepository.findByCustomerAndUserOrderByInvoiceDateDesc(customer, user));
+		queries.put("findByInvoiceDateBetweenAndUserOrderByInvoiceDateDesc", () -> invoiceRepository
+				.findByInvoiceDateBetweenAndUserOrderByInvoiceDateDesc(today.minusDays(30), today, user));
+		queries.put("findByInvoiceDateAndUserOrderByInvoiceDateDesc",
+				() -> invoiceRepository.findByInvoiceDateAndUserOrderByInvoiceDateDesc(today, user));
+		queries.put("findByInvoiceNumberContainingIgnoreCaseAndUser",
+				() -> invoiceRepository.findByInvoiceNumberContainingIgnoreCaseAndUser("inv", user));
+		queries.put("countByUser", () -> invoiceRepository.countByUser(user));
+		queries.put("countByInvoiceDate", () -> invoiceRepository.countByInvoiceDate(today));
+		queries.put("existsByInvoiceNumber", () -> invoiceRepository.existsByInvoiceNumber(number));
+		queries.put("findByUserIdOrderByInvoiceDateDesc",
+				() -> invoiceRepository.findByUserIdOrderByInvoiceDateDesc(user.getId()));
+		queries.put("findByUser", () -> invoiceRepository.findByUser(user, ScrollPosition.keyset(),
+				Sort.by(Sort.Direction.DESC, "invoiceDate", "id"), Limit.of(10)));
+		queries.put("findBy", () -> invoiceRepository.findBy(ScrollPosition.keyset(),
+				Sort.by(Sort.Direction.DESC, "invoiceDate", "id"), Limit.of(10)));
+		queries.put("findWithDetailsById", () -> invoiceRepository.findWithDetailsById(invoice.getId()));
+		queries.put("findIdsWithoutTaxLines", () -> invoiceRepository.findIdsWithoutTaxLines(0L, Limit.of(10)));
+		queries.put("findByIdGreaterThanOrderById",
+				() -> invoiceRepository.findByIdGreaterThanOrderById(0L, Limit.of(10)));
+		queries.put("findLastInvoiceIdByCustomer", () -> invoiceRepository.findLastInvoiceIdByCustomer(user.getId()));
+		queries.put("findByUserAndIdIn", () -> invoiceRepository.findByUserAndIdIn(user, List.of(invoice.getId())));
+		queries.put("findLatestInvoicesByUser", () -> invoiceRepository.findLatestInvoicesByUser(user));
+		queries.put("getTotalSalesByUser", () -> invoiceRepository.getTotalSalesByUser(user));
+		queries.put("getTotalGstByUser", () -> invoiceRepository.getTotalGstByUser(user));
+		queries.put("getInvoiceTotals", () -> invoiceRepository.getInvoiceTotals());
+		queries.put("getInvoiceTotalsByUser", () -> invoiceRepository.getInvoiceTotalsByUser(user));
+		queries.put("findRecentInvoiceSummaries",
+				() -> invoiceRepository.findRecentInvoiceSummaries(PageRequest.of(0, 10)));
+		queries.put("findInvoiceNumbersByPrefix",
+				() -> invoiceRepository.findInvoiceNumbersByPrefix(number.substring(0, number.length() - 1)));
+		queries.put("streamExportRowsByUserId",
+				() -> invoiceRepository.streamExportRowsByUserId(user.getId()).forEach(row -> {
+				}));
+		queries.put("streamAllExportRows", () -> invoiceRepository.streamAllExportRows().forEach(row -> {
+		}));
+		queries.put("searchInvoices", () -> invoiceRepository.searchInvoices(user, "inv"));
+		queries.put("getDashboardStatistics", () -> invoiceRepository.getDashboardStatistics(user,
+				today.minusDays(30), today, today.minusYears(1)));
+		InvoiceSearchCriteria criteria = new InvoiceSearchCriteria();
+		criteria.setCustomerName("cust");
+		criteria.setMinAmount(BigDecimal.ONE);
+		criteria.setFromDate(today.minusYears(1));
+		criteria.setGstRate(new BigDecimal("18"));
+		criteria.setHsnCode("73");
+		queries.put("findByCriteria", () -> invoiceRepository.findByCriteria(user, criteria,
+				ScrollPosition.forward(Map.of("invoiceDate", today, "id", 0L)), Sort.Direction.DESC, Limit.of(20)));
+		queries.put("countByCriteria", () -> invoiceRepository.countByCriteria(user, criteria));
+		queries.put("getSalesTrend",
+				() -> invoiceRepository.getSalesTrend(user, TrendPeriod.MONTH, today.minusYears(1), today, 3));
+
+		assertThat(fullReads("invoices", queries)).isEmpty();
+	}
+
+	// "<repository>.<query>: <table read>" for every read without an index condition
+	private List<String> fullReads(String repository, Map<String, Runnable> queries) throws Exception {
+		List<String> fullReads = new ArrayList<>();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+			String name = repository + "." + query.getKey();
+			SqlRecorder.STATEMENTS.clear();
+			transaction.executeWithoutResult(status -> query.getValue().run());
+			List<String> statements = new ArrayList<>(SqlRecorder.STATEMENTS);
+			assertThat(statements).as(name).isNotEmpty();
+			if (FULL_READS_ALLOWED.contains(name)) {
+				continue;
+			}
+			for (String sql : statements) {
+				Matcher matcher = TABLE_READ.matcher(explain(sql));
+				while (matcher.find()) {
+					if (matcher.group(2) == null) {
+						fullReads.add(name + ": " + matcher.group(1));
+					}
+				}
+			}
+		}
+		return fullReads;
+	}
+
+	// The plan does not depend on the values, so every parameter is left null
+	private String explain(String sql) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+			for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+				statement.setObject(i, null);
+			}
+			try (ResultSet plan = statement.executeQuery()) {
+				plan.next();
+				return plan.getString(1);
+			}
+		}
+	}
+
+	private User newUser() {
+		return userRepository.save(TestData.user("plan"));
+	}
+
+	// Collects the SELECTs Hibernate prepares, as it prepares them
+	public static class SqlRecorder implements StatementInspector {
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			if (sql.trim().toLowerCase().startsWith("select")) {
+				STATEMENTS.add(sql);
+			}
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.SalesTrendPoint;
+import com.gst.billing.model.TrendPeriod;
+import com.gst.billing.model.User;
+import com.gst.billing.service.CustomUserDetailsService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SalesTrendTest {
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private DailyRevenueRollupRepository dailyRollupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("trend"));
+	}
+
+	@Test
+	void keepsYearsApartAndFillsGaps() {
+		sales(LocalDate.of(2024, 3, 10), "100.00");
+		sales(LocalDate.of(2025, 3, 5), "200.00");
+		sales(LocalDate.of(2025, 4, 2), "50.00");
+
+		List<SalesTrendPoint> months = invoiceRepository.getSalesTrend(user, TrendPeriod.MONTH, null,
+				LocalDate.of(2025, 4, 30), 3);
+
+		assertThat(months).hasSize(14);
+		assertThat(months.get(0).getLabel()).isEqualTo("Mar 2024");
+		assertThat(months.get(0).getRevenue()).isEqualByComparingTo("100.00");
+		assertThat(months.get(1).getRevenue()).isEqualByComparingTo("0");
+		assertThat(months.get(1).getInvoiceCount()).isZero();
+		SalesTrendPoint march = months.get(12);
+		SalesTrendPoint april = months.get(13);
+		assertThat(march.getLabel()).isEqualTo("Mar 2025");
+		assertThat(march.getRevenue()).isEqualByComparingTo("200.00");
+		assertThat(march.getGrowthPercent()).isNull();
+		assertThat(april.getGrowthPercent()).isEqualByComparingTo("-75.00");
+		assertThat(april.getMovingAverage()).isEqualByComparingTo("83.33");
+	}
+
+	@Test
+	void bucketsByWeekQuarterAndFinancialYear() {
+		sales(LocalDate.of(2024, 3, 10), "100.00");
+		sales(LocalDate.of(2025, 3, 5), "200.00");
+		sales(LocalDate.of(2025, 4, 2), "50.00");
+		LocalDate to = LocalDate.of(2025, 4, 30);
+
+		List<SalesTrendPoint> years = invoiceRepository.getSalesTrend(user, TrendPeriod.FINANCIAL_YEAR, null, to, 2);
+		assertThat(years).extracting(SalesTrendPoint::getLabel).containsExactly("FY 2023-24", "FY 2024-25",
+				"FY 2025-26");
+		assertThat(years.get(1).getGrowthPercent()).isEqualByComparingTo("100.00");
+		assertThat(years.get(2).getMovingAverage()).isEqualByComparingTo("125.00");
+
+		List<SalesTrendPoint> quarters = invoiceRepository.getSalesTrend(user, TrendPeriod.QUARTER,
+				LocalDate.of(2025, 1, 1), to, 1);
+		assertThat(quarters).extracting(SalesTrendPoint::getLabel).containsExactly("Q4 2024-25", "Q1 2025-26");
+
+		List<SalesTrendPoint> weeks = invoiceRepository.getSalesTrend(user, TrendPeriod.WEEK,
+				LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 12), 1);
+		assertThat(weeks).extracting(SalesTrendPoint::getLabel).containsExactly("2025-W10", "2025-W11");
+		assertThat(weeks.get(0).getPeriodStart()).isEqualTo(LocalDate.of(2025, 3, 3));
+		assertThat(weeks.get(0).getRevenue()).isEqualByComparingTo("200.00");
+
+		assertThatThrownBy(() -> invoiceRepository.getSalesTrendAnalysis(user, "fortnight"))
+				.hasMessageContaining("Unknown trend period");
+	}
+
+	@Test
+	void tenYearsOfDailyHistoryReturnInMilliseconds() {
+		LocalDate first = LocalDate.of(2015, 4, 1);
+		LocalDate last = LocalDate.of(2025, 3, 31);
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+				dailyRollupRepository.addDelta(user.getId(), day, 2, new BigDecimal("118.00"),
+						new BigDecimal("18.00"));
+			}
+		});
+		// Warm up the query plan and the JIT
+		invoiceRepository.getSalesTrend(user, TrendPeriod.DAY, null, last, 7);
+
+		long started = System.nanoTime();
+		List<SalesTrendPoint> days = invoiceRepository.getSalesTrend(user, TrendPeriod.DAY, null, last, 7);
+		List<SalesTrendPoint> years = invoiceRepository.getSalesTrend(user, TrendPeriod.FINANCIAL_YEAR, null, last,
+				3);
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+		assertThat(days).hasSize(3653);
+		assertThat(years).hasSize(10);
+		assertThat(years.get(0).getInvoiceCount()).isEqualTo(2 * 366);
+		assertThat(elapsedMillis).isLessThan(500);
+	}
+
+	@Test
+	void servesTrendsAsJson() throws Exception {
+		sales(LocalDate.of(2025, 3, 5), "200.00");
+		sales(LocalDate.of(2025, 4, 2), "50.00");
+		UserDetails principal = userDetailsService.loadUserByUsername(user.getUsername());
+
+		mockMvc.perform(get("/api/trends").param("period", "quarter").param("from", "2025-01-01")
+				.param("to", "2025-06-30").with(user(principal))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2)).andExpect(jsonPath("$[1].label").value("Q1 2025-26"))
+				.andExpect(jsonPath("$[1].growthPercent").value(-75.0));
+		mockMvc.perform(get("/api/trends").param("period", "fortnight").with(user(principal)))
+				.andExpect(status().isBadRequest());
+	}
+
+	private void sales(LocalDate day, String amount) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> dailyRollupRepository
+				.addDelta(user.getId(), day, 1, new BigDecimal(amount), BigDecimal.ZERO));
+	}
+}
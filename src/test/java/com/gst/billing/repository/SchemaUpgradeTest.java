@@ -0,0 +1,59 @@
+package com.gst.billing.repository;
+
+import com.gst.billing.GstBillingSystemApplication;
+import com.gst.billing.model.Invoice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application on a database that the first release created with
+ * ddl-auto=update, as existing installations have, and checks that Flyway
+ * brings it up to a schema Hibernate validates without losing its data.
+ */
+class SchemaUpgradeTest {
+
+	@Test
+	void databaseCreatedByDdlAutoIsMigrated() throws Exception {
+		String url = "jdbc:h2:mem:upgrade_" + UUID.randomUUID()
+				+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+		try (Connection connection = dataSource.getConnection()) {
+			ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-era-schema.sql"));
+		}
+
+		// Hibernate validates the migrated schema on startup
+		try (ConfigurableApplicationContext application = new SpringApplicationBuilder(
+				GstBillingSystemApplication.class).web(WebApplicationType.NONE).run("--spring.datasource.url=" + url)) {
+			JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+			List<String> versions = jdbc.queryForList(
+					"select version from flyway_schema_history where version is not null order by installed_rank",
+					String.class);
+			// Baselined below V1, so every migration runs
+			assertThat(versions).startsWith("0", "1", "1.0.1", "1.1", "2");
+
+			Invoice invoice = application.getBean(InvoiceRepository.class).findByInvoiceNumber("INV-1001")
+					.orElseThrow();
+			assertThat(invoice.getTotalAmount()).isEqualByComparingTo("2360.00");
+			assertThat(invoice.isInterState()).isFalse();
+			// Filled in on startup for invoices saved before they existed
+			assertThat(jdbc.queryForObject("select count(*) from invoice_tax_lines where invoice_id = ?", Long.class,
+					invoice.getId())).isEqualTo(1);
+			assertThat(jdbc.queryForObject("select invoice_count from monthly_revenue_rollup where user_id = ?",
+					Long.class, invoice.getUser().getId())).isEqualTo(1);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AdminMetricsServiceTest {
+
+	@Autowired
+	private AdminMetricsService adminMetricsService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User user;
+	private InvoiceRequest request;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("metrics"));
+
+		Customer customer = customerRepository.save(TestData.customer(user, "Metrics Traders", null));
+		Product product = productRepository.save(TestData.product(user, "Widget", "8471", "100.00", "18.00"));
+		request = TestData.request(customer, 2, product);
+	}
+
+	@Test
+	void metricsMatchTheStoredInvoices() {
+		for (int i = 0; i < 6; i++) {
+			invoiceService.createInvoice(request, user);
+		}
+		adminMetricsService.invalidate();
+
+		AdminMetricsService.AdminMetrics metrics = adminMetricsService.getMetrics();
+
+		List<Invoice> invoices = invoiceRepository.findAll();
+		assertThat(metrics.getTotalInvoices()).isEqualTo(invoices.size());
+		assertThat(metrics.getTotalRevenue()).isEqualByComparingTo(
+				invoices.stream().map(Invoice::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+		assertThat(metrics.getTotalGst())
+				.isEqualByComparingTo(invoices.stream().map(Invoice::getTotalGst).reduce(BigDecimal.ZERO, BigDecimal::add));
+		assertThat(metrics.getTotalCustomers()).isEqualTo(customerRepository.count());
+		assertThat(metrics.getTotalProducts()).isEqualTo(productRepository.count());
+		assertThat(metrics.getRecentInvoices()).hasSize(5);
+		assertThat(metrics.getRecentInvoices().get(0).getCustomerName()).isNotBlank();
+	}
+
+	@Test
+	void snapshotIsReusedUntilItExpires() {
+		adminMetricsService.invalidate();
+		AdminMetricsService.AdminMetrics first = adminMetricsService.getMetrics();
+
+		invoiceService.createInvoice(request, user);
+
+		assertThat(adminMetricsService.getMetrics()).isSameAs(first);
+	}
+
+	@Test
+	void concurrentAdminsTriggerASingleLoad() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		adminMetricsService.invalidate();
+		statistics.clear();
+		adminMetricsService.getMetrics();
+		long statementsPerLoad = statistics.getPrepareStatementCount();
+
+		adminMetricsService.invalidate();
+		statistics.clear();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<AdminMetricsService.AdminMetrics>> futures = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return adminMetricsService.getMetrics();
+			}));
+		}
+		start.countDown();
+		AdminMetricsService.AdminMetrics first = futures.get(0).get(10, TimeUnit.SECONDS);
+		for (Future<AdminMetricsService.AdminMetrics> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(first);
+		}
+		executor.shutdown();
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsPerLoad);
+	}
+}
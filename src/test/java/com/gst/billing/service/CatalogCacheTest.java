@@ -0,0 +1,155 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.util.CatalogCache;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CatalogCacheTest {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("catalog"));
+	}
+
+	@Test
+	void invoiceFormReadsNoCatalogRowsOnceCached() {
+		customerService.createCustomer(customer("Acme", "29ABCDE1234F1Z5"), user);
+		productService.createProduct(product("Widget", "10.00"), user);
+		productService.getUserProducts(user);
+		customerService.getUserCustomers(user);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		// What the invoice form reads
+		productService.getUserProducts(user);
+		customerService.getUserCustomers(user);
+
+		assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isZero();
+		assertThat(statistics.getEntityStatistics(Customer.class.getName()).getLoadCount()).isZero();
+	}
+
+	@Test
+	void invoicesArePricedFromTheDatabaseNotTheCachedCatalog() {
+		Customer customer = customerService.createCustomer(customer("Acme", "29ABCDE1234F1Z5"), user);
+		Product widget = productService.createProduct(product("Widget", "10.00"), user);
+		productService.getUserProducts(user);
+
+		// A price change made on another node leaves this node's cached catalog untouched
+		widget.setPrice(new BigDecimal("12.00"));
+		productRepository.save(widget);
+		assertThat(productService.getUserProducts(user).get(0).getPrice()).isEqualByComparingTo("10.00");
+
+		Invoice invoice = invoiceService.createInvoice(TestData.request(customer, widget), user);
+
+		assertThat(invoice.getItems().get(0).getUnitPrice()).isEqualByComparingTo("12.00");
+	}
+
+	@Test
+	void writesReplaceTheCachedCatalog() {
+		Product widget = productService.createProduct(product("Widget", "10.00"), user);
+		assertThat(names(productService.getUserProducts(user))).containsExactly("Widget");
+
+		productService.createProducts(new ArrayList<>(List.of(product("Anvil", "99.00"))), user);
+		assertThat(names(productService.getUserProducts(user))).containsExactly("Anvil", "Widget");
+
+		productService.updateProduct(widget.getId(), product("Zither", "12.00"), user);
+		assertThat(names(productService.getUserProducts(user))).containsExactly("Anvil", "Zither");
+
+		productService.deleteProduct(widget.getId(), user);
+		assertThat(names(productService.getUserProducts(user))).containsExactly("Anvil");
+
+		Customer customer = customerService.createCustomer(customer("Acme", null), user);
+		assertThat(customerService.getCustomerById(customer.getId(), user).getGstin()).isNull();
+
+		customerService.updateCustomer(customer.getId(), customer("Acme", "27AAPFU0939F1ZV"), user);
+		assertThat(customerService.getCustomerById(customer.getId(), user).getGstin()).isEqualTo("27AAPFU0939F1ZV");
+
+		customerService.deleteCustomer(customer.getId(), user);
+		assertThat(customerService.getUserCustomers(user)).isEmpty();
+	}
+
+	@Test
+	void rolledBackWriteDoesNotStayCached() {
+		productService.createProduct(product("Widget", "10.00"), user);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			productService.createProduct(product("Draft", "1.00"), user);
+			// Loaded again inside the transaction, so it sees the uncommitted row
+			assertThat(names(productService.getUserProducts(user))).containsExactly("Draft", "Widget");
+			status.setRollbackOnly();
+		});
+
+		assertThat(names(productService.getUserProducts(user))).containsExactly("Widget");
+	}
+
+	@Test
+	void countsHitsAndMisses() {
+		productService.createProduct(product("Widget", "10.00"), user);
+		CatalogCache.CacheStats before = productService.getCacheStats();
+
+		productService.getUserProducts(user);
+		productService.getUserProducts(user);
+		productService.getUserProducts(user);
+
+		CatalogCache.CacheStats after = productService.getCacheStats();
+		assertThat(after.getMisses() - before.getMisses()).isEqualTo(1);
+		assertThat(after.getHits() - before.getHits()).isEqualTo(2);
+		assertThat(after.getHitRatio()).isBetween(0.0, 1.0);
+	}
+
+	private static List<String> names(List<Product> products) {
+		return products.stream().map(Product::getName).toList();
+	}
+
+	private static Customer customer(String name, String gstin) {
+		return new Customer(name, null, null, null, gstin);
+	}
+
+	private static Product product(String name, String price) {
+		return new Product(name, null, new BigDecimal(price), "8471", new BigDecimal("18.00"));
+	}
+}
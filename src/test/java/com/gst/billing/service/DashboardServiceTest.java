@@ -0,0 +1,149 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DashboardServiceTest {
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private User user;
+	private Customer acme;
+	private Customer globex;
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("dashboard"));
+
+		acme = customerService.createCustomer(TestData.customer(user, "Acme", null), user);
+		globex = customerService.createCustomer(TestData.customer(user, "Globex", null), user);
+		product = productService.createProduct(TestData.product(user, "Bolt", "7318", "100.00", "18.00"), user);
+	}
+
+	@Test
+	void aggregatesTheRangeInOneQuery() {
+		invoice(acme, 1);
+		invoice(acme, 2);
+		invoice(globex, 3);
+		LocalDate today = LocalDate.now();
+
+		DashboardStatistics stats = invoiceRepository.getDashboardStatistics(user, today.minusDays(1), today);
+
+		assertThat(stats.getInvoiceCount()).isEqualTo(3);
+		assertThat(stats.getTotalRevenue()).isEqualByComparingTo("708.00");
+		assertThat(stats.getTotalGst()).isEqualByComparingTo("108.00");
+		assertThat(stats.getAverageInvoiceValue()).isEqualByComparingTo("236.00");
+		assertThat(stats.getUniqueCustomers()).isEqualTo(2);
+		assertThat(invoiceRepository.getDashboardStatistics(user, today.plusDays(1), today.plusDays(2))
+				.getInvoiceCount()).isZero();
+	}
+
+	@Test
+	void cachesClosedMonthsAndQueriesOnlyTheCurrentOne() {
+		invoice(acme, 1);
+		invoice(globex, 1);
+		// Treat this month as over, so today's invoices fall in the cached part
+		YearMonth nextMonth = YearMonth.now().plusMonths(1);
+		LocalDate end = nextMonth.atEndOfMonth();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		DashboardStatistics first = dashboardService.getStatistics(user, DashboardService.ALL_TIME_START, end,
+				nextMonth);
+		long before = statistics.getPrepareStatementCount();
+		DashboardStatistics second = dashboardService.getStatistics(user, DashboardService.ALL_TIME_START, end,
+				nextMonth);
+
+		assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+		assertThat(second.getInvoiceCount()).isEqualTo(2).isEqualTo(first.getInvoiceCount());
+		assertThat(second.getUniqueCustomers()).isEqualTo(2);
+		assertThat(second.getTotalRevenue()).isEqualByComparingTo(first.getTotalRevenue());
+	}
+
+	@Test
+	void countsCustomersBilledInBothPartsOnceAndDropsStaleMonths() {
+		Invoice old = invoice(acme, 1);
+		LocalDate lastMonth = YearMonth.now().minusMonths(1).atDay(15);
+		old.setInvoiceDate(lastMonth);
+		invoiceRepository.save(old);
+		invoice(acme, 1);
+		invoice(globex, 1);
+
+		DashboardStatistics stats = dashboardService.getStatistics(user, DashboardService.ALL_TIME_START,
+				LocalDate.now());
+		assertThat(stats.getInvoiceCount()).isEqualTo(3);
+		assertThat(stats.getUniqueCustomers()).isEqualTo(2);
+
+		invoiceService.deleteInvoice(old.getId(), user);
+
+		stats = dashboardService.getStatistics(user, DashboardService.ALL_TIME_START, LocalDate.now());
+		assertThat(stats.getInvoiceCount()).isEqualTo(2);
+		assertThat(stats.getTotalRevenue()).isEqualByComparingTo("236.00");
+	}
+
+	@Test
+	void dashboardShowsTheStatistics() throws Exception {
+		invoice(acme, 2);
+
+		UserDetails principal = userDetailsService.loadUserByUsername(user.getUsername());
+		mockMvc.perform(get("/dashboard").with(user(principal))).andExpect(status().isOk())
+				.andExpect(model().attribute("invoiceCount", 1L))
+				.andExpect(model().attribute("stats", hasProperty("uniqueCustomers", is(1L))));
+	}
+
+	private Invoice invoice(Customer customer, int quantity) {
+		return invoiceService.createInvoice(TestData.request(customer, quantity, product), user);
+	}
+}
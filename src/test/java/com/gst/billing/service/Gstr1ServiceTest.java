@@ -0,0 +1,212 @@
+package com.gst.billing.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class Gstr1ServiceTest {
+
+	private static final long MB = 1024 * 1024;
+
+	@Autowired
+	private Gstr1Service gstr1Service;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void groupsRegisteredBuyersAndSumsTheRest() throws Exception {
+		User user = user("gstr1", "29AAACR5055K1Z7");
+		Product laptop = product(user, "Laptop", "8471", "100.00", "18.00");
+		Product tea = product(user, "Tea", "0902", "50.00", "5.00");
+		Product cable = product(user, "Cable", "8544", "1.50", "18.00");
+		Product book = product(user, "Notebook", "4820", "10.00", "12.00");
+
+		// Two customers share a GSTIN in another state; one is in the seller's state; two are unregistered
+		Invoice first = invoiceService
+				.createInvoice(TestData.request(customer(user, "27AAPFU0939F1ZV"), laptop, tea), user);
+		Invoice second = invoiceService
+				.createInvoice(TestData.request(customer(user, "27AAPFU0939F1ZV"), laptop), user);
+		Invoice local = invoiceService.createInvoice(TestData.request(customer(user, "29ABCDE1234F1Z5"), cable), user);
+		invoiceService.createInvoice(TestData.request(customer(user, null), book), user);
+		invoiceService.createInvoice(TestData.request(customer(user, " "), book), user);
+		Invoice lastMonth = invoiceService
+				.createInvoice(TestData.request(customer(user, "29ABCDE1234F1Z5"), laptop), user);
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> invoiceRepository
+				.findById(lastMonth.getId()).orElseThrow().setInvoiceDate(LocalDate.now().minusMonths(1)));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		gstr1Service.writeJson(user, YearMonth.now(), out);
+		JsonNode gstr1 = objectMapper.readTree(out.toByteArray());
+
+		assertThat(gstr1.get("gstin").asText()).isEqualTo("29AAACR5055K1Z7");
+		assertThat(gstr1.get("fp").asText()).isEqualTo(YearMonth.now().format(DateTimeFormatter.ofPattern("MMyyyy")));
+
+		JsonNode b2b = gstr1.get("b2b");
+		assertThat(b2b).hasSize(2);
+		assertThat(b2b.get(0).get("ctin").asText()).isEqualTo("27AAPFU0939F1ZV");
+		JsonNode interState = b2b.get(0).get("inv");
+		assertThat(interState).hasSize(2);
+		assertThat(interState.get(0).get("inum").asText()).isEqualTo(first.getInvoiceNumber());
+		assertThat(interState.get(0).get("idt").asText())
+				.isEqualTo(LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
+		assertThat(interState.get(0).get("val").decimalValue()).isEqualByComparingTo("170.50");
+		assertThat(interState.get(0).get("pos").asText()).isEqualTo("27");
+		assertThat(interState.get(1).get("inum").asText()).isEqualTo(second.getInvoiceNumber());
+		// One entry per rate, in rate order, as the stored tax lines are
+		JsonNode items = interState.get(0).get("itms");
+		assertThat(items).hasSize(2);
+		assertItem(items.get(0).get("itm_det"), "5", "50.00", "iamt", "2.50");
+		assertItem(items.get(1).get("itm_det"), "18", "100.00", "iamt", "18.00");
+		assertThat(items.get(1).get("itm_det").has("camt")).isFalse();
+
+		assertThat(b2b.get(1).get("ctin").asText()).isEqualTo("29ABCDE1234F1Z5");
+		JsonNode sameState = b2b.get(1).get("inv");
+		assertThat(sameState).hasSize(1);
+		assertThat(sameState.get(0).get("inum").asText()).isEqualTo(local.getInvoiceNumber());
+		JsonNode cableLine = sameState.get(0).get("itms").get(0).get("itm_det");
+		// 18% of 1.50 = 0.27; the odd paisa goes to CGST
+		assertItem(cableLine, "18", "1.50", "camt", "0.14");
+		assertThat(cableLine.get("samt").decimalValue()).isEqualByComparingTo("0.13");
+
+		assertThat(gstr1.get("b2cl")).isEmpty();
+		JsonNode b2cs = gstr1.get("b2cs");
+		assertThat(b2cs).hasSize(1);
+		assertThat(b2cs.get(0).get("sply_ty").asText()).isEqualTo("INTRA");
+		assertThat(b2cs.get(0).get("pos").asText()).isEqualTo("29");
+		assertItem(b2cs.get(0), "12", "20.00", "camt", "1.20");
+		assertThat(b2cs.get(0).get("samt").decimalValue()).isEqualByComparingTo("1.20");
+
+		JsonNode hsn = gstr1.get("hsn").get("data");
+		assertThat(hsn).extracting(row -> row.get("hsn_sc").asText()).containsExactly("0902", "4820", "8471", "8544");
+		JsonNode laptops = hsn.get(2);
+		assertThat(laptops.get("desc").asText()).isEqualTo("Laptop");
+		assertThat(laptops.get("qty").asLong()).isEqualTo(2);
+		assertItem(laptops, "18", "200.00", "iamt", "36.00");
+		assertThat(laptops.get("camt").decimalValue()).isEqualByComparingTo("0");
+	}
+
+	@Test
+	void refusesToFileWithoutARegistration() {
+		User user = user("unregistered", null);
+
+		assertThatThrownBy(() -> gstr1Service.writeJson(user, YearMonth.now(), new ByteArrayOutputStream()))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void heapStaysBoundedForAMillionInvoices() throws Exception {
+		long invoices = 1_000_000;
+		long baseline = usedHeapAfterGc();
+		AtomicLong peak = new AtomicLong(baseline);
+
+		// Two items per invoice; the first half goes to 5,000 registered buyers, the rest to unregistered ones
+		Stream<Gstr1Row> synthetic = LongStream.range(0, invoices * 2).mapToObj(index -> {
+			long id = index / 2 + 1;
+			if (index % 200_000 == 0) {
+				peak.accumulateAndGet(usedHeapAfterGc(), Math::max);
+			}
+			String buyer = id <= invoices / 2 ? String.format("27AAPFU%04dF1ZV", id / 100) : null;
+			return index % 2 == 0 ? row(id, buyer, buyer != null, "1232.50", "8471", "1000.00", "18.00", "180.00")
+					: row(id, buyer, buyer != null, "1232.50", "0902", "50.00", "5.00", "2.50");
+		});
+
+		CountingOutputStream out = new CountingOutputStream();
+		long written = gstr1Service.writeJson("29AAACR5055K1Z7", YearMonth.of(2026, 4), synthetic, out);
+
+		assertThat(written).isEqualTo(invoices);
+		assertThat(out.count).isGreaterThan(invoices * 50);
+		// The B2B section alone is well over 100 MB of JSON
+		assertThat(peak.get() - baseline).isLessThan(64 * MB);
+	}
+
+	private static Gstr1Row row(long invoiceId, String buyerGstin, boolean interState, String invoiceTotal,
+			String hsnCode, String unitPrice, String gstRate, String gstAmount) {
+		return new Gstr1Row(invoiceId, "INV-" + invoiceId, LocalDate.of(2026, 4, 1 + (int) (invoiceId % 30)),
+				new BigDecimal(invoiceTotal), interState, buyerGstin, hsnCode, "Item " + hsnCode, 1,
+				new BigDecimal(unitPrice), new BigDecimal(gstRate), new BigDecimal(gstAmount));
+	}
+
+	private static void assertItem(JsonNode item, String rate, String taxable, String taxField, String tax) {
+		assertThat(item.get("rt").asText()).isEqualTo(rate);
+		assertThat(item.get("txval").decimalValue()).isEqualByComparingTo(taxable);
+		assertThat(item.get(taxField).decimalValue()).isEqualByComparingTo(tax);
+		assertThat(item.get("csamt").decimalValue()).isEqualByComparingTo("0");
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private User user(String name, String gstin) {
+		User user = TestData.user(name);
+		user.setGstin(gstin);
+		return userRepository.save(user);
+	}
+
+	private Customer customer(User user, String gstin) {
+		return customerRepository.save(TestData.customer(user, "Customer " + gstin, gstin));
+	}
+
+	private Product product(User user, String name, String hsnCode, String price, String gstRate) {
+		return productRepository.save(TestData.product(user, name, hsnCode, price, gstRate));
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.util.KeysetPage;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InvoiceAdvancedSearchTest {
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private User user;
+	private Customer acme;
+	private Customer globex;
+	private Product bolt;
+	private Product rice;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("search"));
+
+		acme = customerService.createCustomer(TestData.customer(user, "Acme Traders", null), user);
+		globex = customerService.createCustomer(TestData.customer(user, "Globex", null), user);
+		bolt = productService.createProduct(TestData.product(user, "Bolt", "7318", "100.00", "18.00"), user);
+		rice = productService.createProduct(TestData.product(user, "Rice", "1006", "100.00", "5.00"), user);
+	}
+
+	@Test
+	void combinesTypedFilters() {
+		Invoice acmeBolts = invoice(acme, bolt, 3);
+		Invoice acmeRice = invoice(acme, rice, 1);
+		Invoice globexBolt = invoice(globex, bolt, 1);
+
+		InvoiceSearchCriteria criteria = new InvoiceSearchCriteria();
+		criteria.setGstRate(new BigDecimal("18"));
+		assertThat(search(criteria)).containsExactlyInAnyOrder(acmeBolts.getId(), globexBolt.getId());
+
+		criteria.setCustomerName("ACME");
+		assertThat(search(criteria)).containsExactly(acmeBolts.getId());
+
+		criteria = new InvoiceSearchCriteria();
+		criteria.setHsnCode("10");
+		assertThat(search(criteria)).containsExactly(acmeRice.getId());
+
+		criteria = new InvoiceSearchCriteria();
+		criteria.setMinAmount(new BigDecimal("110.00"));
+		criteria.setMaxAmount(new BigDecimal("200.00"));
+		assertThat(search(criteria)).containsExactly(globexBolt.getId());
+
+		criteria = new InvoiceSearchCriteria();
+		criteria.setProductId(rice.getId());
+		criteria.setCustomerId(acme.getId());
+		criteria.setFromDate(LocalDate.now());
+		criteria.setToDate(LocalDate.now());
+		assertThat(search(criteria)).containsExactly(acmeRice.getId());
+		assertThat(invoiceService.countInvoices(user, criteria)).isEqualTo(1);
+
+		criteria.setFromDate(LocalDate.now().plusDays(1));
+		assertThat(search(criteria)).isEmpty();
+		assertThat(invoiceService.countInvoices(user, criteria)).isZero();
+	}
+
+	@Test
+	void pagesThroughMatchesByKeyBothWays() {
+		List<Long> expected = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			expected.add(0, invoice(acme, bolt, 1).getId());
+		}
+		invoice(acme, rice, 1);
+		InvoiceSearchCriteria criteria = new InvoiceSearchCriteria();
+		criteria.setHsnCode("7318");
+
+		List<Long> seen = new ArrayList<>();
+		KeysetPage<Invoice> page = invoiceService.searchInvoices(user, criteria, null, "newest", 2);
+		assertThat(page.hasPrevious()).isFalse();
+		page.getItems().forEach(invoice -> seen.add(invoice.getId()));
+		while (page.hasNext()) {
+			page = invoiceService.searchInvoices(user, criteria, page.getNextCursor(), "newest", 2);
+			page.getItems().forEach(invoice -> seen.add(invoice.getId()));
+		}
+		assertThat(seen).isEqualTo(expected);
+
+		KeysetPage<Invoice> back = invoiceService.searchInvoices(user, criteria, page.getPreviousCursor(), "newest",
+				2);
+		assertThat(back.getItems()).extracting(Invoice::getId).containsExactly(expected.get(2), expected.get(3));
+		assertThat(back.hasPrevious()).isTrue();
+		assertThat(back.hasNext()).isTrue();
+		assertThat(invoiceService.countInvoices(user, criteria)).isEqualTo(5);
+	}
+
+	@Test
+	void reusesTheQueryPlanOfAFilterCombination() {
+		invoice(acme, bolt, 1);
+		InvoiceSearchCriteria criteria = new InvoiceSearchCriteria();
+		criteria.setCustomerName("acme");
+		criteria.setMinAmount(BigDecimal.ONE);
+		search(criteria);
+		invoiceService.countInvoices(user, criteria);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		long misses = statistics.getQueryPlanCacheMissCount();
+		criteria.setCustomerName("glob");
+		criteria.setMinAmount(BigDecimal.TEN);
+		search(criteria);
+		invoiceService.countInvoices(user, criteria);
+
+		assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+	}
+
+	@Test
+	void advancedSearchPageCarriesFiltersAndCountInItsLinks() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			invoice(acme, bolt, 1);
+		}
+		UserDetails principal = userDetailsService.loadUserByUsername(user.getUsername());
+
+		mockMvc.perform(get("/invoices/advanced-search?customerName=acme&size=2").with(user(principal)))
+				.andExpect(status().isOk()).andExpect(model().attribute("total", 3L))
+				.andExpect(model().attribute("pageUrl", containsString("customerName=acme")))
+				.andExpect(model().attribute("pageUrl", containsString("total=3")));
+	}
+
+	private List<Long> search(InvoiceSearchCriteria criteria) {
+		return invoiceService.searchInvoices(user, criteria, null, "newest", KeysetPage.DEFAULT_SIZE).getItems()
+				.stream().map(Invoice::getId).toList();
+	}
+
+	private Invoice invoice(Customer customer, Product product, int quantity) {
+		return invoiceService.createInvoice(TestData.request(customer, quantity, product), user);
+	}
+}
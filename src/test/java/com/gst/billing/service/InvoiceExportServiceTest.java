@@ -0,0 +1,124 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class InvoiceExportServiceTest {
+
+	private static final long MB = 1024 * 1024;
+
+	@Autowired
+	private InvoiceExportService invoiceExportService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Test
+	void exportsOnlyTheUsersInvoicesNewestFirst() throws Exception {
+		User user = user("export");
+		User other = user("export-other");
+		Invoice first = invoiceService.createInvoice(request(user, "Acme Traders"), user);
+		Invoice second = invoiceService.createInvoice(request(user, "Globex"), user);
+		invoiceService.createInvoice(request(other, "Initech"), other);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		invoiceExportService.writeExcel(user.getId(), out);
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			Sheet sheet = workbook.getSheet("Invoices");
+			assertThat(sheet.getLastRowNum()).isEqualTo(2);
+			assertThat(sheet.getRow(0).getCell(1).getStringCellValue()).isEqualTo("Customer Name");
+			assertThat((long) sheet.getRow(1).getCell(0).getNumericCellValue()).isEqualTo(second.getId());
+			assertThat(sheet.getRow(1).getCell(1).getStringCellValue()).isEqualTo("Globex");
+			assertThat((long) sheet.getRow(2).getCell(0).getNumericCellValue()).isEqualTo(first.getId());
+			assertThat(sheet.getRow(2).getCell(5).getNumericCellValue()).isEqualTo(118.0);
+			assertThat(sheet.getRow(2).getCell(6).getNumericCellValue()).isEqualTo(9.0);
+			assertThat(sheet.getRow(2).getCell(7).getNumericCellValue()).isEqualTo(9.0);
+			assertThat(sheet.getRow(2).getCell(8).getNumericCellValue()).isEqualTo(0.0);
+		}
+	}
+
+	@Test
+	void heapStaysBoundedForAMillionRows() throws Exception {
+		long rows = 1_000_000;
+		long baseline = usedHeapAfterGc();
+		AtomicLong peak = new AtomicLong(baseline);
+
+		Stream<InvoiceExportRow> synthetic = LongStream.rangeClosed(1, rows).mapToObj(id -> {
+			if (id % 100_000 == 0) {
+				peak.accumulateAndGet(usedHeapAfterGc(), Math::max);
+			}
+			return new InvoiceExportRow(id, "Customer " + (id % 5000), LocalDate.of(2026, 4, 1).plusDays(id % 365),
+					new BigDecimal("1000.00"), new BigDecimal("180.00"), new BigDecimal("1180.00"), new BigDecimal("90.00"),
+					new BigDecimal("90.00"), BigDecimal.ZERO);
+		});
+
+		CountingOutputStream out = new CountingOutputStream();
+		long written = invoiceExportService.writeExcel(synthetic, out);
+
+		assertThat(written).isEqualTo(rows);
+		assertThat(out.count).isGreaterThan(rows);
+		// An in-memory workbook of this size needs well over a gigabyte
+		assertThat(peak.get() - baseline).isLessThan(64 * MB);
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private User user(String name) {
+		return userRepository.save(TestData.user(name));
+	}
+
+	private InvoiceRequest request(User user, String customerName) {
+		Customer customer = customerRepository.save(TestData.customer(user, customerName, null));
+		Product product = productRepository.save(TestData.product(user, "Widget", "8471", "100.00", "18.00"));
+		return TestData.request(customer, product);
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.gst.billing.service;
+
+import com.gst.billing.GstBillingSystemApplication;
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class InvoiceNumberAllocatorTest {
+
+	@Autowired
+	private InvoiceNumberAllocator allocator;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private HikariDataSource dataSource;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("numbers"));
+	}
+
+	@Test
+	void financialYearRollsOverInApril() {
+		assertThat(InvoiceNumberAllocator.financialYear(LocalDate.of(2026, 3, 31))).isEqualTo("2025-26");
+		assertThat(InvoiceNumberAllocator.financialYear(LocalDate.of(2026, 4, 1))).isEqualTo("2026-27");
+		assertThat(InvoiceNumberAllocator.financialYear(LocalDate.of(2099, 12, 1))).isEqualTo("2099-00");
+	}
+
+	@Test
+	void numbersAreSequentialPerUserAndFinancialYear() {
+		LocalDate date = LocalDate.of(2026, 5, 10);
+
+		String series = Long.toString(user.getId(), 36).toUpperCase();
+		assertThat(allocator.nextInvoiceNumber(user, date)).isEqualTo(series + "-26000001");
+		assertThat(allocator.nextInvoiceNumber(user, date)).isEqualTo(series + "-26000002");
+		assertThat(allocator.nextInvoiceNumber(user, LocalDate.of(2027, 4, 1))).isEqualTo(series + "-27000001");
+	}
+
+	@Test
+	void numbersFitTheSixteenCharactersGstAllows() {
+		assertThat(InvoiceNumberAllocator.invoiceNumber(5, "2026-27", 1)).isEqualTo("5-26000001");
+		// The largest user id whose numbers still fit: ZZZZZZZ in base 36
+		String longest = InvoiceNumberAllocator.invoiceNumber(78_364_164_095L, "2026-27", 999_999);
+		assertThat(longest).isEqualTo("ZZZZZZZ-26999999").hasSize(InvoiceNumberAllocator.MAX_LENGTH);
+		assertThatThrownBy(() -> InvoiceNumberAllocator.invoiceNumber(78_364_164_095L, "2026-27", 1_000_000))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(allocator.nextInvoiceNumber(user, LocalDate.now()))
+				.hasSizeLessThanOrEqualTo(InvoiceNumberAllocator.MAX_LENGTH).matches("[0-9A-Z-]+");
+	}
+
+	@Test
+	void nodesSharingOneDatabaseNeverHandOutTheSameNumber() throws Exception {
+		// Second application node on the same embedded database; it must not touch the schema
+		ConfigurableApplicationContext secondNode = new SpringApplicationBuilder(GstBillingSystemApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + dataSource.getJdbcUrl(), "--spring.jpa.hibernate.ddl-auto=none");
+		try {
+			InvoiceNumberAllocator otherAllocator = secondNode.getBean(InvoiceNumberAllocator.class);
+			LocalDate date = LocalDate.of(2026, 6, 1);
+
+			Set<String> numbers = ConcurrentHashMap.newKeySet();
+			ExecutorService executor = Executors.newFixedThreadPool(8);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				InvoiceNumberAllocator node = thread % 2 == 0 ? allocator : otherAllocator;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 50; i++) {
+						assertThat(numbers.add(node.nextInvoiceNumber(user, date))).isTrue();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+			executor.shutdown();
+
+			// Every block was used up, so the series is dense as well as unique
+			assertThat(numbers).hasSize(400);
+			for (int n = 1; n <= 400; n++) {
+				assertThat(numbers).contains(InvoiceNumberAllocator.invoiceNumber(user.getId(), "2026-27", n));
+			}
+		} finally {
+			secondNode.close();
+		}
+	}
+
+	@Test
+	void gapReportListsNumbersHandedOutButNeverSaved() {
+		InvoiceRequest request = request();
+
+		invoiceService.createInvoice(request, user);
+		allocator.nextInvoiceNumber(user, LocalDate.now()); // e.g. a rolled back transaction
+		invoiceService.createInvoice(request, user);
+
+		String financialYear = InvoiceNumberAllocator.financialYear(LocalDate.now());
+		InvoiceNumberAllocator.NumberGapReport report = allocator.getGapReport(user, financialYear);
+
+		assertThat(report.getHighestUsed()).isEqualTo(3);
+		assertThat(report.getIssuedUpTo()).isGreaterThanOrEqualTo(3);
+		assertThat(report.getMissingNumbers()).containsExactly(2L);
+	}
+
+	@Test
+	void gapReportCountsNumbersIssuedInTheOldFormat() {
+		String financialYear = InvoiceNumberAllocator.financialYear(LocalDate.now());
+		Invoice legacy = invoiceService.createInvoice(request(), user);
+		legacy.setInvoiceNumber("INV-" + user.getId() + "/" + financialYear + "/000001");
+		invoiceRepository.save(legacy);
+		invoiceService.createInvoice(request(), user);
+
+		InvoiceNumberAllocator.NumberGapReport report = allocator.getGapReport(user, financialYear);
+
+		assertThat(report.getHighestUsed()).isEqualTo(2);
+		assertThat(report.getMissingNumbers()).isEmpty();
+	}
+
+	@Test
+	void gapReportLeavesOutBlocksOtherNodesStillHold() {
+		ConfigurableApplicationContext secondNode = new SpringApplicationBuilder(GstBillingSystemApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + dataSource.getJdbcUrl(), "--spring.jpa.hibernate.ddl-auto=none");
+		String financialYear = InvoiceNumberAllocator.financialYear(LocalDate.now());
+		try {
+			// The other node takes numbers 1 to 20 and has handed out only the first, still unsaved
+			secondNode.getBean(InvoiceNumberAllocator.class).nextInvoiceNumber(user, LocalDate.now());
+			invoiceService.createInvoice(request(), user);
+
+			InvoiceNumberAllocator.NumberGapReport report = allocator.getGapReport(user, financialYear);
+			assertThat(report.getHighestUsed()).isEqualTo(21);
+			assertThat(report.getMissingNumbers()).isEmpty();
+			assertThat(report.getBlocksHeldElsewhere()).singleElement()
+					.satisfies(block -> assertThat(block.getStartValue()).isEqualTo(1))
+					.satisfies(block -> assertThat(block.getEndValue()).isEqualTo(21));
+		} finally {
+			secondNode.close();
+		}
+
+		// Stopping gave the block back, but the counter had moved on, so all of it is lost
+		InvoiceNumberAllocator.NumberGapReport report = allocator.getGapReport(user, financialYear);
+		assertThat(report.getBlocksHeldElsewhere()).isEmpty();
+		assertThat(report.getMissingNumbers()).hasSize(20).startsWith(1L).endsWith(20L);
+	}
+
+	private InvoiceRequest request() {
+		Customer customer = customerRepository.save(TestData.customer(user, "Gap Traders", null));
+		Product product = productRepository.save(TestData.product(user, "Widget", "8471", "100.00", "18.00"));
+		return TestData.request(customer, product);
+	}
+}
@@ -0,0 +1,115 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class InvoiceServiceTest {
+
+	// Matches allocationSize of the invoice item sequence
+	private static final int ID_BLOCK_SIZE = 50;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User user;
+	private Customer customer;
+	private List<Product> products;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = String.valueOf(System.nanoTime());
+
+		user = userRepository.save(TestData.user("billing"));
+
+		customer = new Customer("Acme Traders", "acme-" + suffix + "@example.com", "9876543210", "Pune",
+				"27AAACA1234A1Z5");
+		customer.setCreatedBy(user);
+		customer = customerRepository.save(customer);
+
+		products = new ArrayList<>();
+		BigDecimal[] rates = { new BigDecimal("0.00"), new BigDecimal("5.00"), new BigDecimal("12.00"),
+				new BigDecimal("18.00"), new BigDecimal("28.00") };
+		for (int i = 0; i < 100; i++) {
+			Product product = new Product("Item " + i, null, new BigDecimal("10.50").add(BigDecimal.valueOf(i)),
+					"8471", rates[i % rates.length]);
+			product.setCreatedBy(user);
+			products.add(product);
+		}
+		products = productRepository.saveAll(products);
+	}
+
+	@Test
+	void createInvoiceCalculatesTotalsFromCatalog() {
+		Invoice invoice = invoiceService.createInvoice(request(3), user);
+
+		assertThat(invoice.getItems()).hasSize(3);
+		// 10.50 @ 0% + 2 x 11.50 @ 5% + 3 x 12.50 @ 12%
+		assertThat(invoice.getSubtotal()).isEqualByComparingTo("71.00");
+		assertThat(invoice.getTotalGst()).isEqualByComparingTo("5.65");
+		assertThat(invoice.getTotalAmount()).isEqualByComparingTo("76.65");
+	}
+
+	@Test
+	void statementCountDoesNotGrowWithInvoiceLines() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		// Warm up id pools and query plans
+		invoiceService.createInvoice(request(1), user);
+
+		statistics.clear();
+		invoiceService.createInvoice(request(1), user);
+		long singleLineStatements = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		invoiceService.createInvoice(request(100), user);
+		long hundredLineStatements = statistics.getPrepareStatementCount();
+
+		// The invoice, its lines and one tax line per GST rate
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + 100 + 5);
+		// Only extra id blocks may be fetched; no per-line SELECT or INSERT statements
+		assertThat(hundredLineStatements).isLessThanOrEqualTo(singleLineStatements + 100 / ID_BLOCK_SIZE);
+	}
+
+	private InvoiceRequest request(int lines) {
+		InvoiceRequest request = new InvoiceRequest();
+		request.setCustomerId(customer.getId());
+		for (int i = 0; i < lines; i++) {
+			InvoiceItemRequest item = new InvoiceItemRequest();
+			item.setProductId(products.get(i).getId());
+			item.setQuantity(i + 1);
+			request.getItems().add(item);
+		}
+		return request;
+	}
+}
@@ -0,0 +1,196 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.InvoiceRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "billing.seller.gstin=29AABCU9603R1ZX")
+class InvoiceTaxServiceTest {
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceTaxService invoiceTaxService;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void sameStateSplitsEachRateIntoCgstAndSgst() {
+		User user = user("tax-intra", null);
+		Invoice invoice = invoiceService.createInvoice(TestData.request(customer(user, "29ABCDE1234F1Z5"),
+				product(user, "1.50", "18.00"), product(user, "100.00", "5.00")), user);
+
+		List<InvoiceTaxLine> lines = taxLines(invoice.getId());
+		assertThat(lines).hasSize(2);
+		// 5% of 100.00 = 5.00
+		assertLine(lines.get(0), "5.00", "100.00", "2.50", "2.50", "0");
+		// 18% of 1.50 = 0.27; the odd paisa goes to CGST so the halves add up
+		assertLine(lines.get(1), "18.00", "1.50", "0.14", "0.13", "0");
+
+		Invoice stored = invoiceRepository.findById(invoice.getId()).orElseThrow();
+		assertThat(stored.isInterState()).isFalse();
+		assertThat(stored.getSellerGstin()).isEqualTo("29AABCU9603R1ZX");
+		assertThat(lines.get(0).getGstAmount().add(lines.get(1).getGstAmount()))
+				.isEqualByComparingTo(stored.getTotalGst());
+	}
+
+	@Test
+	void otherStateIsChargedIgst() {
+		User user = user("tax-inter", null);
+		Invoice invoice = invoiceService.createInvoice(
+				TestData.request(customer(user, "27AAPFU0939F1ZV"), product(user, "1.50", "18.00")), user);
+
+		List<InvoiceTaxLine> lines = taxLines(invoice.getId());
+		assertThat(lines).hasSize(1);
+		assertLine(lines.get(0), "18.00", "1.50", "0", "0", "0.27");
+		assertThat(invoiceRepository.findById(invoice.getId()).orElseThrow().isInterState()).isTrue();
+	}
+
+	@Test
+	void usersOwnGstinDecidesTheSellerState() {
+		User user = user("tax-own", "27AAACR5055K1Z7");
+		Invoice sameState = invoiceService.createInvoice(
+				TestData.request(customer(user, "27AAPFU0939F1ZV"), product(user, "10.00", "12.00")), user);
+		Invoice otherState = invoiceService.createInvoice(
+				TestData.request(customer(user, "29ABCDE1234F1Z5"), product(user, "10.00", "12.00")), user);
+
+		assertLine(taxLines(sameState.getId()).get(0), "12.00", "10.00", "0.60", "0.60", "0");
+		assertLine(taxLines(otherState.getId()).get(0), "12.00", "10.00", "0", "0", "1.20");
+		assertThat(invoiceRepository.findById(sameState.getId()).orElseThrow().getSellerGstin())
+				.isEqualTo("27AAACR5055K1Z7");
+	}
+
+	@Test
+	void customerWithoutGstinIsTreatedAsSameState() {
+		User user = user("tax-unregistered", null);
+		Invoice invoice = invoiceService.createInvoice(
+				TestData.request(customer(user, null), product(user, "10.00", "12.00")), user);
+
+		assertLine(taxLines(invoice.getId()).get(0), "12.00", "10.00", "0.60", "0.60", "0");
+	}
+
+	@Test
+	void updateRecalculatesTheLines() {
+		User user = user("tax-update", null);
+		Product product = product(user, "10.00", "12.00");
+		Invoice invoice = invoiceService.createInvoice(TestData.request(customer(user, "29ABCDE1234F1Z5"), product),
+				user);
+
+		// Moving the invoice to a customer in another state switches it to IGST
+		InvoiceRequest update = TestData.request(customer(user, "27AAPFU0939F1ZV"), product(user, "20.00", "28.00"));
+		invoiceService.updateInvoice(invoice.getId(), update, user);
+
+		List<InvoiceTaxLine> lines = taxLines(invoice.getId());
+		assertThat(lines).hasSize(1);
+		assertLine(lines.get(0), "28.00", "20.00", "0", "0", "5.60");
+	}
+
+	@Test
+	void backfillWritesLinesForInvoicesWithoutThem() {
+		User user = user("tax-backfill", null);
+		Invoice invoice = invoiceService.createInvoice(
+				TestData.request(customer(user, "29ABCDE1234F1Z5"), product(user, "1.50", "18.00")), user);
+
+		// As saved before tax lines were stored
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Invoice stored = invoiceRepository.findById(invoice.getId()).orElseThrow();
+			stored.getTaxLines().clear();
+			stored.setSellerGstin(null);
+		});
+		assertThat(taxLines(invoice.getId())).isEmpty();
+
+		invoiceTaxService.backfill();
+
+		List<InvoiceTaxLine> lines = taxLines(invoice.getId());
+		assertThat(lines).hasSize(1);
+		assertLine(lines.get(0), "18.00", "1.50", "0.14", "0.13", "0");
+		assertThat(invoiceRepository.findById(invoice.getId()).orElseThrow().getSellerGstin())
+				.isEqualTo("29AABCU9603R1ZX");
+	}
+
+	@Test
+	void stateCodeIsTheTwoLeadingDigits() {
+		assertThat(InvoiceTaxService.stateCode("29AABCU9603R1ZX")).isEqualTo("29");
+		assertThat(InvoiceTaxService.stateCode(" 07AAACR5055K1Z7")).isEqualTo("07");
+		assertThat(InvoiceTaxService.stateCode("AB1234")).isNull();
+		assertThat(InvoiceTaxService.stateCode("")).isNull();
+		assertThat(InvoiceTaxService.stateCode(null)).isNull();
+		assertThat(InvoiceTaxService.isInterState("29AABCU9603R1ZX", null)).isFalse();
+		assertThat(InvoiceTaxService.isInterState(null, "27AAPFU0939F1ZV")).isFalse();
+	}
+
+	@Test
+	void exportRowsSumTheTaxLinesOfEachInvoice() {
+		User user = user("tax-export", null);
+		invoiceService.createInvoice(TestData.request(customer(user, "29ABCDE1234F1Z5"),
+				product(user, "1.50", "18.00"), product(user, "100.00", "5.00")), user);
+		invoiceService.createInvoice(
+				TestData.request(customer(user, "27AAPFU0939F1ZV"), product(user, "1.50", "18.00")), user);
+
+		List<InvoiceExportRow> rows = new TransactionTemplate(transactionManager)
+				.execute(status -> invoiceRepository.streamExportRowsByUserId(user.getId()).toList());
+
+		assertThat(rows).hasSize(2);
+		assertThat(rows.get(0).getIgst()).isEqualByComparingTo("0.27");
+		assertThat(rows.get(0).getCgst()).isEqualByComparingTo("0");
+		assertThat(rows.get(1).getCgst()).isEqualByComparingTo("2.64");
+		assertThat(rows.get(1).getSgst()).isEqualByComparingTo("2.63");
+		assertThat(rows.get(1).getIgst()).isEqualByComparingTo("0");
+	}
+
+	private List<InvoiceTaxLine> taxLines(Long invoiceId) {
+		return new TransactionTemplate(transactionManager).execute(
+				status -> new ArrayList<>(invoiceRepository.findById(invoiceId).orElseThrow().getTaxLines()));
+	}
+
+	private static void assertLine(InvoiceTaxLine line, String rate, String taxable, String cgst, String sgst,
+			String igst) {
+		assertThat(line.getGstRate()).isEqualByComparingTo(rate);
+		assertThat(line.getTaxableAmount()).isEqualByComparingTo(taxable);
+		assertThat(line.getCgstAmount()).isEqualByComparingTo(cgst);
+		assertThat(line.getSgstAmount()).isEqualByComparingTo(sgst);
+		assertThat(line.getIgstAmount()).isEqualByComparingTo(igst);
+	}
+
+	private User user(String name, String gstin) {
+		User user = TestData.user(name);
+		user.setGstin(gstin);
+		return userRepository.save(user);
+	}
+
+	private Customer customer(User user, String gstin) {
+		return customerRepository.save(TestData.customer(user, "Customer " + gstin, gstin));
+	}
+
+	private Product product(User user, String price, String gstRate) {
+		return productRepository.save(TestData.product(user, "Item " + price, "8471", price, gstRate));
+	}
+}
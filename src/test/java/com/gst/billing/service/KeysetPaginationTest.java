@@ -0,0 +1,133 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.util.KeysetPage;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class KeysetPaginationTest {
+
+	private static final int PAGE_SIZE = 7;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("keyset"));
+	}
+
+	@Test
+	void walksForwardAndBackwardWithoutGapsOrDuplicates() {
+		// Repeated names make the id tie-breaker matter
+		List<Customer> saved = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			saved.add(customerRepository.save(TestData.customer(user, "Customer " + (char) ('A' + i % 12), null)));
+		}
+		List<Long> expected = saved.stream()
+				.sorted(Comparator.comparing(Customer::getName).thenComparing(Customer::getId)).map(Customer::getId)
+				.toList();
+
+		List<KeysetPage<Customer>> pages = new ArrayList<>();
+		KeysetPage<Customer> page = customerService.getCustomerPage(user, null, "name", PAGE_SIZE);
+		pages.add(page);
+		while (page.hasNext()) {
+			page = customerService.getCustomerPage(user, page.getNextCursor(), "name", PAGE_SIZE);
+			pages.add(page);
+		}
+		assertThat(pages).hasSize(5);
+		assertThat(pages.get(0).hasPrevious()).isFalse();
+		assertThat(ids(pages)).isEqualTo(expected);
+
+		// Walk back from the last page and expect the same pages in reverse
+		List<KeysetPage<Customer>> backward = new ArrayList<>();
+		backward.add(page);
+		while (page.hasPrevious()) {
+			page = customerService.getCustomerPage(user, page.getPreviousCursor(), "name", PAGE_SIZE);
+			backward.add(page);
+		}
+		Collections.reverse(backward);
+		assertThat(ids(backward)).isEqualTo(expected);
+		assertThat(backward.get(0).hasPrevious()).isFalse();
+		assertThat(backward.get(0).hasNext()).isTrue();
+
+		KeysetPage<Customer> descending = customerService.getCustomerPage(user, null, "name_desc", PAGE_SIZE);
+		assertThat(descending.getItems().get(0).getName()).isEqualTo("Customer L");
+	}
+
+	@Test
+	void unreadableCursorStartsAtTheFirstPage() {
+		for (int i = 0; i < 3; i++) {
+			customerRepository.save(TestData.customer(user, "Cursor " + i, null));
+		}
+
+		KeysetPage<Customer> page = customerService.getCustomerPage(user, "not-a-cursor!", "name", PAGE_SIZE);
+
+		assertThat(page.getItems()).extracting(Customer::getName).containsExactly("Cursor 0", "Cursor 1",
+				"Cursor 2");
+		assertThat(page.hasPrevious()).isFalse();
+	}
+
+	@Test
+	void deepPagesCostTheSameAsTheFirst() {
+		Customer customer = customerRepository.save(TestData.customer(user, "Keyset Traders", null));
+		Product product = productRepository.save(TestData.product(user, "Widget", "8471", "10.00", "18.00"));
+		for (int i = 0; i < 40; i++) {
+			invoiceService.createInvoice(TestData.request(customer, product), user);
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		KeysetPage<Invoice> page = invoiceService.getUserInvoicePage(user, null, "newest", 5);
+		long firstPageStatements = statistics.getPrepareStatementCount();
+
+		for (int i = 0; i < 6; i++) {
+			page = invoiceService.getUserInvoicePage(user, page.getNextCursor(), "newest", 5);
+		}
+		statistics.clear();
+		page = invoiceService.getUserInvoicePage(user, page.getNextCursor(), "newest", 5);
+
+		assertThat(page.getItems()).hasSize(5);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(firstPageStatements);
+	}
+
+	private static List<Long> ids(List<KeysetPage<Customer>> pages) {
+		return pages.stream().flatMap(p -> p.getItems().stream()).map(Customer::getId).toList();
+	}
+}
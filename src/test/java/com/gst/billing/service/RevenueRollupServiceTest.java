@@ -0,0 +1,157 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.CustomerRepository;
+import com.gst.billing.repository.DailyRevenueRollupRepository;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RevenueRollupServiceTest {
+
+	@Autowired
+	private RevenueRollupService revenueRollupService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private DailyRevenueRollupRepository dailyRollupRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private User user;
+	private Customer customer;
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestData.user("rollup"));
+
+		customer = customerRepository.save(TestData.customer(user, "Rollup Traders", null));
+		product = productRepository.save(TestData.product(user, "Widget", "8471", "100.00", "18.00"));
+	}
+
+	@Test
+	void invoiceWritesKeepTheRollupsInStep() {
+		Invoice first = invoiceService.createInvoice(request(1), user);
+		invoiceService.createInvoice(request(2), user);
+		assertThat(todaysRevenue()).isEqualByComparingTo("354.00");
+
+		invoiceService.updateInvoice(first.getId(), request(3), user);
+		assertThat(todaysRevenue()).isEqualByComparingTo("590.00");
+
+		invoiceService.deleteInvoice(first.getId(), user);
+		assertThat(todaysRevenue()).isEqualByComparingTo("236.00");
+
+		String month = TrendPeriod.MONTH.label(LocalDate.now().withDayOfMonth(1));
+		DashboardService.RevenueSeries monthly = dashboardService.getMonthlySeries(user, false);
+		assertThat(monthly.getLabels()).hasSize(12).last().isEqualTo(month);
+		assertThat(monthly.getValues()).hasSize(12).last().isEqualTo(236.0);
+		assertThat(monthly.getValues().subList(0, 11)).containsOnly(0.0);
+	}
+
+	@Test
+	void deletingTheLastInvoiceOfADayRemovesItsRow() {
+		Invoice invoice = invoiceService.createInvoice(request(1), user);
+		invoiceService.deleteInvoice(invoice.getId(), user);
+
+		assertThat(revenueRollupService.getDailyRevenue(user.getId())).isEmpty();
+		assertThat(revenueRollupService.getMonthlyRevenue(user.getId())).isEmpty();
+	}
+
+	@Test
+	void deletingLeavesOtherRowsAlone() {
+		// An emptied row on another day is not this delete's business
+		LocalDate otherDay = LocalDate.now().minusYears(1);
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> dailyRollupRepository
+				.addDelta(user.getId(), otherDay, 0, BigDecimal.ZERO, BigDecimal.ZERO));
+
+		Invoice invoice = invoiceService.createInvoice(request(1), user);
+		invoiceService.deleteInvoice(invoice.getId(), user);
+
+		assertThat(revenueRollupService.getDailyRevenue(user.getId())).extracting(row -> row[0])
+				.containsExactly(otherDay);
+		new TransactionTemplate(transactionManager)
+				.executeWithoutResult(status -> dailyRollupRepository.deleteIfEmpty(user.getId(), otherDay));
+	}
+
+	@Test
+	void rebuildMatchesIncrementalTotals() {
+		invoiceService.createInvoice(request(1), user);
+		invoiceService.createInvoice(request(4), user);
+		List<Object[]> incremental = revenueRollupService.getMonthlyRevenue(null);
+		long rows = dailyRollupRepository.count();
+
+		revenueRollupService.rebuild();
+
+		List<Object[]> rebuilt = revenueRollupService.getMonthlyRevenue(null);
+		assertThat(dailyRollupRepository.count()).isEqualTo(rows);
+		assertThat(rebuilt).hasSameSizeAs(incremental);
+		for (int i = 0; i < rebuilt.size(); i++) {
+			assertThat(rebuilt.get(i)[0]).isEqualTo(incremental.get(i)[0]);
+			assertThat(rebuilt.get(i)[1]).isEqualTo(incremental.get(i)[1]);
+			assertThat((BigDecimal) rebuilt.get(i)[2]).isEqualByComparingTo((BigDecimal) incremental.get(i)[2]);
+		}
+	}
+
+	@Test
+	void eachDashboardSeriesIsOneQuery() {
+		for (int i = 0; i < 5; i++) {
+			invoiceService.createInvoice(request(1), user);
+		}
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		statistics.clear();
+		dashboardService.getMonthlySeries(user, false);
+		dashboardService.getDailySeries(user, true);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(dashboardService.getMonthlySeries(user, false).getLabels())
+				.endsWith(TrendPeriod.MONTH.label(LocalDate.now().withDayOfMonth(1)));
+	}
+
+	private BigDecimal todaysRevenue() {
+		return revenueRollupService.getDailyRevenue(user.getId()).stream()
+				.filter(row -> LocalDate.now().equals(row[0])).map(row -> (BigDecimal) row[1]).findFirst()
+				.orElse(BigDecimal.ZERO);
+	}
+
+	private InvoiceRequest request(int quantity) {
+		return TestData.request(customer, quantity, product);
+	}
+}
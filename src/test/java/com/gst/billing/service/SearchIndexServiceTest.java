@@ -0,0 +1,190 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.*;
+import com.gst.billing.repository.ProductRepository;
+import com.gst.billing.repository.UserRepository;
+import com.gst.billing.util.SearchPage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SearchIndexServiceTest {
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = newUser("search");
+	}
+
+	@Test
+	void findsOnlyTheUsersOwnRecordsOfThatType() {
+		User other = newUser("other");
+		customerService.createCustomer(customer("Acme Traders", null, null), user);
+		customerService.createCustomer(customer("Acme Exports", null, null), other);
+		productService.createProduct(product("Acme Bolt", "7318"), user);
+
+		assertThat(customerNames("acme")).containsExactly("Acme Traders");
+		assertThat(productNames("acme")).containsExactly("Acme Bolt");
+	}
+
+	@Test
+	void matchesInsideValuesAndRanksCloserMatchesFirst() {
+		customerService.createCustomer(customer("Gunsteel Works", null, null), user);
+		customerService.createCustomer(customer("Steel Traders", null, null), user);
+		customerService.createCustomer(customer("Steel", null, null), user);
+		customerService.createCustomer(customer("Kiran Stores", "9845012345", "27AAPFU0939F1ZV"), user);
+
+		assertThat(customerNames("steel")).containsExactly("Steel", "Steel Traders", "Gunsteel Works");
+		assertThat(customerNames("STEEL trad")).containsExactly("Steel Traders");
+		assertThat(customerNames("5012")).containsExactly("Kiran Stores");
+		assertThat(customerNames("aapfu0939")).containsExactly("Kiran Stores");
+		assertThat(customerNames("copper")).isEmpty();
+	}
+
+	@Test
+	void searchesProductsByHsnCodeAndInvoicesByNumber() {
+		Product bolt = productService.createProduct(product("Bolt", "73181500"), user);
+		productService.createProduct(product("Washer", "73182200"), user);
+		Customer customer = customerService.createCustomer(customer("Acme", null, null), user);
+		Invoice invoice = invoiceService.createInvoice(TestData.request(customer, bolt), user);
+
+		assertThat(names(productService.searchProductsByHsnCode("7318", user, 0, 20)))
+				.containsExactlyInAnyOrder("Bolt", "Washer");
+		assertThat(names(productService.searchProductsByHsnCode("1815", user, 0, 20))).containsExactly("Bolt");
+
+		String number = invoice.getInvoiceNumber();
+		SearchPage<Invoice> results = invoiceService.searchInvoicesByNumber(number.substring(number.length() - 3),
+				user, 0, 20);
+		assertThat(results.getItems()).extracting(Invoice::getId).containsExactly(invoice.getId());
+		assertThat(results.getItems().get(0).getCustomer().getName()).isEqualTo("Acme");
+	}
+
+	@Test
+	void followsUpdatesDeletesAndRollbacks() {
+		Product product = productService.createProduct(product("Widget", "8471"), user);
+
+		productService.updateProduct(product.getId(), product("Gizmo", "8471"), user);
+		assertThat(productNames("widget")).isEmpty();
+		assertThat(productNames("gizmo")).containsExactly("Gizmo");
+
+		productService.deleteProduct(product.getId(), user);
+		assertThat(productNames("gizmo")).isEmpty();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			productService.createProduct(product("Draft", "8471"), user);
+			status.setRollbackOnly();
+		});
+		assertThat(productNames("draft")).isEmpty();
+	}
+
+	@Test
+	void rebuildIndexesRowsWrittenBehindItsBack() throws Exception {
+		Product product = product("Lathe", "8458");
+		product.setCreatedBy(user);
+		productRepository.save(product);
+		assertThat(productNames("lathe")).isEmpty();
+
+		searchIndexService.rebuild();
+
+		assertThat(searchIndexService.isReady()).isTrue();
+		assertThat(productNames("lathe")).containsExactly("Lathe");
+	}
+
+	@Test
+	void pagesThroughRankedResults() throws Exception {
+		List<Product> products = new ArrayList<>();
+		for (int i = 1; i <= 25; i++) {
+			products.add(product("Item " + i, "8471"));
+		}
+		productService.createProducts(products, user);
+
+		SearchPage<Product> first = productService.searchProducts("item", user, 0, 10);
+		SearchPage<Product> last = productService.searchProducts("item", user, 2, 10);
+		assertThat(first.getItems()).hasSize(10);
+		assertThat(first.getTotal()).isEqualTo(25);
+		assertThat(first.hasNext()).isTrue();
+		assertThat(first.hasPrevious()).isFalse();
+		assertThat(last.getItems()).hasSize(5);
+		assertThat(last.hasNext()).isFalse();
+
+		UserDetails principal = userDetailsService.loadUserByUsername(user.getUsername());
+		mockMvc.perform(get("/products/search").param("query", "item").param("size", "10").with(user(principal)))
+				.andExpect(status().isOk()).andExpect(model().attribute("products", first.getItems()))
+				.andExpect(content().string(containsString("/products/search?query=item&amp;page=1&amp;size=10")));
+	}
+
+	private User newUser(String prefix) {
+		return userRepository.save(TestData.user(prefix));
+	}
+
+	private List<String> customerNames(String query) {
+		return customerService.searchCustomers(query, user, 0, 20).getItems().stream().map(Customer::getName)
+				.toList();
+	}
+
+	private List<String> productNames(String query) {
+		return names(productService.searchProducts(query, user, 0, 20));
+	}
+
+	private static List<String> names(SearchPage<Product> results) {
+		return results.getItems().stream().map(Product::getName).toList();
+	}
+
+	private static Customer customer(String name, String phone, String gstin) {
+		return new Customer(name, null, phone, null, gstin);
+	}
+
+	private static Product product(String name, String hsnCode) {
+		return new Product(name, null, new BigDecimal("10.00"), hsnCode, new BigDecimal("18.00"));
+	}
+}
@@ -0,0 +1,121 @@
+package com.gst.billing.service;
+
+import com.gst.billing.TestData;
+import com.gst.billing.model.Role;
+import com.gst.billing.model.User;
+import com.gst.billing.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserPrincipalCacheTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private User account;
+
+	@BeforeEach
+	void setUp() {
+		account = userRepository.save(TestData.user("principal"));
+	}
+
+	@Test
+	void principalCarriesTheIdAndRoleFromLogin() {
+		UserDetails principal = userDetailsService.loadUserByUsername(account.getUsername());
+
+		assertThat(principal).isInstanceOf(BillingUserDetails.class);
+		assertThat(((BillingUserDetails) principal).getUserId()).isEqualTo(account.getId());
+		assertThat(((BillingUserDetails) principal).getRole()).isEqualTo(Role.USER);
+	}
+
+	@Test
+	void resolvingTheLoggedInUserRunsNoQueries() throws Exception {
+		UserDetails principal = userDetailsService.loadUserByUsername(account.getUsername());
+		// The first resolution caches the user
+		userService.getUser(principal);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		assertThat(userService.getUser(principal).getId()).isEqualTo(account.getId());
+		mockMvc.perform(get("/invoices/create").with(user(principal))).andExpect(status().isOk())
+				.andExpect(view().name("invoices/create")).andExpect(model().attributeDoesNotExist("error"));
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void failedLoginsAreNotCached() throws Exception {
+		mockMvc.perform(formLogin().user(account.getUsername()).password("wrong")).andExpect(unauthenticated());
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		UserDetails principal = new BillingUserDetails(account.getId(), Role.USER, account.getUsername(), "secret",
+				true, List.of());
+		assertThat(userService.getUser(principal).getId()).isEqualTo(account.getId());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void adminChangesAreSeenOnTheNextRequest() {
+		UserDetails principal = userDetailsService.loadUserByUsername(account.getUsername());
+		assertThat(userService.getUser(principal).getGstin()).isNull();
+
+		User edited = userService.getUserById(account.getId());
+		edited.setGstin("27AAACR5055K1Z7");
+		userService.updateUser(edited);
+		assertThat(userService.getUser(principal).getGstin()).isEqualTo("27AAACR5055K1Z7");
+
+		userService.toggleUserStatus(account.getId());
+		assertThat(userService.getUser(principal).isEnabled()).isFalse();
+
+		userService.deleteUser(account.getId());
+		assertThatThrownBy(() -> userService.getUser(principal)).isInstanceOf(EntityNotFoundException.class);
+	}
+
+	@Test
+	void otherPrincipalsAreLookedUpByUsername() {
+		UserDetails principal = org.springframework.security.core.userdetails.User.withUsername(account.getUsername())
+				.password("secret").authorities(List.of()).build();
+
+		assertThat(userService.getUser(principal).getId()).isEqualTo(account.getId());
+	}
+}
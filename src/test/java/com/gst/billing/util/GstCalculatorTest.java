@@ -0,0 +1,170 @@
+package com.gst.billing.util;
+
+import com.gst.billing.model.InvoiceItem;
+import com.gst.billing.util.GstCalculator.PaiseSum;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The fixed-point path must give the same BigDecimal values, scale included,
+ * as the formulas it replaced.
+ */
+class GstCalculatorTest {
+
+	private static final String[] SLABS = { "0.00", "0.10", "0.25", "1.00", "1.50", "3.00", "5.00", "6.00", "7.50",
+			"12.00", "18.00", "28.00" };
+
+	@Test
+	void everySmallPriceAtEverySlabMatchesBigDecimal() {
+		for (String slab : SLABS) {
+			BigDecimal rate = new BigDecimal(slab);
+			for (long paise = 0; paise <= 5_000; paise++) {
+				for (int quantity = 1; quantity <= 3; quantity++) {
+					assertMatchesReference(BigDecimal.valueOf(paise, 2), quantity, rate);
+				}
+			}
+		}
+	}
+
+	@Test
+	void randomLinesMatchBigDecimal() {
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 200_000; i++) {
+			BigDecimal price = BigDecimal.valueOf(random.nextLong(-1_000_000, 100_000_000_000L), 2);
+			BigDecimal rate = BigDecimal.valueOf(random.nextLong(0, 10_001), random.nextInt(0, 3));
+			int quantity = random.nextInt(1, 10_001);
+			assertMatchesReference(price, quantity, rate);
+		}
+	}
+
+	@Test
+	void conversionsAreExactUpToTheirPrecisionLimits() {
+		SplittableRandom random = new SplittableRandom(11);
+		long limit = 999_999_999_999_999L;
+		for (long unscaled : new long[] { limit, -limit, limit - 1, 1L << 49, (1L << 49) + 1 }) {
+			assertThat(GstCalculator.toPaise(BigDecimal.valueOf(unscaled, 2))).isEqualTo(unscaled);
+		}
+		for (int i = 0; i < 1_000_000; i++) {
+			long unscaled = random.nextLong(-limit, limit + 1);
+			assertThat(GstCalculator.toPaise(BigDecimal.valueOf(unscaled, 2))).isEqualTo(unscaled);
+
+			long rate = random.nextLong(-999_999_999_999L, 1_000_000_000_000L);
+			int scale = random.nextInt(0, 3);
+			long expected = scale == 2 ? rate : rate * (scale == 1 ? 10 : 100);
+			assertThat(GstCalculator.toBasisPoints(BigDecimal.valueOf(rate, scale))).isEqualTo(expected);
+		}
+		assertThat(GstCalculator.toPaise(BigDecimal.valueOf(limit + 1, 2))).isEqualTo(GstCalculator.NOT_FIXED);
+	}
+
+	@Test
+	void halfPaiseRoundsAwayFromZero() {
+		assertThat(GstCalculator.gstOn(50, 500)).isEqualTo(3); // 2.5 paise
+		assertThat(GstCalculator.gstOn(-50, 500)).isEqualTo(-3);
+		assertThat(GstCalculator.gstOn(49, 500)).isEqualTo(2); // 2.45 paise
+		assertThat(GstCalculator.halfOf(5)).isEqualTo(3);
+		assertThat(GstCalculator.halfOf(-5)).isEqualTo(-3);
+	}
+
+	@Test
+	void inputsWithoutAFixedPointFormUseBigDecimal() {
+		assertMatchesReference(new BigDecimal("100"), 3, new BigDecimal("18"));
+		assertMatchesReference(new BigDecimal("10.005"), 7, new BigDecimal("12.00"));
+		assertMatchesReference(new BigDecimal("99.99"), 3, new BigDecimal("12.375"));
+		assertMatchesReference(new BigDecimal("92233720368547758.07"), 2, new BigDecimal("18.00"));
+		assertMatchesReference(new BigDecimal("9000000000000000.00"), 1000, new BigDecimal("28.00"));
+
+		assertThat(GstCalculator.toPaise(new BigDecimal("1E+2"))).isEqualTo(GstCalculator.NOT_FIXED);
+		assertThat(GstCalculator.toBasisPoints(new BigDecimal("1E+1"))).isEqualTo(GstCalculator.NOT_FIXED);
+	}
+
+	@Test
+	void sumsMatchBigDecimalAddition() {
+		SplittableRandom random = new SplittableRandom(7);
+		for (int run = 0; run < 2_000; run++) {
+			List<BigDecimal> amounts = new ArrayList<>();
+			int count = random.nextInt(0, 20);
+			for (int i = 0; i < count; i++) {
+				int kind = random.nextInt(10);
+				if (kind == 0) {
+					amounts.add(new BigDecimal(random.nextInt(1000))); // scale 0
+				} else if (kind == 1) {
+					amounts.add(BigDecimal.valueOf(random.nextLong(), 3)); // scale 3
+				} else if (kind == 2) {
+					amounts.add(BigDecimal.valueOf(Long.MAX_VALUE - random.nextInt(100), 2)); // overflows the sum
+				} else {
+					amounts.add(BigDecimal.valueOf(random.nextLong(-1_000_000, 1_000_000), 2));
+				}
+			}
+
+			BigDecimal expected = BigDecimal.ZERO;
+			PaiseSum sum = new PaiseSum();
+			for (BigDecimal amount : amounts) {
+				expected = expected.add(amount);
+				sum.add(amount);
+			}
+			assertThat(sum.toBigDecimal()).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void halvesMatchBigDecimalDivision() {
+		for (long paise = -10_000; paise <= 10_000; paise++) {
+			BigDecimal gst = BigDecimal.valueOf(paise, 2);
+			assertThat(GstCalculator.toRupees(GstCalculator.halfOf(paise)))
+					.isEqualTo(gst.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP));
+		}
+	}
+
+	@Test
+	void loadedItemsKeepTheirStoredAmounts() throws Exception {
+		InvoiceItem item = new InvoiceItem();
+		item.setQuantity(4);
+		item.setUnitPrice(new BigDecimal("12.50"));
+		item.setGstRate(new BigDecimal("18.00"));
+		// A stored amount that differs from what the formula would give now
+		item.setGstAmount(new BigDecimal("9.01"));
+
+		Method onLoad = InvoiceItem.class.getDeclaredMethod("onLoad");
+		onLoad.setAccessible(true);
+		onLoad.invoke(item);
+
+		PaiseSum subtotal = new PaiseSum();
+		PaiseSum gst = new PaiseSum();
+		item.addTo(subtotal, gst);
+		assertThat(item.getGstAmount()).isEqualTo(new BigDecimal("9.01"));
+		assertThat(gst.toBigDecimal()).isEqualTo(new BigDecimal("9.01"));
+		assertThat(subtotal.toBigDecimal()).isEqualTo(new BigDecimal("50.00"));
+	}
+
+	private static void assertMatchesReference(BigDecimal price, int quantity, BigDecimal rate) {
+		InvoiceItem item = new InvoiceItem();
+		item.setGstRate(rate);
+		item.setUnitPrice(price);
+		item.setQuantity(quantity);
+
+		// The formulas InvoiceItem used before the fixed-point path
+		BigDecimal subtotal = price.multiply(BigDecimal.valueOf(quantity));
+		BigDecimal gst = subtotal.multiply(rate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+		BigDecimal total = subtotal.add(gst);
+
+		String line = price + " x " + quantity + " @ " + rate;
+		assertThat(item.getSubtotal()).as(line).isEqualTo(subtotal);
+		assertThat(item.getGstAmount()).as(line).isEqualTo(gst);
+		assertThat(item.getTotalAmount()).as(line).isEqualTo(total);
+
+		PaiseSum subtotalSum = new PaiseSum();
+		PaiseSum gstSum = new PaiseSum();
+		item.addTo(subtotalSum, gstSum);
+		assertThat(subtotalSum.toBigDecimal()).as(line).isEqualTo(BigDecimal.ZERO.add(subtotal));
+		assertThat(gstSum.toBigDecimal()).as(line).isEqualTo(BigDecimal.ZERO.add(gst));
+	}
+}
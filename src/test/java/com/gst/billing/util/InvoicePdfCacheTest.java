@@ -0,0 +1,128 @@
+package com.gst.billing.util;
+
+import com.gst.billing.model.Customer;
+import com.gst.billing.model.Invoice;
+import com.gst.billing.model.InvoiceItem;
+import com.gst.billing.model.Product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoicePdfCacheTest {
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void secondDownloadIsServedFromDisk() throws IOException {
+		InvoicePdfCache cache = new InvoicePdfCache(pdfGenerator(), directory.toString(), 16);
+		Invoice invoice = invoice(1L, "Acme Traders");
+
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		cache.writeTo(invoice, new MockHttpServletRequest(), first);
+		MockHttpServletResponse second = new MockHttpServletResponse();
+		cache.writeTo(invoice, new MockHttpServletRequest(), second);
+
+		assertThat(first.getContentAsByteArray()).startsWith("%PDF".getBytes());
+		assertThat(second.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+		assertThat(second.getContentLength()).isEqualTo(first.getContentAsByteArray().length);
+		assertThat(cache.getStats().getHits()).isEqualTo(1);
+		assertThat(cache.getStats().getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void tomcatSendsTheFileItselfWhenItCan() throws IOException {
+		InvoicePdfCache cache = new InvoicePdfCache(pdfGenerator(), directory.toString(), 16);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(InvoicePdfCache.SENDFILE_SUPPORTED, Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		cache.writeTo(invoice(5L, "Acme Traders"), request, response);
+
+		Path file = Path.of((String) request.getAttribute(InvoicePdfCache.SENDFILE_FILENAME));
+		assertThat(file).startsWith(directory.toRealPath());
+		assertThat(Files.readAllBytes(file)).startsWith("%PDF".getBytes());
+		assertThat(request.getAttribute(InvoicePdfCache.SENDFILE_START)).isEqualTo(0L);
+		assertThat(request.getAttribute(InvoicePdfCache.SENDFILE_END)).isEqualTo(Files.size(file));
+		assertThat(response.getContentLengthLong()).isEqualTo(Files.size(file));
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	void changedContentIsRenderedAgainAndEvictRemovesFiles() throws IOException {
+		InvoicePdfCache cache = new InvoicePdfCache(pdfGenerator(), directory.toString(), 16);
+
+		cache.writeTo(invoice(7L, "Acme Traders"), new MockHttpServletRequest(), new MockHttpServletResponse());
+		cache.writeTo(invoice(7L, "Acme Traders Pvt Ltd"), new MockHttpServletRequest(), new MockHttpServletResponse());
+		assertThat(cache.getStats().getMisses()).isEqualTo(2);
+		assertThat(pdfFiles()).isEqualTo(2);
+
+		cache.evict(7L);
+		assertThat(pdfFiles()).isZero();
+		assertThat(cache.getStats().getEntries()).isZero();
+		assertThat(cache.getStats().getSizeBytes()).isZero();
+	}
+
+	@Test
+	void leastRecentlyUsedFilesAreEvictedPastTheLimit() throws IOException {
+		InvoicePdfCache cache = new InvoicePdfCache(pdfGenerator(), directory.toString(), 0);
+
+		cache.writeTo(invoice(1L, "Acme Traders"), new MockHttpServletRequest(), new MockHttpServletResponse());
+		cache.writeTo(invoice(2L, "Acme Traders"), new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		assertThat(cache.getStats().getEvictions()).isEqualTo(2);
+		assertThat(pdfFiles()).isZero();
+	}
+
+	@Test
+	void filesFromAnEarlierRunAreReused() throws IOException {
+		Invoice invoice = invoice(3L, "Acme Traders");
+		new InvoicePdfCache(pdfGenerator(), directory.toString(), 16).writeTo(invoice,
+				new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		InvoicePdfCache restarted = new InvoicePdfCache(pdfGenerator(), directory.toString(), 16);
+		restarted.writeTo(invoice, new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		assertThat(restarted.getStats().getHits()).isEqualTo(1);
+		assertThat(restarted.getStats().getMisses()).isZero();
+	}
+
+	private static PdfGenerator pdfGenerator() {
+		return new PdfGenerator(new BillingMetrics(new SimpleMeterRegistry()));
+	}
+
+	private long pdfFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith(".pdf")).count();
+		}
+	}
+
+	private Invoice invoice(Long id, String customerName) {
+		Invoice invoice = new Invoice();
+		invoice.setId(id);
+		invoice.setInvoiceNumber("INV-1/2026-27/00000" + id);
+		invoice.setInvoiceDate(LocalDate.of(2026, 5, 10));
+		invoice.setCustomer(new Customer(customerName, "acme@example.com", null, "Pune", "27AAACA1234A1Z5"));
+
+		Product product = new Product("Widget", null, new BigDecimal("100.00"), "8471", new BigDecimal("18.00"));
+		InvoiceItem item = new InvoiceItem(product, 2);
+		invoice.getItems().add(item);
+		invoice.setSubtotal(new BigDecimal("200.00"));
+		invoice.setTotalGst(new BigDecimal("36.00"));
+		invoice.setTotalAmount(new BigDecimal("236.00"));
+		return invoice;
+	}
+}
@@ -0,0 +1,62 @@
+package com.gst.billing.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTest {
+
+	@Test
+	void findsEveryValueWithAKeyStartingWithThePrefix() {
+		PrefixTrie<String> trie = PrefixTrie.<String>builder().add("Steel Pipe", "pipe").add("Pipe", "pipe")
+				.add("Steel Rod", "rod").add("Rod", "rod").add("Stainless Sheet", "sheet").add("Sheet", "sheet")
+				.add("7306", "pipe").add("  ", "blank").build();
+
+		assertThat(trie.startingWith("st")).containsExactly("sheet", "pipe", "rod");
+		assertThat(trie.startingWith("STEEL ")).containsExactly("pipe", "rod");
+		assertThat(trie.startingWith("steel rod")).containsExactly("rod");
+		assertThat(trie.startingWith("steel rods")).isEmpty();
+		assertThat(trie.startingWith("p")).containsExactly("pipe");
+		assertThat(trie.startingWith("73")).containsExactly("pipe");
+		assertThat(trie.startingWith("x")).isEmpty();
+		assertThat(trie.startingWith(" ")).isEmpty();
+		assertThat(trie.size()).isEqualTo(7);
+	}
+
+	@Test
+	void agreesWithAScanOverRandomKeys() {
+		SplittableRandom random = new SplittableRandom(7);
+		List<String> keys = new ArrayList<>();
+		PrefixTrie.Builder<Integer> builder = PrefixTrie.builder();
+		for (int i = 0; i < 2_000; i++) {
+			String key = randomWord(random, 1 + random.nextInt(8));
+			keys.add(key);
+			builder.add(key, i);
+		}
+		PrefixTrie<Integer> trie = builder.build();
+
+		for (int probe = 0; probe < 500; probe++) {
+			String prefix = randomWord(random, 1 + random.nextInt(4));
+			List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < keys.size(); i++) {
+				if (keys.get(i).startsWith(prefix)) {
+					expected.add(i);
+				}
+			}
+			assertThat(trie.startingWith(prefix)).containsExactlyInAnyOrderElementsOf(expected);
+		}
+	}
+
+	// Few letters, so keys share long prefixes
+	private static String randomWord(SplittableRandom random, int length) {
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			word.append((char) ('a' + random.nextInt(3)));
+		}
+		return word.toString();
+	}
+}
@@ -0,0 +1,36 @@
+package com.gst.billing.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchPageTest {
+
+	private final List<Integer> all = IntStream.range(0, 25).boxed().toList();
+
+	@Test
+	void cutsTheRequestedPage() {
+		SearchPage<Integer> page = SearchPage.of(all, 1, 10);
+
+		assertThat(page.getItems()).containsExactly(10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+		assertThat(page.getTotal()).isEqualTo(25);
+		assertThat(page.hasPrevious()).isTrue();
+		assertThat(page.hasNext()).isTrue();
+		assertThat(SearchPage.of(all, 5, 10).getItems()).isEmpty();
+	}
+
+	@Test
+	void clampsPageAndSizeAsTheIndexSearchDoes() {
+		SearchPage<Integer> negative = SearchPage.of(all, -1, 10);
+		assertThat(negative.getPage()).isZero();
+		assertThat(negative.getItems()).startsWith(0).hasSize(10);
+
+		assertThat(SearchPage.of(all, 0, 0).getItems()).containsExactly(0);
+		assertThat(SearchPage.of(all, 0, -5).getSize()).isEqualTo(1);
+		assertThat(SearchPage.of(all, 0, 1_000).getSize()).isEqualTo(100);
+		assertThat(SearchPage.of(all, Integer.MAX_VALUE, Integer.MAX_VALUE).getItems()).isEmpty();
+	}
+}
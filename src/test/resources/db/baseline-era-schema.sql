@@ -0,0 +1,25 @@
+-- Schema that ddl-auto=update created from the entities of the first release,
+-- before migrations existed, with a little data
+create table customers (id bigint not null auto_increment, created_at datetime(6), address TEXT, email varchar(100), gstin varchar(15), name varchar(100) not null, phone varchar(15), created_by bigint, primary key (id)) engine=InnoDB;
+create table invoice_items (id bigint not null auto_increment, gst_amount decimal(10,2) not null, gst_rate decimal(5,2) not null, quantity integer not null, total_amount decimal(10,2) not null, unit_price decimal(10,2) not null, invoice_id bigint not null, product_id bigint not null, primary key (id)) engine=InnoDB;
+create table invoices (id bigint not null auto_increment, created_at datetime(6), invoice_date date not null, invoice_number varchar(50) not null, subtotal decimal(10,2) not null, total_amount decimal(10,2) not null, total_gst decimal(10,2) not null, customer_id bigint not null, user_id bigint not null, primary key (id)) engine=InnoDB;
+create table products (id bigint not null auto_increment, created_at datetime(6), description TEXT, gst_rate decimal(5,2) not null, hsn_code varchar(10), name varchar(100) not null, price decimal(10,2) not null, created_by bigint, primary key (id)) engine=InnoDB;
+create table users (id bigint not null auto_increment, created_at datetime(6), email varchar(255) not null, enabled bit not null, password varchar(255) not null, role enum ('ADMIN','USER') not null, updated_at datetime(6), username varchar(255) not null, primary key (id)) engine=InnoDB;
+alter table customers add constraint UK_rfbvkrffamfql7cjmen8v976v unique (email);
+alter table invoices add constraint UK_6h2qhs8bxosfwmgkm6mbhwbia unique (invoice_number);
+alter table users add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+alter table users add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table customers add constraint FKk5cxdcmbb6lmbkc8eexuydpf5 foreign key (created_by) references users (id);
+alter table invoice_items add constraint FKbu6tmpd0mtgu9wrw5bj5uv09v foreign key (invoice_id) references invoices (id);
+alter table invoice_items add constraint FKfb8aqkwc4w6ljdsl8hnwn2y7q foreign key (product_id) references products (id);
+alter table invoices add constraint FK4ko3y00tkkk2ya3p6wnefjj2f foreign key (customer_id) references customers (id);
+alter table invoices add constraint FKbwr4d4vyqf2bkoetxtt8j9dx7 foreign key (user_id) references users (id);
+alter table products add constraint FKd4w4n9cjd5hg0u2s5ahcnn6yi foreign key (created_by) references users (id);
+
+insert into users (email, enabled, password, role, username) values ('early@example.com', 1, 'secret', 'USER', 'early');
+insert into customers (name, gstin, created_by) values ('Early Buyer', '27AAPFU0939F1ZV', 1);
+insert into products (name, price, hsn_code, gst_rate, created_by) values ('Router', 1000.00, '8517', 18.00, 1);
+insert into invoices (invoice_date, invoice_number, subtotal, total_gst, total_amount, customer_id, user_id)
+    values ('2024-05-02', 'INV-1001', 2000.00, 360.00, 2360.00, 1, 1);
+insert into invoice_items (quantity, unit_price, gst_rate, gst_amount, total_amount, invoice_id, product_id)
+    values (2, 1000.00, 18.00, 360.00, 2360.00, 1, 1);